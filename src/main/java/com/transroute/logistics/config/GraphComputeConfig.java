@@ -0,0 +1,19 @@
+package com.transroute.logistics.config;
+
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Configuración del pool de cómputo para algoritmos de grafos paralelos
+ * Un pool dedicado evita competir con el commonPool usado por otras partes de la aplicación
+ */
+@Configuration
+public class GraphComputeConfig {
+
+    @Bean(destroyMethod = "shutdown")
+    public ForkJoinPool graphComputePool() {
+        return new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+    }
+}
@@ -1,16 +1,47 @@
 package com.transroute.logistics.controller;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.transroute.logistics.dto.FlowRequest;
 import com.transroute.logistics.dto.GraphRequest;
+import com.transroute.logistics.dto.MatrixRequest;
+import com.transroute.logistics.dto.ReachabilityRequest;
+import com.transroute.logistics.dto.TourRequest;
+import com.transroute.logistics.service.BridgeAnalysis;
+import com.transroute.logistics.service.CentralityService;
+import com.transroute.logistics.service.CompressedGraph;
+import com.transroute.logistics.service.ContractionHierarchy;
+import com.transroute.logistics.service.ContractionHierarchyService;
+import com.transroute.logistics.service.ConnectivityService;
+import com.transroute.logistics.service.DeltaSteppingService;
+import com.transroute.logistics.service.DistanceMatrixService;
+import com.transroute.logistics.service.DynamicMstService;
+import com.transroute.logistics.service.DynamicSsspService;
 import com.transroute.logistics.service.GraphService;
+import com.transroute.logistics.service.GraphSnapshot;
+import com.transroute.logistics.service.GraphSnapshotService;
+import com.transroute.logistics.service.KShortestPathsService;
+import com.transroute.logistics.service.LandmarkService;
+import com.transroute.logistics.service.LandmarkTable;
+import com.transroute.logistics.service.MaxFlowService;
+import com.transroute.logistics.service.MinimumSpanningTreeService;
+import com.transroute.logistics.service.ParetoRoutingService;
+import com.transroute.logistics.service.SteinerTreeService;
+import com.transroute.logistics.service.TimeDependentRoutingService;
+import com.transroute.logistics.service.TourOptimizationService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.*;
 import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * Controlador REST para el módulo de Grafos
@@ -21,9 +52,65 @@ import java.util.stream.Collectors;
 @Tag(name = "Módulo 4: Grafos")
 public class GraphController {
 
+    private static final int MAX_K_CAMINOS = 20;
+    private static final int MAX_ETIQUETAS_POR_NODO = 256;
+    private static final int LINEAS_POR_FLUSH = 256;
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+
     @Autowired
     private GraphService graphService;
     
+    @Autowired
+    private GraphSnapshotService graphSnapshotService;
+    
+    @Autowired
+    private ContractionHierarchyService contractionHierarchyService;
+    
+    @Autowired
+    private LandmarkService landmarkService;
+    
+    @Autowired
+    private DeltaSteppingService deltaSteppingService;
+    
+    @Autowired
+    private DistanceMatrixService distanceMatrixService;
+    
+    @Autowired
+    private KShortestPathsService kShortestPathsService;
+    
+    @Autowired
+    private ParetoRoutingService paretoRoutingService;
+    
+    @Autowired
+    private TimeDependentRoutingService timeDependentRoutingService;
+    
+    @Autowired
+    private MinimumSpanningTreeService minimumSpanningTreeService;
+    
+    @Autowired
+    private DynamicMstService dynamicMstService;
+    
+    @Autowired
+    private DynamicSsspService dynamicSsspService;
+    
+    @Autowired
+    private SteinerTreeService steinerTreeService;
+    
+    @Autowired
+    private TourOptimizationService tourOptimizationService;
+    
+    @Autowired
+    private CentralityService centralityService;
+    
+    @Autowired
+    private ConnectivityService connectivityService;
+    
+    @Autowired
+    private MaxFlowService maxFlowService;
+    
+    @Autowired
+    private ObjectMapper objectMapper;
+    
     /**
      * Endpoint para obtener todos los centros de distribución
      */
@@ -59,7 +146,17 @@ public class GraphController {
         List<GraphService.Edge> edges = graphService.construirGrafoConSeleccion(selectedCenters, selectedRoutes);
         int vertices = selectedCenters != null ? selectedCenters.size() : 0;
         
-        List<GraphService.Edge> mst = graphService.kruskalMST(vertices, edges);
+        List<GraphService.Edge> mst;
+        String algoritmo = "Kruskal";
+        String complejidad = "O(E log E)";
+        if (minimumSpanningTreeService.conviene(edges.size())) {
+            MinimumSpanningTreeService.ResultadoMST resultado = minimumSpanningTreeService.calcular(vertices, edges);
+            mst = minimumSpanningTreeService.comoAristas(resultado, edges);
+            algoritmo = resultado.estrategia.nombre;
+            complejidad = resultado.estrategia.complejidad;
+        } else {
+            mst = graphService.kruskalMST(vertices, edges);
+        }
         long endTime = System.nanoTime();
         
         double costoTotal = graphService.calcularCostoTotal(mst);
@@ -74,8 +171,8 @@ public class GraphController {
                 .collect(Collectors.toList()));
         response.put("numeroAristas", mst.size());
         response.put("costoTotal", costoTotal);
-        response.put("algoritmo", "Kruskal");
-        response.put("complejidad", "O(E log E)");
+        response.put("algoritmo", algoritmo);
+        response.put("complejidad", complejidad);
         response.put("tiempoEjecucionNanosegundos", endTime - startTime);
         response.put("fuente", "neo4j-selected");
         response.put("centrosSeleccionados", selectedCenters != null ? selectedCenters.size() : 0);
@@ -84,6 +181,82 @@ public class GraphController {
         return ResponseEntity.ok(response);
     }
 
+    /**
+     * Endpoint para conectar un conjunto de centros con un árbol de Steiner aproximado
+     * A diferencia de /kruskal/mst/selected, puede pasar por centros no seleccionados
+     * Complejidad: O((V + E) log V)
+     */
+    @PostMapping("/steiner")
+    @Operation(summary = "Conecta centros terminales con un árbol de Steiner aproximado (Mehlhorn)",
+                description = "Usa toda la red de Neo4j, incluidos centros intermedios. " +
+                              "Costo a lo sumo 2(1 - 1/t) veces el óptimo. metrica opcional (COSTO por defecto).")
+    public ResponseEntity<Map<String, Object>> steinerTree(
+            @Parameter(description = "terminales (IDs de centros) y metrica opcional", required = true)
+            @RequestBody GraphRequest request) {
+        
+        GraphSnapshot.Metrica metrica;
+        try {
+            metrica = GraphSnapshot.Metrica.desde(request.getMetrica());
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "Métrica no soportada: " + request.getMetrica());
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+        
+        long startTime = System.nanoTime();
+        GraphSnapshot snapshot = graphService.obtenerSnapshot().conMetrica(metrica);
+        List<String> requested = request.getTerminales() != null ? request.getTerminales() : Collections.emptyList();
+        Set<Integer> unique = new LinkedHashSet<>();
+        List<String> unknown = new ArrayList<>();
+        for (String centerId : requested) {
+            int v = snapshot.indiceCentro(centerId);
+            if (v < 0) {
+                unknown.add(centerId);
+            } else {
+                unique.add(v);
+            }
+        }
+        if (!unknown.isEmpty() || unique.size() < 2) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", unknown.isEmpty()
+                    ? "Se requieren al menos dos centros terminales distintos"
+                    : "Centros inexistentes: " + unknown);
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+        
+        int[] terminales = unique.stream().mapToInt(Integer::intValue).toArray();
+        SteinerTreeService.ArbolSteiner arbol = steinerTreeService.construir(snapshot, terminales);
+        long endTime = System.nanoTime();
+        
+        List<Map<String, Object>> aristas = new ArrayList<>(arbol.rutas.length);
+        for (int r : arbol.rutas) {
+            Map<String, Object> arista = new HashMap<>();
+            arista.put("from", snapshot.origenRuta(r));
+            arista.put("to", snapshot.destinoRuta(r));
+            arista.put("fromCenterId", snapshot.idCentro(snapshot.origenRuta(r)));
+            arista.put("toCenterId", snapshot.idCentro(snapshot.destinoRuta(r)));
+            arista.put("routeId", snapshot.idRuta(r));
+            arista.put("weight", snapshot.pesoRuta(r));
+            aristas.add(arista);
+        }
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("aristas", aristas);
+        response.put("numeroAristas", arbol.rutas.length);
+        response.put("costoTotal", arbol.costoTotal);
+        response.put("terminales", terminales.length);
+        response.put("centrosIntermedios", arbol.intermedios.stream().map(snapshot::idCentro).collect(Collectors.toList()));
+        response.put("conexo", arbol.conexo);
+        response.put("metrica", metrica.name());
+        response.put("algoritmo", "Steiner aproximado (Mehlhorn)");
+        response.put("complejidad", "O((V + E) log V)");
+        response.put("tiempoEjecucionNanosegundos", endTime - startTime);
+        response.put("snapshotVersion", snapshot.getVersion());
+        response.put("fuente", "neo4j");
+        
+        return ResponseEntity.ok(response);
+    }
+
     /**
      * Endpoint para encontrar el Árbol de Recubrimiento Mínimo usando Kruskal
      * Complejidad: O(E log E)
@@ -96,23 +269,34 @@ public class GraphController {
             @RequestBody(required = false) GraphRequest request) {
         
         long startTime = System.nanoTime();
-        int vertices;
-        List<GraphService.Edge> edges;
+        List<GraphService.Edge> mst;
         String fuente;
+        MinimumSpanningTreeService.ResultadoMST resultado = null;
+        DynamicMstService.ArbolVigente arbol = null;
         
         if (request != null && request.getEdges() != null && !request.getEdges().isEmpty()) {
-            vertices = request.getVertices();
-            edges = request.getEdges().stream()
+            int vertices = request.getVertices();
+            List<GraphService.Edge> edges = request.getEdges().stream()
                     .map(e -> new GraphService.Edge(e.getFrom(), e.getTo(), e.getWeight()))
                     .collect(Collectors.toList());
             fuente = "request";
+            if (minimumSpanningTreeService.conviene(edges.size())) {
+                resultado = minimumSpanningTreeService.calcular(vertices, edges);
+                mst = minimumSpanningTreeService.comoAristas(resultado, edges);
+            } else {
+                mst = graphService.kruskalMST(vertices, edges);
+            }
         } else {
-            vertices = graphService.obtenerNumeroVertices();
-            edges = graphService.obtenerRutasYConstruirGrafoParaKruskal();
+            // El árbol de la red se mantiene en memoria y se actualiza al cambiar el estado de una ruta
+            GraphSnapshot snapshot = graphService.obtenerSnapshot();
+            arbol = dynamicMstService.obtenerArbol(snapshot);
+            mst = new ArrayList<>(arbol.rutas.length);
+            for (int r : arbol.rutas) {
+                mst.add(new GraphService.Edge(snapshot.origenRuta(r), snapshot.destinoRuta(r), snapshot.pesoRuta(r)));
+            }
             fuente = "neo4j";
         }
         
-        List<GraphService.Edge> mst = graphService.kruskalMST(vertices, edges);
         long endTime = System.nanoTime();
         
         double costoTotal = graphService.calcularCostoTotal(mst);
@@ -127,8 +311,17 @@ public class GraphController {
                 .collect(Collectors.toList()));
         response.put("numeroAristas", mst.size());
         response.put("costoTotal", costoTotal);
-        response.put("algoritmo", "Kruskal");
-        response.put("complejidad", "O(E log E)");
+        if (arbol != null) {
+            response.put("algoritmo", "MST dinámico (link-cut tree)");
+            response.put("complejidad", arbol.desdeMemoria
+                    ? "O(V) desde memoria; O(log V) amortizado por cambio de ruta"
+                    : "Construcción inicial con el motor de MST");
+            response.put("desdeMemoria", arbol.desdeMemoria);
+            response.put("actualizacionesIncrementales", arbol.actualizacionesIncrementales);
+        } else {
+            response.put("algoritmo", resultado != null ? resultado.estrategia.nombre : "Kruskal");
+            response.put("complejidad", resultado != null ? resultado.estrategia.complejidad : "O(E log E)");
+        }
         response.put("tiempoEjecucionNanosegundos", endTime - startTime);
         response.put("fuente", fuente);
         
@@ -147,21 +340,32 @@ public class GraphController {
             @RequestBody(required = false) GraphRequest request) {
         
         long startTime = System.nanoTime();
-        int vertices;
-        Map<Integer, List<int[]>> adjacencyList;
+        GraphSnapshot snapshot;
         String fuente;
         
         if (request != null && request.getAdjacencyList() != null && !request.getAdjacencyList().isEmpty()) {
-            vertices = request.getVertices();
-            adjacencyList = request.getAdjacencyList();
+            snapshot = GraphSnapshot.desdeListaAdyacencia(request.getVertices(), request.getAdjacencyList());
             fuente = "request";
         } else {
-            vertices = graphService.obtenerNumeroVertices();
-            adjacencyList = graphService.obtenerRutasYConstruirListaAdyacencia();
+            snapshot = graphService.obtenerSnapshot();
             fuente = "neo4j";
         }
         
-        List<GraphService.Edge> mst = graphService.primMST(vertices, adjacencyList);
+        // En redes grandes se usa el motor de MST (devuelve el bosque completo, no solo
+        // la componente del vértice 0), salvo que se pida la adyacencia comprimida
+        boolean comprimido = request != null && Boolean.TRUE.equals(request.getComprimido());
+        List<GraphService.Edge> mst;
+        MinimumSpanningTreeService.ResultadoMST resultado = null;
+        CompressedGraph graph = null;
+        if (comprimido) {
+            graph = snapshot.comprimida();
+            mst = graphService.primMST(graph);
+        } else if (minimumSpanningTreeService.conviene(snapshot.numeroRutas())) {
+            resultado = minimumSpanningTreeService.calcular(snapshot);
+            mst = minimumSpanningTreeService.comoAristas(resultado, snapshot);
+        } else {
+            mst = graphService.primMST(snapshot);
+        }
         long endTime = System.nanoTime();
         
         double costoTotal = graphService.calcularCostoTotal(mst);
@@ -176,8 +380,11 @@ public class GraphController {
                 .collect(Collectors.toList()));
         response.put("numeroAristas", mst.size());
         response.put("costoTotal", costoTotal);
-        response.put("algoritmo", "Prim");
-        response.put("complejidad", "O(E log V)");
+        response.put("algoritmo", resultado != null ? resultado.estrategia.nombre : "Prim");
+        response.put("complejidad", resultado != null ? resultado.estrategia.complejidad : "O(E log V)");
+        if (graph != null) {
+            describirComprimida(response, graph);
+        }
         response.put("tiempoEjecucionNanosegundos", endTime - startTime);
         response.put("fuente", fuente);
         
@@ -223,11 +430,10 @@ public class GraphController {
             return ResponseEntity.badRequest().body(errorResponse);
         }
         
-        // Construir lista de adyacencia con selección
-        Map<Integer, List<int[]>> adjacencyList = graphService.construirListaAdyacenciaConSeleccion(selectedCenters, selectedRoutes);
-        int vertices = selectedCenters.size();
+        // Construir la instantánea de la selección (pesos double, sin redondeo)
+        GraphSnapshot snapshot = graphService.construirSnapshotConSeleccion(selectedCenters, selectedRoutes);
         
-        double[] distances = graphService.dijkstra(vertices, source, adjacencyList);
+        double[] distances = graphService.dijkstra(snapshot, source);
         long endTime = System.nanoTime();
         
         Map<String, Object> response = new HashMap<>();
@@ -258,30 +464,67 @@ public class GraphController {
      */
     @PostMapping("/dijkstra/distances")
     @Operation(summary = "Encuentra las distancias más cortas desde un origen usando Dijkstra desde Neo4j",
-                description = "Complejidad: O((V + E) log V). Obtiene rutas de Neo4j y calcula distancias.")
+                description = "Complejidad: O((V + E) log V). Obtiene rutas de Neo4j y calcula distancias. " +
+                              "Desde " + DeltaSteppingService.UMBRAL_VERTICES + " vértices usa delta-stepping en paralelo " +
+                              "(paralelo=false lo evita; anchoBalde ajusta el ancho de los baldes).")
     public ResponseEntity<Map<String, Object>> dijkstraDistances(
             @Parameter(description = "Grafo con origen (opcional, usa Neo4j si source=0 por defecto)", required = false)
             @RequestBody(required = false) GraphRequest request) {
         
         long startTime = System.nanoTime();
-        int vertices;
         int source;
-        Map<Integer, List<int[]>> adjacencyList;
+        GraphSnapshot snapshot;
         String fuente;
         
         if (request != null && request.getAdjacencyList() != null && !request.getAdjacencyList().isEmpty()) {
-            vertices = request.getVertices();
+            snapshot = GraphSnapshot.desdeListaAdyacencia(request.getVertices(), request.getAdjacencyList());
             source = request.getSource();
-            adjacencyList = request.getAdjacencyList();
             fuente = "request";
         } else {
-            vertices = graphService.obtenerNumeroVertices();
-            source = 0; // Por defecto, origen es el primer centro
-            adjacencyList = graphService.obtenerRutasYConstruirListaAdyacencia();
+            snapshot = graphService.obtenerSnapshot();
+            // Por defecto, origen es el primer centro
+            source = request != null ? resolverVertice(snapshot, request.getSourceCenterId(), request.getSource(), 0) : 0;
             fuente = "neo4j";
         }
         
-        double[] distances = graphService.dijkstra(vertices, source, adjacencyList);
+        if (source < 0 || source >= snapshot.numeroVertices()) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "El vértice origen no existe en el grafo");
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+        
+        // Sobre la red de Neo4j los orígenes frecuentes se sirven desde árboles que se
+        // reparan de forma incremental cuando cambia el estado de una ruta
+        // En redes grandes (o si se pide) se usa delta-stepping en paralelo, salvo que el
+        // origen ya esté en la caché de árboles; el resultado queda en esa caché
+        boolean comprimido = request != null && Boolean.TRUE.equals(request.getComprimido());
+        Boolean paralelo = request != null ? request.getParalelo() : null;
+        boolean deltaStepping = !comprimido && (paralelo != null ? paralelo
+                : deltaSteppingService.conviene(snapshot.numeroVertices()));
+        double[] distances;
+        DynamicSsspService.DistanciasOrigen cacheadas = null;
+        CompressedGraph graph = null;
+        if ("neo4j".equals(fuente) && deltaStepping) {
+            cacheadas = dynamicSsspService.distanciasEnCache(snapshot, source);
+        }
+        if (cacheadas != null) {
+            deltaStepping = false;
+            distances = cacheadas.distancias;
+        } else if (comprimido) {
+            graph = snapshot.comprimida();
+            distances = graphService.dijkstra(graph, source);
+        } else if (deltaStepping) {
+            Double anchoBalde = request != null ? request.getAnchoBalde() : null;
+            distances = deltaSteppingService.calcular(snapshot, source, anchoBalde != null ? anchoBalde : 0.0);
+            if ("neo4j".equals(fuente)) {
+                cacheadas = dynamicSsspService.registrarDistancias(snapshot, source, distances);
+            }
+        } else if ("neo4j".equals(fuente)) {
+            cacheadas = dynamicSsspService.obtenerDistancias(snapshot, source);
+            distances = cacheadas.distancias;
+        } else {
+            distances = graphService.dijkstra(snapshot, source);
+        }
         long endTime = System.nanoTime();
         
         Map<String, Object> response = new HashMap<>();
@@ -296,8 +539,16 @@ public class GraphController {
         
         response.put("source", source);
         response.put("distances", distancesMap);
-        response.put("algoritmo", "Dijkstra");
-        response.put("complejidad", "O((V + E) log V)");
+        response.put("algoritmo", deltaStepping ? "Delta-stepping paralelo" : "Dijkstra");
+        response.put("complejidad", deltaStepping ? "O((V + E) / p + baldes) con p hilos" : "O((V + E) log V)");
+        if (cacheadas != null) {
+            response.put("desdeCache", cacheadas.desdeCache);
+            response.put("verticesReparados", cacheadas.verticesReparados);
+            response.put("snapshotVersion", snapshot.getVersion());
+        }
+        if (graph != null) {
+            describirComprimida(response, graph);
+        }
         response.put("tiempoEjecucionNanosegundos", endTime - startTime);
         response.put("fuente", fuente);
         
@@ -309,69 +560,1423 @@ public class GraphController {
      */
     @PostMapping("/dijkstra/path")
     @Operation(summary = "Encuentra el camino más corto entre dos vértices desde Neo4j",
-                description = "Obtiene rutas de Neo4j y calcula el camino más corto.")
+                description = "Obtiene rutas de Neo4j y calcula el camino más corto. " +
+                              "Acepta origen/destino por índice o por ID de centro, el modo de búsqueda " +
+                              "(DIJKSTRA, BIDIRECCIONAL o ASTAR) y la métrica (COSTO, DISTANCIA, DURACION, PEAJE o COMBUSTIBLE). " +
+                              "Con truckId o pesoKg solo usa rutas cuyo maxWeight admite ese peso.")
     public ResponseEntity<Map<String, Object>> dijkstraPath(
             @Parameter(description = "Grafo con origen y destino (opcional, usa Neo4j por defecto)", required = false)
             @RequestBody(required = false) GraphRequest request) {
         
         long startTime = System.nanoTime();
-        int vertices;
         int source;
         int destination;
-        Map<Integer, List<int[]>> adjacencyList;
+        GraphSnapshot snapshot;
         String fuente;
         
         if (request != null && request.getAdjacencyList() != null && !request.getAdjacencyList().isEmpty()) {
-            vertices = request.getVertices();
-            source = request.getSource();
-            destination = request.getDestination();
-            adjacencyList = request.getAdjacencyList();
+            snapshot = GraphSnapshot.desdeListaAdyacencia(request.getVertices(), request.getAdjacencyList());
+            source = request.getSource() != null ? request.getSource() : 0;
+            destination = request.getDestination() != null ? request.getDestination() : 0;
             fuente = "request";
         } else {
-            vertices = graphService.obtenerNumeroVertices();
-            source = 0;
-            destination = vertices > 1 ? 1 : 0;
-            adjacencyList = graphService.obtenerRutasYConstruirListaAdyacencia();
+            snapshot = graphService.obtenerSnapshot();
+            source = resolverVertice(snapshot, request != null ? request.getSourceCenterId() : null,
+                    request != null ? request.getSource() : null, 0);
+            destination = resolverVertice(snapshot, request != null ? request.getDestinationCenterId() : null,
+                    request != null ? request.getDestination() : null, snapshot.numeroVertices() > 1 ? 1 : 0);
             fuente = "neo4j";
         }
         
-        List<Integer> path = graphService.dijkstraPath(vertices, source, destination, adjacencyList);
+        if (source < 0 || source >= snapshot.numeroVertices()
+                || destination < 0 || destination >= snapshot.numeroVertices()) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "El origen y el destino deben existir en el grafo");
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+        
+        GraphService.ModoCamino modo;
+        try {
+            modo = GraphService.ModoCamino.desde(request != null ? request.getModo() : null);
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "Modo de búsqueda no soportado: " + request.getModo());
+            errorResponse.put("modosDisponibles", GraphService.ModoCamino.values());
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+        
+        GraphSnapshot.Metrica metrica;
+        try {
+            metrica = GraphSnapshot.Metrica.desde(request != null ? request.getMetrica() : null);
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "Métrica no soportada: " + request.getMetrica());
+            errorResponse.put("metricasDisponibles", GraphSnapshot.Metrica.values());
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+        snapshot = snapshot.conMetrica(metrica);
+        
+        // Restricción de peso: se usa la vista filtrada de la clase de peso (cacheada por instantánea)
+        Double pesoKg = request != null ? request.getPesoKg() : null;
+        if (pesoKg == null && request != null && request.getTruckId() != null && !request.getTruckId().isEmpty()) {
+            pesoKg = graphService.obtenerPesoCamion(request.getTruckId());
+            if (pesoKg == null) {
+                Map<String, Object> errorResponse = new HashMap<>();
+                errorResponse.put("error", "Camión no encontrado o sin capacidad registrada: " + request.getTruckId());
+                return ResponseEntity.badRequest().body(errorResponse);
+            }
+        }
+        if (pesoKg != null) {
+            snapshot = snapshot.paraPeso(pesoKg);
+        }
+        
+        GraphService.PathResult result = graphService.caminoMasCorto(snapshot, source, destination, modo);
         long endTime = System.nanoTime();
         
         Map<String, Object> response = new HashMap<>();
         
-        if (path != null) {
-            // Calcular distancia total del camino
-            double totalDistance = 0.0;
-            for (int i = 0; i < path.size() - 1; i++) {
-                int from = path.get(i);
-                int to = path.get(i + 1);
-                if (adjacencyList.containsKey(from)) {
-                    for (int[] neighbor : adjacencyList.get(from)) {
-                        if (neighbor[0] == to) {
-                            totalDistance += neighbor[1];
-                            break;
-                        }
-                    }
-                }
-            }
-            
-            response.put("path", path);
+        if (result.path != null) {
+            response.put("path", result.path);
             response.put("source", source);
             response.put("destination", destination);
-            response.put("totalDistance", totalDistance);
-            response.put("numeroVertices", path.size());
+            response.put("totalDistance", result.distance);
+            response.put("numeroVertices", result.path.size());
+            if ("neo4j".equals(fuente)) {
+                response.put("pathCenterIds", result.path.stream()
+                        .map(snapshot::idCentro)
+                        .collect(Collectors.toList()));
+            }
         } else {
             response.put("path", null);
             response.put("message", "No existe camino entre los vértices");
         }
         
-        response.put("algoritmo", "Dijkstra");
+        response.put("modo", modo.name());
+        response.put("metrica", metrica.name());
+        if (pesoKg != null) {
+            response.put("pesoKg", pesoKg);
+            response.put("clasePeso", snapshot.getClasePeso());
+            response.put("aristasPermitidas", snapshot.numeroAristas());
+        }
+        response.put("nodosAsentados", result.settledNodes);
+        response.put("algoritmo", nombreAlgoritmo(modo));
         response.put("complejidad", "O((V + E) log V)");
         response.put("tiempoEjecucionNanosegundos", endTime - startTime);
         response.put("fuente", fuente);
         
         return ResponseEntity.ok(response);
     }
-}
 
+    /**
+     * Endpoint para obtener el mejor camino y sus alternativas (algoritmo de Yen)
+     */
+    @PostMapping("/paths/k-shortest")
+    @Operation(summary = "K caminos más cortos sin ciclos (Yen)",
+                description = "Devuelve el mejor camino y hasta k-1 alternativas ordenadas por distancia sobre la red de Neo4j. " +
+                              "Origen/destino por ID de centro (sourceCenterId/destinationCenterId) o índice.")
+    public ResponseEntity<Map<String, Object>> kShortestPaths(
+            @Parameter(description = "Origen, destino, k (1-" + MAX_K_CAMINOS + ", por defecto 3) y métrica", required = true)
+            @RequestBody GraphRequest request) {
+        
+        long startTime = System.nanoTime();
+        GraphSnapshot.Metrica metrica;
+        try {
+            metrica = GraphSnapshot.Metrica.desde(request.getMetrica());
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "Métrica no soportada: " + request.getMetrica());
+            errorResponse.put("metricasDisponibles", GraphSnapshot.Metrica.values());
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+        
+        int k = request.getK() != null ? request.getK() : 3;
+        if (k < 1 || k > MAX_K_CAMINOS) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "k debe estar entre 1 y " + MAX_K_CAMINOS);
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+        
+        GraphSnapshot snapshot = graphService.obtenerSnapshot().conMetrica(metrica);
+        int source = resolverVertice(snapshot, request.getSourceCenterId(), request.getSource(), 0);
+        int destination = resolverVertice(snapshot, request.getDestinationCenterId(), request.getDestination(), 0);
+        
+        if (source < 0 || source >= snapshot.numeroVertices()
+                || destination < 0 || destination >= snapshot.numeroVertices()) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "El origen y el destino deben existir en el grafo");
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+        
+        List<KShortestPathsService.CaminoAlternativo> caminos =
+                kShortestPathsService.kCaminosMasCortos(snapshot, source, destination, k);
+        long endTime = System.nanoTime();
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("caminos", caminos.stream()
+                .map(c -> Map.of(
+                        "path", c.path,
+                        "pathCenterIds", c.path.stream().map(snapshot::idCentro).collect(Collectors.toList()),
+                        "routeIds", c.routes.stream().map(snapshot::idRuta).collect(Collectors.toList()),
+                        "totalDistance", c.distance
+                ))
+                .collect(Collectors.toList()));
+        response.put("numeroCaminos", caminos.size());
+        response.put("k", k);
+        response.put("source", source);
+        response.put("destination", destination);
+        response.put("metrica", metrica.name());
+        response.put("algoritmo", "Yen (desvíos A* con árbol inverso de caminos más cortos)");
+        response.put("complejidad", "O(k · V · (V + E) log V) en el peor caso");
+        response.put("tiempoEjecucionNanosegundos", endTime - startTime);
+        response.put("snapshotVersion", snapshot.getVersion());
+        response.put("fuente", "neo4j");
+        
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Endpoint para obtener el frente de Pareto entre varios criterios
+     * Permite comparar, por ejemplo, costo contra tiempo sin una consulta por ponderación
+     */
+    @PostMapping("/paths/pareto")
+    @Operation(summary = "Caminos Pareto-óptimos multicriterio",
+                description = "Búsqueda de etiquetas con poda por dominancia y conjuntos acotados por vértice. " +
+                              "Criterios: COSTO, DISTANCIA, DURACION, PEAJE, COMBUSTIBLE (por defecto COSTO, DURACION, PEAJE).")
+    public ResponseEntity<Map<String, Object>> paretoPaths(
+            @Parameter(description = "Origen, destino, criterios y maxEtiquetasPorNodo (1-" + MAX_ETIQUETAS_POR_NODO + ", por defecto 16)", required = true)
+            @RequestBody GraphRequest request) {
+        
+        long startTime = System.nanoTime();
+        List<GraphSnapshot.Metrica> criterios = new ArrayList<>();
+        List<String> solicitados = request.getCriterios() != null && !request.getCriterios().isEmpty()
+                ? request.getCriterios() : List.of("COSTO", "DURACION", "PEAJE");
+        for (String criterio : solicitados) {
+            GraphSnapshot.Metrica metrica;
+            try {
+                metrica = GraphSnapshot.Metrica.desde(criterio);
+            } catch (IllegalArgumentException e) {
+                Map<String, Object> errorResponse = new HashMap<>();
+                errorResponse.put("error", "Criterio no soportado: " + criterio);
+                errorResponse.put("criteriosDisponibles", GraphSnapshot.Metrica.values());
+                return ResponseEntity.badRequest().body(errorResponse);
+            }
+            if (!criterios.contains(metrica)) {
+                criterios.add(metrica);
+            }
+        }
+        
+        int maxEtiquetas = request.getMaxEtiquetasPorNodo() != null ? request.getMaxEtiquetasPorNodo() : 16;
+        if (maxEtiquetas < 1 || maxEtiquetas > MAX_ETIQUETAS_POR_NODO) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "maxEtiquetasPorNodo debe estar entre 1 y " + MAX_ETIQUETAS_POR_NODO);
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+        
+        GraphSnapshot snapshot = graphService.obtenerSnapshot();
+        int source = resolverVertice(snapshot, request.getSourceCenterId(), request.getSource(), 0);
+        int destination = resolverVertice(snapshot, request.getDestinationCenterId(), request.getDestination(), 0);
+        
+        if (source < 0 || source >= snapshot.numeroVertices()
+                || destination < 0 || destination >= snapshot.numeroVertices()) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "El origen y el destino deben existir en el grafo");
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+        
+        ParetoRoutingService.FrentePareto frente =
+                paretoRoutingService.calcularFrente(snapshot, source, destination, criterios, maxEtiquetas);
+        long endTime = System.nanoTime();
+        
+        List<Map<String, Object>> soluciones = new ArrayList<>();
+        for (ParetoRoutingService.SolucionPareto solucion : frente.soluciones) {
+            Map<String, Object> valores = new LinkedHashMap<>();
+            for (int c = 0; c < criterios.size(); c++) {
+                valores.put(criterios.get(c).name(), solucion.valores[c]);
+            }
+            Map<String, Object> item = new HashMap<>();
+            item.put("path", solucion.path);
+            item.put("pathCenterIds", solucion.path.stream().map(snapshot::idCentro).collect(Collectors.toList()));
+            item.put("routeIds", solucion.routes.stream().map(snapshot::idRuta).collect(Collectors.toList()));
+            item.put("valores", valores);
+            soluciones.add(item);
+        }
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("soluciones", soluciones);
+        response.put("numeroSoluciones", soluciones.size());
+        response.put("criterios", criterios);
+        response.put("aproximado", frente.aproximado);
+        response.put("etiquetasCreadas", frente.etiquetasCreadas);
+        response.put("source", source);
+        response.put("destination", destination);
+        response.put("algoritmo", "Búsqueda de etiquetas multicriterio (dominancia de Pareto)");
+        response.put("complejidad", "Exponencial en el peor caso; acotada por maxEtiquetasPorNodo · V");
+        response.put("tiempoEjecucionNanosegundos", endTime - startTime);
+        response.put("snapshotVersion", snapshot.getVersion());
+        response.put("fuente", "neo4j");
+        
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Endpoint para el camino de llegada más temprana según la hora de salida
+     * El tiempo de cada ruta depende de su duración, su nivel de tráfico y la hora en que se recorre
+     */
+    @PostMapping("/paths/time-dependent")
+    @Operation(summary = "Camino más rápido dependiente de la hora de salida",
+                description = "Usa duration y trafficLevel de cada ruta con perfiles horarios de velocidad (FIFO). " +
+                              "horaSalida en formato HH:mm (por defecto 08:00).")
+    public ResponseEntity<Map<String, Object>> timeDependentPath(
+            @Parameter(description = "Origen, destino y horaSalida", required = true)
+            @RequestBody GraphRequest request) {
+        
+        long startTime = System.nanoTime();
+        double salida;
+        try {
+            salida = parsearHora(request.getHoraSalida() != null ? request.getHoraSalida() : "08:00");
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "horaSalida debe tener formato HH:mm: " + request.getHoraSalida());
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+        
+        GraphSnapshot snapshot = graphService.obtenerSnapshot();
+        int source = resolverVertice(snapshot, request.getSourceCenterId(), request.getSource(), 0);
+        int destination = resolverVertice(snapshot, request.getDestinationCenterId(), request.getDestination(), 0);
+        
+        if (source < 0 || source >= snapshot.numeroVertices()
+                || destination < 0 || destination >= snapshot.numeroVertices()) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "El origen y el destino deben existir en el grafo");
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+        
+        TimeDependentRoutingService.ItinerarioResult result =
+                timeDependentRoutingService.llegadaMasTemprana(snapshot, source, destination, salida);
+        long endTime = System.nanoTime();
+        
+        Map<String, Object> response = new HashMap<>();
+        if (result != null) {
+            response.put("path", result.path);
+            response.put("pathCenterIds", result.path.stream().map(snapshot::idCentro).collect(Collectors.toList()));
+            response.put("routeIds", result.routes.stream().map(snapshot::idRuta).collect(Collectors.toList()));
+            response.put("llegadas", result.llegadas.stream().map(this::formatearHora).collect(Collectors.toList()));
+            response.put("horaLlegada", formatearHora(result.llegada));
+            response.put("duracionMinutos", result.llegada - result.salida);
+            response.put("duracionFlujoLibreMinutos", result.duracionFlujoLibre);
+            response.put("demoraTraficoMinutos", result.llegada - result.salida - result.duracionFlujoLibre);
+            response.put("nodosAsentados", result.settledNodes);
+        } else {
+            response.put("path", null);
+            response.put("message", "No existe camino entre los vértices");
+        }
+        
+        response.put("horaSalida", formatearHora(salida));
+        response.put("source", source);
+        response.put("destination", destination);
+        response.put("algoritmo", "A* dependiente del tiempo (perfiles FIFO por nivel de tráfico)");
+        response.put("complejidad", "O((V + E) log V) con evaluación O(log franjas) por arista");
+        response.put("tiempoEjecucionNanosegundos", endTime - startTime);
+        response.put("snapshotVersion", snapshot.getVersion());
+        response.put("fuente", "neo4j");
+        
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Endpoint para ordenar las paradas de un camión (TSP)
+     * Matriz de costos calculada una vez, vecino más cercano y mejora 2-opt / Or-opt con límite de tiempo
+     */
+    @PostMapping("/tour")
+    @Operation(summary = "Optimiza el orden de visita de varios centros para un camión",
+                description = "sourceCenterId es el origen y paradas los centros a visitar. retornarAlOrigen (true por defecto) " +
+                              "cierra el recorrido. tiempoLimiteMs acota la optimización. Con truckId o pesoKg solo usa " +
+                              "rutas cuyo maxWeight admite ese peso.")
+    public ResponseEntity<Map<String, Object>> optimizeTour(
+            @Parameter(description = "Origen, paradas, métrica y límite de tiempo", required = true)
+            @RequestBody TourRequest request) {
+        
+        long startTime = System.nanoTime();
+        GraphSnapshot.Metrica metrica;
+        try {
+            metrica = GraphSnapshot.Metrica.desde(request.getMetrica());
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "Métrica no soportada: " + request.getMetrica());
+            errorResponse.put("metricasDisponibles", GraphSnapshot.Metrica.values());
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+        GraphSnapshot snapshot = graphService.obtenerSnapshot().conMetrica(metrica);
+        
+        Double pesoKg = request.getPesoKg();
+        if (pesoKg == null && request.getTruckId() != null && !request.getTruckId().isEmpty()) {
+            pesoKg = graphService.obtenerPesoCamion(request.getTruckId());
+            if (pesoKg == null) {
+                Map<String, Object> errorResponse = new HashMap<>();
+                errorResponse.put("error", "Camión no encontrado o sin capacidad registrada: " + request.getTruckId());
+                return ResponseEntity.badRequest().body(errorResponse);
+            }
+        }
+        if (pesoKg != null) {
+            snapshot = snapshot.paraPeso(pesoKg);
+        }
+        
+        int origen = resolverVertice(snapshot, request.getSourceCenterId(), request.getSource(), 0);
+        List<String> requested = request.getParadas() != null ? request.getParadas() : Collections.emptyList();
+        Set<Integer> unique = new LinkedHashSet<>();
+        List<String> unknown = new ArrayList<>();
+        for (String centerId : requested) {
+            int v = snapshot.indiceCentro(centerId);
+            if (v < 0) {
+                unknown.add(centerId);
+            } else if (v != origen) {
+                unique.add(v);
+            }
+        }
+        if (origen < 0 || origen >= snapshot.numeroVertices() || !unknown.isEmpty() || unique.isEmpty()) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", !unknown.isEmpty()
+                    ? "Centros inexistentes: " + unknown
+                    : "Se requiere un origen válido y al menos una parada distinta del origen");
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+        
+        if (request.getTiempoLimiteMs() != null && request.getTiempoLimiteMs() > TourOptimizationService.TIEMPO_LIMITE_MAXIMO_MS) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "tiempoLimiteMs no puede superar " + TourOptimizationService.TIEMPO_LIMITE_MAXIMO_MS + " ms");
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+        
+        boolean cerrado = request.getRetornarAlOrigen() == null || request.getRetornarAlOrigen();
+        long limite = request.getTiempoLimiteMs() != null && request.getTiempoLimiteMs() > 0
+                ? request.getTiempoLimiteMs() : TourOptimizationService.TIEMPO_LIMITE_POR_DEFECTO_MS;
+        TourOptimizationService.RecorridoOptimizado recorrido = tourOptimizationService.optimizar(snapshot, origen,
+                unique.stream().mapToInt(Integer::intValue).toArray(), cerrado, limite);
+        long endTime = System.nanoTime();
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("recorrido", recorrido.orden);
+        response.put("recorridoCenterIds", recorrido.orden.stream().map(snapshot::idCentro).collect(Collectors.toList()));
+        response.put("costosTramos", recorrido.costosTramos);
+        response.put("costoTotal", recorrido.costoTotal);
+        response.put("costoVecinoMasCercano", recorrido.costoInicial);
+        response.put("paradasNoAlcanzables", recorrido.noAlcanzables.stream().map(snapshot::idCentro).collect(Collectors.toList()));
+        response.put("retornaAlOrigen", cerrado);
+        response.put("movimientosAplicados", recorrido.movimientos);
+        response.put("optimoLocal", recorrido.optimoLocal);
+        response.put("tiempoLimiteMs", limite);
+        response.put("metrica", metrica.name());
+        response.put("algoritmo", "Vecino más cercano + 2-opt / Or-opt con listas de vecinos");
+        response.put("complejidad", "O(n (V + E) log V) para la matriz + O(n·K) por pasada de mejora");
+        response.put("tiempoEjecucionNanosegundos", endTime - startTime);
+        response.put("snapshotVersion", snapshot.getVersion());
+        response.put("fuente", "neo4j");
+        
+        return ResponseEntity.ok(response);
+    }
+
+    /**
+     * Endpoint de alcance (isócrona): centros alcanzables desde un origen dentro de un presupuesto
+     * La búsqueda deja de expandir al superar el presupuesto; el costo depende del área cubierta
+     */
+    @PostMapping("/reachability")
+    @Operation(summary = "Centros alcanzables dentro de un presupuesto (km, minutos o pesos)",
+                description = "metrica DISTANCIA (km), DURACION (minutos) o COSTO (pesos, por defecto). " +
+                              "Devuelve los centros en orden de distancia creciente. maxResultados es opcional.")
+    public ResponseEntity<Map<String, Object>> reachability(
+            @Parameter(description = "sourceCenterId, presupuesto, metrica y maxResultados", required = true)
+            @RequestBody ReachabilityRequest request) {
+        
+        long startTime = System.nanoTime();
+        Map<String, Object> errorResponse = new HashMap<>();
+        GraphSnapshot snapshot = prepararAlcance(request, errorResponse);
+        if (snapshot == null) {
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+        int source = resolverVertice(snapshot, request.getSourceCenterId(), request.getSource(), 0);
+        int maxResultados = request.getMaxResultados() != null ? request.getMaxResultados() : Integer.MAX_VALUE;
+        
+        List<Map<String, Object>> alcanzados = new ArrayList<>();
+        GraphService.ResultadoAlcance resultado = graphService.dijkstraAcotado(snapshot, source, request.getPresupuesto(), maxResultados,
+                (vertex, distance, predecessor) -> alcanzados.add(describirAlcance(snapshot, vertex, distance, predecessor)));
+        long endTime = System.nanoTime();
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("alcanzados", alcanzados);
+        response.put("totalAlcanzados", resultado.alcanzados);
+        response.put("truncado", resultado.truncado);
+        response.put("sourceCenterId", snapshot.idCentro(source));
+        response.put("presupuesto", request.getPresupuesto());
+        response.put("metrica", snapshot.getMetrica().name());
+        response.put("algoritmo", "Dijkstra acotado por presupuesto");
+        response.put("complejidad", "O((V' + E') log V') sobre el área alcanzada");
+        response.put("tiempoEjecucionNanosegundos", endTime - startTime);
+        response.put("snapshotVersion", snapshot.getVersion());
+        response.put("fuente", "neo4j");
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * Misma consulta que /reachability, emitida como NDJSON a medida que cada centro se asienta
+     */
+    @PostMapping(value = "/reachability/stream", produces = "application/x-ndjson")
+    @Operation(summary = "Centros alcanzables dentro de un presupuesto, por streaming (NDJSON)",
+                description = "Misma entrada que /reachability; una línea JSON por centro en orden de distancia.")
+    public ResponseEntity<StreamingResponseBody> reachabilityStream(@RequestBody ReachabilityRequest request) {
+        
+        Map<String, Object> errorResponse = new HashMap<>();
+        GraphSnapshot snapshot = prepararAlcance(request, errorResponse);
+        if (snapshot == null) {
+            return errorEnStreaming(errorResponse);
+        }
+        int source = resolverVertice(snapshot, request.getSourceCenterId(), request.getSource(), 0);
+        int maxResultados = request.getMaxResultados() != null ? request.getMaxResultados() : Integer.MAX_VALUE;
+        double presupuesto = request.getPresupuesto();
+        
+        StreamingResponseBody body = out -> {
+            int[] lines = {0};
+            try {
+                graphService.dijkstraAcotado(snapshot, source, presupuesto, maxResultados, (vertex, distance, predecessor) -> {
+                    try {
+                        out.write(objectMapper.writeValueAsBytes(describirAlcance(snapshot, vertex, distance, predecessor)));
+                        out.write('\n');
+                        if (++lines[0] % LINEAS_POR_FLUSH == 0) {
+                            out.flush();
+                        }
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            out.flush();
+        };
+        return ResponseEntity.ok()
+                .contentType(NDJSON)
+                .header("X-Snapshot-Version", String.valueOf(snapshot.getVersion()))
+                .body(body);
+    }
+
+    /**
+     * Endpoint para consultas origen-destino sobre la jerarquía de contracción
+     * La jerarquía se preprocesa en segundo plano; mientras no esté lista responde Dijkstra bidireccional
+     */
+    @PostMapping("/ch/path")
+    @Operation(summary = "Camino más corto usando Contraction Hierarchies",
+                description = "Consulta bidireccional sobre la jerarquía precalculada de la red de Neo4j. " +
+                              "Origen/destino por ID de centro (sourceCenterId/destinationCenterId) o índice.")
+    public ResponseEntity<Map<String, Object>> contractionHierarchyPath(
+            @Parameter(description = "Origen, destino y métrica", required = true)
+            @RequestBody GraphRequest request) {
+        
+        long startTime = System.nanoTime();
+        GraphSnapshot.Metrica metrica;
+        try {
+            metrica = GraphSnapshot.Metrica.desde(request.getMetrica());
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "Métrica no soportada: " + request.getMetrica());
+            errorResponse.put("metricasDisponibles", GraphSnapshot.Metrica.values());
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+        
+        GraphSnapshot snapshot = graphService.obtenerSnapshot().conMetrica(metrica);
+        int source = resolverVertice(snapshot, request.getSourceCenterId(), request.getSource(), 0);
+        int destination = resolverVertice(snapshot, request.getDestinationCenterId(), request.getDestination(), 0);
+        
+        if (source < 0 || source >= snapshot.numeroVertices()
+                || destination < 0 || destination >= snapshot.numeroVertices()) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "El origen y el destino deben existir en el grafo");
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+        
+        boolean jerarquiaLista = contractionHierarchyService.obtenerJerarquia(snapshot) != null;
+        GraphService.PathResult result = contractionHierarchyService.consultar(snapshot, source, destination);
+        long endTime = System.nanoTime();
+        
+        Map<String, Object> response = new HashMap<>();
+        if (result.path != null) {
+            response.put("path", result.path);
+            response.put("pathCenterIds", result.path.stream()
+                    .map(snapshot::idCentro)
+                    .collect(Collectors.toList()));
+            response.put("totalDistance", result.distance);
+            response.put("numeroVertices", result.path.size());
+        } else {
+            response.put("path", null);
+            response.put("message", "No existe camino entre los vértices");
+        }
+        
+        response.put("source", source);
+        response.put("destination", destination);
+        response.put("metrica", metrica.name());
+        response.put("nodosAsentados", result.settledNodes);
+        response.put("algoritmo", jerarquiaLista ? "Contraction Hierarchies" : "Dijkstra bidireccional (jerarquía en construcción)");
+        response.put("complejidad", "Preprocesamiento casi lineal; consulta sobre el espacio de búsqueda ascendente");
+        response.put("tiempoEjecucionNanosegundos", endTime - startTime);
+        response.put("snapshotVersion", snapshot.getVersion());
+        response.put("fuente", "neo4j");
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * Endpoint para consultar el estado de la jerarquía de contracción
+     */
+    @GetMapping("/ch/status")
+    @Operation(summary = "Estado de la jerarquía de contracción",
+                description = "Indica si la jerarquía de la métrica está lista para la instantánea vigente.")
+    public ResponseEntity<Map<String, Object>> contractionHierarchyStatus(
+            @RequestParam(defaultValue = "COSTO") String metrica) {
+        
+        GraphSnapshot.Metrica m;
+        try {
+            m = GraphSnapshot.Metrica.desde(metrica);
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "Métrica no soportada: " + metrica);
+            errorResponse.put("metricasDisponibles", GraphSnapshot.Metrica.values());
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+        GraphSnapshot snapshot = graphService.obtenerSnapshot().conMetrica(m);
+        ContractionHierarchy hierarchy = contractionHierarchyService.obtenerJerarquia(snapshot);
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("metrica", snapshot.getMetrica().name());
+        response.put("snapshotVersion", snapshot.getVersion());
+        response.put("lista", hierarchy != null);
+        response.put("enConstruccion", contractionHierarchyService.enConstruccion(snapshot));
+        if (hierarchy != null) {
+            response.put("vertices", hierarchy.numeroVertices());
+            response.put("aristas", hierarchy.numeroAristas());
+            response.put("atajos", hierarchy.numeroAtajos());
+            response.put("tiempoConstruccionNanosegundos", hierarchy.getTiempoConstruccionNanos());
+        }
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * Endpoint para forzar la reconstrucción en segundo plano de la jerarquía
+     */
+    @PostMapping("/ch/rebuild")
+    @Operation(summary = "Programa la reconstrucción de la jerarquía de contracción en segundo plano")
+    public ResponseEntity<Map<String, Object>> contractionHierarchyRebuild(
+            @RequestParam(defaultValue = "COSTO") String metrica) {
+        
+        GraphSnapshot.Metrica m;
+        try {
+            m = GraphSnapshot.Metrica.desde(metrica);
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "Métrica no soportada: " + metrica);
+            errorResponse.put("metricasDisponibles", GraphSnapshot.Metrica.values());
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+        contractionHierarchyService.reconstruir(m);
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("metrica", m.name());
+        response.put("message", "Reconstrucción programada en segundo plano");
+        return ResponseEntity.accepted().body(response);
+    }
+
+    /**
+     * Endpoint para consultas origen-destino con A* guiado por landmarks (ALT)
+     * Las tablas se precalculan en segundo plano; mientras no estén listas responde Dijkstra bidireccional
+     */
+    @PostMapping("/alt/path")
+    @Operation(summary = "Camino más corto usando A* con landmarks (ALT)",
+                description = "Cota por desigualdad triangular con distancias precalculadas a centros landmark: " +
+                              "no necesita coordenadas y sirve para cualquier métrica (p. ej. COSTO). " +
+                              "Con truckId o pesoKg solo usa rutas cuyo maxWeight admite ese peso.")
+    public ResponseEntity<Map<String, Object>> landmarkPath(
+            @Parameter(description = "Origen, destino, métrica y peso opcional", required = true)
+            @RequestBody GraphRequest request) {
+        
+        long startTime = System.nanoTime();
+        GraphSnapshot.Metrica metrica;
+        try {
+            metrica = GraphSnapshot.Metrica.desde(request.getMetrica());
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "Métrica no soportada: " + request.getMetrica());
+            errorResponse.put("metricasDisponibles", GraphSnapshot.Metrica.values());
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+        
+        GraphSnapshot snapshot = graphService.obtenerSnapshot().conMetrica(metrica);
+        int source = resolverVertice(snapshot, request.getSourceCenterId(), request.getSource(), 0);
+        int destination = resolverVertice(snapshot, request.getDestinationCenterId(), request.getDestination(), 0);
+        
+        if (source < 0 || source >= snapshot.numeroVertices()
+                || destination < 0 || destination >= snapshot.numeroVertices()) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "El origen y el destino deben existir en el grafo");
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+        
+        Double pesoKg = request.getPesoKg();
+        if (pesoKg == null && request.getTruckId() != null && !request.getTruckId().isEmpty()) {
+            pesoKg = graphService.obtenerPesoCamion(request.getTruckId());
+            if (pesoKg == null) {
+                Map<String, Object> errorResponse = new HashMap<>();
+                errorResponse.put("error", "Camión no encontrado o sin capacidad registrada: " + request.getTruckId());
+                return ResponseEntity.badRequest().body(errorResponse);
+            }
+        }
+        if (pesoKg != null) {
+            snapshot = snapshot.paraPeso(pesoKg);
+        }
+        
+        boolean tablasListas = landmarkService.obtenerTabla(snapshot) != null;
+        GraphService.PathResult result = landmarkService.consultar(snapshot, source, destination);
+        long endTime = System.nanoTime();
+        
+        Map<String, Object> response = new HashMap<>();
+        if (result.path != null) {
+            response.put("path", result.path);
+            response.put("pathCenterIds", result.path.stream()
+                    .map(snapshot::idCentro)
+                    .collect(Collectors.toList()));
+            response.put("totalDistance", result.distance);
+            response.put("numeroVertices", result.path.size());
+        } else {
+            response.put("path", null);
+            response.put("message", "No existe camino entre los vértices");
+        }
+        
+        response.put("source", source);
+        response.put("destination", destination);
+        response.put("metrica", metrica.name());
+        if (pesoKg != null) {
+            response.put("pesoKg", pesoKg);
+        }
+        response.put("nodosAsentados", result.settledNodes);
+        response.put("algoritmo", tablasListas ? "A* con landmarks (ALT)" : "Dijkstra bidireccional (landmarks en construcción)");
+        response.put("complejidad", "Preprocesamiento O(k (V + E) log V); consulta O((V + E) log V) en el peor caso");
+        response.put("tiempoEjecucionNanosegundos", endTime - startTime);
+        response.put("snapshotVersion", snapshot.getVersion());
+        response.put("fuente", "neo4j");
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * Endpoint para consultar el estado de las tablas de landmarks
+     */
+    @GetMapping("/alt/status")
+    @Operation(summary = "Estado de las tablas de landmarks (ALT)",
+                description = "Indica si las tablas de la métrica están listas para la instantánea vigente.")
+    public ResponseEntity<Map<String, Object>> landmarkStatus(
+            @RequestParam(defaultValue = "COSTO") String metrica) {
+        
+        GraphSnapshot.Metrica m;
+        try {
+            m = GraphSnapshot.Metrica.desde(metrica);
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "Métrica no soportada: " + metrica);
+            errorResponse.put("metricasDisponibles", GraphSnapshot.Metrica.values());
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+        GraphSnapshot snapshot = graphService.obtenerSnapshot().conMetrica(m);
+        LandmarkTable table = landmarkService.obtenerTabla(snapshot);
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("metrica", snapshot.getMetrica().name());
+        response.put("snapshotVersion", snapshot.getVersion());
+        response.put("lista", table != null);
+        response.put("enConstruccion", landmarkService.enConstruccion(snapshot));
+        if (table != null) {
+            int[] landmarks = table.getLandmarks();
+            response.put("landmarks", Arrays.stream(landmarks).mapToObj(snapshot::idCentro)
+                    .collect(Collectors.toList()));
+            response.put("bytesTablas", table.tamanoBytes());
+            response.put("tiempoConstruccionNanosegundos", table.getTiempoConstruccionNanos());
+        }
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * Endpoint para forzar el recálculo en segundo plano de las tablas de landmarks
+     */
+    @PostMapping("/alt/rebuild")
+    @Operation(summary = "Programa el recálculo de las tablas de landmarks en segundo plano")
+    public ResponseEntity<Map<String, Object>> landmarkRebuild(
+            @RequestParam(defaultValue = "COSTO") String metrica) {
+        
+        GraphSnapshot.Metrica m;
+        try {
+            m = GraphSnapshot.Metrica.desde(metrica);
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "Métrica no soportada: " + metrica);
+            errorResponse.put("metricasDisponibles", GraphSnapshot.Metrica.values());
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+        landmarkService.reconstruir(m);
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("metrica", m.name());
+        response.put("message", "Reconstrucción programada en segundo plano");
+        return ResponseEntity.accepted().body(response);
+    }
+
+    /**
+     * Endpoint para obtener los centros y rutas más críticos por centralidad de intermediación
+     * Exacto en redes chicas; en las grandes muestrea orígenes (se guarda el último resultado por métrica)
+     */
+    @GetMapping("/centrality")
+    @Operation(summary = "Centralidad de intermediación y cercanía (Brandes)",
+                description = "Centros y rutas por los que pasan más caminos mínimos, y centros más cercanos al resto. " +
+                              "Los orígenes se reparten entre los núcleos; con muestras > 0 el cálculo es aproximado.")
+    public ResponseEntity<Map<String, Object>> centrality(
+            @RequestParam(defaultValue = "COSTO") String metrica,
+            @Parameter(description = "Orígenes muestreados (0 = exacto; por defecto según el tamaño de la red)")
+            @RequestParam(required = false) Integer muestras,
+            @RequestParam(defaultValue = "20") int top) {
+        
+        long startTime = System.nanoTime();
+        GraphSnapshot.Metrica m;
+        try {
+            m = GraphSnapshot.Metrica.desde(metrica);
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "Métrica no soportada: " + metrica);
+            errorResponse.put("metricasDisponibles", GraphSnapshot.Metrica.values());
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+        if (top <= 0 || (muestras != null && muestras < 0)) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "top debe ser positivo y muestras no negativo");
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+        
+        GraphSnapshot snapshot = graphService.obtenerSnapshot().conMetrica(m);
+        int k = muestras != null ? muestras : centralityService.muestrasPorDefecto(snapshot.numeroVertices());
+        CentralityService.Resultado result = centralityService.calcular(snapshot, k);
+        long endTime = System.nanoTime();
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("centrosPorIntermediacion", mejores(result.intermediacionCentros, top).stream()
+                .map(v -> puntajeCentro(snapshot, v, result.intermediacionCentros[v]))
+                .collect(Collectors.toList()));
+        response.put("centrosPorCercania", mejores(result.cercania, top).stream()
+                .map(v -> puntajeCentro(snapshot, v, result.cercania[v]))
+                .collect(Collectors.toList()));
+        response.put("rutasPorIntermediacion", mejores(result.intermediacionRutas, top).stream()
+                .map(r -> {
+                    Map<String, Object> item = new LinkedHashMap<>();
+                    item.put("routeId", snapshot.idRuta(r));
+                    item.put("fromCenterId", snapshot.idCentro(snapshot.origenRuta(r)));
+                    item.put("toCenterId", snapshot.idCentro(snapshot.destinoRuta(r)));
+                    item.put("puntaje", result.intermediacionRutas[r]);
+                    return item;
+                })
+                .collect(Collectors.toList()));
+        response.put("metrica", m.name());
+        response.put("aproximado", result.aproximado);
+        response.put("origenes", result.origenes);
+        response.put("tiempoCalculoNanosegundos", result.tiempoCalculoNanos);
+        response.put("algoritmo", result.aproximado ? "Brandes (orígenes muestreados)" : "Brandes");
+        response.put("complejidad", "O(k (V + E) log V) con k orígenes, repartido entre los núcleos");
+        response.put("tiempoEjecucionNanosegundos", endTime - startTime);
+        response.put("snapshotVersion", snapshot.getVersion());
+        response.put("fuente", "neo4j");
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * Endpoint para calcular la matriz de distancias entre varios centros
+     * Cada fila es un Dijkstra uno-a-todos; las filas se calculan en paralelo sobre la misma instantánea
+     */
+    @PostMapping("/matrix")
+    @Operation(summary = "Matriz de distancias origen x destino en paralelo",
+                description = "Sin origenes se usan todos los centros; sin destinos se usan los mismos origenes. " +
+                              "Los pares no alcanzables se devuelven como -1. Hasta " + DistanceMatrixService.MAX_CELDAS_JSON +
+                              " celdas; las matrices mayores se piden a /matrix/binary.")
+    public ResponseEntity<Map<String, Object>> distanceMatrix(
+            @Parameter(description = "IDs de centros origen/destino y métrica")
+            @RequestBody(required = false) MatrixRequest request) {
+        
+        long startTime = System.nanoTime();
+        GraphSnapshot.Metrica metrica;
+        try {
+            metrica = GraphSnapshot.Metrica.desde(request != null ? request.getMetrica() : null);
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "Métrica no soportada: " + request.getMetrica());
+            errorResponse.put("metricasDisponibles", GraphSnapshot.Metrica.values());
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+        
+        GraphSnapshot snapshot = graphService.obtenerSnapshot().conMetrica(metrica);
+        List<String> origenIds = resolverIdsMatriz(snapshot, request != null ? request.getOrigenes() : null);
+        List<String> destinoIds = request != null && request.getDestinos() != null && !request.getDestinos().isEmpty()
+                ? request.getDestinos() : origenIds;
+        int[] origenes = resolverCentros(snapshot, origenIds);
+        int[] destinos = resolverCentros(snapshot, destinoIds);
+        
+        if (origenes == null || destinos == null) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "Todos los centros de origen y destino deben existir en el grafo");
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+        
+        // La respuesta JSON arma la matriz completa en memoria: las grandes van por /matrix/binary
+        long celdas = (long) origenes.length * destinos.length;
+        if (celdas > DistanceMatrixService.MAX_CELDAS_JSON) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "La matriz tiene " + celdas + " celdas (máximo " + DistanceMatrixService.MAX_CELDAS_JSON
+                    + " en JSON): indicar origenes/destinos o usar /matrix/binary");
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+        
+        double[][] matrix = distanceMatrixService.calcularMatriz(snapshot, origenes, destinos);
+        for (double[] row : matrix) {
+            for (int j = 0; j < row.length; j++) {
+                if (Double.isInfinite(row[j])) {
+                    row[j] = -1;
+                }
+            }
+        }
+        long endTime = System.nanoTime();
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("origenes", origenIds);
+        response.put("destinos", destinoIds);
+        response.put("matriz", matrix);
+        response.put("metrica", metrica.name());
+        response.put("algoritmo", "Dijkstra uno-a-todos en paralelo (ForkJoinPool)");
+        response.put("complejidad", "O(|origenes| · (V + E) log V) repartido entre los núcleos");
+        response.put("tiempoEjecucionNanosegundos", endTime - startTime);
+        response.put("snapshotVersion", snapshot.getVersion());
+        response.put("fuente", "neo4j");
+        
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * Endpoint binario para matrices grandes
+     * Formato big-endian: int magic (TRDM), int versión, int filas, int columnas y filas*columnas doubles
+     * (Infinity si no es alcanzable). Las filas se calculan y escriben por bloques.
+     */
+    @PostMapping(value = "/matrix/binary", produces = MediaType.APPLICATION_OCTET_STREAM_VALUE)
+    @Operation(summary = "Matriz de distancias en formato binario por streaming",
+                description = "Misma entrada que /matrix, sin límite de tamaño; la salida es un flujo binario sin JSON intermedio.")
+    public ResponseEntity<StreamingResponseBody> distanceMatrixBinary(
+            @RequestBody(required = false) MatrixRequest request) {
+        
+        GraphSnapshot.Metrica metrica;
+        try {
+            metrica = GraphSnapshot.Metrica.desde(request != null ? request.getMetrica() : null);
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "Métrica no soportada: " + request.getMetrica());
+            errorResponse.put("metricasDisponibles", GraphSnapshot.Metrica.values());
+            return errorEnStreaming(errorResponse);
+        }
+        
+        GraphSnapshot snapshot = graphService.obtenerSnapshot().conMetrica(metrica);
+        List<String> origenIds = resolverIdsMatriz(snapshot, request != null ? request.getOrigenes() : null);
+        List<String> destinoIds = request != null && request.getDestinos() != null && !request.getDestinos().isEmpty()
+                ? request.getDestinos() : origenIds;
+        int[] origenes = resolverCentros(snapshot, origenIds);
+        int[] destinos = resolverCentros(snapshot, destinoIds);
+        
+        if (origenes == null || destinos == null) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "Todos los centros de origen y destino deben existir en el grafo");
+            return errorEnStreaming(errorResponse);
+        }
+        
+        StreamingResponseBody body = out -> distanceMatrixService.escribirMatrizBinaria(snapshot, origenes, destinos, out);
+        return ResponseEntity.ok()
+                .contentType(MediaType.APPLICATION_OCTET_STREAM)
+                .header("X-Matrix-Rows", String.valueOf(origenes.length))
+                .header("X-Matrix-Cols", String.valueOf(destinos.length))
+                .header("X-Snapshot-Version", String.valueOf(snapshot.getVersion()))
+                .body(body);
+    }
+
+    /**
+     * Endpoint para abrir o cerrar una ruta
+     * El cambio se guarda en Neo4j y se aplica a la instantánea sin reconstruirla desde la base;
+     * el MST en memoria se actualiza de forma incremental
+     */
+    @PutMapping("/routes/{routeId}/status")
+    @Operation(summary = "Cambia el estado de una ruta (ACTIVE, CLOSED, MAINTENANCE)",
+                description = "Solo las rutas ACTIVE forman parte del grafo. Publica una nueva versión de la instantánea.")
+    public ResponseEntity<Map<String, Object>> updateRouteStatus(
+            @PathVariable String routeId,
+            @RequestBody Map<String, Object> request) {
+        
+        Object value = request.get("status");
+        String status = value != null ? value.toString().trim().toUpperCase() : null;
+        if (status == null || !GraphService.ESTADOS_RUTA.contains(status)) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "status debe ser uno de " + GraphService.ESTADOS_RUTA);
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+        
+        long startTime = System.nanoTime();
+        // Impacto del cierre solo si el análisis de la red antes del cambio ya estaba en caché:
+        // calcularlo aquí sería O(V + E) por cierre para una versión que se descarta enseguida
+        GraphSnapshot previous = graphService.obtenerSnapshot();
+        int route = previous.indiceRuta(routeId);
+        boolean closing = !"ACTIVE".equals(status) && route != -1 && previous.rutaIncluida(route);
+        BridgeAnalysis analysis = closing ? connectivityService.analisisEnCache(previous) : null;
+        GraphSnapshot snapshot = graphService.cambiarEstadoRuta(routeId, status);
+        long endTime = System.nanoTime();
+        
+        if (snapshot == null) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "No existe la ruta " + routeId);
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("routeId", routeId);
+        response.put("status", status);
+        if (analysis != null) {
+            response.put("desconectaRed", analysis.esPuente(route));
+            response.put("centrosSeparados", analysis.centrosSeparados(route));
+        }
+        response.put("snapshotVersion", snapshot.getVersion());
+        response.put("tiempoEjecucionNanosegundos", endTime - startTime);
+        response.put("fuente", "neo4j");
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * Endpoint para saber si cerrar una ruta desconecta la red
+     * Usa el análisis de puentes de la instantánea (en caché por versión): no recorre el grafo
+     */
+    @GetMapping("/routes/{routeId}/closure-impact")
+    @Operation(summary = "Impacto de cerrar una ruta (puentes de Tarjan)",
+                description = "Indica si la ruta es un puente de la red activa y qué centros quedarían aislados. " +
+                              "Con pesoKg se analiza solo la red que admite ese peso.")
+    public ResponseEntity<Map<String, Object>> routeClosureImpact(
+            @PathVariable String routeId,
+            @RequestParam(required = false) Double pesoKg,
+            @Parameter(description = "Máximo de centros aislados a listar")
+            @RequestParam(defaultValue = "50") int limite) {
+        
+        long startTime = System.nanoTime();
+        GraphSnapshot snapshot = graphService.obtenerSnapshot();
+        int route = snapshot.indiceRuta(routeId);
+        if (route == -1) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "No existe la ruta " + routeId);
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+        if (pesoKg != null) {
+            snapshot = snapshot.paraPeso(pesoKg);
+        }
+        GraphSnapshot view = snapshot;
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("routeId", routeId);
+        response.put("fromCenterId", view.idCentro(view.origenRuta(route)));
+        response.put("toCenterId", view.idCentro(view.destinoRuta(route)));
+        if (!view.rutaIncluida(route)) {
+            response.put("enRed", false);
+            response.put("desconectaRed", false);
+            response.put("message", "La ruta no forma parte de la red analizada (no está activa o no admite el peso)");
+        } else {
+            BridgeAnalysis analysis = connectivityService.analizar(view);
+            response.put("enRed", true);
+            response.put("desconectaRed", analysis.esPuente(route));
+            response.put("centrosSeparados", analysis.centrosSeparados(route));
+            response.put("centrosSeparadosIds", Arrays.stream(analysis.ladoSeparado(route, Math.max(0, limite)))
+                    .mapToObj(view::idCentro)
+                    .collect(Collectors.toList()));
+            response.put("tamanoComponente", analysis.tamanoComponente(view.origenRuta(route)));
+        }
+        long endTime = System.nanoTime();
+        
+        if (pesoKg != null) {
+            response.put("pesoKg", pesoKg);
+        }
+        response.put("algoritmo", "Puentes de Tarjan (DFS iterativo)");
+        response.put("complejidad", "O(1) por consulta; O(V + E) una vez por versión de la instantánea");
+        response.put("tiempoEjecucionNanosegundos", endTime - startTime);
+        response.put("snapshotVersion", view.getVersion());
+        response.put("fuente", "neo4j");
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * Endpoint para listar las rutas puente y los centros de articulación de la red
+     */
+    @GetMapping("/connectivity")
+    @Operation(summary = "Puentes y puntos de articulación de la red (Tarjan)",
+                description = "Rutas cuyo cierre y centros cuya baja desconectan la red activa.")
+    public ResponseEntity<Map<String, Object>> connectivity(
+            @RequestParam(required = false) Double pesoKg,
+            @RequestParam(defaultValue = "100") int limite) {
+        
+        long startTime = System.nanoTime();
+        GraphSnapshot snapshot = graphService.obtenerSnapshot();
+        GraphSnapshot view = pesoKg != null ? snapshot.paraPeso(pesoKg) : snapshot;
+        BridgeAnalysis analysis = connectivityService.analizar(view);
+        
+        List<Map<String, Object>> bridges = Arrays.stream(analysis.puentes())
+                .boxed()
+                .sorted((a, b) -> Integer.compare(analysis.centrosSeparados(b), analysis.centrosSeparados(a)))
+                .limit(Math.max(0, limite))
+                .map(r -> {
+                    Map<String, Object> item = new LinkedHashMap<>();
+                    item.put("routeId", view.idRuta(r));
+                    item.put("fromCenterId", view.idCentro(view.origenRuta(r)));
+                    item.put("toCenterId", view.idCentro(view.destinoRuta(r)));
+                    item.put("centrosSeparados", analysis.centrosSeparados(r));
+                    return item;
+                })
+                .collect(Collectors.toList());
+        List<Map<String, Object>> articulations = Arrays.stream(analysis.articulaciones())
+                .boxed()
+                .sorted((a, b) -> Integer.compare(analysis.partesAlQuitar(b), analysis.partesAlQuitar(a)))
+                .limit(Math.max(0, limite))
+                .map(v -> {
+                    Map<String, Object> item = new LinkedHashMap<>();
+                    item.put("centerId", view.idCentro(v));
+                    item.put("partesAlQuitar", analysis.partesAlQuitar(v));
+                    return item;
+                })
+                .collect(Collectors.toList());
+        long endTime = System.nanoTime();
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("componentes", analysis.numeroComponentes());
+        response.put("numeroPuentes", analysis.numeroPuentes());
+        response.put("numeroArticulaciones", analysis.numeroArticulaciones());
+        response.put("puentes", bridges);
+        response.put("articulaciones", articulations);
+        if (pesoKg != null) {
+            response.put("pesoKg", pesoKg);
+        }
+        response.put("tiempoAnalisisNanosegundos", analysis.getTiempoConstruccionNanos());
+        response.put("algoritmo", "Tarjan (puentes y puntos de articulación, DFS iterativo)");
+        response.put("complejidad", "O(V + E)");
+        response.put("tiempoEjecucionNanosegundos", endTime - startTime);
+        response.put("snapshotVersion", view.getVersion());
+        response.put("fuente", "neo4j");
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * Endpoint para calcular cuántos kg por día pueden moverse entre centros
+     * Capacidad por ruta = maxWeight; con varios orígenes o destinos se limita por la carga
+     * y el espacio libre de los centros. Admite escenarios con rutas cerradas o capacidades cambiadas
+     */
+    @PostMapping("/flow/max")
+    @Operation(summary = "Flujo máximo entre centros (Dinic) con maxWeight como capacidad",
+                description = "Devuelve el flujo máximo en kg por día, el flujo por ruta y el corte mínimo (rutas cuello de botella). " +
+                              "usarCargaCentros limita los orígenes por currentLoad y los destinos por capacity - currentLoad " +
+                              "(por defecto, solo con varios orígenes o destinos). Las rutas sin maxWeight no limitan.")
+    public ResponseEntity<Map<String, Object>> maxFlow(
+            @Parameter(description = "Orígenes, destinos y escenario (rutas cerradas, capacidades)", required = true)
+            @RequestBody FlowRequest request) {
+        
+        long startTime = System.nanoTime();
+        List<String> origenIds = request.getOrigenes() != null ? request.getOrigenes() : List.of();
+        List<String> destinoIds = request.getDestinos() != null ? request.getDestinos() : List.of();
+        GraphSnapshot snapshot = graphService.obtenerSnapshot();
+        int[] origenes = resolverCentros(snapshot, origenIds);
+        int[] destinos = resolverCentros(snapshot, destinoIds);
+        
+        if (origenIds.isEmpty() || destinoIds.isEmpty() || origenes == null || destinos == null) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "Se requiere al menos un origen y un destino, y todos deben existir en el grafo");
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+        if (!Collections.disjoint(origenIds, destinoIds)) {
+            Map<String, Object> errorResponse = new HashMap<>();
+            errorResponse.put("error", "Un centro no puede ser origen y destino a la vez");
+            return ResponseEntity.badRequest().body(errorResponse);
+        }
+        
+        // Escenario: capacidades de la red activa con rutas cerradas o capacidades reemplazadas
+        double[] capacidades = maxFlowService.capacidadesRuta(snapshot);
+        if (request.getCapacidadesRuta() != null) {
+            for (Map.Entry<String, Double> entry : request.getCapacidadesRuta().entrySet()) {
+                int route = snapshot.indiceRuta(entry.getKey());
+                if (route == -1 || entry.getValue() == null || entry.getValue() < 0) {
+                    Map<String, Object> errorResponse = new HashMap<>();
+                    errorResponse.put("error", "Capacidad inválida para la ruta " + entry.getKey());
+                    return ResponseEntity.badRequest().body(errorResponse);
+                }
+                capacidades[route] = entry.getValue();
+            }
+        }
+        if (request.getRutasCerradas() != null) {
+            for (String routeId : request.getRutasCerradas()) {
+                int route = snapshot.indiceRuta(routeId);
+                if (route == -1) {
+                    Map<String, Object> errorResponse = new HashMap<>();
+                    errorResponse.put("error", "No existe la ruta " + routeId);
+                    return ResponseEntity.badRequest().body(errorResponse);
+                }
+                capacidades[route] = 0.0;
+            }
+        }
+        
+        boolean usarCarga = request.getUsarCargaCentros() != null
+                ? request.getUsarCargaCentros() : origenIds.size() > 1 || destinoIds.size() > 1;
+        double[] oferta = usarCarga ? maxFlowService.limitesCentros(origenIds, true) : null;
+        double[] demanda = usarCarga ? maxFlowService.limitesCentros(destinoIds, false) : null;
+        
+        MaxFlowService.Resultado result = maxFlowService.calcular(snapshot, origenes, oferta, destinos, demanda, capacidades);
+        long endTime = System.nanoTime();
+        
+        Map<String, Object> response = new HashMap<>();
+        response.put("origenes", origenIds);
+        response.put("destinos", destinoIds);
+        response.put("usarCargaCentros", usarCarga);
+        response.put("ilimitado", result.ilimitado);
+        if (result.ilimitado) {
+            response.put("flujoMaximoKg", null);
+            response.put("message", "Existe un camino sin límite de capacidad (rutas sin maxWeight)");
+        } else {
+            response.put("flujoMaximoKg", result.flujo);
+            response.put("rutasCorte", Arrays.stream(result.rutasCorte)
+                    .mapToObj(r -> {
+                        Map<String, Object> item = new LinkedHashMap<>();
+                        item.put("routeId", snapshot.idRuta(r));
+                        item.put("fromCenterId", snapshot.idCentro(snapshot.origenRuta(r)));
+                        item.put("toCenterId", snapshot.idCentro(snapshot.destinoRuta(r)));
+                        item.put("capacidadKg", capacidades[r]);
+                        return item;
+                    })
+                    .collect(Collectors.toList()));
+            response.put("origenesLimitantes", Arrays.stream(result.origenesLimitantes)
+                    .mapToObj(origenIds::get)
+                    .collect(Collectors.toList()));
+            response.put("destinosLimitantes", Arrays.stream(result.destinosLimitantes)
+                    .mapToObj(destinoIds::get)
+                    .collect(Collectors.toList()));
+            // Flujo por ruta en el sentido en que circula
+            List<Map<String, Object>> flujos = new ArrayList<>();
+            for (int r = 0; r < result.flujoRutas.length; r++) {
+                double flujo = result.flujoRutas[r];
+                if (flujo != 0.0) {
+                    Map<String, Object> item = new LinkedHashMap<>();
+                    item.put("routeId", snapshot.idRuta(r));
+                    item.put("fromCenterId", snapshot.idCentro(flujo > 0 ? snapshot.origenRuta(r) : snapshot.destinoRuta(r)));
+                    item.put("toCenterId", snapshot.idCentro(flujo > 0 ? snapshot.destinoRuta(r) : snapshot.origenRuta(r)));
+                    item.put("flujoKg", Math.abs(flujo));
+                    flujos.add(item);
+                }
+            }
+            response.put("flujoPorRuta", flujos);
+        }
+        response.put("fases", result.fases);
+        response.put("algoritmo", "Dinic (flujo bloqueante por niveles)");
+        response.put("complejidad", "O(V² E) en el peor caso");
+        response.put("tiempoEjecucionNanosegundos", endTime - startTime);
+        response.put("snapshotVersion", snapshot.getVersion());
+        response.put("fuente", "neo4j");
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * Endpoint para consultar el estado de la instantánea compartida del grafo
+     */
+    @GetMapping("/snapshot")
+    @Operation(summary = "Obtiene el estado de la instantánea CSR del grafo",
+                description = "Versión, fecha de construcción y tamaño de la instantánea compartida por los algoritmos.")
+    public ResponseEntity<Map<String, Object>> getSnapshot() {
+        return ResponseEntity.ok(describirSnapshot(graphSnapshotService.obtenerSnapshot()));
+    }
+    
+    /**
+     * Endpoint para reconstruir la instantánea desde Neo4j
+     */
+    @PostMapping("/snapshot/refresh")
+    @Operation(summary = "Reconstruye la instantánea del grafo desde Neo4j",
+                description = "Vuelve a leer centros y rutas y publica una nueva versión de forma atómica.")
+    public ResponseEntity<Map<String, Object>> refreshSnapshot() {
+        long startTime = System.nanoTime();
+        GraphSnapshot snapshot = graphSnapshotService.refrescar();
+        long endTime = System.nanoTime();
+        
+        Map<String, Object> response = describirSnapshot(snapshot);
+        response.put("tiempoEjecucionNanosegundos", endTime - startTime);
+        return ResponseEntity.ok(response);
+    }
+    
+    /**
+     * Índices de los top puntajes mayores que cero, de mayor a menor
+     */
+    private List<Integer> mejores(double[] scores, int top) {
+        return IntStream.range(0, scores.length)
+                .filter(i -> scores[i] > 0.0)
+                .boxed()
+                .sorted((a, b) -> Double.compare(scores[b], scores[a]))
+                .limit(top)
+                .collect(Collectors.toList());
+    }
+    
+    private Map<String, Object> puntajeCentro(GraphSnapshot snapshot, int v, double score) {
+        Map<String, Object> item = new LinkedHashMap<>();
+        item.put("vertice", v);
+        item.put("centerId", snapshot.idCentro(v));
+        item.put("puntaje", score);
+        return item;
+    }
+    
+    private String nombreAlgoritmo(GraphService.ModoCamino modo) {
+        switch (modo) {
+            case BIDIRECCIONAL:
+                return "Dijkstra bidireccional";
+            case ASTAR:
+                return "A* (heurística haversine)";
+            default:
+                return "Dijkstra";
+        }
+    }
+    
+    /**
+     * Resuelve un vértice a partir del ID de centro (prioritario) o del índice recibido
+     */
+    private int resolverVertice(GraphSnapshot snapshot, String centerId, Integer index, int defaultIndex) {
+        if (centerId != null && !centerId.isEmpty()) {
+            return snapshot.indiceCentro(centerId);
+        }
+        return index != null ? index : defaultIndex;
+    }
+    
+    /**
+     * Convierte "HH:mm" en minutos desde la medianoche
+     */
+    private double parsearHora(String hora) {
+        String[] parts = hora.trim().split(":");
+        if (parts.length != 2) {
+            throw new IllegalArgumentException(hora);
+        }
+        int hours = Integer.parseInt(parts[0]);
+        int minutes = Integer.parseInt(parts[1]);
+        if (hours < 0 || hours > 23 || minutes < 0 || minutes > 59) {
+            throw new IllegalArgumentException(hora);
+        }
+        return hours * 60.0 + minutes;
+    }
+    
+    /**
+     * Formatea minutos desde la medianoche como "HH:mm", con "+Nd" si pasa a otro día
+     */
+    private String formatearHora(double minutos) {
+        long total = Math.round(minutos);
+        long days = total / 1440;
+        long inDay = total % 1440;
+        String hora = String.format("%02d:%02d", inDay / 60, inDay % 60);
+        return days > 0 ? hora + " +" + days + "d" : hora;
+    }
+    
+    /**
+     * IDs de centros solicitados o, si no se indicó ninguno, todos los centros de la instantánea
+     */
+    private List<String> resolverIdsMatriz(GraphSnapshot snapshot, List<String> ids) {
+        if (ids != null && !ids.isEmpty()) {
+            return ids;
+        }
+        List<String> all = new ArrayList<>(snapshot.numeroVertices());
+        for (int v = 0; v < snapshot.numeroVertices(); v++) {
+            all.add(snapshot.idCentro(v));
+        }
+        return all;
+    }
+    
+    /**
+     * Convierte IDs de centro en índices de vértice; null si alguno no existe
+     */
+    private int[] resolverCentros(GraphSnapshot snapshot, List<String> ids) {
+        int[] indices = new int[ids.size()];
+        for (int i = 0; i < indices.length; i++) {
+            indices[i] = snapshot.indiceCentro(ids.get(i));
+            if (indices[i] < 0) {
+                return null;
+            }
+        }
+        return indices;
+    }
+    
+    /**
+     * Valida una consulta de alcance y devuelve la instantánea con la métrica pedida
+     * (null con el motivo en errorResponse si la consulta no es válida)
+     */
+    private GraphSnapshot prepararAlcance(ReachabilityRequest request, Map<String, Object> errorResponse) {
+        GraphSnapshot.Metrica metrica;
+        try {
+            metrica = GraphSnapshot.Metrica.desde(request.getMetrica());
+        } catch (IllegalArgumentException e) {
+            errorResponse.put("error", "Métrica no soportada: " + request.getMetrica());
+            errorResponse.put("metricasDisponibles", GraphSnapshot.Metrica.values());
+            return null;
+        }
+        GraphSnapshot snapshot = graphService.obtenerSnapshot().conMetrica(metrica);
+        int source = resolverVertice(snapshot, request.getSourceCenterId(), request.getSource(), 0);
+        if (source < 0 || source >= snapshot.numeroVertices()) {
+            errorResponse.put("error", "El origen debe existir en el grafo");
+            return null;
+        }
+        if (request.getPresupuesto() == null || request.getPresupuesto() < 0 || request.getPresupuesto().isNaN()) {
+            errorResponse.put("error", "presupuesto debe ser un número no negativo");
+            return null;
+        }
+        if (request.getMaxResultados() != null && request.getMaxResultados() <= 0) {
+            errorResponse.put("error", "maxResultados debe ser positivo");
+            return null;
+        }
+        return snapshot;
+    }
+    
+    /**
+     * Respuesta 400 de los endpoints de streaming con el mismo cuerpo {"error": ...} que los demás
+     */
+    private ResponseEntity<StreamingResponseBody> errorEnStreaming(Map<String, Object> errorResponse) {
+        byte[] json;
+        try {
+            json = objectMapper.writeValueAsBytes(errorResponse);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return ResponseEntity.badRequest()
+                .contentType(MediaType.APPLICATION_JSON)
+                .body(out -> out.write(json));
+    }
+    
+    private Map<String, Object> describirAlcance(GraphSnapshot snapshot, int vertex, double distance, int predecessor) {
+        Map<String, Object> info = new LinkedHashMap<>();
+        info.put("centerId", snapshot.idCentro(vertex));
+        info.put("vertex", vertex);
+        info.put("distancia", distance);
+        info.put("predecesorCenterId", predecessor >= 0 ? snapshot.idCentro(predecessor) : null);
+        return info;
+    }
+    
+    /**
+     * Tamaño de la adyacencia comprimida frente al CSR, que la instantánea mantiene además de ella
+     */
+    private void describirComprimida(Map<String, Object> response, CompressedGraph graph) {
+        response.put("representacion", "adyacencia comprimida (varints delta), además del CSR");
+        response.put("bytesAdyacencia", graph.tamanoBytes());
+        response.put("bytesCsr", graph.tamanoCsrBytes());
+        response.put("bytesEnMemoria", graph.tamanoBytes() + graph.tamanoCsrBytes());
+    }
+    
+    private Map<String, Object> describirSnapshot(GraphSnapshot snapshot) {
+        Map<String, Object> response = new HashMap<>();
+        response.put("version", snapshot.getVersion());
+        response.put("creadoEn", snapshot.getCreatedAt());
+        response.put("vertices", snapshot.numeroVertices());
+        response.put("rutas", snapshot.numeroRutas());
+        response.put("aristasCSR", snapshot.numeroAristas());
+        return response;
+    }
+}
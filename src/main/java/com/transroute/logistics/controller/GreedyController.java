@@ -2,7 +2,9 @@ package com.transroute.logistics.controller;
 
 import com.transroute.logistics.dto.DistribucionCombustiblePersonalizadaRequest;
 import com.transroute.logistics.dto.FuelDistributionRequest;
+import com.transroute.logistics.service.GraphSnapshot;
 import com.transroute.logistics.service.GreedyService;
+import com.transroute.logistics.service.VehicleRoutingService;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -26,6 +28,9 @@ public class GreedyController {
     @Autowired
     private GreedyService greedyService;
 
+    @Autowired
+    private VehicleRoutingService vehicleRoutingService;
+
     /**
      * Endpoint para obtener todos los camiones disponibles
      */
@@ -272,5 +277,52 @@ public class GreedyController {
         
         return ResponseEntity.ok(resultado);
     }
-}
 
+    /**
+     * Endpoint para planificar recorridos de varias paradas por camión (CVRP)
+     * Usa costos de camino mínimo entre centros y respeta la capacidad de cada camión
+     */
+    @PostMapping("/planificar-recorridos")
+    @Operation(summary = "Planifica recorridos de camiones sobre la red de rutas",
+                description = "Ahorros de Clarke-Wright mejorados con búsqueda local paralela (2-opt, relocate, swap) " +
+                        "dentro de un presupuesto de tiempo. Informa el costo del primer ajuste como referencia")
+    public ResponseEntity<Map<String, Object>> planificarRecorridos(
+            @Parameter(description = "Centro de salida y regreso (por defecto el de mayor prioridad)")
+            @RequestParam(required = false) String depotCenterId,
+            @Parameter(description = "Métrica de costo: COSTO, DISTANCIA, DURACION, PEAJE o COMBUSTIBLE")
+            @RequestParam(required = false) String metrica,
+            @Parameter(description = "Presupuesto de tiempo de la búsqueda local en milisegundos (máximo 60000)")
+            @RequestParam(required = false) Long tiempoLimiteMs) {
+
+        GraphSnapshot.Metrica criterio;
+        try {
+            criterio = GraphSnapshot.Metrica.desde(metrica);
+        } catch (IllegalArgumentException e) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", "Métrica desconocida: " + metrica);
+            return ResponseEntity.badRequest().body(error);
+        }
+        if (tiempoLimiteMs != null && tiempoLimiteMs > VehicleRoutingService.TIEMPO_LIMITE_MAXIMO_MS) {
+            Map<String, Object> error = new HashMap<>();
+            error.put("error", "tiempoLimiteMs no puede superar " + VehicleRoutingService.TIEMPO_LIMITE_MAXIMO_MS + " ms");
+            return ResponseEntity.badRequest().body(error);
+        }
+        long limite = tiempoLimiteMs != null && tiempoLimiteMs > 0 ? tiempoLimiteMs : VehicleRoutingService.TIEMPO_LIMITE_POR_DEFECTO_MS;
+
+        long startTime = System.nanoTime();
+        Map<String, Object> resultado = vehicleRoutingService.planificarRecorridos(depotCenterId, criterio, limite);
+        long endTime = System.nanoTime();
+        if (resultado.containsKey("error")) {
+            return ResponseEntity.badRequest().body(resultado);
+        }
+
+        resultado.put("algoritmo", "CVRP - Ahorros de Clarke-Wright + búsqueda local paralela");
+        resultado.put("estrategia", "Fusiona recorridos por ahorro y mejora con 2-opt, relocate y swap entre vecinos cercanos");
+        resultado.put("complejidad", "O(m (V + E) log V) para la matriz de costos + O(m·K) por ronda de búsqueda local");
+        resultado.put("tiempoLimiteMs", limite);
+        resultado.put("tiempoEjecucionNanosegundos", endTime - startTime);
+        resultado.put("fuente", "Neo4j (centros, camiones, rutas)");
+
+        return ResponseEntity.ok(resultado);
+    }
+}
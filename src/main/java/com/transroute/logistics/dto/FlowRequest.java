@@ -0,0 +1,57 @@
+package com.transroute.logistics.dto;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * DTO para peticiones de flujo máximo (capacidad de transporte entre centros)
+ */
+public class FlowRequest {
+    private List<String> origenes; // IDs de centros que envían
+    private List<String> destinos; // IDs de centros que reciben
+    private Boolean usarCargaCentros; // Limitar por currentLoad (origen) y capacity - currentLoad (destino)
+    private List<String> rutasCerradas; // Escenario: rutas que no se usan
+    private Map<String, Double> capacidadesRuta; // Escenario: capacidad en kg por ruta (reemplaza maxWeight)
+
+    public FlowRequest() {}
+
+    public List<String> getOrigenes() {
+        return origenes;
+    }
+
+    public void setOrigenes(List<String> origenes) {
+        this.origenes = origenes;
+    }
+
+    public List<String> getDestinos() {
+        return destinos;
+    }
+
+    public void setDestinos(List<String> destinos) {
+        this.destinos = destinos;
+    }
+
+    public Boolean getUsarCargaCentros() {
+        return usarCargaCentros;
+    }
+
+    public void setUsarCargaCentros(Boolean usarCargaCentros) {
+        this.usarCargaCentros = usarCargaCentros;
+    }
+
+    public List<String> getRutasCerradas() {
+        return rutasCerradas;
+    }
+
+    public void setRutasCerradas(List<String> rutasCerradas) {
+        this.rutasCerradas = rutasCerradas;
+    }
+
+    public Map<String, Double> getCapacidadesRuta() {
+        return capacidadesRuta;
+    }
+
+    public void setCapacidadesRuta(Map<String, Double> capacidadesRuta) {
+        this.capacidadesRuta = capacidadesRuta;
+    }
+}
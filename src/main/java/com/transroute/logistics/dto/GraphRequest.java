@@ -12,6 +12,20 @@ public class GraphRequest {
     private Map<Integer, List<int[]>> adjacencyList;
     private Integer source;
     private Integer destination;
+    private String sourceCenterId;
+    private String destinationCenterId;
+    private String modo;
+    private String metrica;
+    private Integer k; // Número de caminos alternativos (k-shortest)
+    private List<String> criterios; // Criterios del frente de Pareto
+    private Integer maxEtiquetasPorNodo;
+    private String truckId; // Camión cuya capacidad define la clase de peso
+    private Double pesoKg; // Peso explícito (tiene prioridad sobre truckId)
+    private String horaSalida; // HH:mm para ruteo dependiente del tiempo
+    private List<String> terminales; // IDs de centros a conectar (árbol de Steiner)
+    private Boolean comprimido; // Ejecutar sobre la adyacencia comprimida (varints delta)
+    private Boolean paralelo; // Forzar (true) o evitar (false) delta-stepping; null = según tamaño
+    private Double anchoBalde; // Ancho de balde de delta-stepping (por defecto el doble del peso medio)
     
     public GraphRequest() {}
     
@@ -55,6 +69,118 @@ public class GraphRequest {
         this.destination = destination;
     }
     
+    public String getSourceCenterId() {
+        return sourceCenterId;
+    }
+    
+    public void setSourceCenterId(String sourceCenterId) {
+        this.sourceCenterId = sourceCenterId;
+    }
+    
+    public String getDestinationCenterId() {
+        return destinationCenterId;
+    }
+    
+    public void setDestinationCenterId(String destinationCenterId) {
+        this.destinationCenterId = destinationCenterId;
+    }
+    
+    public String getModo() {
+        return modo;
+    }
+    
+    public void setModo(String modo) {
+        this.modo = modo;
+    }
+    
+    public String getMetrica() {
+        return metrica;
+    }
+    
+    public void setMetrica(String metrica) {
+        this.metrica = metrica;
+    }
+    
+    public Integer getK() {
+        return k;
+    }
+    
+    public void setK(Integer k) {
+        this.k = k;
+    }
+    
+    public List<String> getCriterios() {
+        return criterios;
+    }
+    
+    public void setCriterios(List<String> criterios) {
+        this.criterios = criterios;
+    }
+    
+    public Integer getMaxEtiquetasPorNodo() {
+        return maxEtiquetasPorNodo;
+    }
+    
+    public void setMaxEtiquetasPorNodo(Integer maxEtiquetasPorNodo) {
+        this.maxEtiquetasPorNodo = maxEtiquetasPorNodo;
+    }
+    
+    public String getTruckId() {
+        return truckId;
+    }
+    
+    public void setTruckId(String truckId) {
+        this.truckId = truckId;
+    }
+    
+    public Double getPesoKg() {
+        return pesoKg;
+    }
+    
+    public void setPesoKg(Double pesoKg) {
+        this.pesoKg = pesoKg;
+    }
+    
+    public String getHoraSalida() {
+        return horaSalida;
+    }
+    
+    public void setHoraSalida(String horaSalida) {
+        this.horaSalida = horaSalida;
+    }
+    
+    public List<String> getTerminales() {
+        return terminales;
+    }
+    
+    public void setTerminales(List<String> terminales) {
+        this.terminales = terminales;
+    }
+    
+    public Boolean getComprimido() {
+        return comprimido;
+    }
+    
+    public void setComprimido(Boolean comprimido) {
+        this.comprimido = comprimido;
+    }
+    
+    public Boolean getParalelo() {
+        return paralelo;
+    }
+    
+    public void setParalelo(Boolean paralelo) {
+        this.paralelo = paralelo;
+    }
+    
+    public Double getAnchoBalde() {
+        return anchoBalde;
+    }
+    
+    public void setAnchoBalde(Double anchoBalde) {
+        this.anchoBalde = anchoBalde;
+    }
+    
     /**
      * DTO interno para representar una arista
      */
@@ -96,6 +222,3 @@ public class GraphRequest {
         }
     }
 }
-
-
-
@@ -0,0 +1,38 @@
+package com.transroute.logistics.dto;
+
+import java.util.List;
+
+/**
+ * DTO para peticiones de matriz de distancias origen x destino
+ */
+public class MatrixRequest {
+    private List<String> origenes; // IDs de centros origen (vacío = todos)
+    private List<String> destinos; // IDs de centros destino (vacío = mismos que origenes)
+    private String metrica; // COSTO, DISTANCIA, DURACION, PEAJE o COMBUSTIBLE
+    
+    public MatrixRequest() {}
+    
+    public List<String> getOrigenes() {
+        return origenes;
+    }
+    
+    public void setOrigenes(List<String> origenes) {
+        this.origenes = origenes;
+    }
+    
+    public List<String> getDestinos() {
+        return destinos;
+    }
+    
+    public void setDestinos(List<String> destinos) {
+        this.destinos = destinos;
+    }
+    
+    public String getMetrica() {
+        return metrica;
+    }
+    
+    public void setMetrica(String metrica) {
+        this.metrica = metrica;
+    }
+}
@@ -0,0 +1,54 @@
+package com.transroute.logistics.dto;
+
+/**
+ * DTO para peticiones de alcance (centros alcanzables dentro de un presupuesto)
+ */
+public class ReachabilityRequest {
+    private String sourceCenterId; // Centro de origen
+    private Integer source; // Índice del origen si no se indica sourceCenterId
+    private Double presupuesto; // Distancia máxima en la métrica elegida (km, minutos o pesos)
+    private Integer maxResultados; // Tope de centros devueltos por la búsqueda acotada
+    private String metrica; // COSTO, DISTANCIA, DURACION, PEAJE o COMBUSTIBLE
+    
+    public ReachabilityRequest() {}
+    
+    public String getSourceCenterId() {
+        return sourceCenterId;
+    }
+    
+    public void setSourceCenterId(String sourceCenterId) {
+        this.sourceCenterId = sourceCenterId;
+    }
+    
+    public Integer getSource() {
+        return source;
+    }
+    
+    public void setSource(Integer source) {
+        this.source = source;
+    }
+    
+    public Double getPresupuesto() {
+        return presupuesto;
+    }
+    
+    public void setPresupuesto(Double presupuesto) {
+        this.presupuesto = presupuesto;
+    }
+    
+    public Integer getMaxResultados() {
+        return maxResultados;
+    }
+    
+    public void setMaxResultados(Integer maxResultados) {
+        this.maxResultados = maxResultados;
+    }
+    
+    public String getMetrica() {
+        return metrica;
+    }
+    
+    public void setMetrica(String metrica) {
+        this.metrica = metrica;
+    }
+}
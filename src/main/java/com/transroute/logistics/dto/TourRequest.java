@@ -0,0 +1,83 @@
+package com.transroute.logistics.dto;
+
+import java.util.List;
+
+/**
+ * DTO para peticiones de recorrido (orden de visita de varios centros)
+ */
+public class TourRequest {
+    private String sourceCenterId; // Centro de origen del recorrido
+    private Integer source; // Índice del origen si no se indica sourceCenterId
+    private List<String> paradas; // IDs de centros a visitar en un recorrido
+    private Boolean retornarAlOrigen; // Recorrido cerrado (por defecto true)
+    private Long tiempoLimiteMs; // Presupuesto de tiempo de la optimización
+    private String metrica; // COSTO, DISTANCIA, DURACION, PEAJE o COMBUSTIBLE
+    private String truckId; // Camión cuya capacidad define la clase de peso
+    private Double pesoKg; // Peso explícito (tiene prioridad sobre truckId)
+    
+    public TourRequest() {}
+    
+    public String getSourceCenterId() {
+        return sourceCenterId;
+    }
+    
+    public void setSourceCenterId(String sourceCenterId) {
+        this.sourceCenterId = sourceCenterId;
+    }
+    
+    public Integer getSource() {
+        return source;
+    }
+    
+    public void setSource(Integer source) {
+        this.source = source;
+    }
+    
+    public List<String> getParadas() {
+        return paradas;
+    }
+    
+    public void setParadas(List<String> paradas) {
+        this.paradas = paradas;
+    }
+    
+    public Boolean getRetornarAlOrigen() {
+        return retornarAlOrigen;
+    }
+    
+    public void setRetornarAlOrigen(Boolean retornarAlOrigen) {
+        this.retornarAlOrigen = retornarAlOrigen;
+    }
+    
+    public Long getTiempoLimiteMs() {
+        return tiempoLimiteMs;
+    }
+    
+    public void setTiempoLimiteMs(Long tiempoLimiteMs) {
+        this.tiempoLimiteMs = tiempoLimiteMs;
+    }
+    
+    public String getMetrica() {
+        return metrica;
+    }
+    
+    public void setMetrica(String metrica) {
+        this.metrica = metrica;
+    }
+    
+    public String getTruckId() {
+        return truckId;
+    }
+    
+    public void setTruckId(String truckId) {
+        this.truckId = truckId;
+    }
+    
+    public Double getPesoKg() {
+        return pesoKg;
+    }
+    
+    public void setPesoKg(Double pesoKg) {
+        this.pesoKg = pesoKg;
+    }
+}
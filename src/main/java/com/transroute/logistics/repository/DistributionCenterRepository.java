@@ -22,5 +22,8 @@ public interface DistributionCenterRepository extends Neo4jRepository<Distributi
     
     @Query("MATCH (dc:DistributionCenter) WHERE dc.status = $status RETURN dc")
     List<DistributionCenter> findByStatus(String status);
+    
+    @Query("MATCH (dc:DistributionCenter) RETURN dc ORDER BY dc.id ASC")
+    List<DistributionCenter> findAllOrderedById();
 }
 
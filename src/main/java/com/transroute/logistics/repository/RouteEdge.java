@@ -0,0 +1,73 @@
+package com.transroute.logistics.repository;
+
+/**
+ * Proyección liviana de una ruta como arista del grafo
+ * Contiene solo los datos necesarios para construir el grafo (sin hidratar entidades)
+ */
+public class RouteEdge {
+    private final String routeId;
+    private final String fromId;
+    private final String toId;
+    private final Double cost;
+    private final Double distance;
+    private final Double duration; // en minutos
+    private final Double tollCost;
+    private final Double fuelConsumption; // litros por km
+    private final Double maxWeight; // en kg
+    private final Integer trafficLevel; // 1-5
+    private final String status; // ACTIVE, CLOSED, MAINTENANCE
+
+    public RouteEdge(String routeId, String fromId, String toId, Double cost, Double distance) {
+        this(routeId, fromId, toId, cost, distance, null, null, null, null, null, null);
+    }
+
+    public RouteEdge(String routeId, String fromId, String toId, Double cost, Double distance,
+                     Double duration, Double tollCost, Double fuelConsumption, Double maxWeight,
+                     Integer trafficLevel, String status) {
+        this.routeId = routeId;
+        this.fromId = fromId;
+        this.toId = toId;
+        this.cost = cost;
+        this.distance = distance;
+        this.duration = duration;
+        this.tollCost = tollCost;
+        this.fuelConsumption = fuelConsumption;
+        this.maxWeight = maxWeight;
+        this.trafficLevel = trafficLevel;
+        this.status = status;
+    }
+
+    public String getRouteId() { return routeId; }
+
+    public String getFromId() { return fromId; }
+
+    public String getToId() { return toId; }
+
+    public Double getCost() { return cost; }
+
+    public Double getDistance() { return distance; }
+
+    public Double getDuration() { return duration; }
+
+    public Double getTollCost() { return tollCost; }
+
+    public Double getFuelConsumption() { return fuelConsumption; }
+
+    public Double getMaxWeight() { return maxWeight; }
+
+    public Integer getTrafficLevel() { return trafficLevel; }
+
+    public String getStatus() { return status; }
+
+    /**
+     * Una ruta sin estado registrado se considera activa
+     */
+    public boolean isActive() { return status == null || "ACTIVE".equals(status); }
+
+    /**
+     * Peso de la arista: costo si está disponible, sino distancia
+     */
+    public double getWeight() {
+        return cost != null ? cost : (distance != null ? distance : 0.0);
+    }
+}
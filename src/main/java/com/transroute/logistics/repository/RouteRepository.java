@@ -9,7 +9,7 @@ import java.util.List;
 import java.util.Map;
 
 @Repository
-public interface RouteRepository extends Neo4jRepository<Route, String> {
+public interface RouteRepository extends Neo4jRepository<Route, String>, RouteRepositoryCustom {
     
     @Query("MATCH (r:Route) RETURN r ORDER BY r.cost ASC")
     List<Route> findAllOrderedByCost();
@@ -24,5 +24,8 @@ public interface RouteRepository extends Neo4jRepository<Route, String> {
     @Query("MATCH (r:Route {id: $routeId})-[:CONNECTED_TO]->(dc:DistributionCenter) " +
            "RETURN dc.id LIMIT 1")
     String findToCenter(String routeId);
+    
+    @Query("MATCH (r:Route {id: $routeId}) SET r.status = $status RETURN r.id")
+    String updateStatus(String routeId, String status);
 }
 
@@ -0,0 +1,22 @@
+package com.transroute.logistics.repository;
+
+import java.util.List;
+
+/**
+ * Consultas de proyección sobre rutas que no hidratan entidades
+ * Se implementan con Neo4jClient en RouteRepositoryCustomImpl
+ */
+public interface RouteRepositoryCustom {
+
+    /**
+     * Obtiene todas las rutas como aristas (centro origen, centro destino, pesos)
+     * en un único viaje a la base de datos
+     */
+    List<RouteEdge> findAllRouteEdges();
+
+    /**
+     * Obtiene como aristas solo las rutas seleccionadas cuyos dos extremos
+     * están entre los centros seleccionados, en un único viaje a la base de datos
+     */
+    List<RouteEdge> findRouteEdgesBySelection(List<String> centerIds, List<String> routeIds);
+}
@@ -0,0 +1,74 @@
+package com.transroute.logistics.repository;
+
+import org.neo4j.driver.Record;
+import org.neo4j.driver.Value;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.data.neo4j.core.Neo4jClient;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Implementación de las proyecciones de rutas usando Neo4jClient
+ * Devuelve tuplas planas en lugar de entidades con sus relaciones
+ */
+public class RouteRepositoryCustomImpl implements RouteRepositoryCustom {
+
+    private static final String EDGE_RETURN =
+            "RETURN r.id AS routeId, a.id AS fromId, b.id AS toId, " +
+            "r.cost AS cost, r.distance AS distance, r.duration AS duration, " +
+            "r.tollCost AS tollCost, r.fuelConsumption AS fuelConsumption, r.maxWeight AS maxWeight, " +
+            "r.trafficLevel AS trafficLevel, r.status AS status";
+
+    @Autowired
+    private Neo4jClient neo4jClient;
+
+    @Override
+    public List<RouteEdge> findAllRouteEdges() {
+        String cypher = "MATCH (a:DistributionCenter)-[:CONNECTED_TO]->(r:Route)-[:CONNECTED_TO]->(b:DistributionCenter) " +
+                        EDGE_RETURN + " ORDER BY r.id";
+
+        return new ArrayList<>(neo4jClient.query(cypher)
+                .fetchAs(RouteEdge.class)
+                .mappedBy((typeSystem, record) -> mapearArista(record))
+                .all());
+    }
+
+    @Override
+    public List<RouteEdge> findRouteEdgesBySelection(List<String> centerIds, List<String> routeIds) {
+        String cypher = "MATCH (a:DistributionCenter)-[:CONNECTED_TO]->(r:Route)-[:CONNECTED_TO]->(b:DistributionCenter) " +
+                        "WHERE r.id IN $routeIds AND a.id IN $centerIds AND b.id IN $centerIds " +
+                        EDGE_RETURN + " ORDER BY r.id";
+
+        return new ArrayList<>(neo4jClient.query(cypher)
+                .bind(centerIds).to("centerIds")
+                .bind(routeIds).to("routeIds")
+                .fetchAs(RouteEdge.class)
+                .mappedBy((typeSystem, record) -> mapearArista(record))
+                .all());
+    }
+
+    private RouteEdge mapearArista(Record record) {
+        return new RouteEdge(
+                record.get("routeId").asString(null),
+                record.get("fromId").asString(null),
+                record.get("toId").asString(null),
+                valorDouble(record.get("cost")),
+                valorDouble(record.get("distance")),
+                valorDouble(record.get("duration")),
+                valorDouble(record.get("tollCost")),
+                valorDouble(record.get("fuelConsumption")),
+                valorDouble(record.get("maxWeight")),
+                valorEntero(record.get("trafficLevel")),
+                record.get("status").asString(null)
+        );
+    }
+
+    private Double valorDouble(Value value) {
+        return value == null || value.isNull() ? null : value.asDouble();
+    }
+
+    private Integer valorEntero(Value value) {
+        return value == null || value.isNull() ? null : value.asInt();
+    }
+}
@@ -0,0 +1,264 @@
+package com.transroute.logistics.service;
+
+import java.util.Arrays;
+
+/**
+ * Puentes y puntos de articulación de la red de rutas (Tarjan, versión iterativa)
+ *
+ * Un puente es una ruta cuyo cierre desconecta la red; un punto de articulación es un centro
+ * cuya baja la desconecta. Se calculan con una sola búsqueda en profundidad sobre el grafo no
+ * dirigido subyacente (en grafos dirigidos se recorren también las aristas entrantes, así que
+ * la conexión es débil). La pila es explícita: no depende del tamaño de la pila de la JVM.
+ *
+ * Además del resultado por ruta y por centro se guarda el orden de descubrimiento y el tamaño
+ * de cada subárbol: los centros que quedan del otro lado de un puente son un rango contiguo de
+ * ese orden, así que el impacto de cerrar cualquier ruta se responde en O(1) (y la lista de
+ * centros separados en tiempo proporcional a su tamaño), sin volver a recorrer el grafo.
+ *
+ * Las rutas paralelas entre los mismos centros no son puentes. Las rutas no incluidas en la
+ * vista (inactivas o fuera de la clase de peso) no forman parte del análisis. Inmutable y
+ * asociada a la versión y clase de peso de la instantánea de origen.
+ *
+ * Complejidad: O(V + E) en tiempo y memoria
+ */
+public final class BridgeAnalysis {
+
+    private final long version;
+    private final int weightClass;
+    private final int[] order;          // Vértices en orden de descubrimiento
+    private final int[] discovery;      // Posición de cada vértice en order
+    private final int[] subtreeSize;    // Vértices del subárbol DFS (incluido el propio)
+    private final int[] componentStart; // Posición en order de la raíz de su componente
+    private final int[] componentSize;  // Vértices de la componente (por vértice)
+    private final int[] cuts;           // Subárboles que se separan al quitar el vértice
+    private final int[] bridgeChild;    // Extremo inferior del puente en el árbol DFS, o -1
+    private final int bridgeCount;
+    private final int articulationCount;
+    private final int components;
+    private final long buildTimeNanos;
+
+    private BridgeAnalysis(long version, int weightClass, int[] order, int[] discovery, int[] subtreeSize,
+                           int[] componentStart, int[] componentSize, int[] cuts, int[] bridgeChild,
+                           int components, long buildTimeNanos) {
+        this.version = version;
+        this.weightClass = weightClass;
+        this.order = order;
+        this.discovery = discovery;
+        this.subtreeSize = subtreeSize;
+        this.componentStart = componentStart;
+        this.componentSize = componentSize;
+        this.cuts = cuts;
+        this.bridgeChild = bridgeChild;
+        this.components = components;
+        this.buildTimeNanos = buildTimeNanos;
+        this.bridgeCount = (int) Arrays.stream(bridgeChild).filter(c -> c != -1).count();
+        this.articulationCount = (int) Arrays.stream(cuts).filter(c -> c > 0).count();
+    }
+
+    /**
+     * Calcula puentes y puntos de articulación de la vista
+     */
+    public static BridgeAnalysis construir(GraphSnapshot snapshot) {
+        long start = System.nanoTime();
+        int n = snapshot.numeroVertices();
+        boolean directed = snapshot.isDirected();
+        int[] order = new int[n];
+        int[] discovery = new int[n];
+        int[] low = new int[n];
+        int[] subtreeSize = new int[n];
+        int[] componentStart = new int[n];
+        int[] componentSize = new int[n];
+        int[] cuts = new int[n];
+        int[] parentRoute = new int[n];
+        int[] position = new int[n]; // Próxima arista a mirar (salientes y luego entrantes)
+        int[] stack = new int[n];
+        int[] bridgeChild = new int[snapshot.numeroRutas()];
+        Arrays.fill(discovery, -1);
+        Arrays.fill(bridgeChild, -1);
+
+        int time = 0;
+        int components = 0;
+        for (int root = 0; root < n; root++) {
+            if (discovery[root] != -1) {
+                continue;
+            }
+            int first = time;
+            int rootChildren = 0;
+            int top = 0;
+            stack[top++] = root;
+            discovery[root] = low[root] = time;
+            order[time++] = root;
+            subtreeSize[root] = 1;
+            parentRoute[root] = -1;
+
+            while (top > 0) {
+                int u = stack[top - 1];
+                int outDegree = snapshot.finAristas(u) - snapshot.inicioAristas(u);
+                int degree = outDegree + (directed ? snapshot.finAristasEntrantes(u) - snapshot.inicioAristasEntrantes(u) : 0);
+                if (position[u] < degree) {
+                    int p = position[u]++;
+                    int v;
+                    int route;
+                    if (p < outDegree) {
+                        int e = snapshot.inicioAristas(u) + p;
+                        v = snapshot.destino(e);
+                        route = snapshot.ruta(e);
+                    } else {
+                        int e = snapshot.inicioAristasEntrantes(u) + p - outDegree;
+                        v = snapshot.origenEntrante(e);
+                        route = snapshot.rutaEntrante(e);
+                    }
+                    if (v == u || route == parentRoute[u]) {
+                        continue; // Lazo o la misma ruta por la que se llegó
+                    }
+                    if (discovery[v] == -1) {
+                        discovery[v] = low[v] = time;
+                        order[time++] = v;
+                        subtreeSize[v] = 1;
+                        parentRoute[v] = route;
+                        stack[top++] = v;
+                        if (u == root) {
+                            rootChildren++;
+                        }
+                    } else if (discovery[v] < low[u]) {
+                        low[u] = discovery[v];
+                    }
+                    continue;
+                }
+
+                // Subárbol de u terminado: propagar al padre
+                top--;
+                if (top > 0) {
+                    int parent = stack[top - 1];
+                    low[parent] = Math.min(low[parent], low[u]);
+                    subtreeSize[parent] += subtreeSize[u];
+                    if (low[u] > discovery[parent]) {
+                        bridgeChild[parentRoute[u]] = u;
+                    }
+                    if (low[u] >= discovery[parent] && parent != root) {
+                        cuts[parent]++;
+                    }
+                }
+            }
+
+            cuts[root] = Math.max(0, rootChildren - 1);
+            for (int i = first; i < time; i++) {
+                componentStart[order[i]] = first;
+                componentSize[order[i]] = time - first;
+            }
+            components++;
+        }
+
+        return new BridgeAnalysis(snapshot.getVersion(), snapshot.getClasePeso(), order, discovery, subtreeSize,
+                componentStart, componentSize, cuts, bridgeChild, components, System.nanoTime() - start);
+    }
+
+    /**
+     * Indica si cerrar la ruta desconecta la red
+     */
+    public boolean esPuente(int route) {
+        return bridgeChild[route] != -1;
+    }
+
+    /**
+     * Centros del lado más chico que queda aislado al cerrar la ruta (0 si no es puente)
+     */
+    public int centrosSeparados(int route) {
+        int child = bridgeChild[route];
+        if (child == -1) {
+            return 0;
+        }
+        return Math.min(subtreeSize[child], componentSize[child] - subtreeSize[child]);
+    }
+
+    /**
+     * Centros (índices) del lado más chico que queda aislado al cerrar la ruta, hasta el límite
+     */
+    public int[] ladoSeparado(int route, int limite) {
+        int child = bridgeChild[route];
+        if (child == -1) {
+            return new int[0];
+        }
+        int lo = discovery[child];
+        int hi = lo + subtreeSize[child];
+        int[] result;
+        if (subtreeSize[child] <= componentSize[child] - subtreeSize[child]) {
+            result = Arrays.copyOfRange(order, lo, Math.min(hi, lo + limite));
+        } else {
+            // El lado chico es el resto de la componente: lo que está antes y después del subárbol
+            int from = componentStart[child];
+            int to = from + componentSize[child];
+            int size = Math.min(limite, (lo - from) + (to - hi));
+            result = new int[size];
+            int k = 0;
+            for (int i = from; i < lo && k < size; i++) {
+                result[k++] = order[i];
+            }
+            for (int i = hi; i < to && k < size; i++) {
+                result[k++] = order[i];
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Indica si quitar el centro desconecta la red
+     */
+    public boolean esArticulacion(int vertex) {
+        return cuts[vertex] > 0;
+    }
+
+    /**
+     * Partes en que queda dividida el resto de la componente al quitar el centro
+     */
+    public int partesAlQuitar(int vertex) {
+        return componentSize[vertex] > 1 ? cuts[vertex] + 1 : 0;
+    }
+
+    /**
+     * Centros de la componente conexa del vértice
+     */
+    public int tamanoComponente(int vertex) {
+        return componentSize[vertex];
+    }
+
+    /**
+     * Índices de las rutas puente
+     */
+    public int[] puentes() {
+        int[] result = new int[bridgeCount];
+        int k = 0;
+        for (int r = 0; r < bridgeChild.length; r++) {
+            if (bridgeChild[r] != -1) {
+                result[k++] = r;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Índices de los centros que son puntos de articulación
+     */
+    public int[] articulaciones() {
+        int[] result = new int[articulationCount];
+        int k = 0;
+        for (int v = 0; v < cuts.length; v++) {
+            if (cuts[v] > 0) {
+                result[k++] = v;
+            }
+        }
+        return result;
+    }
+
+    public long getVersion() { return version; }
+
+    public int getClasePeso() { return weightClass; }
+
+    public int numeroPuentes() { return bridgeCount; }
+
+    public int numeroArticulaciones() { return articulationCount; }
+
+    public int numeroComponentes() { return components; }
+
+    public long getTiempoConstruccionNanos() { return buildTimeNanos; }
+}
@@ -0,0 +1,605 @@
+package com.transroute.logistics.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.IntConsumer;
+import java.util.stream.IntStream;
+
+/**
+ * Resolución del ruteo de vehículos con capacidad (CVRP) sobre una matriz de costos
+ *
+ * El nodo 0 es el depósito y los nodos 1..n son las paradas. Cada camión tiene su propia
+ * capacidad y hace a lo sumo un recorrido depósito -> paradas -> depósito.
+ *
+ * 1. Ahorros de Clarke-Wright: se parte de un recorrido por parada y se fusionan extremos
+ *    en orden de ahorro d(0,i) + d(0,j) - d(i,j), respetando la mayor capacidad de la flota.
+ *    Solo se generan ahorros entre vecinos cercanos, por lo que son O(n·K) y no O(n²)
+ * 2. Los recorridos se asignan a camiones (mejor ajuste por carga); las paradas que no
+ *    entran se reinsertan por inserción más barata donde haya capacidad
+ * 3. Búsqueda local por rondas: en paralelo se evalúa para cada parada el mejor
+ *    relocate o swap con sus K vecinos; luego se aplican las mejoras sobre pares de
+ *    recorridos disjuntos y se re-optimiza con 2-opt (en paralelo por recorrido)
+ *    cada recorrido modificado, hasta no mejorar o agotar el tiempo. Tras cada ronda se
+ *    reintenta insertar las paradas sin camión en la capacidad que se haya liberado
+ *
+ * La matriz debe ser simétrica (grafo no dirigido), como exige el 2-opt.
+ * No es seguro para hilos: cada resolución usa su propia instancia.
+ */
+public final class CapacitatedRoutingSolver {
+
+    private static final int VECINOS = 30;
+    private static final double EPS = 1e-9;
+
+    private static final int RELOCATE_ANTES = 0;
+    private static final int RELOCATE_DESPUES = 1;
+    private static final int SWAP = 2;
+
+    private final double[][] d;
+    private final int[] demand;
+    private final int[] capacity;
+    private final ForkJoinPool pool;
+    private final long deadline;
+    private final int n;
+
+    private int[][] neighbours;
+    private int[][] tourNodes;
+    private int[] tourSize;
+    private int[] tourLoad;
+    private int[] tourOf;
+    private int[] posOf;
+    private final List<Integer> unassigned = new ArrayList<>();
+
+    /**
+     * Solución: recorridos por camión (nodos 1..n en orden de visita) y estadísticas
+     */
+    public static class Solucion {
+        public final int[][] recorridos;
+        public final int[] cargas;
+        public final double[] costos;
+        public final double costoTotal;
+        public final double costoInicial;
+        public final int[] noAsignadas;
+        public final int rondas;
+        public final int movimientos;
+
+        public Solucion(int[][] recorridos, int[] cargas, double[] costos, double costoTotal,
+                        double costoInicial, int[] noAsignadas, int rondas, int movimientos) {
+            this.recorridos = recorridos;
+            this.cargas = cargas;
+            this.costos = costos;
+            this.costoTotal = costoTotal;
+            this.costoInicial = costoInicial;
+            this.noAsignadas = noAsignadas;
+            this.rondas = rondas;
+            this.movimientos = movimientos;
+        }
+    }
+
+    /**
+     * Movimiento evaluado para una parada
+     */
+    private static final class Movimiento {
+        final double ganancia;
+        final int tipo;
+        final int stop;
+        final int other;
+
+        Movimiento(double ganancia, int tipo, int stop, int other) {
+            this.ganancia = ganancia;
+            this.tipo = tipo;
+            this.stop = stop;
+            this.other = other;
+        }
+    }
+
+    /**
+     * @param costos Matriz simétrica (n+1)x(n+1); fila/columna 0 es el depósito
+     * @param demandas Demanda de cada nodo (demandas[0] se ignora)
+     * @param capacidades Capacidad de cada camión
+     * @param pool Pool de cómputo para las fases paralelas
+     * @param tiempoLimiteNanos Presupuesto de tiempo de la búsqueda local
+     */
+    public CapacitatedRoutingSolver(double[][] costos, int[] demandas, int[] capacidades,
+                                    ForkJoinPool pool, long tiempoLimiteNanos) {
+        this.d = costos;
+        this.demand = demandas;
+        this.capacity = capacidades;
+        this.pool = pool;
+        this.deadline = System.nanoTime() + tiempoLimiteNanos;
+        this.n = costos.length - 1;
+    }
+
+    public Solucion resolver() {
+        int trucks = capacity.length;
+        tourNodes = new int[trucks][];
+        tourSize = new int[trucks];
+        tourLoad = new int[trucks];
+        tourOf = new int[n + 1];
+        posOf = new int[n + 1];
+        Arrays.fill(tourOf, -1);
+        for (int t = 0; t < trucks; t++) {
+            tourNodes[t] = new int[4];
+        }
+
+        calcularVecinos();
+        asignarCamiones(clarkeWright());
+        double initialCost = costoTotal();
+
+        int[] all = IntStream.range(0, trucks).toArray();
+        enParalelo(all, this::dosOpt);
+
+        int rounds = 0;
+        int moves = 0;
+        while (System.nanoTime() < deadline) {
+            rounds++;
+            Movimiento[] best = new Movimiento[n + 1];
+            enParalelo(IntStream.rangeClosed(1, n).toArray(), i -> best[i] = mejorMovimiento(i));
+
+            List<Movimiento> candidates = new ArrayList<>();
+            for (int i = 1; i <= n; i++) {
+                if (best[i] != null) {
+                    candidates.add(best[i]);
+                }
+            }
+            candidates.sort((a, b) -> Double.compare(b.ganancia, a.ganancia));
+
+            // Solo se aplican movimientos sobre recorridos no tocados en esta ronda: su ganancia sigue siendo exacta
+            boolean[] touched = new boolean[trucks];
+            List<Integer> modified = new ArrayList<>();
+            for (Movimiento m : candidates) {
+                int a = tourOf[m.stop];
+                int b = tourOf[m.other];
+                if (a == -1 || b == -1 || touched[a] || touched[b]) {
+                    continue;
+                }
+                aplicar(m);
+                touched[a] = true;
+                touched[b] = true;
+                modified.add(a);
+                modified.add(b);
+                moves++;
+            }
+            // Los movimientos pueden liberar capacidad para paradas que quedaron sin camión
+            int inserted = reinsertarPendientes();
+            if (modified.isEmpty() && inserted == 0) {
+                break;
+            }
+            enParalelo(modified.stream().mapToInt(Integer::intValue).toArray(), this::dosOpt);
+        }
+
+        int[][] recorridos = new int[trucks][];
+        double[] costs = new double[trucks];
+        double total = 0.0;
+        for (int t = 0; t < trucks; t++) {
+            recorridos[t] = Arrays.copyOf(tourNodes[t], tourSize[t]);
+            costs[t] = costoRecorrido(d, recorridos[t]);
+            total += costs[t];
+        }
+        int[] noAsignadas = unassigned.stream().mapToInt(Integer::intValue).sorted().toArray();
+        return new Solucion(recorridos, tourLoad.clone(), costs, total, initialCost, noAsignadas, rounds, moves);
+    }
+
+    /**
+     * Costo de un recorrido depósito -> paradas -> depósito
+     */
+    public static double costoRecorrido(double[][] costos, int[] paradas) {
+        if (paradas.length == 0) {
+            return 0.0;
+        }
+        double cost = costos[0][paradas[0]];
+        for (int k = 1; k < paradas.length; k++) {
+            cost += costos[paradas[k - 1]][paradas[k]];
+        }
+        return cost + costos[paradas[paradas.length - 1]][0];
+    }
+
+    // ==========================================
+    // CONSTRUCCIÓN INICIAL
+    // ==========================================
+
+    /**
+     * K paradas más cercanas de cada parada (selección parcial, O(n·K) por fila)
+     */
+    private void calcularVecinos() {
+        int k = Math.min(VECINOS, Math.max(0, n - 1));
+        neighbours = new int[n + 1][];
+        neighbours[0] = new int[0];
+        enParalelo(IntStream.rangeClosed(1, n).toArray(), i -> {
+            int[] best = new int[k];
+            double[] bestCost = new double[k];
+            int size = 0;
+            for (int j = 1; j <= n; j++) {
+                double c = d[i][j];
+                if (j == i || c == Double.POSITIVE_INFINITY || (size == k && c >= bestCost[k - 1])) {
+                    continue;
+                }
+                int p = size < k ? size++ : k - 1;
+                while (p > 0 && bestCost[p - 1] > c) {
+                    best[p] = best[p - 1];
+                    bestCost[p] = bestCost[p - 1];
+                    p--;
+                }
+                best[p] = j;
+                bestCost[p] = c;
+            }
+            neighbours[i] = Arrays.copyOf(best, size);
+        });
+    }
+
+    /**
+     * Ahorros de Clarke-Wright con la mayor capacidad de la flota
+     * Cada parada guarda sus dos vecinos en el recorrido (0 = depósito), así una fusión
+     * solo reemplaza el enlace al depósito de cada extremo, sin importar la orientación
+     */
+    private List<int[]> clarkeWright() {
+        int maxCapacity = Arrays.stream(capacity).max().orElse(0);
+        int[] link1 = new int[n + 1];
+        int[] link2 = new int[n + 1];
+        boolean[] served = new boolean[n + 1];
+        int[] load = new int[n + 1];
+        MinimumSpanningTreeService.UnionFind components = new MinimumSpanningTreeService.UnionFind(n + 1);
+        for (int i = 1; i <= n; i++) {
+            served[i] = demand[i] <= maxCapacity;
+            if (!served[i]) {
+                unassigned.add(i);
+            }
+            load[i] = demand[i];
+        }
+
+        int pairs = 0;
+        for (int i = 1; i <= n; i++) {
+            pairs += neighbours[i].length;
+        }
+        int[] from = new int[pairs];
+        int[] to = new int[pairs];
+        double[] saving = new double[pairs];
+        int count = 0;
+        for (int i = 1; i <= n; i++) {
+            for (int j : neighbours[i]) {
+                double s = d[0][i] + d[0][j] - d[i][j];
+                if (s > EPS && served[i] && served[j]) {
+                    from[count] = i;
+                    to[count] = j;
+                    saving[count] = s;
+                    count++;
+                }
+            }
+        }
+        Integer[] order = new Integer[count];
+        for (int k = 0; k < count; k++) {
+            order[k] = k;
+        }
+        Arrays.sort(order, (a, b) -> Double.compare(saving[b], saving[a]));
+
+        for (int k : order) {
+            int i = from[k];
+            int j = to[k];
+            if (!extremo(i, link1, link2) || !extremo(j, link1, link2)) {
+                continue;
+            }
+            int ri = components.buscar(i);
+            int rj = components.buscar(j);
+            if (ri == rj || load[ri] + load[rj] > maxCapacity) {
+                continue;
+            }
+            enlazar(i, j, link1, link2);
+            enlazar(j, i, link1, link2);
+            int merged = load[ri] + load[rj];
+            components.unir(ri, rj);
+            load[components.buscar(i)] = merged;
+        }
+
+        // Cada recorrido se lee desde uno de sus extremos
+        List<int[]> routes = new ArrayList<>();
+        boolean[] visited = new boolean[n + 1];
+        int[] buffer = new int[n];
+        for (int i = 1; i <= n; i++) {
+            if (!served[i] || visited[i] || !extremo(i, link1, link2)) {
+                continue;
+            }
+            int size = 0;
+            int prev = 0;
+            int cur = i;
+            while (cur != 0) {
+                visited[cur] = true;
+                buffer[size++] = cur;
+                int next = link1[cur] == prev ? link2[cur] : link1[cur];
+                prev = cur;
+                cur = next;
+            }
+            routes.add(Arrays.copyOf(buffer, size));
+        }
+        return routes;
+    }
+
+    private static boolean extremo(int i, int[] link1, int[] link2) {
+        return link1[i] == 0 || link2[i] == 0;
+    }
+
+    private static void enlazar(int i, int j, int[] link1, int[] link2) {
+        if (link1[i] == 0) {
+            link1[i] = j;
+        } else {
+            link2[i] = j;
+        }
+    }
+
+    /**
+     * Mejor ajuste: los recorridos más cargados toman el camión libre más chico que los admite.
+     * Un recorrido que no entra en ningún camión libre se corta en tramos consecutivos que
+     * llenan los camiones libres más grandes; lo que sobra se reinserta donde sea más barato
+     */
+    private void asignarCamiones(List<int[]> routes) {
+        int[] loads = new int[routes.size()];
+        Integer[] order = new Integer[routes.size()];
+        for (int r = 0; r < routes.size(); r++) {
+            for (int stop : routes.get(r)) {
+                loads[r] += demand[stop];
+            }
+            order[r] = r;
+        }
+        Arrays.sort(order, (a, b) -> Integer.compare(loads[b], loads[a]));
+        Integer[] trucks = new Integer[capacity.length];
+        for (int t = 0; t < capacity.length; t++) {
+            trucks[t] = t;
+        }
+        Arrays.sort(trucks, (a, b) -> Integer.compare(capacity[a], capacity[b]));
+        boolean[] used = new boolean[capacity.length];
+
+        List<Integer> pending = new ArrayList<>();
+        for (int r : order) {
+            int chosen = -1;
+            for (int t : trucks) {
+                if (!used[t] && capacity[t] >= loads[r]) {
+                    chosen = t;
+                    break;
+                }
+            }
+            if (chosen != -1) {
+                used[chosen] = true;
+                for (int stop : routes.get(r)) {
+                    insertar(chosen, tourSize[chosen], stop);
+                }
+                continue;
+            }
+
+            int current = -1;
+            for (int stop : routes.get(r)) {
+                if (current == -1 || tourLoad[current] + demand[stop] > capacity[current]) {
+                    current = libreMasGrande(trucks, used);
+                    if (current == -1 || capacity[current] < demand[stop]) {
+                        current = -1;
+                        pending.add(stop);
+                        continue;
+                    }
+                    used[current] = true;
+                }
+                insertar(current, tourSize[current], stop);
+            }
+        }
+
+        unassigned.addAll(pending);
+        reinsertarPendientes();
+    }
+
+    /**
+     * Inserción más barata de las paradas sin camión donde haya capacidad.
+     * Se prueban de menor a mayor demanda para atender la mayor cantidad de cargas
+     *
+     * @return Cantidad de paradas insertadas
+     */
+    private int reinsertarPendientes() {
+        if (unassigned.isEmpty()) {
+            return 0;
+        }
+        List<Integer> pending = new ArrayList<>(unassigned);
+        pending.sort((a, b) -> Integer.compare(demand[a], demand[b]));
+        unassigned.clear();
+        int inserted = 0;
+        for (int stop : pending) {
+            int bestTour = -1;
+            int bestPos = -1;
+            double bestCost = Double.MAX_VALUE;
+            for (int t = 0; t < capacity.length; t++) {
+                if (tourLoad[t] + demand[stop] > capacity[t]) {
+                    continue;
+                }
+                for (int p = 0; p <= tourSize[t]; p++) {
+                    int before = p == 0 ? 0 : tourNodes[t][p - 1];
+                    int after = p == tourSize[t] ? 0 : tourNodes[t][p];
+                    double cost = d[before][stop] + d[stop][after] - d[before][after];
+                    if (cost < bestCost) {
+                        bestCost = cost;
+                        bestTour = t;
+                        bestPos = p;
+                    }
+                }
+            }
+            if (bestTour == -1) {
+                unassigned.add(stop);
+            } else {
+                insertar(bestTour, bestPos, stop);
+                inserted++;
+            }
+        }
+        return inserted;
+    }
+
+    private static int libreMasGrande(Integer[] trucksByCapacity, boolean[] used) {
+        for (int k = trucksByCapacity.length - 1; k >= 0; k--) {
+            if (!used[trucksByCapacity[k]]) {
+                return trucksByCapacity[k];
+            }
+        }
+        return -1;
+    }
+
+    // ==========================================
+    // BÚSQUEDA LOCAL
+    // ==========================================
+
+    /**
+     * Mejor relocate o swap de la parada con sus vecinos de otros recorridos
+     */
+    private Movimiento mejorMovimiento(int i) {
+        int a = tourOf[i];
+        if (a == -1) {
+            return null;
+        }
+        int pi = anterior(i);
+        int ni = siguiente(i);
+        double removeGain = d[pi][i] + d[i][ni] - d[pi][ni];
+        double best = EPS;
+        Movimiento move = null;
+
+        for (int j : neighbours[i]) {
+            int b = tourOf[j];
+            if (b == -1 || b == a) {
+                continue;
+            }
+            int pj = anterior(j);
+            int nj = siguiente(j);
+
+            if (tourLoad[b] + demand[i] <= capacity[b]) {
+                double before = removeGain - (d[pj][i] + d[i][j] - d[pj][j]);
+                if (before > best) {
+                    best = before;
+                    move = new Movimiento(before, RELOCATE_ANTES, i, j);
+                }
+                double after = removeGain - (d[j][i] + d[i][nj] - d[j][nj]);
+                if (after > best) {
+                    best = after;
+                    move = new Movimiento(after, RELOCATE_DESPUES, i, j);
+                }
+            }
+
+            if (tourLoad[a] - demand[i] + demand[j] <= capacity[a]
+                    && tourLoad[b] - demand[j] + demand[i] <= capacity[b]) {
+                double swap = d[pi][i] + d[i][ni] - d[pi][j] - d[j][ni]
+                        + d[pj][j] + d[j][nj] - d[pj][i] - d[i][nj];
+                if (swap > best) {
+                    best = swap;
+                    move = new Movimiento(swap, SWAP, i, j);
+                }
+            }
+        }
+        return move;
+    }
+
+    private void aplicar(Movimiento m) {
+        int i = m.stop;
+        int j = m.other;
+        int a = tourOf[i];
+        int b = tourOf[j];
+        if (m.tipo == SWAP) {
+            int pi = posOf[i];
+            int pj = posOf[j];
+            tourNodes[a][pi] = j;
+            tourNodes[b][pj] = i;
+            tourOf[i] = b;
+            posOf[i] = pj;
+            tourOf[j] = a;
+            posOf[j] = pi;
+            tourLoad[a] += demand[j] - demand[i];
+            tourLoad[b] += demand[i] - demand[j];
+            return;
+        }
+        quitar(a, i);
+        insertar(b, m.tipo == RELOCATE_ANTES ? posOf[j] : posOf[j] + 1, i);
+    }
+
+    /**
+     * 2-opt de primera mejora sobre un recorrido (invierte el tramo a..b)
+     */
+    private void dosOpt(int t) {
+        int[] nodes = tourNodes[t];
+        int size = tourSize[t];
+        boolean improved = true;
+        while (improved && System.nanoTime() < deadline) {
+            improved = false;
+            for (int a = 0; a < size - 1; a++) {
+                int x1 = a == 0 ? 0 : nodes[a - 1];
+                for (int b = a + 1; b < size; b++) {
+                    int x2 = nodes[a];
+                    int y1 = nodes[b];
+                    int y2 = b == size - 1 ? 0 : nodes[b + 1];
+                    if (d[x1][y1] + d[x2][y2] - d[x1][x2] - d[y1][y2] < -EPS) {
+                        for (int l = a, r = b; l < r; l++, r--) {
+                            int tmp = nodes[l];
+                            nodes[l] = nodes[r];
+                            nodes[r] = tmp;
+                        }
+                        for (int p = a; p <= b; p++) {
+                            posOf[nodes[p]] = p;
+                        }
+                        improved = true;
+                    }
+                }
+            }
+        }
+    }
+
+    // ==========================================
+    // ESTRUCTURA DE RECORRIDOS
+    // ==========================================
+
+    private int anterior(int i) {
+        int p = posOf[i];
+        return p == 0 ? 0 : tourNodes[tourOf[i]][p - 1];
+    }
+
+    private int siguiente(int i) {
+        int t = tourOf[i];
+        int p = posOf[i];
+        return p == tourSize[t] - 1 ? 0 : tourNodes[t][p + 1];
+    }
+
+    private void insertar(int t, int pos, int stop) {
+        if (tourSize[t] == tourNodes[t].length) {
+            tourNodes[t] = Arrays.copyOf(tourNodes[t], tourNodes[t].length * 2);
+        }
+        int[] nodes = tourNodes[t];
+        System.arraycopy(nodes, pos, nodes, pos + 1, tourSize[t] - pos);
+        nodes[pos] = stop;
+        tourSize[t]++;
+        for (int p = pos; p < tourSize[t]; p++) {
+            posOf[nodes[p]] = p;
+        }
+        tourOf[stop] = t;
+        tourLoad[t] += demand[stop];
+    }
+
+    private void quitar(int t, int stop) {
+        int[] nodes = tourNodes[t];
+        int pos = posOf[stop];
+        System.arraycopy(nodes, pos + 1, nodes, pos, tourSize[t] - pos - 1);
+        tourSize[t]--;
+        for (int p = pos; p < tourSize[t]; p++) {
+            posOf[nodes[p]] = p;
+        }
+        tourOf[stop] = -1;
+        tourLoad[t] -= demand[stop];
+    }
+
+    private double costoTotal() {
+        double total = 0.0;
+        for (int t = 0; t < capacity.length; t++) {
+            total += costoRecorrido(d, Arrays.copyOf(tourNodes[t], tourSize[t]));
+        }
+        return total;
+    }
+
+    private void enParalelo(int[] items, IntConsumer action) {
+        try {
+            pool.submit(() -> Arrays.stream(items).parallel().forEach(action)).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Ruteo de vehículos interrumpido", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Error en el ruteo de vehículos", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,335 @@
+package com.transroute.logistics.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Centralidad de intermediación (betweenness) de centros y rutas y centralidad de cercanía
+ * (closeness) de los centros, con el algoritmo de Brandes sobre caminos mínimos ponderados
+ *
+ * - Por cada origen: Dijkstra contando caminos mínimos (sigma) y acumulación de dependencias
+ *   en orden inverso de asentamiento. Los predecesores no se guardan: se recuperan recorriendo
+ *   las aristas entrantes con dist[v] + peso == dist[w]
+ * - Los orígenes se reparten en tramos en el pool de cómputo; cada tramo suma en un
+ *   acumulador propio (uno por hilo como máximo) y al final se combinan, sin sincronizar
+ *   por vértice
+ * - Modo aproximado: k orígenes al azar (semilla fija por versión) y los puntajes se escalan
+ *   por V/k; la cercanía se estima con las distancias desde la muestra (Eppstein-Wang)
+ * - Se guarda el último resultado de las instantáneas publicadas por métrica y clase de peso
+ *
+ * Las rutas paralelas con el mismo peso cuentan como caminos distintos. En grafos no dirigidos
+ * cada par se recorre en los dos sentidos, por lo que la intermediación se divide por 2.
+ * En grafos dirigidos la cercanía es de entrada (distancias hacia el centro).
+ *
+ * Complejidad: O(k (V + E) log V) con k orígenes (k = V en el modo exacto), repartido en p hilos
+ */
+@Service
+public class CentralityService {
+
+    /** Hasta este número de vértices se calcula la centralidad exacta por defecto */
+    public static final int UMBRAL_EXACTO = 5_000;
+
+    /** Orígenes muestreados por defecto en redes más grandes */
+    public static final int MUESTRAS_POR_DEFECTO = 512;
+
+    private static final int TRAMOS_POR_HILO = 8;
+
+    @Autowired
+    private ForkJoinPool graphComputePool;
+
+    // Último resultado por métrica y clase de peso (la muestra la elige el cliente: no se acumulan)
+    private final Map<String, Entrada> cache = new ConcurrentHashMap<>();
+
+    /**
+     * Puntajes por vértice y por ruta
+     */
+    public static class Resultado {
+        public final long version;
+        public final GraphSnapshot.Metrica metrica;
+        public final double[] intermediacionCentros;
+        public final double[] intermediacionRutas;
+        public final double[] cercania; // 0 si el centro no es alcanzado desde otro
+        public final int origenes;
+        public final boolean aproximado;
+        public final long tiempoCalculoNanos;
+
+        public Resultado(long version, GraphSnapshot.Metrica metrica, double[] intermediacionCentros,
+                         double[] intermediacionRutas, double[] cercania, int origenes, boolean aproximado,
+                         long tiempoCalculoNanos) {
+            this.version = version;
+            this.metrica = metrica;
+            this.intermediacionCentros = intermediacionCentros;
+            this.intermediacionRutas = intermediacionRutas;
+            this.cercania = cercania;
+            this.origenes = origenes;
+            this.aproximado = aproximado;
+            this.tiempoCalculoNanos = tiempoCalculoNanos;
+        }
+    }
+
+    /**
+     * Cálculo en curso o terminado para una versión y muestra
+     */
+    private static final class Entrada {
+        final long version;
+        final int origenes;
+        final CompletableFuture<Resultado> resultado = new CompletableFuture<>();
+
+        Entrada(long version, int origenes) {
+            this.version = version;
+            this.origenes = origenes;
+        }
+    }
+
+    @EventListener
+    public void onSnapshotUpdated(GraphSnapshotUpdatedEvent event) {
+        cache.clear();
+    }
+
+    /**
+     * Muestra por defecto: exacto en redes chicas, MUESTRAS_POR_DEFECTO orígenes en las grandes
+     */
+    public int muestrasPorDefecto(int vertices) {
+        return vertices <= UMBRAL_EXACTO ? 0 : MUESTRAS_POR_DEFECTO;
+    }
+
+    /**
+     * Centralidades de la instantánea
+     * Se guarda el último resultado por métrica y clase de peso; los pedidos simultáneos de la
+     * misma versión y muestra esperan un único cálculo, que se hace fuera del mapa
+     *
+     * @param snapshot Vista con la métrica a usar
+     * @param muestras Orígenes muestreados (<= 0 o >= V: exacto)
+     */
+    public Resultado calcular(GraphSnapshot snapshot, int muestras) {
+        int n = snapshot.numeroVertices();
+        int k = muestras <= 0 || muestras >= n ? n : muestras;
+        if (snapshot.getVersion() <= 0) {
+            return calcularSinCache(snapshot, k); // Grafos armados por pedido (versión 0): sin caché
+        }
+        String key = snapshot.getMetrica() + "/" + snapshot.getClasePeso();
+        while (true) {
+            Entrada existing = cache.get(key);
+            if (existing != null && existing.version == snapshot.getVersion() && existing.origenes == k) {
+                return esperar(existing.resultado);
+            }
+            Entrada entry = new Entrada(snapshot.getVersion(), k);
+            boolean owner = existing == null ? cache.putIfAbsent(key, entry) == null : cache.replace(key, existing, entry);
+            if (!owner) {
+                continue; // Otro hilo reemplazó la entrada: se vuelve a mirar
+            }
+            try {
+                Resultado result = calcularSinCache(snapshot, k);
+                entry.resultado.complete(result);
+                return result;
+            } catch (RuntimeException e) {
+                cache.remove(key, entry);
+                entry.resultado.completeExceptionally(e);
+                throw e;
+            }
+        }
+    }
+
+    private static Resultado esperar(CompletableFuture<Resultado> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Cálculo de centralidad interrumpido", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException re ? re
+                    : new IllegalStateException("Error calculando la centralidad", e.getCause());
+        }
+    }
+
+    private Resultado calcularSinCache(GraphSnapshot snapshot, int k) {
+        long start = System.nanoTime();
+        int n = snapshot.numeroVertices();
+        boolean approximate = k < n;
+        int[] sources = approximate ? muestrear(n, k, snapshot.getVersion()) : IntStream.range(0, n).toArray();
+
+        // Cada tramo de orígenes toma un acumulador libre (o crea uno): a lo sumo uno por hilo
+        Queue<Acumulador> accumulators = new ConcurrentLinkedQueue<>();
+        Queue<Acumulador> free = new ConcurrentLinkedQueue<>();
+        int chunks = Math.min(sources.length, Math.max(1, graphComputePool.getParallelism() * TRAMOS_POR_HILO));
+        int chunkSize = chunks > 0 ? (sources.length + chunks - 1) / chunks : 0;
+        ejecutar(() -> IntStream.range(0, chunks).parallel().forEach(c -> {
+            Acumulador acc = free.poll();
+            if (acc == null) {
+                acc = new Acumulador(n, snapshot.numeroRutas());
+                accumulators.add(acc);
+            }
+            int lo = Math.min(c * chunkSize, sources.length);
+            int hi = Math.min(lo + chunkSize, sources.length);
+            for (int i = lo; i < hi; i++) {
+                acc.procesarOrigen(snapshot, sources[i]);
+            }
+            free.add(acc);
+        }));
+
+        // Combinar los acumuladores de cada hilo
+        double[] vertexScore = new double[n];
+        double[] routeScore = new double[snapshot.numeroRutas()];
+        double[] distanceSum = new double[n];
+        long[] reachedBy = new long[n];
+        for (Acumulador acc : accumulators) {
+            for (int v = 0; v < n; v++) {
+                vertexScore[v] += acc.vertexScore[v];
+                distanceSum[v] += acc.distanceSum[v];
+                reachedBy[v] += acc.reachedBy[v];
+            }
+            for (int r = 0; r < routeScore.length; r++) {
+                routeScore[r] += acc.routeScore[r];
+            }
+        }
+
+        double scale = (double) n / k / (snapshot.isDirected() ? 1.0 : 2.0);
+        for (int v = 0; v < n; v++) {
+            vertexScore[v] *= scale;
+        }
+        for (int r = 0; r < routeScore.length; r++) {
+            routeScore[r] *= scale;
+        }
+
+        // Cercanía normalizada (Wasserman-Faust): (R-1)/suma * (R-1)/(V-1), R = centros que lo alcanzan
+        double[] closeness = new double[n];
+        double sampleScale = (double) n / k;
+        for (int v = 0; v < n; v++) {
+            double reached = reachedBy[v] * sampleScale;
+            double sum = distanceSum[v] * sampleScale;
+            if (n > 1 && reached > 1.0 && sum > 0.0) {
+                closeness[v] = (reached - 1.0) / sum * (reached - 1.0) / (n - 1);
+            }
+        }
+
+        return new Resultado(snapshot.getVersion(), snapshot.getMetrica(), vertexScore, routeScore, closeness,
+                k, approximate, System.nanoTime() - start);
+    }
+
+    /**
+     * k orígenes distintos al azar (Fisher-Yates parcial con semilla fija)
+     */
+    private static int[] muestrear(int n, int k, long seed) {
+        int[] all = IntStream.range(0, n).toArray();
+        Random random = new Random(seed);
+        for (int i = 0; i < k; i++) {
+            int j = i + random.nextInt(n - i);
+            int tmp = all[i];
+            all[i] = all[j];
+            all[j] = tmp;
+        }
+        return Arrays.copyOf(all, k);
+    }
+
+    /**
+     * Arreglos de trabajo y puntajes parciales de un hilo
+     */
+    private static final class Acumulador {
+        final double[] vertexScore;
+        final double[] routeScore;
+        final double[] distanceSum;
+        final long[] reachedBy;
+
+        final double[] dist;
+        final double[] sigma;
+        final double[] delta;
+        final int[] order; // Posición de asentamiento (-1 = no alcanzado)
+        final int[] stack;
+        final IndexedDaryHeap heap;
+
+        Acumulador(int vertices, int routes) {
+            vertexScore = new double[vertices];
+            routeScore = new double[routes];
+            distanceSum = new double[vertices];
+            reachedBy = new long[vertices];
+            dist = new double[vertices];
+            sigma = new double[vertices];
+            delta = new double[vertices];
+            order = new int[vertices];
+            stack = new int[vertices];
+            heap = new IndexedDaryHeap(vertices);
+            Arrays.fill(dist, Double.MAX_VALUE);
+            Arrays.fill(order, -1);
+        }
+
+        void procesarOrigen(GraphSnapshot snapshot, int source) {
+            // Dijkstra contando caminos mínimos
+            int settled = 0;
+            heap.vaciar();
+            dist[source] = 0.0;
+            sigma[source] = 1.0;
+            heap.insertarODisminuir(source, 0.0);
+            while (!heap.vacio()) {
+                int u = heap.extraerMinimo();
+                order[u] = settled;
+                stack[settled++] = u;
+                double du = dist[u];
+                for (int e = snapshot.inicioAristas(u); e < snapshot.finAristas(u); e++) {
+                    int v = snapshot.destino(e);
+                    if (order[v] != -1) {
+                        continue;
+                    }
+                    double candidate = du + snapshot.peso(e);
+                    if (candidate < dist[v]) {
+                        dist[v] = candidate;
+                        sigma[v] = sigma[u];
+                        heap.insertarODisminuir(v, candidate);
+                    } else if (candidate == dist[v]) {
+                        sigma[v] += sigma[u];
+                    }
+                }
+            }
+
+            // Dependencias en orden inverso; predecesor = asentado antes y sobre un camino mínimo
+            for (int i = settled - 1; i >= 0; i--) {
+                int w = stack[i];
+                double coefficient = (1.0 + delta[w]) / sigma[w];
+                for (int e = snapshot.inicioAristasEntrantes(w); e < snapshot.finAristasEntrantes(w); e++) {
+                    int v = snapshot.origenEntrante(e);
+                    if (order[v] != -1 && order[v] < i && dist[v] + snapshot.pesoEntrante(e) == dist[w]) {
+                        double contribution = sigma[v] * coefficient;
+                        routeScore[snapshot.rutaEntrante(e)] += contribution;
+                        delta[v] += contribution;
+                    }
+                }
+                if (w != source) {
+                    vertexScore[w] += delta[w];
+                }
+                distanceSum[w] += dist[w];
+                reachedBy[w]++;
+            }
+
+            // Limpiar solo lo alcanzado
+            for (int i = 0; i < settled; i++) {
+                int v = stack[i];
+                dist[v] = Double.MAX_VALUE;
+                sigma[v] = 0.0;
+                delta[v] = 0.0;
+                order[v] = -1;
+            }
+        }
+    }
+
+    private void ejecutar(Runnable task) {
+        try {
+            graphComputePool.submit(task).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Cálculo de centralidad interrumpido", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Error calculando la centralidad", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,204 @@
+package com.transroute.logistics.service;
+
+import java.util.Arrays;
+
+/**
+ * Lista de adyacencia comprimida para recorridos sobre redes grandes
+ *
+ * Las aristas de cada vértice se ordenan por destino y se codifican como varints en un
+ * único byte[]: el primer destino como diferencia zigzag respecto del vértice y los
+ * siguientes como diferencia con el anterior (siempre >= 0); la ruta de cada arista como
+ * diferencia zigzag con la anterior (la primera, respecto de la ruta "esperada" para el
+ * vértice si las rutas se numeran en el mismo orden que los centros). Los pesos no se repiten por arista: se leen del
+ * arreglo por ruta de la vista (compartido, no copiado).
+ *
+ * En una red vial (destinos cercanos, grado bajo) una arista ocupa 2-4 bytes frente a los
+ * 16 del CSR (destino, ruta y peso), de modo que un recorrido lee bastante menos memoria.
+ * Se recorre con un Cursor reutilizable, sin reservar memoria por arista. Inmutable y
+ * seguro para lecturas concurrentes.
+ *
+ * Se arma a partir del CSR de la instantánea y convive con él: es memoria adicional, no un
+ * reemplazo (los demás algoritmos siguen usando el CSR). Cargar la red solo en forma
+ * comprimida queda fuera de alcance.
+ *
+ * Límite: 2 GB de datos codificados (índices int).
+ */
+public final class CompressedGraph {
+
+    private final int vertices;
+    private final int arcs;
+    private final int[] offsets; // Posición en data de la primera arista de cada vértice
+    private final byte[] data;
+    private final double[] routeWeight;
+
+    private CompressedGraph(int vertices, int arcs, int[] offsets, byte[] data, double[] routeWeight) {
+        this.vertices = vertices;
+        this.arcs = arcs;
+        this.offsets = offsets;
+        this.data = data;
+        this.routeWeight = routeWeight;
+    }
+
+    /**
+     * Comprime un CSR (destinos y rutas por arista) con pesos por ruta
+     *
+     * @param csrOffsets Inicio de las aristas de cada vértice (V + 1 entradas)
+     * @param targets Destino de cada arista
+     * @param edgeRoute Ruta de cada arista
+     * @param routeWeight Peso de cada ruta (se comparte)
+     */
+    static CompressedGraph comprimir(int[] csrOffsets, int[] targets, int[] edgeRoute, double[] routeWeight) {
+        int vertices = csrOffsets.length - 1;
+        int[] offsets = new int[vertices + 1];
+        byte[] data = new byte[(int) Math.min(Integer.MAX_VALUE - 8, Math.max(16L, 3L * targets.length))];
+        int size = 0;
+
+        // Aristas del vértice empaquetadas (destino << 32 | ruta) para ordenarlas juntas
+        long[] packed = new long[16];
+        for (int v = 0; v < vertices; v++) {
+            offsets[v] = size;
+            int start = csrOffsets[v];
+            int degree = csrOffsets[v + 1] - start;
+            if (packed.length < degree) {
+                packed = new long[Math.max(degree, packed.length * 2)];
+            }
+            for (int k = 0; k < degree; k++) {
+                packed[k] = ((long) targets[start + k] << 32) | (edgeRoute[start + k] & 0xFFFFFFFFL);
+            }
+            Arrays.sort(packed, 0, degree);
+
+            int previousTarget = v;
+            int previousRoute = rutaEsperada(v, vertices, routeWeight.length);
+            for (int k = 0; k < degree; k++) {
+                int target = (int) (packed[k] >>> 32);
+                int route = (int) packed[k];
+                if (data.length - size < 10) {
+                    long grown = Math.max((long) data.length * 3 / 2, (long) size + 10);
+                    if (grown > Integer.MAX_VALUE - 8) {
+                        throw new IllegalStateException("La red supera el tamaño máximo de la adyacencia comprimida");
+                    }
+                    data = Arrays.copyOf(data, (int) grown);
+                }
+                size = ponerVarint(data, size, k == 0 ? zigzag(target - v) : target - previousTarget);
+                size = ponerVarint(data, size, zigzag(route - previousRoute));
+                previousTarget = target;
+                previousRoute = route;
+            }
+        }
+        offsets[vertices] = size;
+        return new CompressedGraph(vertices, targets.length, offsets, Arrays.copyOf(data, size), routeWeight);
+    }
+
+    /**
+     * Misma adyacencia con otros pesos por ruta (comparte los bytes codificados)
+     */
+    CompressedGraph conPesos(double[] weights) {
+        return new CompressedGraph(vertices, arcs, offsets, data, weights);
+    }
+
+    /**
+     * Recorrido de las aristas de un vértice sin reservas de memoria
+     * Un cursor pertenece a una sola búsqueda (no es seguro para hilos)
+     */
+    public final class Cursor {
+        private int vertex;
+        private int position;
+        private int end;
+        private int target;
+        private int route;
+        private boolean first;
+
+        private Cursor() {
+        }
+
+        /**
+         * Posiciona el cursor antes de la primera arista del vértice
+         */
+        public Cursor abrir(int v) {
+            vertex = v;
+            position = offsets[v];
+            end = offsets[v + 1];
+            route = rutaEsperada(v, vertices, routeWeight.length);
+            first = true;
+            return this;
+        }
+
+        /**
+         * Avanza a la siguiente arista
+         *
+         * @return false si no quedan aristas
+         */
+        public boolean siguiente() {
+            if (position >= end) {
+                return false;
+            }
+            int delta = leerVarint();
+            target = first ? vertex + unzigzag(delta) : target + delta;
+            route += unzigzag(leerVarint());
+            first = false;
+            return true;
+        }
+
+        public int destino() { return target; }
+
+        public int ruta() { return route; }
+
+        public double peso() { return routeWeight[route]; }
+
+        private int leerVarint() {
+            int value = 0;
+            int shift = 0;
+            byte b;
+            do {
+                b = data[position++];
+                value |= (b & 0x7F) << shift;
+                shift += 7;
+            } while (b < 0);
+            return value;
+        }
+    }
+
+    public Cursor cursor() {
+        return new Cursor();
+    }
+
+    public int numeroVertices() { return vertices; }
+
+    public int numeroAristas() { return arcs; }
+
+    /**
+     * Bytes de la adyacencia comprimida (datos + índice por vértice; los pesos por ruta se comparten)
+     */
+    public long tamanoBytes() {
+        return data.length + 4L * offsets.length;
+    }
+
+    /**
+     * Bytes de la misma adyacencia en CSR (offsets, destino, ruta y peso por arista), que la
+     * instantánea mantiene además de esta
+     */
+    public long tamanoCsrBytes() {
+        return 4L * offsets.length + 16L * arcs;
+    }
+
+    private static int rutaEsperada(int v, int vertices, int routes) {
+        return (int) ((long) v * routes / vertices);
+    }
+
+    private static int ponerVarint(byte[] out, int position, int value) {
+        while ((value & ~0x7F) != 0) {
+            out[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        out[position++] = (byte) value;
+        return position;
+    }
+
+    private static int zigzag(int value) {
+        return (value << 1) ^ (value >> 31);
+    }
+
+    private static int unzigzag(int value) {
+        return (value >>> 1) ^ -(value & 1);
+    }
+}
@@ -0,0 +1,94 @@
+package com.transroute.logistics.service;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Servicio que mantiene el análisis de puentes y puntos de articulación por instantánea
+ *
+ * - El análisis se calcula la primera vez que se pide para una versión y clase de peso
+ *   y queda en caché hasta que se publica una nueva instantánea (una entrada por clase de peso)
+ * - Los pedidos simultáneos de la misma versión esperan un único cálculo, que se hace fuera del mapa
+ * - Con el análisis en caché, "¿cerrar esta ruta desconecta algo?" se responde sin recorrer el grafo
+ */
+@Service
+public class ConnectivityService {
+
+    private final Map<String, Entrada> cache = new ConcurrentHashMap<>();
+
+    /**
+     * Análisis en curso o terminado para una versión
+     */
+    private static final class Entrada {
+        final long version;
+        final CompletableFuture<BridgeAnalysis> analisis = new CompletableFuture<>();
+
+        Entrada(long version) {
+            this.version = version;
+        }
+    }
+
+    @EventListener
+    public void onSnapshotUpdated(GraphSnapshotUpdatedEvent event) {
+        cache.clear();
+    }
+
+    /**
+     * Puentes y puntos de articulación de la vista (red completa o clase de peso)
+     */
+    public BridgeAnalysis analizar(GraphSnapshot snapshot) {
+        if (snapshot.getVersion() <= 0) {
+            return BridgeAnalysis.construir(snapshot); // Grafos armados por pedido (versión 0): sin caché
+        }
+        String key = String.valueOf(snapshot.getClasePeso());
+        while (true) {
+            Entrada existing = cache.get(key);
+            if (existing != null && existing.version == snapshot.getVersion()) {
+                return esperar(existing.analisis);
+            }
+            Entrada entry = new Entrada(snapshot.getVersion());
+            boolean owner = existing == null ? cache.putIfAbsent(key, entry) == null : cache.replace(key, existing, entry);
+            if (!owner) {
+                continue; // Otro hilo reemplazó la entrada: se vuelve a mirar
+            }
+            try {
+                BridgeAnalysis analysis = BridgeAnalysis.construir(snapshot);
+                entry.analisis.complete(analysis);
+                return analysis;
+            } catch (RuntimeException e) {
+                cache.remove(key, entry);
+                entry.analisis.completeExceptionally(e);
+                throw e;
+            }
+        }
+    }
+
+    /**
+     * Análisis de la vista si ya está calculado para esa versión, o null (no calcula nada)
+     */
+    public BridgeAnalysis analisisEnCache(GraphSnapshot snapshot) {
+        Entrada entry = snapshot.getVersion() > 0 ? cache.get(String.valueOf(snapshot.getClasePeso())) : null;
+        if (entry == null || entry.version != snapshot.getVersion()
+                || !entry.analisis.isDone() || entry.analisis.isCompletedExceptionally()) {
+            return null;
+        }
+        return entry.analisis.getNow(null);
+    }
+
+    private static BridgeAnalysis esperar(CompletableFuture<BridgeAnalysis> future) {
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Análisis de conectividad interrumpido", e);
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof RuntimeException re ? re
+                    : new IllegalStateException("Error analizando la conectividad", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,534 @@
+package com.transroute.logistics.service;
+
+import java.util.*;
+
+/**
+ * Jerarquía de contracción (Contraction Hierarchies) construida sobre una instantánea del grafo
+ *
+ * Preprocesamiento:
+ * - Los vértices se contraen de a uno en orden de importancia (diferencia de aristas
+ *   + vecinos ya contraídos, con actualización perezosa de prioridades)
+ * - Al contraer v, para cada par u -> v -> x se agrega un atajo u -> x salvo que una
+ *   búsqueda de testigo (acotada) encuentre un camino igual o más corto sin pasar por v
+ *
+ * Consulta:
+ * - Dijkstra bidireccional solo por aristas que suben de rango (grafo "up" desde el origen
+ *   y grafo "down" invertido desde el destino); el espacio de búsqueda es muy pequeño
+ * - Los atajos se desempaquetan recursivamente para devolver el camino original
+ *
+ * La estructura es inmutable y se asocia a la versión y métrica de la instantánea de origen.
+ */
+public final class ContractionHierarchy {
+
+    private static final int WITNESS_SETTLE_LIMIT = 500;
+
+    private final long version;
+    private final GraphSnapshot.Metrica metrica;
+    private final int vertices;
+    private final int[] rank;
+    private final long buildTimeNanos;
+
+    // Todas las aristas (originales y atajos); los atajos guardan las dos aristas que reemplazan
+    private final int[] edgeFrom;
+    private final int[] edgeTo;
+    private final double[] edgeWeight;
+    private final int[] edgeFirst;
+    private final int[] edgeSecond;
+    private final int shortcuts;
+
+    // Grafo ascendente desde el origen: aristas u -> x con rank[x] > rank[u], indexadas por u
+    private final int[] upOffsets;
+    private final int[] upEdges;
+
+    // Grafo descendente invertido: aristas u -> x con rank[u] > rank[x], indexadas por x
+    private final int[] downOffsets;
+    private final int[] downEdges;
+
+    // Compartido por todas las jerarquías: una reconstrucción no deja arreglos O(V) por hilo
+    private static final ThreadLocal<QueryScratch> SCRATCH = ThreadLocal.withInitial(QueryScratch::new);
+
+    private ContractionHierarchy(long version, GraphSnapshot.Metrica metrica, int vertices, int[] rank,
+                                 EdgeStore edges, int shortcuts, long buildTimeNanos) {
+        this.version = version;
+        this.metrica = metrica;
+        this.vertices = vertices;
+        this.rank = rank;
+        this.edgeFrom = Arrays.copyOf(edges.from, edges.size);
+        this.edgeTo = Arrays.copyOf(edges.to, edges.size);
+        this.edgeWeight = Arrays.copyOf(edges.weight, edges.size);
+        this.edgeFirst = Arrays.copyOf(edges.first, edges.size);
+        this.edgeSecond = Arrays.copyOf(edges.second, edges.size);
+        this.shortcuts = shortcuts;
+        this.buildTimeNanos = buildTimeNanos;
+
+        this.upOffsets = new int[vertices + 1];
+        this.downOffsets = new int[vertices + 1];
+        for (int e = 0; e < edgeFrom.length; e++) {
+            if (rank[edgeTo[e]] > rank[edgeFrom[e]]) {
+                upOffsets[edgeFrom[e] + 1]++;
+            } else if (rank[edgeFrom[e]] > rank[edgeTo[e]]) {
+                downOffsets[edgeTo[e] + 1]++;
+            }
+        }
+        for (int v = 0; v < vertices; v++) {
+            upOffsets[v + 1] += upOffsets[v];
+            downOffsets[v + 1] += downOffsets[v];
+        }
+        this.upEdges = new int[upOffsets[vertices]];
+        this.downEdges = new int[downOffsets[vertices]];
+        int[] upCursor = Arrays.copyOf(upOffsets, vertices);
+        int[] downCursor = Arrays.copyOf(downOffsets, vertices);
+        for (int e = 0; e < edgeFrom.length; e++) {
+            if (rank[edgeTo[e]] > rank[edgeFrom[e]]) {
+                upEdges[upCursor[edgeFrom[e]]++] = e;
+            } else if (rank[edgeFrom[e]] > rank[edgeTo[e]]) {
+                downEdges[downCursor[edgeTo[e]]++] = e;
+            }
+        }
+    }
+
+    /**
+     * Construye la jerarquía a partir de la instantánea (con la métrica de la vista recibida)
+     * Complejidad: depende del orden de contracción; en redes viales es casi lineal
+     */
+    public static ContractionHierarchy construir(GraphSnapshot snapshot) {
+        long start = System.nanoTime();
+        int n = snapshot.numeroVertices();
+        Builder builder = new Builder(n);
+
+        // Aristas originales (arcos dirigidos del CSR)
+        for (int u = 0; u < n; u++) {
+            for (int e = snapshot.inicioAristas(u); e < snapshot.finAristas(u); e++) {
+                int v = snapshot.destino(e);
+                if (v != u) {
+                    builder.agregarArista(u, v, snapshot.peso(e), -1, -1);
+                }
+            }
+        }
+        int originalEdges = builder.edges.size;
+
+        // Orden inicial por prioridad
+        IndexedDaryHeap queue = new IndexedDaryHeap(n);
+        for (int v = 0; v < n; v++) {
+            queue.insertarODisminuir(v, builder.calcularPrioridad(v));
+        }
+
+        int[] rank = new int[n];
+        int nextRank = 0;
+        while (!queue.vacio()) {
+            int v = queue.minimo();
+
+            // Actualización perezosa: si la prioridad real empeoró, reordenar antes de contraer
+            double updated = builder.calcularPrioridad(v);
+            if (updated > queue.claveMinima()) {
+                queue.actualizar(v, updated);
+                if (queue.minimo() != v) {
+                    continue;
+                }
+            }
+
+            queue.extraerMinimo();
+            builder.contraer(v);
+            rank[v] = nextRank++;
+        }
+
+        return new ContractionHierarchy(snapshot.getVersion(), snapshot.getMetrica(), n, rank,
+                builder.edges, builder.edges.size - originalEdges, System.nanoTime() - start);
+    }
+
+    /**
+     * Consulta origen-destino sobre la jerarquía
+     *
+     * @return Camino original (atajos desempaquetados), distancia y nodos asentados
+     */
+    public GraphService.PathResult consultar(int source, int destination) {
+        if (source == destination) {
+            return new GraphService.PathResult(new ArrayList<>(List.of(source)), 0.0, 1);
+        }
+
+        QueryScratch s = SCRATCH.get();
+        s.reiniciar(vertices);
+
+        s.visitar(source, true, 0.0, -1);
+        s.visitar(destination, false, 0.0, -1);
+        s.forwardQueue.insertarODisminuir(source, 0.0);
+        s.backwardQueue.insertarODisminuir(destination, 0.0);
+
+        double best = Double.MAX_VALUE;
+        int meeting = -1;
+        int settled = 0;
+        boolean forwardDone = false;
+        boolean backwardDone = false;
+
+        while (!forwardDone || !backwardDone) {
+            // Búsqueda hacia arriba desde el origen
+            if (!forwardDone) {
+                if (s.forwardQueue.vacio() || s.forwardQueue.claveMinima() >= best) {
+                    forwardDone = true;
+                } else {
+                    double du = s.forwardQueue.claveMinima();
+                    int u = s.forwardQueue.extraerMinimo();
+                    settled++;
+                    if (s.distanciaAtras(u) != Double.MAX_VALUE && du + s.distanciaAtras(u) < best) {
+                        best = du + s.distanciaAtras(u);
+                        meeting = u;
+                    }
+                    for (int i = upOffsets[u]; i < upOffsets[u + 1]; i++) {
+                        int e = upEdges[i];
+                        int x = edgeTo[e];
+                        double candidate = du + edgeWeight[e];
+                        if (candidate < s.distanciaAdelante(x)) {
+                            s.visitar(x, true, candidate, e);
+                            s.forwardQueue.insertarODisminuir(x, candidate);
+                        }
+                    }
+                }
+            }
+
+            // Búsqueda hacia arriba desde el destino (aristas invertidas)
+            if (!backwardDone) {
+                if (s.backwardQueue.vacio() || s.backwardQueue.claveMinima() >= best) {
+                    backwardDone = true;
+                } else {
+                    double dx = s.backwardQueue.claveMinima();
+                    int x = s.backwardQueue.extraerMinimo();
+                    settled++;
+                    if (s.distanciaAdelante(x) != Double.MAX_VALUE && dx + s.distanciaAdelante(x) < best) {
+                        best = dx + s.distanciaAdelante(x);
+                        meeting = x;
+                    }
+                    for (int i = downOffsets[x]; i < downOffsets[x + 1]; i++) {
+                        int e = downEdges[i];
+                        int u = edgeFrom[e];
+                        double candidate = dx + edgeWeight[e];
+                        if (candidate < s.distanciaAtras(u)) {
+                            s.visitar(u, false, candidate, e);
+                            s.backwardQueue.insertarODisminuir(u, candidate);
+                        }
+                    }
+                }
+            }
+        }
+
+        if (meeting == -1) {
+            return new GraphService.PathResult(null, Double.MAX_VALUE, settled);
+        }
+
+        // Aristas del camino en la jerarquía: origen -> encuentro y encuentro -> destino
+        Deque<Integer> forwardEdges = new ArrayDeque<>();
+        for (int v = meeting; s.padreAdelante(v) != -1; v = edgeFrom[s.padreAdelante(v)]) {
+            forwardEdges.addFirst(s.padreAdelante(v));
+        }
+        List<Integer> hierarchyEdges = new ArrayList<>(forwardEdges);
+        for (int v = meeting; s.padreAtras(v) != -1; v = edgeTo[s.padreAtras(v)]) {
+            hierarchyEdges.add(s.padreAtras(v));
+        }
+
+        List<Integer> path = new ArrayList<>();
+        path.add(source);
+        for (int e : hierarchyEdges) {
+            desempaquetar(e, path);
+        }
+
+        return new GraphService.PathResult(path, best, settled);
+    }
+
+    /**
+     * Expande un atajo en las aristas originales (iterativo, sin recursión)
+     * Agrega al camino los vértices destino de cada arista original en orden
+     */
+    private void desempaquetar(int edge, List<Integer> path) {
+        Deque<Integer> stack = new ArrayDeque<>();
+        stack.push(edge);
+        while (!stack.isEmpty()) {
+            int e = stack.pop();
+            if (edgeFirst[e] == -1) {
+                path.add(edgeTo[e]);
+            } else {
+                stack.push(edgeSecond[e]);
+                stack.push(edgeFirst[e]);
+            }
+        }
+    }
+
+    public long getVersion() { return version; }
+
+    public GraphSnapshot.Metrica getMetrica() { return metrica; }
+
+    public int numeroVertices() { return vertices; }
+
+    public int numeroAristas() { return edgeFrom.length; }
+
+    public int numeroAtajos() { return shortcuts; }
+
+    public long getTiempoConstruccionNanos() { return buildTimeNanos; }
+
+    public int rango(int vertex) { return rank[vertex]; }
+
+    // ==========================================
+    // CLASES INTERNAS AUXILIARES
+    // ==========================================
+
+    /**
+     * Arreglos crecientes con todas las aristas de la jerarquía
+     */
+    private static class EdgeStore {
+        int[] from = new int[16];
+        int[] to = new int[16];
+        double[] weight = new double[16];
+        int[] first = new int[16];
+        int[] second = new int[16];
+        int size;
+
+        int agregar(int u, int v, double w, int a, int b) {
+            if (size == from.length) {
+                int capacity = size * 2;
+                from = Arrays.copyOf(from, capacity);
+                to = Arrays.copyOf(to, capacity);
+                weight = Arrays.copyOf(weight, capacity);
+                first = Arrays.copyOf(first, capacity);
+                second = Arrays.copyOf(second, capacity);
+            }
+            from[size] = u;
+            to[size] = v;
+            weight[size] = w;
+            first[size] = a;
+            second[size] = b;
+            return size++;
+        }
+    }
+
+    /**
+     * Estado mutable usado solo durante el preprocesamiento
+     */
+    private static class Builder {
+        final int n;
+        final EdgeStore edges = new EdgeStore();
+        final int[][] out;
+        final int[] outCount;
+        final int[][] in;
+        final int[] inCount;
+        final boolean[] contracted;
+        final int[] contractedNeighbors;
+        final double[] priority;
+
+        // Búsqueda de testigos con reinicio por lista de tocados
+        final double[] witnessDist;
+        final int[] touched;
+        int touchedCount;
+        final IndexedDaryHeap witnessQueue;
+
+        Builder(int n) {
+            this.n = n;
+            this.out = new int[n][];
+            this.in = new int[n][];
+            this.outCount = new int[n];
+            this.inCount = new int[n];
+            for (int v = 0; v < n; v++) {
+                out[v] = new int[4];
+                in[v] = new int[4];
+            }
+            this.contracted = new boolean[n];
+            this.contractedNeighbors = new int[n];
+            this.priority = new double[n];
+            this.witnessDist = new double[n];
+            Arrays.fill(witnessDist, Double.MAX_VALUE);
+            this.touched = new int[n];
+            this.witnessQueue = new IndexedDaryHeap(n);
+        }
+
+        void agregarArista(int u, int v, double w, int a, int b) {
+            int e = edges.agregar(u, v, w, a, b);
+            if (outCount[u] == out[u].length) {
+                out[u] = Arrays.copyOf(out[u], outCount[u] * 2);
+            }
+            out[u][outCount[u]++] = e;
+            if (inCount[v] == in[v].length) {
+                in[v] = Arrays.copyOf(in[v], inCount[v] * 2);
+            }
+            in[v][inCount[v]++] = e;
+        }
+
+        /**
+         * Prioridad = atajos necesarios - aristas eliminadas + vecinos ya contraídos
+         */
+        double calcularPrioridad(int v) {
+            int removed = 0;
+            for (int i = 0; i < inCount[v]; i++) {
+                if (!contracted[edges.from[in[v][i]]]) removed++;
+            }
+            for (int i = 0; i < outCount[v]; i++) {
+                if (!contracted[edges.to[out[v][i]]]) removed++;
+            }
+            int added = simularContraccion(v, false);
+            return added - removed + contractedNeighbors[v];
+        }
+
+        void contraer(int v) {
+            simularContraccion(v, true);
+            contracted[v] = true;
+            for (int i = 0; i < inCount[v]; i++) {
+                contractedNeighbors[edges.from[in[v][i]]]++;
+            }
+            for (int i = 0; i < outCount[v]; i++) {
+                contractedNeighbors[edges.to[out[v][i]]]++;
+            }
+        }
+
+        /**
+         * Recorre los pares u -> v -> x y cuenta (o agrega) los atajos necesarios
+         */
+        int simularContraccion(int v, boolean apply) {
+            int count = 0;
+            double maxOut = 0.0;
+            for (int j = 0; j < outCount[v]; j++) {
+                int e = out[v][j];
+                if (!contracted[edges.to[e]]) {
+                    maxOut = Math.max(maxOut, edges.weight[e]);
+                }
+            }
+
+            for (int i = 0; i < inCount[v]; i++) {
+                int inEdge = in[v][i];
+                int u = edges.from[inEdge];
+                if (contracted[u] || u == v) {
+                    continue;
+                }
+                double w1 = edges.weight[inEdge];
+                buscarTestigos(u, v, w1 + maxOut);
+
+                for (int j = 0; j < outCount[v]; j++) {
+                    int outEdge = out[v][j];
+                    int x = edges.to[outEdge];
+                    if (contracted[x] || x == u || x == v) {
+                        continue;
+                    }
+                    double viaV = w1 + edges.weight[outEdge];
+                    if (witnessDist[x] <= viaV) {
+                        continue; // Existe un testigo: no hace falta atajo
+                    }
+                    count++;
+                    if (apply) {
+                        agregarArista(u, x, viaV, inEdge, outEdge);
+                        // El atajo es ahora el mejor camino conocido u -> x
+                        tocar(x, viaV);
+                    }
+                }
+                limpiarTestigos();
+            }
+            return count;
+        }
+
+        /**
+         * Dijkstra acotado desde u que ignora v, limitado por distancia y nodos asentados
+         */
+        void buscarTestigos(int u, int excluded, double limit) {
+            witnessQueue.vaciar();
+            tocar(u, 0.0);
+            witnessQueue.insertarODisminuir(u, 0.0);
+            int settled = 0;
+            while (!witnessQueue.vacio() && settled < WITNESS_SETTLE_LIMIT) {
+                if (witnessQueue.claveMinima() > limit) {
+                    break;
+                }
+                int w = witnessQueue.extraerMinimo();
+                double dw = witnessDist[w];
+                settled++;
+                for (int i = 0; i < outCount[w]; i++) {
+                    int e = out[w][i];
+                    int x = edges.to[e];
+                    if (x == excluded || contracted[x]) {
+                        continue;
+                    }
+                    double candidate = dw + edges.weight[e];
+                    if (candidate < witnessDist[x]) {
+                        tocar(x, candidate);
+                        witnessQueue.insertarODisminuir(x, candidate);
+                    }
+                }
+            }
+        }
+
+        void tocar(int v, double distance) {
+            if (witnessDist[v] == Double.MAX_VALUE) {
+                touched[touchedCount++] = v;
+            }
+            witnessDist[v] = distance;
+        }
+
+        void limpiarTestigos() {
+            for (int i = 0; i < touchedCount; i++) {
+                witnessDist[touched[i]] = Double.MAX_VALUE;
+            }
+            touchedCount = 0;
+        }
+    }
+
+    /**
+     * Arreglos de consulta reutilizados por hilo, con capacidad que crece según la jerarquía
+     * consultada; se invalidan con un contador de época (como DijkstraWorkspace)
+     */
+    private static class QueryScratch {
+        double[] distForward = new double[0];
+        double[] distBackward = new double[0];
+        int[] parentForward = new int[0];
+        int[] parentBackward = new int[0];
+        int[] stamp = new int[0];
+        int epoch;
+        final IndexedDaryHeap forwardQueue = new IndexedDaryHeap(16);
+        final IndexedDaryHeap backwardQueue = new IndexedDaryHeap(16);
+
+        void reiniciar(int n) {
+            if (stamp.length < n) {
+                int capacity = Math.max(n, stamp.length + (stamp.length >> 1));
+                distForward = new double[capacity];
+                distBackward = new double[capacity];
+                parentForward = new int[capacity];
+                parentBackward = new int[capacity];
+                stamp = new int[capacity];
+                epoch = 0;
+            }
+            forwardQueue.asegurarCapacidad(stamp.length);
+            backwardQueue.asegurarCapacidad(stamp.length);
+            forwardQueue.vaciar();
+            backwardQueue.vaciar();
+            if (++epoch == Integer.MAX_VALUE) {
+                Arrays.fill(stamp, 0);
+                epoch = 1;
+            }
+        }
+
+        void visitar(int v, boolean forward, double distance, int parentEdge) {
+            if (stamp[v] != epoch) {
+                stamp[v] = epoch;
+                distForward[v] = Double.MAX_VALUE;
+                distBackward[v] = Double.MAX_VALUE;
+                parentForward[v] = -1;
+                parentBackward[v] = -1;
+            }
+            if (forward) {
+                distForward[v] = distance;
+                parentForward[v] = parentEdge;
+            } else {
+                distBackward[v] = distance;
+                parentBackward[v] = parentEdge;
+            }
+        }
+
+        double distanciaAdelante(int v) {
+            return stamp[v] == epoch ? distForward[v] : Double.MAX_VALUE;
+        }
+
+        double distanciaAtras(int v) {
+            return stamp[v] == epoch ? distBackward[v] : Double.MAX_VALUE;
+        }
+
+        int padreAdelante(int v) {
+            return stamp[v] == epoch ? parentForward[v] : -1;
+        }
+
+        int padreAtras(int v) {
+            return stamp[v] == epoch ? parentBackward[v] : -1;
+        }
+    }
+}
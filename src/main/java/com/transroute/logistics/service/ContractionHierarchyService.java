@@ -0,0 +1,103 @@
+package com.transroute.logistics.service;
+
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Servicio que mantiene las jerarquías de contracción de la instantánea vigente
+ *
+ * - Cuando se publica una nueva instantánea, la jerarquía por COSTO se reconstruye en segundo plano
+ * - Las demás métricas se construyen bajo demanda en el mismo hilo de fondo
+ * - Mientras no haya una jerarquía de la versión vigente, las consultas usan Dijkstra bidireccional
+ */
+@Service
+public class ContractionHierarchyService {
+
+    @Autowired
+    private GraphSnapshotService graphSnapshotService;
+
+    @Autowired
+    private GraphService graphService;
+
+    private final Map<GraphSnapshot.Metrica, ContractionHierarchy> hierarchies = new ConcurrentHashMap<>();
+    private final Map<String, Boolean> pending = new ConcurrentHashMap<>();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "ch-builder");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @EventListener
+    public void onSnapshotUpdated(GraphSnapshotUpdatedEvent event) {
+        programarConstruccion(event.getSnapshot().conMetrica(GraphSnapshot.Metrica.COSTO));
+    }
+
+    /**
+     * Consulta origen-destino usando la jerarquía de la métrica de la vista recibida
+     * Si la jerarquía no está lista para esa versión, programa su construcción y responde
+     * con Dijkstra bidireccional
+     */
+    public GraphService.PathResult consultar(GraphSnapshot snapshot, int source, int destination) {
+        ContractionHierarchy hierarchy = obtenerJerarquia(snapshot);
+        if (hierarchy != null) {
+            return hierarchy.consultar(source, destination);
+        }
+        programarConstruccion(snapshot);
+        return graphService.dijkstraBidireccional(snapshot, source, destination);
+    }
+
+    /**
+     * Jerarquía lista para la versión y métrica de la instantánea, o null si todavía no existe
+     */
+    public ContractionHierarchy obtenerJerarquia(GraphSnapshot snapshot) {
+        if (snapshot.getClasePeso() != 0) {
+            return null; // Las jerarquías se construyen sobre la red completa
+        }
+        ContractionHierarchy hierarchy = hierarchies.get(snapshot.getMetrica());
+        return hierarchy != null && hierarchy.getVersion() == snapshot.getVersion() ? hierarchy : null;
+    }
+
+    /**
+     * Programa la reconstrucción en segundo plano de la jerarquía para la métrica indicada
+     */
+    public void reconstruir(GraphSnapshot.Metrica metrica) {
+        programarConstruccion(graphSnapshotService.obtenerSnapshot().conMetrica(metrica));
+    }
+
+    public boolean enConstruccion(GraphSnapshot snapshot) {
+        return pending.containsKey(clave(snapshot));
+    }
+
+    private void programarConstruccion(GraphSnapshot snapshot) {
+        String key = clave(snapshot);
+        if (snapshot.getClasePeso() != 0 || obtenerJerarquia(snapshot) != null || pending.putIfAbsent(key, Boolean.TRUE) != null) {
+            return;
+        }
+        executor.submit(() -> {
+            try {
+                // Si mientras tanto se publicó otra versión, esta construcción ya no sirve
+                if (graphSnapshotService.obtenerSnapshot().getVersion() == snapshot.getVersion()) {
+                    hierarchies.put(snapshot.getMetrica(), ContractionHierarchy.construir(snapshot));
+                }
+            } finally {
+                pending.remove(key);
+            }
+        });
+    }
+
+    private String clave(GraphSnapshot snapshot) {
+        return snapshot.getMetrica() + "@" + snapshot.getVersion();
+    }
+
+    @PreDestroy
+    public void detener() {
+        executor.shutdownNow();
+    }
+}
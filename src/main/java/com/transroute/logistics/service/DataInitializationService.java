@@ -29,6 +29,9 @@ public class DataInitializationService {
     @Autowired
     private TruckRepository truckRepository;
     
+    @Autowired
+    private GraphSnapshotService graphSnapshotService;
+    
     @Transactional
     public String inicializarDatos() {
         StringBuilder report = new StringBuilder();
@@ -62,6 +65,9 @@ public class DataInitializationService {
         distributionCenterRepository.saveAll(centros);
         report.append("✓ Camiones asociados\n");
         
+        // La instantánea del grafo ya no refleja los datos: se reconstruye en la próxima consulta
+        graphSnapshotService.invalidar();
+        
         report.append("\n=== Inicialización completada exitosamente ===\n");
         report.append("Total: ").append(centros.size()).append(" centros, ")
                .append(rutas.size()).append(" rutas, ").append(camiones.size()).append(" camiones\n");
@@ -74,6 +80,7 @@ public class DataInitializationService {
         routeRepository.deleteAll();
         truckRepository.deleteAll();
         distributionCenterRepository.deleteAll();
+        graphSnapshotService.invalidar();
     }
     
     private List<DistributionCenter> crearCentrosDistribucion() {
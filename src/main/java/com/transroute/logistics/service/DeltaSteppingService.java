@@ -0,0 +1,268 @@
+package com.transroute.logistics.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.IntStream;
+
+/**
+ * Caminos mínimos uno-a-todos en paralelo con delta-stepping (Meyer y Sanders)
+ *
+ * Los vértices se agrupan en baldes de ancho delta según su distancia tentativa. El balde
+ * mínimo se vacía relajando en paralelo sus aristas livianas (peso <= delta) hasta que no
+ * cambia; luego se relajan una vez las pesadas de todos los vértices que pasaron por él.
+ * Cada relajación es un CAS-min sobre los bits de la distancia (los double no negativos
+ * se ordenan igual que sus bits como long).
+ *
+ * Las distancias son idénticas bit a bit a las de GraphService.dijkstra: ambos calculan el
+ * mínimo, sobre los caminos, de la suma de pesos en el orden del camino, y la suma en coma
+ * flotante es monótona. Los pesos deben ser no negativos.
+ */
+@Service
+public class DeltaSteppingService {
+
+    /** A partir de este número de vértices /dijkstra/distances usa delta-stepping por defecto */
+    public static final int UMBRAL_VERTICES = 100_000;
+
+    /** Fronteras más chicas se relajan en el hilo que llama (no compensa repartirlas) */
+    private static final int FRONTERA_MINIMA_PARALELA = 512;
+
+    private static final int TRAMOS_POR_HILO = 4;
+
+    private static final long INFINITO = Double.doubleToRawLongBits(Double.POSITIVE_INFINITY);
+
+    @Autowired
+    private ForkJoinPool graphComputePool;
+
+    /**
+     * Indica si el grafo es lo bastante grande para usar delta-stepping
+     */
+    public boolean conviene(int vertices) {
+        return vertices >= UMBRAL_VERTICES && graphComputePool.getParallelism() > 1;
+    }
+
+    /**
+     * Ancho de balde por defecto: el doble del peso medio de las aristas (en una red vial
+     * deja la mayoría de las aristas como livianas sin que los baldes crezcan demasiado)
+     */
+    public double deltaPorDefecto(GraphSnapshot snapshot) {
+        int arcs = snapshot.numeroAristas();
+        double sum = 0.0;
+        for (int e = 0; e < arcs; e++) {
+            sum += snapshot.peso(e);
+        }
+        double mean = arcs > 0 ? sum / arcs : 0.0;
+        return mean > 0.0 && mean < Double.POSITIVE_INFINITY ? 2.0 * mean : 1.0;
+    }
+
+    /**
+     * Distancias desde el origen (Double.MAX_VALUE si no es alcanzable), como GraphService.dijkstra
+     *
+     * @param snapshot Instantánea del grafo
+     * @param source Vértice origen
+     * @param delta Ancho de balde (<= 0 usa deltaPorDefecto)
+     */
+    public double[] calcular(GraphSnapshot snapshot, int source, double delta) {
+        int n = snapshot.numeroVertices();
+        double width = delta > 0.0 ? delta : deltaPorDefecto(snapshot);
+        AtomicLongArray dist = new AtomicLongArray(n);
+        for (int v = 0; v < n; v++) {
+            dist.set(v, INFINITO);
+        }
+        dist.set(source, Double.doubleToRawLongBits(0.0));
+
+        int chunks = Math.max(1, graphComputePool.getParallelism() * TRAMOS_POR_HILO);
+        Relajacion relax = new Relajacion(snapshot, dist, width, chunks);
+        TreeMap<Long, Balde> buckets = new TreeMap<>();
+        buckets.computeIfAbsent(0L, b -> new Balde()).agregar(source);
+
+        int[] inFrontier = new int[n];
+        int[] inBucket = new int[n];
+        int frontierStamp = 0;
+        int bucketStamp = 0;
+        int[] frontier = new int[16];
+        int[] processed = new int[16];
+
+        while (!buckets.isEmpty()) {
+            Map.Entry<Long, Balde> first = buckets.pollFirstEntry();
+            long index = first.getKey();
+            Balde bucket = first.getValue();
+            bucketStamp++;
+            int processedCount = 0;
+
+            // Frontera inicial: vértices que siguen perteneciendo a este balde (sin repetidos)
+            frontierStamp++;
+            int size = 0;
+            for (int k = 0; k < bucket.size; k++) {
+                int v = bucket.items[k];
+                if (inFrontier[v] != frontierStamp && balde(dist, v, width) == index) {
+                    inFrontier[v] = frontierStamp;
+                    frontier = asegurar(frontier, size + 1);
+                    frontier[size++] = v;
+                }
+            }
+
+            // Aristas livianas hasta que el balde no cambie
+            while (size > 0) {
+                for (int k = 0; k < size; k++) {
+                    int v = frontier[k];
+                    if (inBucket[v] != bucketStamp) {
+                        inBucket[v] = bucketStamp;
+                        processed = asegurar(processed, processedCount + 1);
+                        processed[processedCount++] = v;
+                    }
+                }
+                relax.relajar(frontier, size, true);
+
+                frontierStamp++;
+                int next = 0;
+                for (int c = 0; c < relax.chunks; c++) {
+                    int[] improved = relax.improved[c];
+                    for (int k = 0; k < relax.improvedCount[c]; k++) {
+                        int v = improved[k];
+                        long b = balde(dist, v, width);
+                        if (b == index) {
+                            if (inFrontier[v] != frontierStamp) {
+                                inFrontier[v] = frontierStamp;
+                                frontier = asegurar(frontier, next + 1);
+                                frontier[next++] = v;
+                            }
+                        } else {
+                            buckets.computeIfAbsent(b, x -> new Balde()).agregar(v);
+                        }
+                    }
+                }
+                size = next;
+            }
+
+            // Aristas pesadas de todo lo que pasó por el balde (distancias ya definitivas)
+            relax.relajar(processed, processedCount, false);
+            for (int c = 0; c < relax.chunks; c++) {
+                int[] improved = relax.improved[c];
+                for (int k = 0; k < relax.improvedCount[c]; k++) {
+                    int v = improved[k];
+                    buckets.computeIfAbsent(balde(dist, v, width), x -> new Balde()).agregar(v);
+                }
+            }
+        }
+
+        double[] distances = new double[n];
+        for (int v = 0; v < n; v++) {
+            long bits = dist.get(v);
+            distances[v] = bits == INFINITO ? Double.MAX_VALUE : Double.longBitsToDouble(bits);
+        }
+        return distances;
+    }
+
+    private static long balde(AtomicLongArray dist, int v, double width) {
+        return (long) (Double.longBitsToDouble(dist.get(v)) / width);
+    }
+
+    private static int[] asegurar(int[] array, int capacity) {
+        return array.length >= capacity ? array : Arrays.copyOf(array, Math.max(capacity, array.length * 2));
+    }
+
+    /**
+     * Vértices de un balde (con repetidos y entradas obsoletas, que se filtran al procesarlo)
+     */
+    private static final class Balde {
+        int[] items = new int[8];
+        int size;
+
+        void agregar(int v) {
+            items = asegurar(items, size + 1);
+            items[size++] = v;
+        }
+    }
+
+    /**
+     * Relajación de una frontera repartida en tramos; cada tramo anota los vértices que mejoró
+     */
+    private final class Relajacion {
+        final GraphSnapshot snapshot;
+        final AtomicLongArray dist;
+        final double width;
+        final int chunks;
+        final int[][] improved;
+        final int[] improvedCount;
+
+        Relajacion(GraphSnapshot snapshot, AtomicLongArray dist, double width, int chunks) {
+            this.snapshot = snapshot;
+            this.dist = dist;
+            this.width = width;
+            this.chunks = chunks;
+            this.improved = new int[chunks][16];
+            this.improvedCount = new int[chunks];
+        }
+
+        void relajar(int[] vertices, int size, boolean light) {
+            Arrays.fill(improvedCount, 0);
+            if (size < FRONTERA_MINIMA_PARALELA) {
+                relajarTramo(vertices, 0, size, light, 0);
+                return;
+            }
+            int chunkSize = (size + chunks - 1) / chunks;
+            ejecutar(() -> IntStream.range(0, chunks).parallel().forEach(c -> {
+                int lo = Math.min(c * chunkSize, size);
+                relajarTramo(vertices, lo, Math.min(lo + chunkSize, size), light, c);
+            }));
+        }
+
+        private void relajarTramo(int[] vertices, int lo, int hi, boolean light, int chunk) {
+            int[] out = improved[chunk];
+            int count = 0;
+            for (int k = lo; k < hi; k++) {
+                int u = vertices[k];
+                double du = Double.longBitsToDouble(dist.get(u));
+                for (int e = snapshot.inicioAristas(u); e < snapshot.finAristas(u); e++) {
+                    double w = snapshot.peso(e);
+                    if ((w <= width) != light) {
+                        continue;
+                    }
+                    int v = snapshot.destino(e);
+                    if (disminuir(v, du + w)) {
+                        if (count == out.length) {
+                            out = Arrays.copyOf(out, count * 2);
+                        }
+                        out[count++] = v;
+                    }
+                }
+            }
+            improved[chunk] = out;
+            improvedCount[chunk] = count;
+        }
+
+        /**
+         * CAS-min sobre la distancia tentativa
+         */
+        private boolean disminuir(int v, double candidate) {
+            long bits = Double.doubleToRawLongBits(candidate);
+            while (true) {
+                long current = dist.get(v);
+                if (bits >= current) {
+                    return false;
+                }
+                if (dist.compareAndSet(v, current, bits)) {
+                    return true;
+                }
+            }
+        }
+    }
+
+    private void ejecutar(Runnable task) {
+        try {
+            graphComputePool.submit(task).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Cálculo de caminos mínimos interrumpido", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Error calculando caminos mínimos", e.getCause());
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package com.transroute.logistics.service;
+
+import java.util.Arrays;
+
+/**
+ * Arreglos de trabajo de Dijkstra reutilizados por hilo
+ *
+ * Las distancias, predecesores y marcas de asentado se invalidan con un contador de
+ * época: un valor solo es válido si su sello coincide con la época actual. Así
+ * iniciar una búsqueda cuesta O(1) en lugar de O(V), y tras el calentamiento
+ * una consulta no reserva memoria.
+ *
+ * Cada hilo dispone de dos espacios (ADELANTE y ATRAS) para búsquedas bidireccionales.
+ * Un espacio no debe usarse en dos búsquedas simultáneas del mismo hilo.
+ */
+public final class DijkstraWorkspace {
+
+    public static final int ADELANTE = 0;
+    public static final int ATRAS = 1;
+
+    private static final ThreadLocal<DijkstraWorkspace[]> LOCAL =
+            ThreadLocal.withInitial(() -> new DijkstraWorkspace[]{new DijkstraWorkspace(), new DijkstraWorkspace()});
+
+    private double[] distances = new double[0];
+    private int[] previous = new int[0];
+    private int[] reachedStamp = new int[0];
+    private int[] settledStamp = new int[0];
+    private int epoch;
+    private final IndexedDaryHeap heap = new IndexedDaryHeap(16);
+
+    private DijkstraWorkspace() {
+    }
+
+    /**
+     * Obtiene el espacio del hilo actual preparado para una búsqueda nueva
+     *
+     * @param slot ADELANTE o ATRAS
+     * @param vertices Número de vértices del grafo
+     */
+    public static DijkstraWorkspace obtener(int slot, int vertices) {
+        DijkstraWorkspace workspace = LOCAL.get()[slot];
+        workspace.iniciar(vertices);
+        return workspace;
+    }
+
+    private void iniciar(int vertices) {
+        if (distances.length < vertices) {
+            int capacity = Math.max(vertices, distances.length + (distances.length >> 1));
+            distances = new double[capacity];
+            previous = new int[capacity];
+            reachedStamp = new int[capacity];
+            settledStamp = new int[capacity];
+            epoch = 0;
+        }
+        heap.asegurarCapacidad(distances.length);
+        heap.vaciar();
+        if (++epoch == Integer.MAX_VALUE) {
+            Arrays.fill(reachedStamp, 0);
+            Arrays.fill(settledStamp, 0);
+            epoch = 1;
+        }
+    }
+
+    public IndexedDaryHeap heap() {
+        return heap;
+    }
+
+    /**
+     * Distancia tentativa (Double.MAX_VALUE si el vértice no fue alcanzado)
+     */
+    public double distancia(int v) {
+        return reachedStamp[v] == epoch ? distances[v] : Double.MAX_VALUE;
+    }
+
+    /**
+     * Predecesor en el árbol de búsqueda (-1 si no tiene)
+     */
+    public int predecesor(int v) {
+        return reachedStamp[v] == epoch ? previous[v] : -1;
+    }
+
+    public boolean alcanzado(int v) {
+        return reachedStamp[v] == epoch;
+    }
+
+    public void fijar(int v, double distance, int predecessor) {
+        reachedStamp[v] = epoch;
+        distances[v] = distance;
+        previous[v] = predecessor;
+    }
+
+    public boolean asentado(int v) {
+        return settledStamp[v] == epoch;
+    }
+
+    public void asentar(int v) {
+        settledStamp[v] = epoch;
+    }
+}
@@ -0,0 +1,105 @@
+package com.transroute.logistics.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Servicio de matrices de distancias origen x destino
+ *
+ * Cada fila es un Dijkstra uno-a-todos sobre la misma instantánea inmutable,
+ * por lo que las filas se calculan en paralelo en el pool de cómputo sin sincronización.
+ * Para matrices grandes se ofrece una salida binaria que se calcula y escribe por bloques
+ * de filas, de modo que nunca se mantiene la matriz completa en memoria.
+ */
+@Service
+public class DistanceMatrixService {
+
+    /** Cabecera del formato binario: "TRDM" */
+    public static final int MAGIC = 0x5452444D;
+    public static final int FORMAT_VERSION = 1;
+
+    /** Máximo de celdas que se devuelven como JSON (/matrix); las matrices mayores van por /matrix/binary */
+    public static final long MAX_CELDAS_JSON = 250_000;
+
+    private static final int ROWS_PER_BLOCK = 64;
+
+    @Autowired
+    private GraphService graphService;
+
+    @Autowired
+    private ForkJoinPool graphComputePool;
+
+    /**
+     * Calcula la matriz densa de distancias
+     *
+     * @param snapshot Instantánea del grafo (con la métrica ya aplicada)
+     * @param origenes Índices de vértices origen (filas)
+     * @param destinos Índices de vértices destino (columnas)
+     * @return Matriz [origenes.length][destinos.length] con Double.POSITIVE_INFINITY si no es alcanzable
+     */
+    public double[][] calcularMatriz(GraphSnapshot snapshot, int[] origenes, int[] destinos) {
+        double[][] matrix = new double[origenes.length][];
+        calcularFilas(snapshot, origenes, destinos, matrix, 0, origenes.length);
+        return matrix;
+    }
+
+    /**
+     * Escribe la matriz en formato binario (big-endian):
+     * int MAGIC, int FORMAT_VERSION, int filas, int columnas, seguido de filas*columnas doubles
+     * Los destinos no alcanzables se escriben como Double.POSITIVE_INFINITY
+     */
+    public void escribirMatrizBinaria(GraphSnapshot snapshot, int[] origenes, int[] destinos,
+                                      OutputStream outputStream) throws IOException {
+        DataOutputStream out = new DataOutputStream(outputStream);
+        out.writeInt(MAGIC);
+        out.writeInt(FORMAT_VERSION);
+        out.writeInt(origenes.length);
+        out.writeInt(destinos.length);
+
+        double[][] block = new double[Math.min(ROWS_PER_BLOCK, origenes.length)][];
+        for (int from = 0; from < origenes.length; from += ROWS_PER_BLOCK) {
+            int to = Math.min(from + ROWS_PER_BLOCK, origenes.length);
+            int[] rows = Arrays.copyOfRange(origenes, from, to);
+            calcularFilas(snapshot, rows, destinos, block, 0, rows.length);
+            for (int i = 0; i < rows.length; i++) {
+                for (double value : block[i]) {
+                    out.writeDouble(value);
+                }
+                block[i] = null;
+            }
+        }
+        out.flush();
+    }
+
+    private void calcularFilas(GraphSnapshot snapshot, int[] origenes, int[] destinos,
+                               double[][] target, int offset, int count) {
+        Runnable task = () -> IntStream.range(0, count).parallel().forEach(i ->
+                target[offset + i] = calcularFila(snapshot, origenes[i], destinos));
+        try {
+            graphComputePool.submit(task).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Cálculo de matriz interrumpido", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Error calculando la matriz de distancias", e.getCause());
+        }
+    }
+
+    private double[] calcularFila(GraphSnapshot snapshot, int origen, int[] destinos) {
+        DijkstraWorkspace distances = graphService.dijkstraDesde(snapshot, origen);
+        double[] row = new double[destinos.length];
+        for (int j = 0; j < destinos.length; j++) {
+            double d = distances.distancia(destinos[j]);
+            row[j] = d == Double.MAX_VALUE ? Double.POSITIVE_INFINITY : d;
+        }
+        return row;
+    }
+}
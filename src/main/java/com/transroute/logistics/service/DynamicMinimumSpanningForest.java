@@ -0,0 +1,525 @@
+package com.transroute.logistics.service;
+
+import java.util.Arrays;
+
+/**
+ * Bosque de recubrimiento mínimo mantenido de forma incremental
+ *
+ * Las aristas del bosque viven en un link-cut tree donde cada ruta es un nodo propio
+ * (vértices 0..V-1, rutas V..V+E-1), lo que permite consultar la ruta más pesada de un
+ * camino del árbol en O(log V) amortizado.
+ *
+ * - Insertar / abaratar una ruta: si une dos árboles se enlaza; si cierra un ciclo,
+ *   reemplaza a la ruta más pesada del ciclo cuando es más liviana (propiedad del ciclo)
+ * - Eliminar / encarecer una ruta del árbol: se corta y se busca la ruta de reemplazo más
+ *   liviana que cruce el corte (propiedad del corte). Se recorren a la vez los dos lados
+ *   del corte y solo se examinan las rutas no usadas del lado más chico
+ * - El resto de los cambios solo actualiza pesos
+ *
+ * Costos: inserción y cambios de peso O(log V) amortizado; eliminación de una ruta del
+ * árbol O(log V + volumen del lado menor del corte). Los empates se rompen por índice de
+ * ruta para que el bosque sea único.
+ *
+ * No es seguro para hilos: DynamicMstService serializa las modificaciones.
+ */
+public final class DynamicMinimumSpanningForest {
+
+    private final int vertices;
+    private final int[] from;
+    private final int[] to;
+    private final double[] weight;
+    private final boolean[] active;
+    private final boolean[] inTree;
+    private final LinkCutTree lct;
+
+    // Listas doblemente enlazadas de rutas por vértice: una de rutas del bosque y otra de
+    // rutas activas fuera del bosque. La ranura 2r corresponde a from[r] y 2r+1 a to[r]
+    private final int[] treeHead;
+    private final int[] otherHead;
+    private final int[] next;
+    private final int[] prev;
+
+    // Búsqueda del lado menor del corte (marcas por época)
+    private final int[] mark;
+    private final int[] queueA;
+    private final int[] queueB;
+    private int epoch;
+
+    private int treeEdges;
+    private long updates;
+    private int[] cachedTree;
+
+    /**
+     * Construye el bosque a partir de un MST ya calculado
+     *
+     * @param vertices Número de vértices
+     * @param from Origen de cada ruta
+     * @param to Destino de cada ruta
+     * @param weight Peso de cada ruta
+     * @param active Rutas activas
+     * @param tree Índices de las rutas del MST inicial (deben ser activas y formar un bosque)
+     */
+    public DynamicMinimumSpanningForest(int vertices, int[] from, int[] to, double[] weight,
+                                        boolean[] active, int[] tree) {
+        int routes = from.length;
+        this.vertices = vertices;
+        this.from = from;
+        this.to = to;
+        this.weight = Arrays.copyOf(weight, routes);
+        this.active = Arrays.copyOf(active, routes);
+        this.inTree = new boolean[routes];
+        this.lct = new LinkCutTree(vertices + routes);
+        for (int r = 0; r < routes; r++) {
+            lct.fijarValor(vertices + r, this.weight[r]);
+        }
+
+        this.treeHead = new int[vertices];
+        this.otherHead = new int[vertices];
+        Arrays.fill(treeHead, -1);
+        Arrays.fill(otherHead, -1);
+        this.next = new int[2 * routes];
+        this.prev = new int[2 * routes];
+        this.mark = new int[vertices];
+        this.queueA = new int[vertices];
+        this.queueB = new int[vertices];
+
+        for (int r : tree) {
+            enlazar(r);
+        }
+        for (int r = 0; r < routes; r++) {
+            if (this.active[r] && !inTree[r] && from[r] != to[r]) {
+                agregar(otherHead, r);
+            }
+        }
+    }
+
+    /**
+     * Activa una ruta (pasa a ACTIVE)
+     */
+    public void activar(int r) {
+        if (active[r]) {
+            return;
+        }
+        active[r] = true;
+        updates++;
+        insertar(r);
+    }
+
+    /**
+     * Desactiva una ruta (CLOSED o MAINTENANCE)
+     */
+    public void desactivar(int r) {
+        if (!active[r]) {
+            return;
+        }
+        active[r] = false;
+        updates++;
+        if (inTree[r]) {
+            cortar(r);
+            reemplazar(from[r], to[r]);
+        } else if (from[r] != to[r]) {
+            quitar(otherHead, r);
+        }
+    }
+
+    /**
+     * Cambia el peso de una ruta
+     */
+    public void cambiarPeso(int r, double nuevoPeso) {
+        double old = weight[r];
+        if (nuevoPeso == old) {
+            return;
+        }
+        updates++;
+        if (!active[r] || from[r] == to[r]) {
+            weight[r] = nuevoPeso;
+            lct.fijarValor(vertices + r, nuevoPeso);
+            return;
+        }
+        if (inTree[r]) {
+            if (nuevoPeso < old) {
+                // Abaratar una ruta del árbol no cambia el árbol
+                weight[r] = nuevoPeso;
+                lct.fijarValor(vertices + r, nuevoPeso);
+                cachedTree = null;
+                return;
+            }
+            // Encarecerla: se corta y compite con las demás rutas que cruzan el corte
+            cortar(r);
+            weight[r] = nuevoPeso;
+            lct.fijarValor(vertices + r, nuevoPeso);
+            agregar(otherHead, r);
+            reemplazar(from[r], to[r]);
+            return;
+        }
+        quitar(otherHead, r);
+        weight[r] = nuevoPeso;
+        lct.fijarValor(vertices + r, nuevoPeso);
+        if (nuevoPeso < old) {
+            insertar(r);
+        } else {
+            agregar(otherHead, r);
+        }
+    }
+
+    /**
+     * Índices de las rutas del bosque vigente (arreglo compartido, no modificar)
+     */
+    public int[] rutasDelArbol() {
+        int[] tree = cachedTree;
+        if (tree == null) {
+            tree = new int[treeEdges];
+            int count = 0;
+            for (int r = 0; r < inTree.length; r++) {
+                if (inTree[r]) {
+                    tree[count++] = r;
+                }
+            }
+            cachedTree = tree;
+        }
+        return tree;
+    }
+
+    public boolean enArbol(int r) {
+        return inTree[r];
+    }
+
+    public double peso(int r) {
+        return weight[r];
+    }
+
+    public int numeroAristas() {
+        return treeEdges;
+    }
+
+    /**
+     * Cantidad de actualizaciones incrementales aplicadas desde la construcción
+     */
+    public long actualizaciones() {
+        return updates;
+    }
+
+    private void insertar(int r) {
+        int u = from[r];
+        int v = to[r];
+        if (u == v) {
+            return;
+        }
+        if (!lct.conectados(u, v)) {
+            enlazar(r);
+            return;
+        }
+        int heaviest = lct.maximoEnCamino(u, v) - vertices;
+        if (menor(r, heaviest)) {
+            cortar(heaviest);
+            agregar(otherHead, heaviest);
+            enlazar(r);
+        } else {
+            agregar(otherHead, r);
+        }
+    }
+
+    /**
+     * Busca la ruta más liviana entre los dos árboles que contienen a u y a v y la enlaza
+     */
+    private void reemplazar(int u, int v) {
+        epoch++;
+        int stampA = 2 * epoch;
+        int stampB = stampA + 1;
+        mark[u] = stampA;
+        mark[v] = stampB;
+        queueA[0] = u;
+        queueB[0] = v;
+        int headA = 0;
+        int tailA = 1;
+        int headB = 0;
+        int tailB = 1;
+
+        // Recorridos alternados: el primero que termina es el lado menor
+        int[] side;
+        int size;
+        int stamp;
+        while (true) {
+            if (headA == tailA) {
+                side = queueA;
+                size = tailA;
+                stamp = stampA;
+                break;
+            }
+            if (headB == tailB) {
+                side = queueB;
+                size = tailB;
+                stamp = stampB;
+                break;
+            }
+            tailA = expandir(queueA[headA++], queueA, tailA, stampA);
+            tailB = expandir(queueB[headB++], queueB, tailB, stampB);
+        }
+
+        int best = -1;
+        for (int i = 0; i < size; i++) {
+            for (int slot = otherHead[side[i]]; slot != -1; slot = next[slot]) {
+                int r = slot >>> 1;
+                int other = (slot & 1) == 0 ? to[r] : from[r];
+                if (mark[other] != stamp && (best == -1 || menor(r, best))) {
+                    best = r;
+                }
+            }
+        }
+        if (best != -1) {
+            quitar(otherHead, best);
+            enlazar(best);
+        }
+    }
+
+    /**
+     * Agrega a la cola los vecinos en el bosque aún no marcados
+     */
+    private int expandir(int x, int[] queue, int tail, int stamp) {
+        for (int slot = treeHead[x]; slot != -1; slot = next[slot]) {
+            int r = slot >>> 1;
+            int y = (slot & 1) == 0 ? to[r] : from[r];
+            if (mark[y] != stamp) {
+                mark[y] = stamp;
+                queue[tail++] = y;
+            }
+        }
+        return tail;
+    }
+
+    private void enlazar(int r) {
+        lct.enlazar(from[r], vertices + r);
+        lct.enlazar(vertices + r, to[r]);
+        inTree[r] = true;
+        treeEdges++;
+        agregar(treeHead, r);
+        cachedTree = null;
+    }
+
+    private void cortar(int r) {
+        lct.cortar(from[r], vertices + r);
+        lct.cortar(vertices + r, to[r]);
+        inTree[r] = false;
+        treeEdges--;
+        quitar(treeHead, r);
+        cachedTree = null;
+    }
+
+    /**
+     * Orden total (peso, índice) entre rutas
+     */
+    private boolean menor(int a, int b) {
+        return weight[a] < weight[b] || (weight[a] == weight[b] && a < b);
+    }
+
+    private void agregar(int[] head, int r) {
+        insertarRanura(head, 2 * r, from[r]);
+        insertarRanura(head, 2 * r + 1, to[r]);
+    }
+
+    private void quitar(int[] head, int r) {
+        quitarRanura(head, 2 * r, from[r]);
+        quitarRanura(head, 2 * r + 1, to[r]);
+    }
+
+    private void insertarRanura(int[] head, int slot, int v) {
+        prev[slot] = -1;
+        next[slot] = head[v];
+        if (head[v] != -1) {
+            prev[head[v]] = slot;
+        }
+        head[v] = slot;
+    }
+
+    private void quitarRanura(int[] head, int slot, int v) {
+        if (prev[slot] != -1) {
+            next[prev[slot]] = next[slot];
+        } else {
+            head[v] = next[slot];
+        }
+        if (next[slot] != -1) {
+            prev[next[slot]] = prev[slot];
+        }
+    }
+
+    // ==========================================
+    // CLASES INTERNAS AUXILIARES
+    // ==========================================
+
+    /**
+     * Link-cut tree (Sleator-Tarjan) en arreglos con máximo por camino
+     * Todas las operaciones son iterativas; O(log n) amortizado
+     */
+    private static final class LinkCutTree {
+        private final int[] left;
+        private final int[] right;
+        private final int[] parent;
+        private final boolean[] flip;
+        private final double[] value;
+        private final int[] max; // Nodo de mayor (valor, índice) en el subárbol del splay
+        private final int[] stack;
+
+        LinkCutTree(int nodes) {
+            left = new int[nodes];
+            right = new int[nodes];
+            parent = new int[nodes];
+            flip = new boolean[nodes];
+            value = new double[nodes];
+            max = new int[nodes];
+            stack = new int[nodes];
+            Arrays.fill(left, -1);
+            Arrays.fill(right, -1);
+            Arrays.fill(parent, -1);
+            Arrays.fill(value, Double.NEGATIVE_INFINITY);
+            for (int i = 0; i < nodes; i++) {
+                max[i] = i;
+            }
+        }
+
+        void fijarValor(int x, double v) {
+            acceder(x);
+            value[x] = v;
+            actualizar(x);
+        }
+
+        boolean conectados(int x, int y) {
+            return x == y || raiz(x) == raiz(y);
+        }
+
+        /**
+         * Nodo de mayor valor en el camino x - y (deben estar conectados)
+         */
+        int maximoEnCamino(int x, int y) {
+            hacerRaiz(x);
+            acceder(y);
+            return max[y];
+        }
+
+        void enlazar(int x, int y) {
+            hacerRaiz(x);
+            parent[x] = y;
+        }
+
+        void cortar(int x, int y) {
+            hacerRaiz(x);
+            acceder(y);
+            // Tras acceder, x es el hijo izquierdo de y (son adyacentes)
+            left[y] = -1;
+            parent[x] = -1;
+            actualizar(y);
+        }
+
+        private boolean esRaizSplay(int x) {
+            int p = parent[x];
+            return p == -1 || (left[p] != x && right[p] != x);
+        }
+
+        private boolean mayor(int a, int b) {
+            return value[a] > value[b] || (value[a] == value[b] && a > b);
+        }
+
+        private void actualizar(int x) {
+            int best = x;
+            if (left[x] != -1 && mayor(max[left[x]], best)) {
+                best = max[left[x]];
+            }
+            if (right[x] != -1 && mayor(max[right[x]], best)) {
+                best = max[right[x]];
+            }
+            max[x] = best;
+        }
+
+        private void propagar(int x) {
+            if (flip[x]) {
+                int tmp = left[x];
+                left[x] = right[x];
+                right[x] = tmp;
+                if (left[x] != -1) {
+                    flip[left[x]] = !flip[left[x]];
+                }
+                if (right[x] != -1) {
+                    flip[right[x]] = !flip[right[x]];
+                }
+                flip[x] = false;
+            }
+        }
+
+        private void rotar(int x) {
+            int p = parent[x];
+            int g = parent[p];
+            if (!esRaizSplay(p)) {
+                if (left[g] == p) {
+                    left[g] = x;
+                } else {
+                    right[g] = x;
+                }
+            }
+            parent[x] = g;
+            if (left[p] == x) {
+                left[p] = right[x];
+                if (right[x] != -1) {
+                    parent[right[x]] = p;
+                }
+                right[x] = p;
+            } else {
+                right[p] = left[x];
+                if (left[x] != -1) {
+                    parent[left[x]] = p;
+                }
+                left[x] = p;
+            }
+            parent[p] = x;
+            actualizar(p);
+            actualizar(x);
+        }
+
+        private void splay(int x) {
+            // Propagar inversiones pendientes desde la raíz del splay hacia x
+            int top = 0;
+            stack[top++] = x;
+            for (int y = x; !esRaizSplay(y); y = parent[y]) {
+                stack[top++] = parent[y];
+            }
+            while (top > 0) {
+                propagar(stack[--top]);
+            }
+
+            while (!esRaizSplay(x)) {
+                int p = parent[x];
+                if (!esRaizSplay(p)) {
+                    int g = parent[p];
+                    boolean zigZig = (left[g] == p) == (left[p] == x);
+                    rotar(zigZig ? p : x);
+                }
+                rotar(x);
+            }
+        }
+
+        private void acceder(int x) {
+            int last = -1;
+            for (int y = x; y != -1; y = parent[y]) {
+                splay(y);
+                right[y] = last;
+                actualizar(y);
+                last = y;
+            }
+            splay(x);
+        }
+
+        private void hacerRaiz(int x) {
+            acceder(x);
+            flip[x] = !flip[x];
+        }
+
+        private int raiz(int x) {
+            acceder(x);
+            propagar(x);
+            while (left[x] != -1) {
+                x = left[x];
+                propagar(x);
+            }
+            splay(x);
+            return x;
+        }
+    }
+}
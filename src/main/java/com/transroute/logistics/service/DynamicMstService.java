@@ -0,0 +1,90 @@
+package com.transroute.logistics.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+/**
+ * Servicio que mantiene en memoria el MST (por COSTO) de la instantánea vigente
+ *
+ * - La primera consulta de una instantánea construye el bosque con el motor de MST
+ * - Un RouteStatusChangedEvent sobre la versión mantenida se aplica de forma incremental
+ *   (DynamicMinimumSpanningForest) sin recalcular el árbol
+ * - Cualquier otra instantánea nueva descarta el bosque, que se reconstruye a demanda
+ */
+@Service
+public class DynamicMstService {
+
+    @Autowired
+    private MinimumSpanningTreeService minimumSpanningTreeService;
+
+    private DynamicMinimumSpanningForest forest;
+    private long forestVersion = -1;
+
+    /**
+     * Árbol vigente: rutas, costo total y si se sirvió sin recalcular
+     */
+    public static class ArbolVigente {
+        public final int[] rutas;
+        public final double costoTotal;
+        public final boolean desdeMemoria;
+        public final long actualizacionesIncrementales;
+
+        public ArbolVigente(int[] rutas, double costoTotal, boolean desdeMemoria, long actualizacionesIncrementales) {
+            this.rutas = rutas;
+            this.costoTotal = costoTotal;
+            this.desdeMemoria = desdeMemoria;
+            this.actualizacionesIncrementales = actualizacionesIncrementales;
+        }
+    }
+
+    @EventListener
+    public synchronized void onSnapshotUpdated(GraphSnapshotUpdatedEvent event) {
+        if (event instanceof RouteStatusChangedEvent && forest != null
+                && forestVersion == ((RouteStatusChangedEvent) event).getPrevious().getVersion()) {
+            RouteStatusChangedEvent change = (RouteStatusChangedEvent) event;
+            if (change.isActive()) {
+                forest.activar(change.getRoute());
+            } else {
+                forest.desactivar(change.getRoute());
+            }
+            forestVersion = event.getSnapshot().getVersion();
+            return;
+        }
+        forest = null;
+        forestVersion = -1;
+    }
+
+    /**
+     * MST de la instantánea base indicada, construyéndolo si no está en memoria
+     */
+    public synchronized ArbolVigente obtenerArbol(GraphSnapshot snapshot) {
+        boolean cached = forest != null && forestVersion == snapshot.getVersion();
+        if (!cached) {
+            forest = construir(snapshot.conMetrica(GraphSnapshot.Metrica.COSTO));
+            forestVersion = snapshot.getVersion();
+        }
+        int[] rutas = forest.rutasDelArbol();
+        double total = 0.0;
+        for (int r : rutas) {
+            total += forest.peso(r);
+        }
+        return new ArbolVigente(rutas, total, cached, forest.actualizaciones());
+    }
+
+    private DynamicMinimumSpanningForest construir(GraphSnapshot snapshot) {
+        int m = snapshot.numeroRutas();
+        int[] from = new int[m];
+        int[] to = new int[m];
+        double[] weight = new double[m];
+        boolean[] active = new boolean[m];
+        for (int r = 0; r < m; r++) {
+            from[r] = snapshot.origenRuta(r);
+            to[r] = snapshot.destinoRuta(r);
+            weight[r] = snapshot.pesoRuta(r);
+            active[r] = snapshot.rutaActiva(r);
+        }
+        MinimumSpanningTreeService.ResultadoMST inicial = minimumSpanningTreeService.calcular(snapshot);
+        return new DynamicMinimumSpanningForest(snapshot.numeroVertices(), from, to, weight, active, inicial.aristas);
+    }
+}
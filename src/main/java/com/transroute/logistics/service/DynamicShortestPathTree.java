@@ -0,0 +1,275 @@
+package com.transroute.logistics.service;
+
+import java.util.Arrays;
+
+/**
+ * Árbol de caminos mínimos desde un origen que se repara tras cambios de una ruta
+ * (estilo Ramalingam-Reps)
+ *
+ * - Ruta eliminada o encarecida: solo el subárbol que colgaba de ella pierde su camino.
+ *   Cada vértice afectado toma la mejor arista entrante desde fuera del subárbol y un
+ *   Dijkstra restringido al subárbol termina de fijar las distancias
+ * - Ruta agregada o abaratada: si mejora la distancia de su extremo, la mejora se propaga
+ *   con un Dijkstra que solo visita los vértices que efectivamente mejoran
+ *
+ * El trabajo es proporcional a los vértices cuya distancia o padre cambia (y sus aristas),
+ * no al tamaño del grafo. El árbol se guarda con listas de hijos para encontrar el
+ * subárbol afectado sin recorrer todos los vértices.
+ *
+ * Las distancias no alcanzables valen Double.MAX_VALUE, como en GraphService.
+ * No es seguro para hilos: DynamicSsspService serializa reparaciones y lecturas.
+ */
+public final class DynamicShortestPathTree {
+
+    private final int source;
+    private final double[] dist;
+    private final int[] parent;
+    private final int[] parentRoute;
+
+    // Listas de hijos: listParent es el padre en cuya lista está el vértice (-1 si en ninguna)
+    private final int[] listParent;
+    private final int[] firstChild;
+    private final int[] nextSibling;
+    private final int[] prevSibling;
+
+    private final IndexedDaryHeap heap;
+    private final int[] stamp;
+    private final int[] stack;
+    private int epoch;
+    private int lastRepair;
+
+    /**
+     * Calcula el árbol inicial con un Dijkstra completo
+     */
+    public DynamicShortestPathTree(GraphSnapshot snapshot, int source) {
+        this(snapshot.numeroVertices(), source);
+        dist[source] = 0.0;
+        heap.insertarODisminuir(source, 0.0);
+        lastRepair = propagar(snapshot);
+    }
+
+    /**
+     * Arma el árbol a partir de distancias ya calculadas (por ejemplo con delta-stepping)
+     *
+     * Recorre desde el origen solo las aristas ajustadas (dist[u] + peso == dist[v]) en O(V + E),
+     * sin volver a ordenar vértices. Las distancias deben ser exactas para esta instantánea,
+     * como las de GraphService.dijkstra; cualquier árbol de caminos mínimos sirve para reparar.
+     */
+    public static DynamicShortestPathTree desdeDistancias(GraphSnapshot snapshot, int source, double[] distancias) {
+        DynamicShortestPathTree tree = new DynamicShortestPathTree(snapshot.numeroVertices(), source);
+        double[] dist = tree.dist;
+        System.arraycopy(distancias, 0, dist, 0, dist.length);
+        int[] queue = tree.stack;
+        int head = 0;
+        int tail = 0;
+        tree.stamp[source] = 1;
+        queue[tail++] = source;
+        while (head < tail) {
+            int x = queue[head++];
+            double dx = dist[x];
+            for (int e = snapshot.inicioAristas(x); e < snapshot.finAristas(x); e++) {
+                int z = snapshot.destino(e);
+                if (tree.stamp[z] == 0 && dx + snapshot.peso(e) == dist[z]) {
+                    tree.stamp[z] = 1;
+                    tree.parent[z] = x;
+                    tree.parentRoute[z] = snapshot.ruta(e);
+                    tree.enganchar(z, x);
+                    queue[tail++] = z;
+                }
+            }
+        }
+        Arrays.fill(tree.stamp, 0);
+        return tree;
+    }
+
+    private DynamicShortestPathTree(int n, int source) {
+        this.source = source;
+        this.dist = new double[n];
+        this.parent = new int[n];
+        this.parentRoute = new int[n];
+        this.listParent = new int[n];
+        this.firstChild = new int[n];
+        this.nextSibling = new int[n];
+        this.prevSibling = new int[n];
+        this.heap = new IndexedDaryHeap(n);
+        this.stamp = new int[n];
+        this.stack = new int[n];
+        Arrays.fill(dist, Double.MAX_VALUE);
+        Arrays.fill(parent, -1);
+        Arrays.fill(parentRoute, -1);
+        Arrays.fill(listParent, -1);
+        Arrays.fill(firstChild, -1);
+    }
+
+    public int getOrigen() {
+        return source;
+    }
+
+    public double distancia(int v) {
+        return dist[v];
+    }
+
+    /**
+     * Copia de las distancias vigentes
+     */
+    public double[] distancias() {
+        return Arrays.copyOf(dist, dist.length);
+    }
+
+    /**
+     * Vértices cuya distancia o padre se recalculó en la última reparación
+     */
+    public int verticesReparados() {
+        return lastRepair;
+    }
+
+    /**
+     * Repara el árbol tras eliminar o encarecer una ruta
+     *
+     * @param snapshot Instantánea ya actualizada (sin la ruta o con su nuevo peso)
+     * @param route Índice de la ruta modificada
+     */
+    public void repararTrasAumento(GraphSnapshot snapshot, int route) {
+        int from = snapshot.origenRuta(route);
+        int to = snapshot.destinoRuta(route);
+        int root = -1;
+        if (parentRoute[to] == route && parent[to] == from) {
+            root = to;
+        } else if (!snapshot.isDirected() && parentRoute[from] == route && parent[from] == to) {
+            root = from;
+        }
+        if (root == -1) {
+            lastRepair = 0; // La ruta no estaba en el árbol: ninguna distancia cambia
+            return;
+        }
+
+        // Subárbol afectado: todos sus caminos pasaban por la ruta
+        epoch++;
+        int affected = 0;
+        stack[affected++] = root;
+        stamp[root] = epoch;
+        for (int i = 0; i < affected; i++) {
+            for (int c = firstChild[stack[i]]; c != -1; c = nextSibling[c]) {
+                stamp[c] = epoch;
+                stack[affected++] = c;
+            }
+        }
+        for (int i = 0; i < affected; i++) {
+            int x = stack[i];
+            desenganchar(x);
+            dist[x] = Double.MAX_VALUE;
+            parent[x] = -1;
+            parentRoute[x] = -1;
+        }
+
+        // Mejor arista entrante desde vértices no afectados
+        for (int i = 0; i < affected; i++) {
+            int x = stack[i];
+            for (int e = snapshot.inicioAristasEntrantes(x); e < snapshot.finAristasEntrantes(x); e++) {
+                int y = snapshot.origenEntrante(e);
+                if (stamp[y] == epoch || dist[y] == Double.MAX_VALUE) {
+                    continue;
+                }
+                double candidate = dist[y] + snapshot.pesoEntrante(e);
+                if (candidate < dist[x]) {
+                    dist[x] = candidate;
+                    parent[x] = y;
+                    parentRoute[x] = snapshot.rutaEntrante(e);
+                }
+            }
+            if (dist[x] != Double.MAX_VALUE) {
+                heap.insertarODisminuir(x, dist[x]);
+            }
+        }
+
+        // Las aristas salientes de los afectados solo pueden mejorar a otros afectados
+        propagar(snapshot);
+        lastRepair = affected;
+    }
+
+    /**
+     * Repara el árbol tras agregar o abaratar una ruta
+     *
+     * @param snapshot Instantánea ya actualizada (con la ruta o con su nuevo peso)
+     * @param route Índice de la ruta modificada
+     */
+    public void repararTrasDisminucion(GraphSnapshot snapshot, int route) {
+        int from = snapshot.origenRuta(route);
+        int to = snapshot.destinoRuta(route);
+        double weight = snapshot.pesoRuta(route);
+        mejorar(from, to, route, weight);
+        if (!snapshot.isDirected()) {
+            mejorar(to, from, route, weight);
+        }
+        lastRepair = propagar(snapshot);
+    }
+
+    private void mejorar(int u, int v, int route, double weight) {
+        if (dist[u] == Double.MAX_VALUE) {
+            return;
+        }
+        double candidate = dist[u] + weight;
+        if (candidate < dist[v]) {
+            dist[v] = candidate;
+            parent[v] = u;
+            parentRoute[v] = route;
+            heap.insertarODisminuir(v, candidate);
+        }
+    }
+
+    /**
+     * Dijkstra desde los vértices ya cargados en el montículo; cada vértice extraído
+     * queda colgado de su padre definitivo
+     *
+     * @return Cantidad de vértices fijados
+     */
+    private int propagar(GraphSnapshot snapshot) {
+        int settled = 0;
+        while (!heap.vacio()) {
+            int x = heap.extraerMinimo();
+            settled++;
+            desenganchar(x);
+            if (parent[x] != -1) {
+                enganchar(x, parent[x]);
+            }
+            double dx = dist[x];
+            for (int e = snapshot.inicioAristas(x); e < snapshot.finAristas(x); e++) {
+                int z = snapshot.destino(e);
+                double candidate = dx + snapshot.peso(e);
+                if (candidate < dist[z]) {
+                    dist[z] = candidate;
+                    parent[z] = x;
+                    parentRoute[z] = snapshot.ruta(e);
+                    heap.insertarODisminuir(z, candidate);
+                }
+            }
+        }
+        return settled;
+    }
+
+    private void enganchar(int x, int p) {
+        listParent[x] = p;
+        prevSibling[x] = -1;
+        nextSibling[x] = firstChild[p];
+        if (firstChild[p] != -1) {
+            prevSibling[firstChild[p]] = x;
+        }
+        firstChild[p] = x;
+    }
+
+    private void desenganchar(int x) {
+        int p = listParent[x];
+        if (p == -1) {
+            return;
+        }
+        if (prevSibling[x] != -1) {
+            nextSibling[prevSibling[x]] = nextSibling[x];
+        } else {
+            firstChild[p] = nextSibling[x];
+        }
+        if (nextSibling[x] != -1) {
+            prevSibling[nextSibling[x]] = prevSibling[x];
+        }
+        listParent[x] = -1;
+    }
+}
@@ -0,0 +1,110 @@
+package com.transroute.logistics.service;
+
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Caché de árboles de caminos mínimos (por COSTO) para los orígenes consultados con más frecuencia
+ *
+ * - Cada origen consultado sobre la instantánea vigente queda en caché (LRU de MAX_ORIGENES),
+ *   también cuando sus distancias se calcularon con delta-stepping (registrarDistancias)
+ * - Un RouteStatusChangedEvent sobre la versión cacheada repara cada árbol de forma
+ *   incremental (DynamicShortestPathTree) en lugar de descartarlo
+ * - Cualquier otra instantánea nueva vacía la caché
+ */
+@Service
+public class DynamicSsspService {
+
+    public static final int MAX_ORIGENES = 8;
+
+    private final Map<Integer, DynamicShortestPathTree> trees =
+            new LinkedHashMap<Integer, DynamicShortestPathTree>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Integer, DynamicShortestPathTree> eldest) {
+                    return size() > MAX_ORIGENES;
+                }
+            };
+    private long version = -1;
+
+    /**
+     * Distancias desde un origen y si se sirvieron desde la caché
+     */
+    public static class DistanciasOrigen {
+        public final double[] distancias;
+        public final boolean desdeCache;
+        public final int verticesReparados;
+
+        public DistanciasOrigen(double[] distancias, boolean desdeCache, int verticesReparados) {
+            this.distancias = distancias;
+            this.desdeCache = desdeCache;
+            this.verticesReparados = verticesReparados;
+        }
+    }
+
+    @EventListener
+    public synchronized void onSnapshotUpdated(GraphSnapshotUpdatedEvent event) {
+        if (event instanceof RouteStatusChangedEvent && !trees.isEmpty()
+                && version == ((RouteStatusChangedEvent) event).getPrevious().getVersion()) {
+            RouteStatusChangedEvent change = (RouteStatusChangedEvent) event;
+            GraphSnapshot snapshot = change.getSnapshot().conMetrica(GraphSnapshot.Metrica.COSTO);
+            for (DynamicShortestPathTree tree : trees.values()) {
+                if (change.isActive()) {
+                    tree.repararTrasDisminucion(snapshot, change.getRoute());
+                } else {
+                    tree.repararTrasAumento(snapshot, change.getRoute());
+                }
+            }
+            version = snapshot.getVersion();
+            return;
+        }
+        trees.clear();
+        version = -1;
+    }
+
+    /**
+     * Distancias del origen si ya está en caché para esa versión, o null (no calcula nada)
+     */
+    public synchronized DistanciasOrigen distanciasEnCache(GraphSnapshot snapshot, int source) {
+        DynamicShortestPathTree tree = version == snapshot.getVersion() ? trees.get(source) : null;
+        return tree != null ? new DistanciasOrigen(tree.distancias(), true, tree.verticesReparados()) : null;
+    }
+
+    /**
+     * Deja en caché distancias ya calculadas fuera del servicio (delta-stepping en redes grandes),
+     * para que la próxima consulta del mismo origen se sirva desde el árbol y se repare con los
+     * cambios de estado de ruta en lugar de recalcularse
+     */
+    public DistanciasOrigen registrarDistancias(GraphSnapshot snapshot, int source, double[] distancias) {
+        // El árbol se arma fuera del lock: es O(V + E) y no depende de la caché
+        DynamicShortestPathTree tree = DynamicShortestPathTree.desdeDistancias(
+                snapshot.conMetrica(GraphSnapshot.Metrica.COSTO), source, distancias);
+        synchronized (this) {
+            if (version != snapshot.getVersion()) {
+                trees.clear();
+                version = snapshot.getVersion();
+            }
+            trees.putIfAbsent(source, tree);
+        }
+        return new DistanciasOrigen(distancias, false, 0);
+    }
+
+    /**
+     * Distancias desde el origen sobre la instantánea base indicada
+     */
+    public synchronized DistanciasOrigen obtenerDistancias(GraphSnapshot snapshot, int source) {
+        if (version != snapshot.getVersion()) {
+            trees.clear();
+            version = snapshot.getVersion();
+        }
+        DynamicShortestPathTree tree = trees.get(source);
+        boolean cached = tree != null;
+        if (!cached) {
+            tree = new DynamicShortestPathTree(snapshot.conMetrica(GraphSnapshot.Metrica.COSTO), source);
+            trees.put(source, tree);
+        }
+        return new DistanciasOrigen(tree.distancias(), cached, cached ? tree.verticesReparados() : 0);
+    }
+}
@@ -3,7 +3,9 @@ package com.transroute.logistics.service;
 import com.transroute.logistics.model.DistributionCenter;
 import com.transroute.logistics.model.Route;
 import com.transroute.logistics.repository.DistributionCenterRepository;
+import com.transroute.logistics.repository.RouteEdge;
 import com.transroute.logistics.repository.RouteRepository;
+import com.transroute.logistics.repository.TruckRepository;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 
@@ -22,6 +24,9 @@ import java.util.*;
  * - Kruskal: O(E log E) con Union-Find
  * - Prim: O(E log V) con heap
  * - Dijkstra: O((V + E) log V) con heap
+ * 
+ * Los algoritmos operan sobre GraphSnapshot (CSR) compartido por GraphSnapshotService
+ * Para redes grandes el MST se delega en MinimumSpanningTreeService
  */
 @Service
 public class GraphService {
@@ -32,76 +37,24 @@ public class GraphService {
     @Autowired
     private DistributionCenterRepository distributionCenterRepository;
     
-    /**
-     * Obtiene todas las rutas desde Neo4j y construye el grafo automáticamente
-     * Usa el costo como peso de las aristas
-     */
-    public List<Edge> obtenerRutasYConstruirGrafoParaKruskal() {
-        List<Route> routes = routeRepository.findAll();
-        List<DistributionCenter> centers = distributionCenterRepository.findAll();
-        
-        // Crear mapa de ID de centro a índice
-        Map<String, Integer> centerToIndex = new HashMap<>();
-        for (int i = 0; i < centers.size(); i++) {
-            centerToIndex.put(centers.get(i).getId(), i);
-        }
-        
-        List<Edge> edges = new ArrayList<>();
-        
-        // Por ahora, asignamos índices secuenciales a las rutas
-        // En una implementación real, necesitaríamos relaciones en Neo4j
-        for (int i = 0; i < routes.size(); i++) {
-            Route route = routes.get(i);
-            // Para simplicidad, usamos índices basados en orden
-            // Esto debería mejorarse con relaciones reales en Neo4j
-            int from = i % centers.size();
-            int to = (i + 1) % centers.size();
-            if (from == to) to = (to + 1) % centers.size();
-            
-            double weight = route.getCost() != null ? route.getCost() : route.getDistance() != null ? route.getDistance() : 0.0;
-            edges.add(new Edge(from, to, weight));
-        }
-        
-        return edges;
-    }
+    @Autowired
+    private GraphSnapshotService graphSnapshotService;
+    
+    @Autowired
+    private TruckRepository truckRepository;
     
     /**
-     * Obtiene rutas desde Neo4j y construye lista de adyacencia para Prim/Dijkstra
+     * Obtiene la instantánea compartida del grafo construida desde Neo4j
      */
-    public Map<Integer, List<int[]>> obtenerRutasYConstruirListaAdyacencia() {
-        List<Route> routes = routeRepository.findAll();
-        List<DistributionCenter> centers = distributionCenterRepository.findAll();
-        
-        Map<Integer, List<int[]>> adjacencyList = new HashMap<>();
-        
-        // Inicializar listas de adyacencia para cada centro
-        for (int i = 0; i < centers.size(); i++) {
-            adjacencyList.put(i, new ArrayList<>());
-        }
-        
-        // Agregar aristas basadas en rutas
-        // Nota: Esto es una simplificación. Idealmente, las relaciones en Neo4j deberían indicar
-        // qué centros conecta cada ruta
-        for (int i = 0; i < routes.size(); i++) {
-            Route route = routes.get(i);
-            int from = i % centers.size();
-            int to = (i + 1) % centers.size();
-            if (from == to) to = (to + 1) % centers.size();
-            
-            double weight = route.getCost() != null ? route.getCost() : route.getDistance() != null ? route.getDistance() : 0.0;
-            
-            adjacencyList.get(from).add(new int[]{to, (int) weight});
-            adjacencyList.get(to).add(new int[]{from, (int) weight}); // Grafo no dirigido
-        }
-        
-        return adjacencyList;
+    public GraphSnapshot obtenerSnapshot() {
+        return graphSnapshotService.obtenerSnapshot();
     }
     
     /**
      * Obtiene el número de vértices (centros de distribución)
      */
     public int obtenerNumeroVertices() {
-        return (int) distributionCenterRepository.count();
+        return graphSnapshotService.obtenerSnapshot().numeroVertices();
     }
     
     /**
@@ -163,112 +116,78 @@ public class GraphService {
     
     /**
      * Construye el grafo usando centros y rutas seleccionados
+     * Las aristas se obtienen con una sola consulta de proyección; el índice de cada
+     * vértice es la posición del centro en la lista seleccionada
      */
     public List<Edge> construirGrafoConSeleccion(List<String> selectedCenterIds, List<String> selectedRouteIds) {
-        if (selectedCenterIds == null || selectedCenterIds.isEmpty()) {
-            return new ArrayList<>();
-        }
-        
-        // Obtener centros seleccionados
-        List<DistributionCenter> selectedCenters = new ArrayList<>();
-        for (String centerId : selectedCenterIds) {
-            distributionCenterRepository.findById(centerId).ifPresent(selectedCenters::add);
-        }
-        
-        // Crear mapa de ID de centro a índice
-        Map<String, Integer> centerToIndex = new HashMap<>();
-        for (int i = 0; i < selectedCenters.size(); i++) {
-            centerToIndex.put(selectedCenters.get(i).getId(), i);
-        }
-        
-        // Obtener rutas seleccionadas
-        List<Route> selectedRoutes = new ArrayList<>();
-        if (selectedRouteIds != null && !selectedRouteIds.isEmpty()) {
-            for (String routeId : selectedRouteIds) {
-                routeRepository.findById(routeId).ifPresent(selectedRoutes::add);
-            }
+        List<Edge> edges = new ArrayList<>();
+        if (selectedCenterIds == null || selectedCenterIds.isEmpty()
+                || selectedRouteIds == null || selectedRouteIds.isEmpty()) {
+            return edges;
         }
         
-        // Construir aristas solo para rutas que conectan centros seleccionados
-        List<Edge> edges = new ArrayList<>();
-        for (Route route : selectedRoutes) {
-            DistributionCenter from = route.getFromCenter();
-            DistributionCenter to = route.getToCenter();
-            
-            if (from != null && to != null && 
-                centerToIndex.containsKey(from.getId()) && 
-                centerToIndex.containsKey(to.getId())) {
-                
-                int fromIndex = centerToIndex.get(from.getId());
-                int toIndex = centerToIndex.get(to.getId());
-                
-                // Usar costo total si está disponible, sino distancia
-                double weight = route.getCost() != null ? route.getCost() : 
-                               (route.getDistance() != null ? route.getDistance() : 0.0);
-                
-                edges.add(new Edge(fromIndex, toIndex, weight));
-            }
+        Map<String, Integer> centerToIndex = indexarCentrosSeleccionados(selectedCenterIds);
+        for (RouteEdge edge : routeRepository.findRouteEdgesBySelection(selectedCenterIds, selectedRouteIds)) {
+            edges.add(new Edge(centerToIndex.get(edge.getFromId()), centerToIndex.get(edge.getToId()), edge.getWeight()));
         }
         
         return edges;
     }
 
     /**
-     * Construye una lista de adyacencia para Dijkstra usando centros y rutas seleccionados
-     * @param selectedCenterIds Lista de IDs de centros seleccionados
+     * Construye una instantánea dirigida con pesos double usando centros y rutas seleccionados
+     * @param selectedCenterIds Lista de IDs de centros seleccionados (define el índice de cada vértice)
      * @param selectedRouteIds Lista de IDs de rutas seleccionadas
-     * @return Mapa de índice de vértice a lista de vecinos [índice_vecino, peso]
+     * @return Instantánea con un vértice por centro seleccionado
      */
-    public Map<Integer, List<int[]>> construirListaAdyacenciaConSeleccion(List<String> selectedCenterIds, List<String> selectedRouteIds) {
-        Map<Integer, List<int[]>> adjacencyList = new HashMap<>();
-        
+    public GraphSnapshot construirSnapshotConSeleccion(List<String> selectedCenterIds, List<String> selectedRouteIds) {
         if (selectedCenterIds == null || selectedCenterIds.isEmpty()) {
-            return adjacencyList;
+            return GraphSnapshot.desdeSeleccion(new ArrayList<>(), new ArrayList<>());
         }
-        
-        // Obtener centros seleccionados
-        List<DistributionCenter> selectedCenters = new ArrayList<>();
-        for (String centerId : selectedCenterIds) {
-            distributionCenterRepository.findById(centerId).ifPresent(selectedCenters::add);
-        }
-        
-        // Crear mapa de ID de centro a índice
+        List<RouteEdge> edges = selectedRouteIds == null || selectedRouteIds.isEmpty()
+                ? new ArrayList<>()
+                : routeRepository.findRouteEdgesBySelection(selectedCenterIds, selectedRouteIds);
+        return GraphSnapshot.desdeSeleccion(selectedCenterIds, edges);
+    }
+
+    /**
+     * Mapa de ID de centro a su posición en la lista seleccionada (primera aparición)
+     */
+    private Map<String, Integer> indexarCentrosSeleccionados(List<String> selectedCenterIds) {
         Map<String, Integer> centerToIndex = new HashMap<>();
-        for (int i = 0; i < selectedCenters.size(); i++) {
-            centerToIndex.put(selectedCenters.get(i).getId(), i);
-        }
-        
-        // Obtener rutas seleccionadas
-        List<Route> selectedRoutes = new ArrayList<>();
-        if (selectedRouteIds != null && !selectedRouteIds.isEmpty()) {
-            for (String routeId : selectedRouteIds) {
-                routeRepository.findById(routeId).ifPresent(selectedRoutes::add);
-            }
+        for (int i = 0; i < selectedCenterIds.size(); i++) {
+            centerToIndex.putIfAbsent(selectedCenterIds.get(i), i);
         }
-        
-        // Construir lista de adyacencia solo para rutas que conectan centros seleccionados
-        for (Route route : selectedRoutes) {
-            DistributionCenter from = route.getFromCenter();
-            DistributionCenter to = route.getToCenter();
-            
-            if (from != null && to != null && 
-                centerToIndex.containsKey(from.getId()) && 
-                centerToIndex.containsKey(to.getId())) {
-                
-                int fromIndex = centerToIndex.get(from.getId());
-                int toIndex = centerToIndex.get(to.getId());
-                
-                // Usar costo total si está disponible, sino distancia
-                double weight = route.getCost() != null ? route.getCost() : 
-                               (route.getDistance() != null ? route.getDistance() : 0.0);
-                
-                // Agregar a la lista de adyacencia
-                adjacencyList.computeIfAbsent(fromIndex, k -> new ArrayList<>())
-                             .add(new int[]{toIndex, (int) Math.round(weight)});
-            }
+        return centerToIndex;
+    }
+
+    /**
+     * Obtiene el peso en kg que define la clase de peso de un camión (su capacidad)
+     * @param truckId ID del camión
+     * @return Capacidad del camión, o null si no existe o no tiene capacidad registrada
+     */
+    public Double obtenerPesoCamion(String truckId) {
+        return truckRepository.findById(truckId)
+                .map(truck -> truck.getCapacity() != null ? truck.getCapacity().doubleValue() : null)
+                .orElse(null);
+    }
+
+    /**
+     * Estados válidos de una ruta; solo ACTIVE forma parte del grafo
+     */
+    public static final Set<String> ESTADOS_RUTA = Set.of("ACTIVE", "CLOSED", "MAINTENANCE");
+
+    /**
+     * Cambia el estado de una ruta en Neo4j y lo aplica a la instantánea en memoria
+     * @param routeId ID de la ruta
+     * @param status Nuevo estado (ACTIVE, CLOSED o MAINTENANCE)
+     * @return Instantánea vigente tras el cambio, o null si la ruta no existe
+     */
+    public GraphSnapshot cambiarEstadoRuta(String routeId, String status) {
+        if (routeRepository.updateStatus(routeId, status) == null) {
+            return null;
         }
-        
-        return adjacencyList;
+        return graphSnapshotService.aplicarEstadoRuta(routeId, "ACTIVE".equals(status));
     }
 
     /**
@@ -307,20 +226,36 @@ public class GraphService {
     }
 
     /**
-     * Representa un nodo con distancia para Dijkstra
+     * Resultado de una consulta de camino origen-destino
      */
-    private static class Node implements Comparable<Node> {
-        public int id;
+    public static class PathResult {
+        public List<Integer> path;
         public double distance;
+        public int settledNodes;
         
-        public Node(int id, double distance) {
-            this.id = id;
+        public PathResult(List<Integer> path, double distance, int settledNodes) {
+            this.path = path;
             this.distance = distance;
+            this.settledNodes = settledNodes;
         }
-        
-        @Override
-        public int compareTo(Node other) {
-            return Double.compare(this.distance, other.distance);
+    }
+    
+    /**
+     * Estrategias disponibles para consultas de camino origen-destino
+     */
+    public enum ModoCamino {
+        DIJKSTRA,
+        BIDIRECCIONAL,
+        ASTAR;
+        
+        /**
+         * Interpreta el modo recibido en la petición (por defecto DIJKSTRA)
+         */
+        public static ModoCamino desde(String valor) {
+            if (valor == null || valor.isBlank()) {
+                return DIJKSTRA;
+            }
+            return ModoCamino.valueOf(valor.trim().toUpperCase());
         }
     }
 
@@ -365,6 +300,22 @@ public class GraphService {
         return mst;
     }
     
+    /**
+     * Kruskal sobre la instantánea compartida: una arista por ruta activa
+     * 
+     * @param snapshot Instantánea del grafo
+     * @return Lista de aristas que forman el MST (bosque si el grafo no es conexo)
+     */
+    public List<Edge> kruskalMST(GraphSnapshot snapshot) {
+        List<Edge> edges = new ArrayList<>(snapshot.numeroRutas());
+        for (int r = 0; r < snapshot.numeroRutas(); r++) {
+            if (snapshot.rutaIncluida(r)) {
+                edges.add(new Edge(snapshot.origenRuta(r), snapshot.destinoRuta(r), snapshot.pesoRuta(r)));
+            }
+        }
+        return kruskalMST(snapshot.numeroVertices(), edges);
+    }
+    
     /**
      * Implementación de Prim para encontrar el MST
      * Complejidad: O(E log V) con priority queue
@@ -374,35 +325,87 @@ public class GraphService {
      * @return Lista de aristas que forman el MST
      */
     public List<Edge> primMST(int vertices, Map<Integer, List<int[]>> adjacencyList) {
+        return primMST(GraphSnapshot.desdeListaAdyacencia(vertices, adjacencyList));
+    }
+    
+    /**
+     * Prim sobre la instantánea CSR, partiendo del vértice 0
+     * Mantiene la mejor arista conocida hacia cada vértice (key/parent)
+     * 
+     * @param snapshot Instantánea del grafo
+     * @return Lista de aristas que forman el MST
+     */
+    public List<Edge> primMST(GraphSnapshot snapshot) {
+        int vertices = snapshot.numeroVertices();
         List<Edge> mst = new ArrayList<>();
-        boolean[] visited = new boolean[vertices];
-        PriorityQueue<int[]> pq = new PriorityQueue<>(Comparator.comparingInt(a -> a[1]));
+        if (vertices == 0) {
+            return mst;
+        }
+        
+        // key = distancia del espacio de trabajo, parent = predecesor, visited = asentado
+        DijkstraWorkspace ws = DijkstraWorkspace.obtener(DijkstraWorkspace.ADELANTE, vertices);
+        IndexedDaryHeap heap = ws.heap();
         
         // Empezar desde el vértice 0
-        pq.offer(new int[]{0, 0, -1}); // {from, weight, to}
+        ws.fijar(0, 0.0, -1);
+        heap.insertarODisminuir(0, 0.0);
         
-        while (!pq.isEmpty() && mst.size() < vertices - 1) {
-            int[] current = pq.poll();
-            int to = current[0];
-            double weight = current[1];
-            int from = current[2];
+        while (!heap.vacio() && mst.size() < vertices - 1) {
+            int u = heap.extraerMinimo();
+            ws.asentar(u);
             
-            if (visited[to]) {
-                continue;
+            if (ws.predecesor(u) != -1) {
+                mst.add(new Edge(ws.predecesor(u), u, ws.distancia(u)));
             }
             
-            visited[to] = true;
+            // Actualizar la mejor arista hacia cada vecino fuera del árbol
+            for (int e = snapshot.inicioAristas(u); e < snapshot.finAristas(u); e++) {
+                int v = snapshot.destino(e);
+                double weight = snapshot.peso(e);
+                if (!ws.asentado(v) && weight < ws.distancia(v)) {
+                    ws.fijar(v, weight, u);
+                    heap.insertarODisminuir(v, weight);
+                }
+            }
+        }
+        
+        return mst;
+    }
+    
+    /**
+     * Prim sobre la adyacencia comprimida, partiendo del vértice 0
+     * Mismo resultado que primMST(GraphSnapshot) sobre la vista de origen
+     * 
+     * @param graph Adyacencia comprimida (GraphSnapshot.comprimida())
+     * @return Lista de aristas que forman el MST
+     */
+    public List<Edge> primMST(CompressedGraph graph) {
+        int vertices = graph.numeroVertices();
+        List<Edge> mst = new ArrayList<>();
+        if (vertices == 0) {
+            return mst;
+        }
+        
+        DijkstraWorkspace ws = DijkstraWorkspace.obtener(DijkstraWorkspace.ADELANTE, vertices);
+        IndexedDaryHeap heap = ws.heap();
+        CompressedGraph.Cursor cursor = graph.cursor();
+        ws.fijar(0, 0.0, -1);
+        heap.insertarODisminuir(0, 0.0);
+        
+        while (!heap.vacio() && mst.size() < vertices - 1) {
+            int u = heap.extraerMinimo();
+            ws.asentar(u);
             
-            if (from != -1) {
-                mst.add(new Edge(from, to, weight));
+            if (ws.predecesor(u) != -1) {
+                mst.add(new Edge(ws.predecesor(u), u, ws.distancia(u)));
             }
             
-            // Agregar vecinos a la cola
-            if (adjacencyList.containsKey(to)) {
-                for (int[] neighbor : adjacencyList.get(to)) {
-                    if (!visited[neighbor[0]]) {
-                        pq.offer(new int[]{neighbor[0], neighbor[1], to});
-                    }
+            for (cursor.abrir(u); cursor.siguiente(); ) {
+                int v = cursor.destino();
+                double weight = cursor.peso();
+                if (!ws.asentado(v) && weight < ws.distancia(v)) {
+                    ws.fijar(v, weight, u);
+                    heap.insertarODisminuir(v, weight);
                 }
             }
         }
@@ -420,41 +423,172 @@ public class GraphService {
      * @return Array de distancias desde el origen a cada vértice
      */
     public double[] dijkstra(int vertices, int source, Map<Integer, List<int[]>> adjacencyList) {
+        return dijkstra(GraphSnapshot.desdeListaAdyacencia(vertices, adjacencyList), source);
+    }
+    
+    /**
+     * Dijkstra sobre la instantánea CSR
+     * 
+     * @param snapshot Instantánea del grafo
+     * @param source Vértice origen
+     * @return Array de distancias desde el origen (Double.MAX_VALUE si no es alcanzable)
+     */
+    public double[] dijkstra(GraphSnapshot snapshot, int source) {
+        int vertices = snapshot.numeroVertices();
+        DijkstraWorkspace ws = dijkstraDesde(snapshot, source);
         double[] distances = new double[vertices];
-        Arrays.fill(distances, Double.MAX_VALUE);
-        distances[source] = 0.0;
-        
-        PriorityQueue<Node> pq = new PriorityQueue<>();
-        pq.offer(new Node(source, 0.0));
-        boolean[] visited = new boolean[vertices];
-        
-        while (!pq.isEmpty()) {
-            Node current = pq.poll();
-            int u = current.id;
-            
-            if (visited[u]) {
-                continue;
-            }
-            
-            visited[u] = true;
+        for (int v = 0; v < vertices; v++) {
+            distances[v] = ws.distancia(v);
+        }
+        return distances;
+    }
+    
+    /**
+     * Núcleo de Dijkstra uno-a-todos sin reservas de memoria
+     * Usa el montículo d-ario indexado (decrease-key) y los arreglos de trabajo del hilo;
+     * el resultado queda en el espacio devuelto y es válido hasta la próxima búsqueda del hilo
+     * 
+     * @param snapshot Instantánea del grafo
+     * @param source Vértice origen
+     * @return Espacio de trabajo con distancias y predecesores
+     */
+    public DijkstraWorkspace dijkstraDesde(GraphSnapshot snapshot, int source) {
+        DijkstraWorkspace ws = DijkstraWorkspace.obtener(DijkstraWorkspace.ADELANTE, snapshot.numeroVertices());
+        IndexedDaryHeap heap = ws.heap();
+        ws.fijar(source, 0.0, -1);
+        heap.insertarODisminuir(source, 0.0);
+        
+        while (!heap.vacio()) {
+            int u = heap.extraerMinimo();
+            ws.asentar(u);
+            double du = ws.distancia(u);
             
             // Relajar aristas vecinas
-            if (adjacencyList.containsKey(u)) {
-                for (int[] neighbor : adjacencyList.get(u)) {
-                    int v = neighbor[0];
-                    double weight = neighbor[1];
-                    
-                    if (!visited[v] && distances[u] + weight < distances[v]) {
-                        distances[v] = distances[u] + weight;
-                        pq.offer(new Node(v, distances[v]));
-                    }
+            for (int e = snapshot.inicioAristas(u); e < snapshot.finAristas(u); e++) {
+                int v = snapshot.destino(e);
+                double candidate = du + snapshot.peso(e);
+                
+                if (!ws.asentado(v) && candidate < ws.distancia(v)) {
+                    ws.fijar(v, candidate, u);
+                    heap.insertarODisminuir(v, candidate);
                 }
             }
         }
         
+        return ws;
+    }
+    
+    /**
+     * Dijkstra sobre la adyacencia comprimida
+     * 
+     * @param graph Adyacencia comprimida (GraphSnapshot.comprimida())
+     * @param source Vértice origen
+     * @return Array de distancias desde el origen (Double.MAX_VALUE si no es alcanzable)
+     */
+    public double[] dijkstra(CompressedGraph graph, int source) {
+        int vertices = graph.numeroVertices();
+        DijkstraWorkspace ws = dijkstraDesde(graph, source);
+        double[] distances = new double[vertices];
+        for (int v = 0; v < vertices; v++) {
+            distances[v] = ws.distancia(v);
+        }
         return distances;
     }
     
+    /**
+     * Núcleo de Dijkstra uno-a-todos sobre la adyacencia comprimida
+     * Decodifica las aristas al vuelo con un único cursor por búsqueda
+     * 
+     * @param graph Adyacencia comprimida
+     * @param source Vértice origen
+     * @return Espacio de trabajo con distancias y predecesores
+     */
+    public DijkstraWorkspace dijkstraDesde(CompressedGraph graph, int source) {
+        DijkstraWorkspace ws = DijkstraWorkspace.obtener(DijkstraWorkspace.ADELANTE, graph.numeroVertices());
+        IndexedDaryHeap heap = ws.heap();
+        CompressedGraph.Cursor cursor = graph.cursor();
+        ws.fijar(source, 0.0, -1);
+        heap.insertarODisminuir(source, 0.0);
+        
+        while (!heap.vacio()) {
+            int u = heap.extraerMinimo();
+            ws.asentar(u);
+            double du = ws.distancia(u);
+            
+            for (cursor.abrir(u); cursor.siguiente(); ) {
+                int v = cursor.destino();
+                double candidate = du + cursor.peso();
+                if (!ws.asentado(v) && candidate < ws.distancia(v)) {
+                    ws.fijar(v, candidate, u);
+                    heap.insertarODisminuir(v, candidate);
+                }
+            }
+        }
+        
+        return ws;
+    }
+    
+    /**
+     * Recibe cada vértice alcanzado por una búsqueda acotada, en orden de distancia creciente
+     */
+    @FunctionalInterface
+    public interface VisitanteAlcance {
+        void visitar(int vertex, double distance, int predecessor);
+    }
+    
+    /**
+     * Resultado de una búsqueda acotada
+     */
+    public static class ResultadoAlcance {
+        public int alcanzados;
+        public boolean truncado; // Quedaron vértices dentro del presupuesto sin informar
+        
+        public ResultadoAlcance(int alcanzados, boolean truncado) {
+            this.alcanzados = alcanzados;
+            this.truncado = truncado;
+        }
+    }
+    
+    /**
+     * Dijkstra acotado por presupuesto (isócrona)
+     * No encola vértices cuya distancia supera el presupuesto, por lo que el trabajo es
+     * proporcional al área cubierta y no al grafo completo
+     * 
+     * @param snapshot Instantánea del grafo (con la métrica ya aplicada)
+     * @param source Vértice origen (se informa con distancia 0)
+     * @param presupuesto Distancia máxima incluida
+     * @param maxResultados Cantidad máxima de vértices a informar
+     * @param visitante Recibe cada vértice al asentarse
+     * @return Cantidad de vértices informados y si el tope dejó vértices alcanzables afuera
+     */
+    public ResultadoAlcance dijkstraAcotado(GraphSnapshot snapshot, int source, double presupuesto, int maxResultados,
+                               VisitanteAlcance visitante) {
+        DijkstraWorkspace ws = DijkstraWorkspace.obtener(DijkstraWorkspace.ADELANTE, snapshot.numeroVertices());
+        IndexedDaryHeap heap = ws.heap();
+        ws.fijar(source, 0.0, -1);
+        heap.insertarODisminuir(source, 0.0);
+        int reached = 0;
+        
+        while (!heap.vacio() && reached < maxResultados) {
+            int u = heap.extraerMinimo();
+            ws.asentar(u);
+            double du = ws.distancia(u);
+            visitante.visitar(u, du, ws.predecesor(u));
+            reached++;
+            
+            for (int e = snapshot.inicioAristas(u); e < snapshot.finAristas(u); e++) {
+                int v = snapshot.destino(e);
+                double candidate = du + snapshot.peso(e);
+                if (candidate <= presupuesto && !ws.asentado(v) && candidate < ws.distancia(v)) {
+                    ws.fijar(v, candidate, u);
+                    heap.insertarODisminuir(v, candidate);
+                }
+            }
+        }
+        // El heap solo contiene vértices dentro del presupuesto: si quedó alguno, se cortó por el tope
+        return new ResultadoAlcance(reached, !heap.vacio());
+    }
+    
     /**
      * Encuentra el camino completo desde el origen hasta un destino usando Dijkstra
      * 
@@ -466,61 +600,235 @@ public class GraphService {
      */
     public List<Integer> dijkstraPath(int vertices, int source, int destination, 
                                       Map<Integer, List<int[]>> adjacencyList) {
-        double[] distances = new double[vertices];
-        int[] previous = new int[vertices];
-        Arrays.fill(distances, Double.MAX_VALUE);
-        Arrays.fill(previous, -1);
-        distances[source] = 0.0;
-        
-        PriorityQueue<Node> pq = new PriorityQueue<>();
-        pq.offer(new Node(source, 0.0));
-        boolean[] visited = new boolean[vertices];
-        
-        while (!pq.isEmpty()) {
-            Node current = pq.poll();
-            int u = current.id;
-            
-            if (visited[u]) {
-                continue;
-            }
-            
-            visited[u] = true;
+        return dijkstraPath(GraphSnapshot.desdeListaAdyacencia(vertices, adjacencyList), source, destination);
+    }
+    
+    /**
+     * Dijkstra punto a punto sobre la instantánea CSR
+     * 
+     * @param snapshot Instantánea del grafo
+     * @param source Vértice origen
+     * @param destination Vértice destino
+     * @return Lista de vértices que forman el camino más corto, o null si no hay camino
+     */
+    public List<Integer> dijkstraPath(GraphSnapshot snapshot, int source, int destination) {
+        return dijkstraCamino(snapshot, source, destination).path;
+    }
+    
+    /**
+     * Calcula el camino más corto entre dos vértices con el modo de búsqueda indicado
+     * 
+     * @param snapshot Instantánea del grafo
+     * @param source Vértice origen
+     * @param destination Vértice destino
+     * @param modo Estrategia de búsqueda
+     * @return Camino, distancia total y nodos asentados durante la búsqueda
+     */
+    public PathResult caminoMasCorto(GraphSnapshot snapshot, int source, int destination, ModoCamino modo) {
+        switch (modo) {
+            case BIDIRECCIONAL:
+                return dijkstraBidireccional(snapshot, source, destination);
+            case ASTAR:
+                return aStar(snapshot, source, destination);
+            case DIJKSTRA:
+            default:
+                return dijkstraCamino(snapshot, source, destination);
+        }
+    }
+    
+    /**
+     * Dijkstra unidireccional: se detiene cuando el destino sale de la cola
+     * Complejidad: O((V + E) log V)
+     */
+    public PathResult dijkstraCamino(GraphSnapshot snapshot, int source, int destination) {
+        DijkstraWorkspace ws = DijkstraWorkspace.obtener(DijkstraWorkspace.ADELANTE, snapshot.numeroVertices());
+        IndexedDaryHeap heap = ws.heap();
+        ws.fijar(source, 0.0, -1);
+        heap.insertarODisminuir(source, 0.0);
+        int settled = 0;
+        
+        while (!heap.vacio()) {
+            int u = heap.extraerMinimo();
+            ws.asentar(u);
+            settled++;
             
             if (u == destination) {
                 break; // Llegamos al destino
             }
             
+            double du = ws.distancia(u);
+            
             // Relajar aristas vecinas
-            if (adjacencyList.containsKey(u)) {
-                for (int[] neighbor : adjacencyList.get(u)) {
-                    int v = neighbor[0];
-                    double weight = neighbor[1];
-                    
-                    if (!visited[v] && distances[u] + weight < distances[v]) {
-                        distances[v] = distances[u] + weight;
-                        previous[v] = u;
-                        pq.offer(new Node(v, distances[v]));
-                    }
+            for (int e = snapshot.inicioAristas(u); e < snapshot.finAristas(u); e++) {
+                int v = snapshot.destino(e);
+                double candidate = du + snapshot.peso(e);
+                
+                if (!ws.asentado(v) && candidate < ws.distancia(v)) {
+                    ws.fijar(v, candidate, u);
+                    heap.insertarODisminuir(v, candidate);
                 }
             }
         }
         
         // Reconstruir el camino
-        if (distances[destination] == Double.MAX_VALUE) {
-            return null; // No hay camino
+        if (!ws.alcanzado(destination)) {
+            return new PathResult(null, Double.MAX_VALUE, settled); // No hay camino
         }
         
+        return new PathResult(reconstruirCamino(ws, destination), ws.distancia(destination), settled);
+    }
+    
+    /**
+     * Dijkstra bidireccional para consultas origen-destino
+     * Busca hacia adelante desde el origen y hacia atrás (aristas entrantes) desde el destino,
+     * expandiendo siempre el frente con menor clave. Se detiene cuando la suma de los
+     * mínimos de ambas colas alcanza el mejor camino encontrado (mu).
+     * 
+     * Complejidad: O((V + E) log V) en el peor caso, pero asienta aproximadamente
+     * la mitad de los nodos en redes viales
+     */
+    public PathResult dijkstraBidireccional(GraphSnapshot snapshot, int source, int destination) {
+        if (source == destination) {
+            return new PathResult(new ArrayList<>(List.of(source)), 0.0, 1);
+        }
+        
+        int vertices = snapshot.numeroVertices();
+        // En la búsqueda hacia atrás el "predecesor" es el siguiente vértice hacia el destino
+        DijkstraWorkspace forward = DijkstraWorkspace.obtener(DijkstraWorkspace.ADELANTE, vertices);
+        DijkstraWorkspace backward = DijkstraWorkspace.obtener(DijkstraWorkspace.ATRAS, vertices);
+        IndexedDaryHeap heapF = forward.heap();
+        IndexedDaryHeap heapB = backward.heap();
+        forward.fijar(source, 0.0, -1);
+        backward.fijar(destination, 0.0, -1);
+        heapF.insertarODisminuir(source, 0.0);
+        heapB.insertarODisminuir(destination, 0.0);
+        
+        double mu = Double.MAX_VALUE;
+        int meeting = -1;
+        int settled = 0;
+        
+        while (!heapF.vacio() && !heapB.vacio()) {
+            // Criterio de parada: ningún camino por explorar puede mejorar mu
+            if (heapF.claveMinima() + heapB.claveMinima() >= mu) {
+                break;
+            }
+            
+            if (heapF.claveMinima() <= heapB.claveMinima()) {
+                int u = heapF.extraerMinimo();
+                forward.asentar(u);
+                settled++;
+                double du = forward.distancia(u);
+                
+                for (int e = snapshot.inicioAristas(u); e < snapshot.finAristas(u); e++) {
+                    int v = snapshot.destino(e);
+                    double candidate = du + snapshot.peso(e);
+                    if (candidate < forward.distancia(v)) {
+                        forward.fijar(v, candidate, u);
+                        heapF.insertarODisminuir(v, candidate);
+                    }
+                    double dvB = backward.distancia(v);
+                    if (dvB != Double.MAX_VALUE && candidate + dvB < mu) {
+                        mu = candidate + dvB;
+                        meeting = v;
+                    }
+                }
+            } else {
+                int u = heapB.extraerMinimo();
+                backward.asentar(u);
+                settled++;
+                double du = backward.distancia(u);
+                
+                for (int e = snapshot.inicioAristasEntrantes(u); e < snapshot.finAristasEntrantes(u); e++) {
+                    int v = snapshot.origenEntrante(e);
+                    double candidate = du + snapshot.pesoEntrante(e);
+                    if (candidate < backward.distancia(v)) {
+                        backward.fijar(v, candidate, u);
+                        heapB.insertarODisminuir(v, candidate);
+                    }
+                    double dvF = forward.distancia(v);
+                    if (dvF != Double.MAX_VALUE && candidate + dvF < mu) {
+                        mu = candidate + dvF;
+                        meeting = v;
+                    }
+                }
+            }
+        }
+        
+        if (meeting == -1) {
+            return new PathResult(null, Double.MAX_VALUE, settled); // No hay camino
+        }
+        
+        // Reconstruir: origen -> punto de encuentro (hacia atrás) y punto de encuentro -> destino
+        List<Integer> path = reconstruirCamino(forward, meeting);
+        for (int v = backward.predecesor(meeting); v != -1; v = backward.predecesor(v)) {
+            path.add(v);
+        }
+        
+        return new PathResult(path, mu, settled);
+    }
+    
+    /**
+     * A* con heurística de gran círculo (haversine) sobre las coordenadas de los centros
+     * h(v) = f * haversine(v, destino), donde f es el menor peso por km de la red:
+     * con métrica DISTANCIA f ≈ 1; con COSTO es el costo mínimo por km.
+     * La cota es admisible y consistente, por lo que cada nodo se asienta una sola vez.
+     * Si algún centro no tiene coordenadas la heurística es 0 y equivale a Dijkstra.
+     * 
+     * Complejidad: O((V + E) log V) en el peor caso; en rutas largas asienta muchos menos nodos
+     */
+    public PathResult aStar(GraphSnapshot snapshot, int source, int destination) {
+        double factor = snapshot.tieneCoordenadas(destination) ? snapshot.factorCotaInferior() : 0.0;
+        
+        DijkstraWorkspace ws = DijkstraWorkspace.obtener(DijkstraWorkspace.ADELANTE, snapshot.numeroVertices());
+        IndexedDaryHeap heap = ws.heap();
+        ws.fijar(source, 0.0, -1);
+        heap.insertarODisminuir(source, heuristicaGeografica(snapshot, factor, source, destination));
+        int settled = 0;
+        
+        while (!heap.vacio()) {
+            int u = heap.extraerMinimo();
+            ws.asentar(u);
+            settled++;
+            
+            if (u == destination) {
+                break;
+            }
+            
+            double du = ws.distancia(u);
+            for (int e = snapshot.inicioAristas(u); e < snapshot.finAristas(u); e++) {
+                int v = snapshot.destino(e);
+                double candidate = du + snapshot.peso(e);
+                
+                if (!ws.asentado(v) && candidate < ws.distancia(v)) {
+                    ws.fijar(v, candidate, u);
+                    heap.insertarODisminuir(v, candidate + heuristicaGeografica(snapshot, factor, v, destination));
+                }
+            }
+        }
+        
+        if (!ws.alcanzado(destination)) {
+            return new PathResult(null, Double.MAX_VALUE, settled);
+        }
+        
+        return new PathResult(reconstruirCamino(ws, destination), ws.distancia(destination), settled);
+    }
+    
+    /**
+     * Recorre los predecesores desde el vértice hasta el origen de la búsqueda
+     */
+    private List<Integer> reconstruirCamino(DijkstraWorkspace ws, int vertex) {
         List<Integer> path = new ArrayList<>();
-        int current = destination;
-        while (current != -1) {
-            path.add(current);
-            current = previous[current];
+        for (int v = vertex; v != -1; v = ws.predecesor(v)) {
+            path.add(v);
         }
         Collections.reverse(path);
-        
         return path;
     }
     
+    private double heuristicaGeografica(GraphSnapshot snapshot, double factor, int v, int destination) {
+        return factor > 0.0 ? factor * snapshot.distanciaGranCirculo(v, destination) : 0.0;
+    }
+    
     /**
      * Calcula el costo total de un conjunto de aristas
      */
@@ -532,10 +840,12 @@ public class GraphService {
     
     // Métodos auxiliares para Union-Find (Kruskal)
     private int find(int[] parent, int x) {
-        if (parent[x] != x) {
-            parent[x] = find(parent, parent[x]); // Path compression
+        // Iterativo con compresión por mitades: no desborda la pila en cadenas largas
+        while (parent[x] != x) {
+            parent[x] = parent[parent[x]];
+            x = parent[x];
         }
-        return parent[x];
+        return x;
     }
     
     private void union(int[] parent, int[] rank, int x, int y) {
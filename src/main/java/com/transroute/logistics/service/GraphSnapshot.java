@@ -0,0 +1,1089 @@
+package com.transroute.logistics.service;
+
+import com.transroute.logistics.repository.RouteEdge;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Instantánea inmutable del grafo de rutas en formato CSR (Compressed Sparse Row)
+ *
+ * Estructura:
+ * - offsets[v] .. offsets[v + 1] delimita las aristas salientes del vértice v
+ * - targets[i] / weights[i] son el destino y el peso de la arista i
+ * - edgeRoute[i] indica qué ruta originó la arista i
+ * - centerIds / indexById traducen entre ID de centro e índice de vértice (routeIds /
+ *   routeIndexById, entre ID de ruta e índice de ruta)
+ *
+ * Se construye una sola vez y se comparte entre todos los algoritmos,
+ * evitando reconstruir mapas con claves boxeadas y un int[] por arista en cada petición.
+ *
+ * Los pesos dependen de la métrica elegida (costo, distancia, duración, peaje, combustible). conMetrica() devuelve
+ * una vista que comparte toda la estructura y solo cambia los arreglos de pesos.
+ *
+ * Solo las rutas ACTIVE forman parte del CSR; las cerradas o en mantenimiento conservan su
+ * índice de ruta. conEstadoRuta() deriva una nueva instantánea con el estado de una ruta cambiado
+ * sin volver a consultar Neo4j.
+ *
+ * Memoria: O(V + E) en arreglos primitivos
+ */
+public final class GraphSnapshot {
+
+    /**
+     * Métrica usada como peso de las aristas
+     */
+    public enum Metrica {
+        COSTO,
+        DISTANCIA,
+        DURACION,
+        PEAJE,
+        COMBUSTIBLE;
+
+        /**
+         * Interpreta la métrica recibida en la petición (por defecto COSTO)
+         */
+        public static Metrica desde(String valor) {
+            if (valor == null || valor.isBlank()) {
+                return COSTO;
+            }
+            return Metrica.valueOf(valor.trim().toUpperCase());
+        }
+    }
+
+    private static final double EARTH_RADIUS_KM = 6371.0088;
+    // Velocidad usada para estimar la duración de rutas sin duración registrada
+    private static final double VELOCIDAD_REFERENCIA_KMH = 60.0;
+
+    private final long version;
+    private final long createdAt;
+    private final boolean directed;
+    private final Metrica metrica;
+
+    // Diccionario centro <-> índice
+    private final String[] centerIds;
+    private final Map<String, Integer> indexById;
+
+    // Coordenadas en radianes (NaN si el centro no tiene coordenadas)
+    private final double[] latitudes;
+    private final double[] longitudes;
+    private final boolean allCoordinates;
+
+    // Rutas (una entrada por ruta, independiente de la dirección); NaN = dato ausente
+    private final String[] routeIds;
+    private final Map<String, Integer> routeIndexById; // Compartido por todas las vistas de la base
+    private final int[] routeFrom;
+    private final int[] routeTo;
+    private final RouteAttributes attributes;
+    private final double[] routeWeight;
+    private final boolean[] includedRoutes; // Rutas presentes en el CSR de esta vista (null = todas)
+
+    // Lista de adyacencia CSR
+    private final int[] offsets;
+    private final int[] targets;
+    private final double[] weights;
+    private final int[] edgeRoute;
+
+    // Lista de adyacencia inversa (aristas entrantes); en grafos no dirigidos es la misma
+    private final int[] reverseOffsets;
+    private final int[] reverseSources;
+    private final int[] reverseRoute;
+    private final double[] reverseWeights;
+
+    // Vistas por métrica (compartidas con la instantánea base)
+    private final Map<Metrica, GraphSnapshot> views;
+
+    // Clases de peso: umbrales distintos de maxWeight ordenados y vistas filtradas por clase
+    // (compartidas por toda la familia de vistas; la clase 0 es la red completa)
+    private final double[] weightThresholds;
+    private final Map<Integer, GraphSnapshot> weightClasses;
+    private final int weightClass;
+    private volatile double lowerBoundFactor = -1.0;
+    private volatile CompressedGraph compressed;
+
+    private GraphSnapshot(long version, boolean directed, String[] centerIds, String[] coordinates,
+                          String[] routeIds, int[] routeFrom, int[] routeTo, RouteAttributes attributes) {
+        this(version, System.currentTimeMillis(), directed, centerIds, parsearCoordenadas(coordinates, centerIds.length),
+                routeIds, routeFrom, routeTo, attributes,
+                Csr.construir(centerIds.length, routeFrom, routeTo, directed, attributes.rutasActivas()));
+    }
+
+    /**
+     * Instantánea base a partir de arreglos ya construidos (coordenadas en radianes y CSR)
+     */
+    private GraphSnapshot(long version, long createdAt, boolean directed, String[] centerIds, double[][] latLng,
+                          String[] routeIds, int[] routeFrom, int[] routeTo, RouteAttributes attributes, Csr csr) {
+        this.version = version;
+        this.createdAt = createdAt;
+        this.directed = directed;
+        this.metrica = Metrica.COSTO;
+        this.centerIds = centerIds;
+        this.routeIds = routeIds;
+        this.routeFrom = routeFrom;
+        this.routeTo = routeTo;
+        this.attributes = attributes;
+        this.views = new ConcurrentHashMap<>();
+
+        int vertices = centerIds.length;
+        Map<String, Integer> index = new HashMap<>(vertices * 2);
+        for (int i = 0; i < vertices; i++) {
+            if (centerIds[i] != null) {
+                index.put(centerIds[i], i);
+            }
+        }
+        this.indexById = Collections.unmodifiableMap(index);
+
+        Map<String, Integer> routeIndex = new HashMap<>(routeIds.length * 2);
+        for (int r = 0; r < routeIds.length; r++) {
+            if (routeIds[r] != null) {
+                routeIndex.putIfAbsent(routeIds[r], r);
+            }
+        }
+        this.routeIndexById = Collections.unmodifiableMap(routeIndex);
+
+        this.latitudes = latLng[0];
+        this.longitudes = latLng[1];
+        boolean all = vertices > 0;
+        for (int i = 0; i < vertices; i++) {
+            all &= !Double.isNaN(latitudes[i]);
+        }
+        this.allCoordinates = all;
+
+        this.weightThresholds = calcularUmbralesPeso(attributes.maxWeight);
+        this.weightClasses = new ConcurrentHashMap<>();
+        this.weightClass = 0;
+        weightClasses.put(0, this);
+
+        this.includedRoutes = attributes.rutasActivas();
+        this.offsets = csr.offsets;
+        this.targets = csr.targets;
+        this.edgeRoute = csr.edgeRoute;
+        this.reverseOffsets = csr.reverseOffsets;
+        this.reverseSources = csr.reverseSources;
+        this.reverseRoute = csr.reverseRoute;
+
+        this.routeWeight = calcularPesosRuta(Metrica.COSTO);
+        this.weights = proyectarPesos(edgeRoute, routeWeight);
+        this.reverseWeights = directed ? proyectarPesos(reverseRoute, routeWeight) : weights;
+        views.put(Metrica.COSTO, this);
+    }
+
+    /**
+     * Vista de la instantánea con otra métrica: comparte estructura, cambia pesos
+     */
+    private GraphSnapshot(GraphSnapshot base, Metrica metrica) {
+        this.version = base.version;
+        this.createdAt = base.createdAt;
+        this.directed = base.directed;
+        this.metrica = metrica;
+        this.centerIds = base.centerIds;
+        this.indexById = base.indexById;
+        this.latitudes = base.latitudes;
+        this.longitudes = base.longitudes;
+        this.allCoordinates = base.allCoordinates;
+        this.routeIds = base.routeIds;
+        this.routeIndexById = base.routeIndexById;
+        this.routeFrom = base.routeFrom;
+        this.routeTo = base.routeTo;
+        this.attributes = base.attributes;
+        this.includedRoutes = base.includedRoutes;
+        this.offsets = base.offsets;
+        this.targets = base.targets;
+        this.edgeRoute = base.edgeRoute;
+        this.reverseOffsets = base.reverseOffsets;
+        this.reverseSources = base.reverseSources;
+        this.reverseRoute = base.reverseRoute;
+        this.views = base.views;
+        this.weightThresholds = base.weightThresholds;
+        this.weightClasses = base.weightClasses;
+        this.weightClass = base.weightClass;
+
+        this.routeWeight = calcularPesosRuta(metrica);
+        this.weights = proyectarPesos(edgeRoute, routeWeight);
+        this.reverseWeights = directed ? proyectarPesos(reverseRoute, routeWeight) : weights;
+    }
+
+    /**
+     * Vista restringida a las rutas permitidas para una clase de peso
+     * Conserva los índices de vértices y rutas; solo reconstruye el CSR y los pesos
+     */
+    private GraphSnapshot(GraphSnapshot base, int weightClass, boolean[] allowedRoutes) {
+        this.version = base.version;
+        this.createdAt = base.createdAt;
+        this.directed = base.directed;
+        this.metrica = Metrica.COSTO;
+        this.centerIds = base.centerIds;
+        this.indexById = base.indexById;
+        this.latitudes = base.latitudes;
+        this.longitudes = base.longitudes;
+        this.allCoordinates = base.allCoordinates;
+        this.routeIds = base.routeIds;
+        this.routeIndexById = base.routeIndexById;
+        this.routeFrom = base.routeFrom;
+        this.routeTo = base.routeTo;
+        this.attributes = base.attributes;
+        this.weightThresholds = base.weightThresholds;
+        this.weightClasses = base.weightClasses;
+        this.weightClass = weightClass;
+        this.views = new ConcurrentHashMap<>();
+
+        this.includedRoutes = allowedRoutes;
+        Csr csr = Csr.construir(centerIds.length, routeFrom, routeTo, directed, allowedRoutes);
+        this.offsets = csr.offsets;
+        this.targets = csr.targets;
+        this.edgeRoute = csr.edgeRoute;
+        this.reverseOffsets = csr.reverseOffsets;
+        this.reverseSources = csr.reverseSources;
+        this.reverseRoute = csr.reverseRoute;
+
+        this.routeWeight = calcularPesosRuta(Metrica.COSTO);
+        this.weights = proyectarPesos(edgeRoute, routeWeight);
+        this.reverseWeights = directed ? proyectarPesos(reverseRoute, routeWeight) : weights;
+        views.put(Metrica.COSTO, this);
+    }
+
+    /**
+     * Nueva instantánea base con otros atributos de ruta (p. ej. un estado cambiado)
+     * Comparte centros, coordenadas y rutas; reconstruye el CSR y descarta vistas y clases de peso
+     */
+    private GraphSnapshot(GraphSnapshot base, long version, RouteAttributes attributes) {
+        this.version = version;
+        this.createdAt = System.currentTimeMillis();
+        this.directed = base.directed;
+        this.metrica = Metrica.COSTO;
+        this.centerIds = base.centerIds;
+        this.indexById = base.indexById;
+        this.latitudes = base.latitudes;
+        this.longitudes = base.longitudes;
+        this.allCoordinates = base.allCoordinates;
+        this.routeIds = base.routeIds;
+        this.routeIndexById = base.routeIndexById;
+        this.routeFrom = base.routeFrom;
+        this.routeTo = base.routeTo;
+        this.attributes = attributes;
+        this.views = new ConcurrentHashMap<>();
+        this.weightThresholds = base.weightThresholds;
+        this.weightClasses = new ConcurrentHashMap<>();
+        this.weightClass = 0;
+        weightClasses.put(0, this);
+
+        this.includedRoutes = attributes.rutasActivas();
+        Csr csr = Csr.construir(centerIds.length, routeFrom, routeTo, directed, includedRoutes);
+        this.offsets = csr.offsets;
+        this.targets = csr.targets;
+        this.edgeRoute = csr.edgeRoute;
+        this.reverseOffsets = csr.reverseOffsets;
+        this.reverseSources = csr.reverseSources;
+        this.reverseRoute = csr.reverseRoute;
+
+        this.routeWeight = calcularPesosRuta(Metrica.COSTO);
+        this.weights = proyectarPesos(edgeRoute, routeWeight);
+        this.reverseWeights = directed ? proyectarPesos(reverseRoute, routeWeight) : weights;
+        views.put(Metrica.COSTO, this);
+    }
+
+    /**
+     * Construye la instantánea no dirigida a partir de los centros y las rutas de Neo4j
+     * Las rutas cuyos extremos no están entre los centros se ignoran
+     *
+     * @param version Versión de la instantánea
+     * @param centerIds IDs de centros; su posición define el índice del vértice
+     * @param coordinates Coordenadas "lat,lng" de cada centro (misma posición que centerIds)
+     * @param edges Rutas proyectadas como aristas
+     */
+    public static GraphSnapshot desdeRutas(long version, List<String> centerIds, List<String> coordinates,
+                                           List<RouteEdge> edges) {
+        return desdeAristas(version, false, centerIds, coordinates.toArray(new String[0]), edges);
+    }
+
+    /**
+     * Construye una instantánea dirigida con pesos double a partir de una selección de centros
+     * El índice de cada vértice es la posición del centro en la lista (primera aparición)
+     * Las aristas cuyos extremos no están seleccionados se ignoran
+     */
+    public static GraphSnapshot desdeSeleccion(List<String> centerIds, List<RouteEdge> edges) {
+        return desdeAristas(0L, true, centerIds, null, edges);
+    }
+
+    private static GraphSnapshot desdeAristas(long version, boolean directed, List<String> centerIds,
+                                              String[] coordinates, List<RouteEdge> edges) {
+        Map<String, Integer> index = new HashMap<>(centerIds.size() * 2);
+        for (int i = 0; i < centerIds.size(); i++) {
+            index.putIfAbsent(centerIds.get(i), i);
+        }
+
+        List<String> routeIds = new ArrayList<>(edges.size());
+        int[] from = new int[edges.size()];
+        int[] to = new int[edges.size()];
+        RouteAttributes attributes = new RouteAttributes(edges.size());
+        int count = 0;
+
+        for (RouteEdge edge : edges) {
+            Integer f = index.get(edge.getFromId());
+            Integer t = index.get(edge.getToId());
+            if (f == null || t == null) {
+                continue;
+            }
+            routeIds.add(edge.getRouteId());
+            from[count] = f;
+            to[count] = t;
+            attributes.cargar(count, edge);
+            count++;
+        }
+
+        return new GraphSnapshot(version, directed, centerIds.toArray(new String[0]), coordinates,
+                routeIds.toArray(new String[0]), Arrays.copyOf(from, count), Arrays.copyOf(to, count),
+                attributes.recortar(count));
+    }
+
+    /**
+     * Construye una instantánea dirigida a partir de una lista de adyacencia [vecino, peso]
+     * Usada para grafos enviados en el cuerpo de la petición
+     */
+    public static GraphSnapshot desdeListaAdyacencia(int vertices, Map<Integer, List<int[]>> adjacencyList) {
+        int total = 0;
+        for (List<int[]> neighbors : adjacencyList.values()) {
+            total += neighbors.size();
+        }
+
+        int[] from = new int[total];
+        int[] to = new int[total];
+        double[] weight = new double[total];
+        int count = 0;
+
+        for (Map.Entry<Integer, List<int[]>> entry : adjacencyList.entrySet()) {
+            int u = entry.getKey();
+            if (u < 0 || u >= vertices) {
+                continue;
+            }
+            for (int[] neighbor : entry.getValue()) {
+                if (neighbor[0] < 0 || neighbor[0] >= vertices) {
+                    continue;
+                }
+                from[count] = u;
+                to[count] = neighbor[0];
+                weight[count] = neighbor[1];
+                count++;
+            }
+        }
+
+        String[] ids = new String[vertices];
+        for (int i = 0; i < vertices; i++) {
+            ids[i] = String.valueOf(i);
+        }
+        RouteAttributes attributes = new RouteAttributes(count);
+        System.arraycopy(weight, 0, attributes.cost, 0, count);
+
+        return new GraphSnapshot(0L, true, ids, null, new String[count],
+                Arrays.copyOf(from, count), Arrays.copyOf(to, count), attributes);
+    }
+
+    /**
+     * Devuelve la vista de esta instantánea ponderada por la métrica indicada
+     * Las vistas se calculan una vez y quedan cacheadas junto a la instantánea
+     */
+    public GraphSnapshot conMetrica(Metrica metrica) {
+        return views.computeIfAbsent(metrica, m -> new GraphSnapshot(this, m));
+    }
+
+    /**
+     * Devuelve la vista (con la misma métrica) que solo contiene las rutas cuyo maxWeight
+     * admite el peso indicado; las rutas sin maxWeight no tienen restricción
+     * Todos los pesos con el mismo conjunto de rutas prohibidas comparten una clase y
+     * su vista filtrada se construye una sola vez por instantánea
+     *
+     * @param pesoKg Peso del camión en kg
+     */
+    public GraphSnapshot paraPeso(double pesoKg) {
+        int clase = claseDePeso(pesoKg);
+        if (clase == weightClass) {
+            return this;
+        }
+        GraphSnapshot filtered = weightClasses.computeIfAbsent(clase,
+                c -> new GraphSnapshot(this, c, rutasPermitidas(c)));
+        return filtered.conMetrica(metrica);
+    }
+
+    /**
+     * Deriva una nueva instantánea base con la ruta activada o desactivada
+     * Los índices de vértices y rutas se conservan, por lo que las estructuras derivadas
+     * pueden actualizarse de forma incremental
+     *
+     * @param route Índice de la ruta
+     * @param activa Nuevo estado (true = ACTIVE)
+     * @param nuevaVersion Versión de la instantánea derivada
+     */
+    public GraphSnapshot conEstadoRuta(int route, boolean activa, long nuevaVersion) {
+        GraphSnapshot base = base();
+        return new GraphSnapshot(base, nuevaVersion, base.attributes.conEstado(route, activa));
+    }
+
+    /**
+     * Adyacencia comprimida (varints delta) de esta vista, construida la primera vez que se pide
+     * Las vistas de otras métricas comparten los bytes codificados y solo cambian los pesos por ruta
+     * Se guarda junto al CSR (no lo reemplaza): suma memoria a la instantánea
+     */
+    public CompressedGraph comprimida() {
+        CompressedGraph result = compressed;
+        if (result == null) {
+            GraphSnapshot owner = views.get(Metrica.COSTO);
+            if (owner != this) {
+                result = owner.comprimida().conPesos(routeWeight);
+            } else {
+                result = CompressedGraph.comprimir(offsets, targets, edgeRoute, routeWeight);
+            }
+            compressed = result;
+        }
+        return result;
+    }
+
+    /**
+     * Clase de peso: cantidad de umbrales de maxWeight menores que el peso
+     */
+    public int claseDePeso(double pesoKg) {
+        int low = 0;
+        int high = weightThresholds.length;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (weightThresholds[mid] < pesoKg) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    public int getClasePeso() { return weightClass; }
+
+    /**
+     * Peso máximo admitido por la red filtrada (sin límite en la clase más alta posible)
+     */
+    public double pesoMaximoDeClase() {
+        return weightClass < weightThresholds.length ? weightThresholds[weightClass] : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * Límite de peso de la ruta en kg (NaN si no tiene)
+     */
+    public double limitePesoRuta(int route) { return attributes.maxWeight[route]; }
+
+    /**
+     * Nivel de tráfico de la ruta (1 = sin tráfico, 5 = muy congestionado)
+     */
+    public int nivelTraficoRuta(int route) { return attributes.trafficLevel[route]; }
+
+    /**
+     * Indica si la ruta está ACTIVE (las demás no forman parte del CSR)
+     */
+    public boolean rutaActiva(int route) { return attributes.active[route]; }
+
+    /**
+     * Indica si la ruta forma parte del CSR de esta vista (activa y permitida por la clase de peso)
+     */
+    public boolean rutaIncluida(int route) { return includedRoutes == null || includedRoutes[route]; }
+
+    /**
+     * Índice de la ruta con el ID indicado, o -1 si no está en la instantánea
+     */
+    public int indiceRuta(String routeId) {
+        Integer index = routeId != null ? routeIndexById.get(routeId) : null;
+        return index != null ? index : -1;
+    }
+
+    private boolean[] rutasPermitidas(int clase) {
+        double threshold = clase > 0 ? weightThresholds[clase - 1] : Double.NEGATIVE_INFINITY;
+        boolean[] allowed = new boolean[routeFrom.length];
+        for (int r = 0; r < allowed.length; r++) {
+            double limit = attributes.maxWeight[r];
+            allowed[r] = attributes.active[r] && (Double.isNaN(limit) || limit > threshold);
+        }
+        return allowed;
+    }
+
+    private static double[] calcularUmbralesPeso(double[] maxWeight) {
+        return Arrays.stream(maxWeight).filter(w -> !Double.isNaN(w)).sorted().distinct().toArray();
+    }
+
+    // Acceso a la estructura
+
+    public long getVersion() { return version; }
+
+    public long getCreatedAt() { return createdAt; }
+
+    public boolean isDirected() { return directed; }
+
+    public Metrica getMetrica() { return metrica; }
+
+    public int numeroVertices() { return centerIds.length; }
+
+    public int numeroAristas() { return targets.length; }
+
+    public int numeroRutas() { return routeFrom.length; }
+
+    public int inicioAristas(int v) { return offsets[v]; }
+
+    public int finAristas(int v) { return offsets[v + 1]; }
+
+    public int destino(int edge) { return targets[edge]; }
+
+    public double peso(int edge) { return weights[edge]; }
+
+    public int ruta(int edge) { return edgeRoute[edge]; }
+
+    public int inicioAristasEntrantes(int v) { return reverseOffsets[v]; }
+
+    public int finAristasEntrantes(int v) { return reverseOffsets[v + 1]; }
+
+    public int origenEntrante(int edge) { return reverseSources[edge]; }
+
+    public double pesoEntrante(int edge) { return reverseWeights[edge]; }
+
+    public int rutaEntrante(int edge) { return reverseRoute[edge]; }
+
+    public int origenRuta(int route) { return routeFrom[route]; }
+
+    public int destinoRuta(int route) { return routeTo[route]; }
+
+    public double pesoRuta(int route) { return routeWeight[route]; }
+
+    public String idRuta(int route) { return routeIds[route]; }
+
+    public String idCentro(int vertex) { return centerIds[vertex]; }
+
+    /**
+     * Índice del vértice para un ID de centro, o -1 si no existe
+     */
+    public int indiceCentro(String centerId) {
+        Integer index = centerId != null ? indexById.get(centerId) : null;
+        return index != null ? index : -1;
+    }
+
+    /**
+     * Peso mínimo entre las aristas u -> v, o NaN si no existen
+     */
+    public double pesoMinimoArista(int u, int v) {
+        double best = Double.NaN;
+        for (int e = offsets[u]; e < offsets[u + 1]; e++) {
+            if (targets[e] == v && (Double.isNaN(best) || weights[e] < best)) {
+                best = weights[e];
+            }
+        }
+        return best;
+    }
+
+    // Geometría
+
+    public boolean tieneCoordenadas(int vertex) {
+        return !Double.isNaN(latitudes[vertex]);
+    }
+
+    /**
+     * Indica si todos los centros tienen coordenadas (requisito para heurísticas geométricas)
+     */
+    public boolean todosConCoordenadas() {
+        return allCoordinates;
+    }
+
+    /**
+     * Distancia de gran círculo (haversine) en km entre dos centros, o NaN sin coordenadas
+     */
+    public double distanciaGranCirculo(int u, int v) {
+        double lat1 = latitudes[u];
+        double lat2 = latitudes[v];
+        double dLat = lat2 - lat1;
+        double dLng = longitudes[v] - longitudes[u];
+        double sinLat = Math.sin(dLat * 0.5);
+        double sinLng = Math.sin(dLng * 0.5);
+        double a = sinLat * sinLat + Math.cos(lat1) * Math.cos(lat2) * sinLng * sinLng;
+        return 2.0 * EARTH_RADIUS_KM * Math.asin(Math.min(1.0, Math.sqrt(a)));
+    }
+
+    /**
+     * Factor f tal que peso(u, v) >= f * distanciaGranCirculo(u, v) para toda arista
+     * Con f, la cota f * haversine(v, destino) es admisible y consistente para A*
+     * Devuelve 0 si no hay coordenadas completas (heurística nula)
+     */
+    public double factorCotaInferior() {
+        double factor = lowerBoundFactor;
+        if (factor >= 0.0) {
+            return factor;
+        }
+
+        factor = 0.0;
+        if (allCoordinates) {
+            factor = Double.MAX_VALUE;
+            for (int r = 0; r < routeFrom.length; r++) {
+                double geo = distanciaGranCirculo(routeFrom[r], routeTo[r]);
+                if (geo > 1e-9) {
+                    factor = Math.min(factor, routeWeight[r] / geo);
+                }
+            }
+            // Margen para errores de redondeo en la suma de pesos
+            factor = factor == Double.MAX_VALUE ? 0.0 : factor * (1.0 - 1e-9);
+        }
+
+        lowerBoundFactor = factor;
+        return factor;
+    }
+
+    // ==========================================
+    // FORMATO BINARIO
+    // ==========================================
+
+    /** Cabecera del formato binario de instantáneas: "TRGS" */
+    static final int BINARIO_MAGIC = 0x54524753;
+    static final int BINARIO_VERSION = 1;
+    private static final int BINARIO_CABECERA = 40;
+
+    /**
+     * Bytes que ocupa la instantánea base en formato binario
+     */
+    long tamanoBinario() {
+        GraphSnapshot base = base();
+        long vertices = base.centerIds.length;
+        long routes = base.routeFrom.length;
+        long arcs = base.targets.length;
+        long size = BINARIO_CABECERA
+                + 16 * vertices                       // latitudes, longitudes
+                + 8 * routes                          // routeFrom, routeTo
+                + 48 * routes                         // atributos double
+                + 4 * (vertices + 1 + 2 * arcs)       // CSR
+                + 2 * routes;                         // trafficLevel, active
+        if (base.directed) {
+            size += 4 * (vertices + 1 + 2 * arcs);
+        }
+        return size + tamanoTextos(base.centerIds) + tamanoTextos(base.routeIds);
+    }
+
+    /**
+     * Escribe la instantánea base (métrica COSTO, red completa) en el buffer (little-endian)
+     *
+     * Formato: int magic, int versión de formato, long versión, long createdAt, int dirigido,
+     * int V, int R, int arcos; luego los arreglos numéricos (coordenadas, extremos y atributos
+     * de rutas, CSR y, si es dirigido, CSR inverso), trafficLevel y active como bytes y por
+     * último los IDs de centros y rutas (int largo UTF-8, -1 = null, y los bytes)
+     */
+    void escribirBinario(ByteBuffer out) {
+        GraphSnapshot base = base();
+        RouteAttributes a = base.attributes;
+        out.order(ByteOrder.LITTLE_ENDIAN);
+        out.putInt(BINARIO_MAGIC);
+        out.putInt(BINARIO_VERSION);
+        out.putLong(base.version);
+        out.putLong(base.createdAt);
+        out.putInt(base.directed ? 1 : 0);
+        out.putInt(base.centerIds.length);
+        out.putInt(base.routeFrom.length);
+        out.putInt(base.targets.length);
+
+        ponerDoubles(out, base.latitudes);
+        ponerDoubles(out, base.longitudes);
+        ponerInts(out, base.routeFrom);
+        ponerInts(out, base.routeTo);
+        for (double[] values : new double[][]{a.cost, a.distance, a.duration, a.toll, a.fuel, a.maxWeight}) {
+            ponerDoubles(out, values);
+        }
+        ponerInts(out, base.offsets);
+        ponerInts(out, base.targets);
+        ponerInts(out, base.edgeRoute);
+        if (base.directed) {
+            ponerInts(out, base.reverseOffsets);
+            ponerInts(out, base.reverseSources);
+            ponerInts(out, base.reverseRoute);
+        }
+        out.put(a.trafficLevel);
+        for (boolean value : a.active) {
+            out.put((byte) (value ? 1 : 0));
+        }
+        ponerTextos(out, base.centerIds);
+        ponerTextos(out, base.routeIds);
+    }
+
+    /**
+     * Lee una instantánea escrita con escribirBinario; el CSR se toma del archivo sin reconstruirlo
+     *
+     * @throws IllegalArgumentException si el formato o la versión de formato no coinciden
+     */
+    static GraphSnapshot leerBinario(ByteBuffer in) {
+        in.order(ByteOrder.LITTLE_ENDIAN);
+        if (in.remaining() < BINARIO_CABECERA || in.getInt() != BINARIO_MAGIC) {
+            throw new IllegalArgumentException("No es un archivo de instantánea de grafo");
+        }
+        int format = in.getInt();
+        if (format != BINARIO_VERSION) {
+            throw new IllegalArgumentException("Versión de formato no soportada: " + format);
+        }
+        long version = in.getLong();
+        long createdAt = in.getLong();
+        boolean directed = in.getInt() == 1;
+        int vertices = in.getInt();
+        int routes = in.getInt();
+        int arcs = in.getInt();
+
+        double[][] latLng = {leerDoubles(in, vertices), leerDoubles(in, vertices)};
+        int[] routeFrom = leerInts(in, routes);
+        int[] routeTo = leerInts(in, routes);
+        double[] cost = leerDoubles(in, routes);
+        double[] distance = leerDoubles(in, routes);
+        double[] duration = leerDoubles(in, routes);
+        double[] toll = leerDoubles(in, routes);
+        double[] fuel = leerDoubles(in, routes);
+        double[] maxWeight = leerDoubles(in, routes);
+        Csr csr = new Csr();
+        csr.offsets = leerInts(in, vertices + 1);
+        csr.targets = leerInts(in, arcs);
+        csr.edgeRoute = leerInts(in, arcs);
+        if (directed) {
+            csr.reverseOffsets = leerInts(in, vertices + 1);
+            csr.reverseSources = leerInts(in, arcs);
+            csr.reverseRoute = leerInts(in, arcs);
+        } else {
+            csr.reverseOffsets = csr.offsets;
+            csr.reverseSources = csr.targets;
+            csr.reverseRoute = csr.edgeRoute;
+        }
+        byte[] trafficLevel = new byte[routes];
+        in.get(trafficLevel);
+        boolean[] active = new boolean[routes];
+        for (int r = 0; r < routes; r++) {
+            active[r] = in.get() != 0;
+        }
+        String[] centerIds = leerTextos(in, vertices);
+        String[] routeIds = leerTextos(in, routes);
+
+        RouteAttributes attributes = new RouteAttributes(cost, distance, duration, toll, fuel, maxWeight,
+                trafficLevel, active);
+        return new GraphSnapshot(version, createdAt, directed, centerIds, latLng, routeIds, routeFrom, routeTo,
+                attributes, csr);
+    }
+
+    private GraphSnapshot base() {
+        return weightClasses.get(0).conMetrica(Metrica.COSTO);
+    }
+
+    private static void ponerInts(ByteBuffer out, int[] values) {
+        out.asIntBuffer().put(values);
+        out.position(out.position() + 4 * values.length);
+    }
+
+    private static void ponerDoubles(ByteBuffer out, double[] values) {
+        out.asDoubleBuffer().put(values);
+        out.position(out.position() + 8 * values.length);
+    }
+
+    private static int[] leerInts(ByteBuffer in, int length) {
+        int[] values = new int[length];
+        in.asIntBuffer().get(values);
+        in.position(in.position() + 4 * length);
+        return values;
+    }
+
+    private static double[] leerDoubles(ByteBuffer in, int length) {
+        double[] values = new double[length];
+        in.asDoubleBuffer().get(values);
+        in.position(in.position() + 8 * length);
+        return values;
+    }
+
+    private static long tamanoTextos(String[] values) {
+        long size = 0;
+        for (String value : values) {
+            size += 4 + (value != null ? value.getBytes(StandardCharsets.UTF_8).length : 0);
+        }
+        return size;
+    }
+
+    private static void ponerTextos(ByteBuffer out, String[] values) {
+        for (String value : values) {
+            if (value == null) {
+                out.putInt(-1);
+                continue;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            out.putInt(bytes.length);
+            out.put(bytes);
+        }
+    }
+
+    private static String[] leerTextos(ByteBuffer in, int count) {
+        String[] values = new String[count];
+        for (int i = 0; i < count; i++) {
+            int length = in.getInt();
+            if (length >= 0) {
+                byte[] bytes = new byte[length];
+                in.get(bytes);
+                values[i] = new String(bytes, StandardCharsets.UTF_8);
+            }
+        }
+        return values;
+    }
+
+    private double[] calcularPesosRuta(Metrica metrica) {
+        double[] result = new double[routeFrom.length];
+        for (int r = 0; r < result.length; r++) {
+            double cost = attributes.cost[r];
+            double distance = attributes.distance[r];
+            double value;
+            switch (metrica) {
+                case DISTANCIA:
+                    // Distancia de la ruta; si falta, distancia geográfica o costo como último recurso
+                    if (!Double.isNaN(distance)) {
+                        value = distance;
+                    } else if (tieneCoordenadas(routeFrom[r]) && tieneCoordenadas(routeTo[r])) {
+                        value = distanciaGranCirculo(routeFrom[r], routeTo[r]);
+                    } else {
+                        value = !Double.isNaN(cost) ? cost : 0.0;
+                    }
+                    break;
+                case DURACION:
+                    // Minutos de la ruta; si faltan, estimación a VELOCIDAD_REFERENCIA_KMH
+                    if (!Double.isNaN(attributes.duration[r])) {
+                        value = attributes.duration[r];
+                    } else {
+                        double km = !Double.isNaN(distance) ? distance
+                                : (tieneCoordenadas(routeFrom[r]) && tieneCoordenadas(routeTo[r])
+                                        ? distanciaGranCirculo(routeFrom[r], routeTo[r]) : 0.0);
+                        value = km * 60.0 / VELOCIDAD_REFERENCIA_KMH;
+                    }
+                    break;
+                case PEAJE:
+                    value = !Double.isNaN(attributes.toll[r]) ? attributes.toll[r] : 0.0;
+                    break;
+                case COMBUSTIBLE:
+                    // Litros = consumo (l/km) * distancia
+                    value = !Double.isNaN(attributes.fuel[r]) && !Double.isNaN(distance)
+                            ? attributes.fuel[r] * distance : 0.0;
+                    break;
+                case COSTO:
+                default:
+                    // Usar costo total si está disponible, sino distancia
+                    value = !Double.isNaN(cost) ? cost : (!Double.isNaN(distance) ? distance : 0.0);
+                    break;
+            }
+            result[r] = value;
+        }
+        return result;
+    }
+
+    private static double[] proyectarPesos(int[] arcRoute, double[] routeWeight) {
+        double[] result = new double[arcRoute.length];
+        for (int i = 0; i < arcRoute.length; i++) {
+            result[i] = routeWeight[arcRoute[i]];
+        }
+        return result;
+    }
+
+    /**
+     * Coordenadas "lat,lng" parseadas una sola vez: {latitudes, longitudes} en radianes
+     */
+    private static double[][] parsearCoordenadas(String[] coordinates, int vertices) {
+        double[][] latLng = new double[2][vertices];
+        for (int i = 0; i < vertices; i++) {
+            double[] parsed = parsearCoordenadas(coordinates != null ? coordinates[i] : null);
+            latLng[0][i] = parsed[0];
+            latLng[1][i] = parsed[1];
+        }
+        return latLng;
+    }
+
+    private static double[] parsearCoordenadas(String coordinates) {
+        double[] latLng = {Double.NaN, Double.NaN};
+        if (coordinates == null) {
+            return latLng;
+        }
+        String[] parts = coordinates.split(",");
+        if (parts.length != 2) {
+            return latLng;
+        }
+        try {
+            double lat = Double.parseDouble(parts[0].trim());
+            double lng = Double.parseDouble(parts[1].trim());
+            if (Math.abs(lat) <= 90.0 && Math.abs(lng) <= 180.0) {
+                latLng[0] = Math.toRadians(lat);
+                latLng[1] = Math.toRadians(lng);
+            }
+        } catch (NumberFormatException e) {
+            // Coordenadas inválidas: se tratan como ausentes
+        }
+        return latLng;
+    }
+
+    /**
+     * Arreglos CSR directos e inversos construidos por conteo (counting sort por vértice)
+     */
+    private static final class Csr {
+        int[] offsets;
+        int[] targets;
+        int[] edgeRoute;
+        int[] reverseOffsets;
+        int[] reverseSources;
+        int[] reverseRoute;
+
+        /**
+         * @param allowed Rutas incluidas (null = todas)
+         */
+        static Csr construir(int vertices, int[] routeFrom, int[] routeTo, boolean directed, boolean[] allowed) {
+            Csr csr = new Csr();
+            int routes = routeFrom.length;
+
+            csr.offsets = new int[vertices + 1];
+            for (int r = 0; r < routes; r++) {
+                if (allowed != null && !allowed[r]) {
+                    continue;
+                }
+                csr.offsets[routeFrom[r] + 1]++;
+                if (!directed) {
+                    csr.offsets[routeTo[r] + 1]++;
+                }
+            }
+            for (int v = 0; v < vertices; v++) {
+                csr.offsets[v + 1] += csr.offsets[v];
+            }
+
+            int arcs = csr.offsets[vertices];
+            csr.targets = new int[arcs];
+            csr.edgeRoute = new int[arcs];
+            int[] cursor = Arrays.copyOf(csr.offsets, vertices);
+            for (int r = 0; r < routes; r++) {
+                if (allowed != null && !allowed[r]) {
+                    continue;
+                }
+                int slot = cursor[routeFrom[r]]++;
+                csr.targets[slot] = routeTo[r];
+                csr.edgeRoute[slot] = r;
+                if (!directed) {
+                    slot = cursor[routeTo[r]]++;
+                    csr.targets[slot] = routeFrom[r];
+                    csr.edgeRoute[slot] = r;
+                }
+            }
+
+            if (!directed) {
+                // En grafos no dirigidos las aristas entrantes son las mismas que las salientes
+                csr.reverseOffsets = csr.offsets;
+                csr.reverseSources = csr.targets;
+                csr.reverseRoute = csr.edgeRoute;
+                return csr;
+            }
+
+            csr.reverseOffsets = new int[vertices + 1];
+            for (int r = 0; r < routes; r++) {
+                if (allowed == null || allowed[r]) {
+                    csr.reverseOffsets[routeTo[r] + 1]++;
+                }
+            }
+            for (int v = 0; v < vertices; v++) {
+                csr.reverseOffsets[v + 1] += csr.reverseOffsets[v];
+            }
+            csr.reverseSources = new int[arcs];
+            csr.reverseRoute = new int[arcs];
+            int[] reverseCursor = Arrays.copyOf(csr.reverseOffsets, vertices);
+            for (int r = 0; r < routes; r++) {
+                if (allowed != null && !allowed[r]) {
+                    continue;
+                }
+                int slot = reverseCursor[routeTo[r]]++;
+                csr.reverseSources[slot] = routeFrom[r];
+                csr.reverseRoute[slot] = r;
+            }
+            return csr;
+        }
+    }
+
+    /**
+     * Atributos numéricos de cada ruta (NaN = dato ausente)
+     * Los comparten la instantánea base y todas sus vistas
+     */
+    private static final class RouteAttributes {
+        final double[] cost;
+        final double[] distance;
+        final double[] duration;
+        final double[] toll;
+        final double[] fuel;
+        final double[] maxWeight;
+        final byte[] trafficLevel; // 1-5 (1 si no está registrado)
+        final boolean[] active; // status ACTIVE (o sin estado registrado)
+
+        RouteAttributes(int routes) {
+            this(nan(routes), nan(routes), nan(routes), nan(routes), nan(routes), nan(routes), unos(routes),
+                    activas(routes));
+        }
+
+        private RouteAttributes(double[] cost, double[] distance, double[] duration, double[] toll, double[] fuel,
+                                double[] maxWeight, byte[] trafficLevel, boolean[] active) {
+            this.cost = cost;
+            this.distance = distance;
+            this.duration = duration;
+            this.toll = toll;
+            this.fuel = fuel;
+            this.maxWeight = maxWeight;
+            this.trafficLevel = trafficLevel;
+            this.active = active;
+        }
+
+        void cargar(int r, RouteEdge edge) {
+            cost[r] = valor(edge.getCost());
+            distance[r] = valor(edge.getDistance());
+            duration[r] = valor(edge.getDuration());
+            toll[r] = valor(edge.getTollCost());
+            fuel[r] = valor(edge.getFuelConsumption());
+            maxWeight[r] = valor(edge.getMaxWeight());
+            Integer level = edge.getTrafficLevel();
+            trafficLevel[r] = (byte) (level != null ? Math.max(1, Math.min(5, level)) : 1);
+            active[r] = edge.isActive();
+        }
+
+        RouteAttributes recortar(int routes) {
+            return new RouteAttributes(Arrays.copyOf(cost, routes), Arrays.copyOf(distance, routes),
+                    Arrays.copyOf(duration, routes), Arrays.copyOf(toll, routes), Arrays.copyOf(fuel, routes),
+                    Arrays.copyOf(maxWeight, routes), Arrays.copyOf(trafficLevel, routes),
+                    Arrays.copyOf(active, routes));
+        }
+
+        /**
+         * Copia con el estado de una ruta cambiado (los arreglos numéricos se comparten)
+         */
+        RouteAttributes conEstado(int r, boolean activa) {
+            boolean[] copy = Arrays.copyOf(active, active.length);
+            copy[r] = activa;
+            return new RouteAttributes(cost, distance, duration, toll, fuel, maxWeight, trafficLevel, copy);
+        }
+
+        /**
+         * Máscara de rutas activas, o null si lo están todas
+         */
+        boolean[] rutasActivas() {
+            for (boolean value : active) {
+                if (!value) {
+                    return active;
+                }
+            }
+            return null;
+        }
+
+        private static double valor(Double value) {
+            return value != null ? value : Double.NaN;
+        }
+
+        private static byte[] unos(int length) {
+            byte[] values = new byte[length];
+            Arrays.fill(values, (byte) 1);
+            return values;
+        }
+
+        private static boolean[] activas(int length) {
+            boolean[] values = new boolean[length];
+            Arrays.fill(values, true);
+            return values;
+        }
+
+        private static double[] nan(int length) {
+            double[] values = new double[length];
+            Arrays.fill(values, Double.NaN);
+            return values;
+        }
+    }
+}
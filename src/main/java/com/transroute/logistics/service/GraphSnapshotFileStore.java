@@ -0,0 +1,129 @@
+package com.transroute.logistics.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Persistencia de la instantánea del grafo en un archivo binario versionado
+ *
+ * Permite arrancar sin esperar a Neo4j (o con Neo4j pausado): el archivo se mapea en
+ * memoria y los arreglos se copian en bloque, sin parsear entidades ni reconstruir el CSR.
+ * El archivo termina con un CRC32 de su contenido; si no coincide, o si la versión del
+ * formato es otra, se ignora y la instantánea se construye desde Neo4j.
+ *
+ * La escritura va a un archivo temporal que luego reemplaza al anterior de forma atómica,
+ * por lo que un corte durante la escritura nunca deja un archivo a medias.
+ * Tamaño máximo: 2 GB (límite de un MappedByteBuffer).
+ */
+@Service
+public class GraphSnapshotFileStore {
+
+    private static final Logger log = LoggerFactory.getLogger(GraphSnapshotFileStore.class);
+
+    private static final int CRC_BYTES = 4;
+
+    @Value("${transroute.graph.snapshot-file:}")
+    private String archivo;
+
+    /**
+     * true si hay un archivo configurado (transroute.graph.snapshot-file)
+     */
+    public boolean habilitado() {
+        return archivo != null && !archivo.isBlank();
+    }
+
+    /**
+     * Carga la instantánea del archivo configurado
+     *
+     * @return Instantánea, o null si no hay archivo o no es válido
+     */
+    public GraphSnapshot cargar() {
+        if (!habilitado()) {
+            return null;
+        }
+        Path path = Path.of(archivo);
+        if (!Files.isRegularFile(path)) {
+            return null;
+        }
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            if (size <= CRC_BYTES || size > Integer.MAX_VALUE) {
+                log.warn("Instantánea {} ignorada: tamaño inválido ({} bytes)", path, size);
+                return null;
+            }
+            int payload = (int) size - CRC_BYTES;
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            int stored = buffer.order(ByteOrder.LITTLE_ENDIAN).getInt(payload);
+            if (stored != crc(buffer, payload)) {
+                log.warn("Instantánea {} ignorada: CRC no coincide", path);
+                return null;
+            }
+            GraphSnapshot snapshot = GraphSnapshot.leerBinario(buffer.slice(0, payload));
+            log.info("Instantánea versión {} cargada desde {} ({} centros, {} rutas)",
+                    snapshot.getVersion(), path, snapshot.numeroVertices(), snapshot.numeroRutas());
+            return snapshot;
+        } catch (IOException | IllegalArgumentException | BufferUnderflowException e) {
+            log.warn("Instantánea {} ignorada: {}", path, e.getMessage());
+            return null;
+        }
+    }
+
+    /**
+     * Escribe la instantánea base en el archivo configurado (reemplazo atómico)
+     */
+    public synchronized void guardar(GraphSnapshot snapshot) throws IOException {
+        if (!habilitado()) {
+            return;
+        }
+        long size = snapshot.tamanoBinario() + CRC_BYTES;
+        if (size > Integer.MAX_VALUE) {
+            throw new IOException("La instantánea supera el tamaño máximo del archivo: " + size + " bytes");
+        }
+        Path path = Path.of(archivo).toAbsolutePath();
+        Files.createDirectories(path.getParent());
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        int payload = (int) size - CRC_BYTES;
+
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, size);
+            snapshot.escribirBinario(buffer);
+            buffer.order(ByteOrder.LITTLE_ENDIAN).putInt(payload, crc(buffer, payload));
+            buffer.force();
+        }
+        Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        log.debug("Instantánea versión {} guardada en {} ({} bytes)", snapshot.getVersion(), path, size);
+    }
+
+    /**
+     * Borra el archivo configurado (los datos de Neo4j cambiaron y ya no lo representa)
+     */
+    public synchronized void eliminar() throws IOException {
+        if (!habilitado()) {
+            return;
+        }
+        if (Files.deleteIfExists(Path.of(archivo))) {
+            log.debug("Instantánea {} eliminada por invalidación", archivo);
+        }
+    }
+
+    private static int crc(ByteBuffer buffer, int length) {
+        CRC32 crc = new CRC32();
+        crc.update(buffer.slice(0, length));
+        return (int) crc.getValue();
+    }
+}
@@ -0,0 +1,243 @@
+package com.transroute.logistics.service;
+
+import com.transroute.logistics.model.DistributionCenter;
+import com.transroute.logistics.repository.DistributionCenterRepository;
+import com.transroute.logistics.repository.RouteEdge;
+import com.transroute.logistics.repository.RouteRepository;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Servicio que mantiene la instantánea compartida del grafo de rutas
+ *
+ * La instantánea se construye una sola vez desde Neo4j (dos consultas: centros y aristas)
+ * y se publica de forma atómica. Las peticiones concurrentes leen siempre una
+ * instantánea completa; un refresco reemplaza la referencia sin bloquear a los lectores.
+ * Cada publicación emite un GraphSnapshotUpdatedEvent para las estructuras derivadas.
+ * Un cambio de estado de una ruta deriva la instantánea en memoria y emite un
+ * RouteStatusChangedEvent para las estructuras que se actualizan de forma incremental.
+ *
+ * Si hay un archivo de instantánea configurado (GraphSnapshotFileStore), al arrancar se
+ * publica la instantánea del archivo y se refresca desde Neo4j en segundo plano; si Neo4j
+ * no responde se sigue sirviendo la del archivo. Cada instantánea nueva se guarda en el
+ * archivo desde un hilo de fondo; una invalidación lo borra.
+ */
+@Service
+public class GraphSnapshotService {
+
+    @Autowired
+    private RouteRepository routeRepository;
+
+    @Autowired
+    private DistributionCenterRepository distributionCenterRepository;
+
+    @Autowired
+    private ApplicationEventPublisher eventPublisher;
+
+    @Autowired
+    private GraphSnapshotFileStore fileStore;
+
+    private static final Logger log = LoggerFactory.getLogger(GraphSnapshotService.class);
+
+    private final AtomicReference<GraphSnapshot> current = new AtomicReference<>();
+    private final AtomicLong versions = new AtomicLong();
+    private final AtomicLong generation = new AtomicLong(); // Cambia con cada invalidación
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "snapshot-io");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * Arranque: publica la instantánea del archivo (si existe) y la refresca desde Neo4j en segundo plano
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void alIniciar() {
+        if (!fileStore.habilitado()) {
+            return;
+        }
+        GraphSnapshot stored = fileStore.cargar();
+        if (stored != null) {
+            synchronized (this) {
+                if (current.get() == null) {
+                    versions.accumulateAndGet(stored.getVersion(), Math::max);
+                    current.set(stored);
+                    eventPublisher.publishEvent(new GraphSnapshotUpdatedEvent(stored));
+                }
+            }
+        }
+        executor.submit(() -> {
+            try {
+                refrescar();
+            } catch (RuntimeException e) {
+                log.warn("No se pudo refrescar la instantánea desde Neo4j; se mantiene la versión {}: {}",
+                        stored != null ? stored.getVersion() : null, e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Obtiene la instantánea vigente, construyéndola desde Neo4j si todavía no existe
+     */
+    public GraphSnapshot obtenerSnapshot() {
+        GraphSnapshot snapshot = current.get();
+        if (snapshot != null) {
+            return snapshot;
+        }
+        synchronized (this) {
+            snapshot = current.get();
+            if (snapshot == null) {
+                snapshot = construirYPublicar();
+            }
+            return snapshot;
+        }
+    }
+
+    /**
+     * Reconstruye la instantánea desde Neo4j y la publica
+     */
+    public synchronized GraphSnapshot refrescar() {
+        return construirYPublicar();
+    }
+
+    /**
+     * Descarta la instantánea vigente; la próxima lectura la reconstruye
+     * Se invoca cuando cambian los datos en Neo4j: dentro de una transacción el descarte se
+     * hace después del commit, para que ninguna lectura reconstruya con los datos anteriores
+     */
+    public void invalidar() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+                @Override
+                public void afterCommit() {
+                    descartar();
+                }
+            });
+        } else {
+            descartar();
+        }
+    }
+
+    private void descartar() {
+        generation.incrementAndGet(); // Una construcción en curso ya no se publica
+        synchronized (this) {
+            current.set(null);
+        }
+        borrarArchivo();
+    }
+
+    /**
+     * Aplica el cambio de estado de una ruta a la instantánea vigente sin consultar Neo4j
+     * Publica una instantánea derivada (mismos índices) y un RouteStatusChangedEvent
+     *
+     * @return Instantánea vigente tras el cambio
+     */
+    public synchronized GraphSnapshot aplicarEstadoRuta(String routeId, boolean activa) {
+        GraphSnapshot previous = current.get();
+        if (previous == null) {
+            return obtenerSnapshot(); // Se construye desde Neo4j con el estado ya guardado
+        }
+        int route = previous.indiceRuta(routeId);
+        if (route < 0 || previous.rutaActiva(route) == activa) {
+            return previous;
+        }
+        GraphSnapshot snapshot = previous.conEstadoRuta(route, activa, versions.incrementAndGet());
+        current.set(snapshot);
+        eventPublisher.publishEvent(new RouteStatusChangedEvent(snapshot, previous, route, activa));
+        persistir(snapshot);
+        return snapshot;
+    }
+
+    /**
+     * Construye desde Neo4j y publica; si hubo una invalidación durante la lectura, el
+     * resultado puede mezclar datos anteriores y se vuelve a construir
+     */
+    private GraphSnapshot construirYPublicar() {
+        while (true) {
+            long started = generation.get();
+            GraphSnapshot snapshot = construirDesdeNeo4j();
+            if (generation.get() == started) {
+                publicar(snapshot);
+                return snapshot;
+            }
+        }
+    }
+
+    private void publicar(GraphSnapshot snapshot) {
+        current.set(snapshot);
+        eventPublisher.publishEvent(new GraphSnapshotUpdatedEvent(snapshot));
+        persistir(snapshot);
+    }
+
+    /**
+     * Guarda la instantánea en el archivo desde el hilo de fondo (si sigue siendo la vigente)
+     */
+    private void persistir(GraphSnapshot snapshot) {
+        if (!fileStore.habilitado()) {
+            return;
+        }
+        executor.submit(() -> {
+            if (current.get() != snapshot) {
+                return; // Ya hay otra más nueva, que se guardará en su turno
+            }
+            try {
+                fileStore.guardar(snapshot);
+            } catch (IOException e) {
+                log.warn("No se pudo guardar la instantánea versión {}: {}", snapshot.getVersion(), e.getMessage());
+            }
+        });
+    }
+
+    /**
+     * Borra el archivo desde el hilo de fondo, después de cualquier guardado ya encolado, para
+     * que un reinicio sin Neo4j no sirva datos que ya se borraron o reemplazaron
+     */
+    private void borrarArchivo() {
+        if (!fileStore.habilitado()) {
+            return;
+        }
+        executor.submit(() -> {
+            try {
+                fileStore.eliminar();
+            } catch (IOException e) {
+                log.warn("No se pudo borrar la instantánea invalidada: {}", e.getMessage());
+            }
+        });
+    }
+
+    @PreDestroy
+    public void detener() {
+        executor.shutdown();
+    }
+
+    private GraphSnapshot construirDesdeNeo4j() {
+        List<DistributionCenter> centers = distributionCenterRepository.findAllOrderedById();
+        List<String> centerIds = new ArrayList<>(centers.size());
+        List<String> coordinates = new ArrayList<>(centers.size());
+        for (DistributionCenter center : centers) {
+            if (center.getId() != null) {
+                centerIds.add(center.getId());
+                coordinates.add(center.getCoordinates());
+            }
+        }
+
+        List<RouteEdge> edges = routeRepository.findAllRouteEdges();
+        return GraphSnapshot.desdeRutas(versions.incrementAndGet(), centerIds, coordinates, edges);
+    }
+}
@@ -0,0 +1,18 @@
+package com.transroute.logistics.service;
+
+/**
+ * Evento publicado por GraphSnapshotService cada vez que se publica una nueva instantánea
+ * Permite que las estructuras derivadas (jerarquías, índices, cachés) se reconstruyan
+ */
+public class GraphSnapshotUpdatedEvent {
+
+    private final GraphSnapshot snapshot;
+
+    public GraphSnapshotUpdatedEvent(GraphSnapshot snapshot) {
+        this.snapshot = snapshot;
+    }
+
+    public GraphSnapshot getSnapshot() {
+        return snapshot;
+    }
+}
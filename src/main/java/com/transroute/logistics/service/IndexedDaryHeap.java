@@ -0,0 +1,191 @@
+package com.transroute.logistics.service;
+
+import java.util.Arrays;
+
+/**
+ * Montículo d-ario indexado de arreglos primitivos (min-heap por clave double)
+ *
+ * Cada vértice aparece a lo sumo una vez: insertar un vértice que ya está en el
+ * montículo actualiza su clave (decrease-key), por lo que no hay entradas obsoletas
+ * ni objetos por relajación como con PriorityQueue<Node>.
+ *
+ * - heap[i]: vértice en la posición i
+ * - position[v]: posición del vértice v, o -1 si no está en el montículo
+ * - keys[v]: clave actual del vértice v
+ *
+ * Con aridad 4 el árbol es la mitad de alto que uno binario y los hijos de un nodo
+ * quedan contiguos en memoria.
+ *
+ * Complejidad: insertar/disminuir O(log_d n), extraer mínimo O(d log_d n), vaciar O(tamaño)
+ */
+public final class IndexedDaryHeap {
+
+    private static final int ARITY = 4;
+
+    private int[] heap;
+    private int[] position;
+    private double[] keys;
+    private int size;
+
+    public IndexedDaryHeap(int capacity) {
+        this.heap = new int[Math.max(capacity, 1)];
+        this.position = new int[Math.max(capacity, 1)];
+        this.keys = new double[Math.max(capacity, 1)];
+        Arrays.fill(position, -1);
+    }
+
+    /**
+     * Garantiza espacio para vértices 0..capacity-1 (solo reserva si crece, al menos al doble)
+     */
+    public void asegurarCapacidad(int capacity) {
+        if (capacity <= position.length) {
+            return;
+        }
+        int old = position.length;
+        capacity = Math.max(capacity, old * 2);
+        heap = Arrays.copyOf(heap, capacity);
+        keys = Arrays.copyOf(keys, capacity);
+        position = Arrays.copyOf(position, capacity);
+        Arrays.fill(position, old, capacity, -1);
+    }
+
+    public boolean vacio() {
+        return size == 0;
+    }
+
+    public int tamanio() {
+        return size;
+    }
+
+    public boolean contiene(int v) {
+        return position[v] >= 0;
+    }
+
+    /**
+     * Clave del vértice (solo válida si está o estuvo en el montículo desde el último vaciado)
+     */
+    public double clave(int v) {
+        return keys[v];
+    }
+
+    public double claveMinima() {
+        return keys[heap[0]];
+    }
+
+    public int minimo() {
+        return heap[0];
+    }
+
+    /**
+     * Inserta el vértice o, si ya está, reduce su clave
+     *
+     * @return true si se insertó o se redujo la clave
+     */
+    public boolean insertarODisminuir(int v, double key) {
+        int i = position[v];
+        if (i < 0) {
+            keys[v] = key;
+            heap[size] = v;
+            position[v] = size;
+            subir(size++);
+            return true;
+        }
+        if (key < keys[v]) {
+            keys[v] = key;
+            subir(i);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Inserta el vértice o cambia su clave en cualquier sentido
+     */
+    public void actualizar(int v, double key) {
+        int i = position[v];
+        if (i < 0) {
+            insertarODisminuir(v, key);
+            return;
+        }
+        double old = keys[v];
+        keys[v] = key;
+        if (key < old) {
+            subir(i);
+        } else if (key > old) {
+            bajar(i);
+        }
+    }
+
+    /**
+     * Extrae el vértice con menor clave
+     */
+    public int extraerMinimo() {
+        int min = heap[0];
+        position[min] = -1;
+        size--;
+        if (size > 0) {
+            int last = heap[size];
+            heap[0] = last;
+            position[last] = 0;
+            bajar(0);
+        }
+        return min;
+    }
+
+    /**
+     * Vacía el montículo en O(tamaño), sin recorrer todos los vértices
+     */
+    public void vaciar() {
+        for (int i = 0; i < size; i++) {
+            position[heap[i]] = -1;
+        }
+        size = 0;
+    }
+
+    private void subir(int i) {
+        int v = heap[i];
+        double key = keys[v];
+        while (i > 0) {
+            int parent = (i - 1) / ARITY;
+            int p = heap[parent];
+            if (keys[p] <= key) {
+                break;
+            }
+            heap[i] = p;
+            position[p] = i;
+            i = parent;
+        }
+        heap[i] = v;
+        position[v] = i;
+    }
+
+    private void bajar(int i) {
+        int v = heap[i];
+        double key = keys[v];
+        while (true) {
+            int first = i * ARITY + 1;
+            if (first >= size) {
+                break;
+            }
+            int last = Math.min(first + ARITY, size);
+            int best = first;
+            double bestKey = keys[heap[first]];
+            for (int c = first + 1; c < last; c++) {
+                double k = keys[heap[c]];
+                if (k < bestKey) {
+                    best = c;
+                    bestKey = k;
+                }
+            }
+            if (bestKey >= key) {
+                break;
+            }
+            int child = heap[best];
+            heap[i] = child;
+            position[child] = i;
+            i = best;
+        }
+        heap[i] = v;
+        position[v] = i;
+    }
+}
@@ -0,0 +1,290 @@
+package com.transroute.logistics.service;
+
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * Servicio de k caminos más cortos sin ciclos (algoritmo de Yen)
+ *
+ * Estrategia:
+ * - Un Dijkstra inverso desde el destino da la distancia exacta d(v, destino) de cada vértice
+ *   y el árbol de caminos más cortos hacia el destino
+ * - Cada búsqueda de desvío (spur) prohíbe los vértices de la raíz y las rutas que ya
+ *   usaron los caminos aceptados con la misma raíz. Eliminar aristas solo alarga caminos,
+ *   así que d(v, destino) es una heurística A* admisible y consistente para todos los desvíos
+ * - Si el camino del árbol desde el vértice de desvío no toca nada prohibido, es óptimo
+ *   y se reutiliza sin buscar
+ *
+ * Los caminos se identifican por vértices y rutas: dos rutas paralelas entre los
+ * mismos centros dan caminos distintos.
+ *
+ * Complejidad: O(k · V · (V + E) log V) en el peor caso; en la práctica la mayoría
+ * de los desvíos se resuelven con el árbol o con búsquedas A* muy dirigidas
+ */
+@Service
+public class KShortestPathsService {
+
+    /**
+     * Camino alternativo: vértices, rutas usadas entre vértices consecutivos y distancia
+     */
+    public static class CaminoAlternativo {
+        public final List<Integer> path;
+        public final List<Integer> routes;
+        public final double distance;
+
+        public CaminoAlternativo(List<Integer> path, List<Integer> routes, double distance) {
+            this.path = path;
+            this.routes = routes;
+            this.distance = distance;
+        }
+    }
+
+    /**
+     * Calcula hasta k caminos sin ciclos ordenados por distancia
+     *
+     * @param snapshot Instantánea del grafo (con la métrica ya aplicada)
+     * @param source Vértice origen
+     * @param destination Vértice destino
+     * @param k Número máximo de caminos
+     * @return Caminos encontrados (puede haber menos de k)
+     */
+    public List<CaminoAlternativo> kCaminosMasCortos(GraphSnapshot snapshot, int source, int destination, int k) {
+        List<CaminoAlternativo> accepted = new ArrayList<>();
+        if (k <= 0) {
+            return accepted;
+        }
+
+        SearchState state = new SearchState(snapshot, destination);
+        if (state.toTarget[source] == Double.MAX_VALUE) {
+            return accepted; // El destino no es alcanzable
+        }
+        if (source == destination) {
+            accepted.add(new CaminoAlternativo(new ArrayList<>(List.of(source)), new ArrayList<>(), 0.0));
+            return accepted;
+        }
+
+        accepted.add(state.caminoDelArbol(source, new ArrayList<>(List.of(source)), new ArrayList<>(), 0.0));
+
+        PriorityQueue<CaminoAlternativo> candidates =
+                new PriorityQueue<>(Comparator.comparingDouble(c -> c.distance));
+        Set<List<Integer>> seen = new HashSet<>();
+        seen.add(clave(accepted.get(0)));
+
+        while (accepted.size() < k) {
+            CaminoAlternativo last = accepted.get(accepted.size() - 1);
+
+            // Cada vértice del último camino (salvo el destino) es un posible punto de desvío
+            double rootDistance = 0.0;
+            for (int i = 0; i < last.path.size() - 1; i++) {
+                int spur = last.path.get(i);
+                List<Integer> rootPath = last.path.subList(0, i + 1);
+                List<Integer> rootRoutes = last.routes.subList(0, i);
+
+                // Rutas prohibidas desde el vértice de desvío: las de caminos aceptados con la misma raíz
+                state.nuevaBusqueda();
+                for (CaminoAlternativo p : accepted) {
+                    if (p.path.size() > i + 1 && p.path.subList(0, i + 1).equals(rootPath)
+                            && p.routes.subList(0, i).equals(rootRoutes)) {
+                        state.prohibirRuta(p.routes.get(i));
+                    }
+                }
+                for (int j = 0; j < i; j++) {
+                    state.prohibirVertice(rootPath.get(j));
+                }
+
+                CaminoAlternativo candidate = state.desvio(spur, rootPath, rootRoutes, rootDistance);
+                if (candidate != null && seen.add(clave(candidate))) {
+                    candidates.offer(candidate);
+                }
+
+                rootDistance += snapshot.pesoRuta(last.routes.get(i));
+            }
+
+            if (candidates.isEmpty()) {
+                break;
+            }
+            accepted.add(candidates.poll());
+        }
+
+        return accepted;
+    }
+
+    private static List<Integer> clave(CaminoAlternativo camino) {
+        List<Integer> key = new ArrayList<>(camino.path.size() + camino.routes.size());
+        key.addAll(camino.path);
+        key.add(-1);
+        key.addAll(camino.routes);
+        return key;
+    }
+
+    // ==========================================
+    // CLASES INTERNAS AUXILIARES
+    // ==========================================
+
+    /**
+     * Estado compartido por todos los desvíos de una consulta
+     */
+    private static class SearchState {
+        final GraphSnapshot snapshot;
+        final int destination;
+
+        // Árbol inverso: distancia exacta al destino, siguiente vértice y ruta usada
+        final double[] toTarget;
+        final int[] nextVertex;
+        final int[] nextRoute;
+
+        // Prohibiciones de la búsqueda de desvío actual (marcadas por época)
+        final int[] bannedVertexStamp;
+        final List<Integer> bannedRoutes = new ArrayList<>();
+        final int[] predecessorRoute;
+        int epoch;
+
+        SearchState(GraphSnapshot snapshot, int destination) {
+            this.snapshot = snapshot;
+            this.destination = destination;
+            int n = snapshot.numeroVertices();
+            this.toTarget = new double[n];
+            this.nextVertex = new int[n];
+            this.nextRoute = new int[n];
+            this.bannedVertexStamp = new int[n];
+            this.predecessorRoute = new int[n];
+            construirArbolInverso();
+        }
+
+        /**
+         * Dijkstra sobre las aristas entrantes desde el destino
+         */
+        private void construirArbolInverso() {
+            int n = snapshot.numeroVertices();
+            Arrays.fill(nextRoute, -1);
+            DijkstraWorkspace ws = DijkstraWorkspace.obtener(DijkstraWorkspace.ATRAS, n);
+            IndexedDaryHeap heap = ws.heap();
+            ws.fijar(destination, 0.0, -1);
+            heap.insertarODisminuir(destination, 0.0);
+
+            while (!heap.vacio()) {
+                int u = heap.extraerMinimo();
+                ws.asentar(u);
+                double du = ws.distancia(u);
+                for (int e = snapshot.inicioAristasEntrantes(u); e < snapshot.finAristasEntrantes(u); e++) {
+                    int v = snapshot.origenEntrante(e);
+                    double candidate = du + snapshot.pesoEntrante(e);
+                    if (!ws.asentado(v) && candidate < ws.distancia(v)) {
+                        ws.fijar(v, candidate, u);
+                        nextRoute[v] = snapshot.rutaEntrante(e);
+                        heap.insertarODisminuir(v, candidate);
+                    }
+                }
+            }
+
+            for (int v = 0; v < n; v++) {
+                toTarget[v] = ws.distancia(v);
+                nextVertex[v] = ws.predecesor(v);
+            }
+        }
+
+        void nuevaBusqueda() {
+            epoch++;
+            bannedRoutes.clear();
+        }
+
+        void prohibirVertice(int v) {
+            bannedVertexStamp[v] = epoch;
+        }
+
+        void prohibirRuta(int route) {
+            bannedRoutes.add(route);
+        }
+
+        boolean verticeProhibido(int v) {
+            return bannedVertexStamp[v] == epoch;
+        }
+
+        /**
+         * Completa la raíz con el camino del árbol inverso desde el último vértice de la raíz
+         */
+        CaminoAlternativo caminoDelArbol(int from, List<Integer> rootPath, List<Integer> rootRoutes,
+                                         double rootDistance) {
+            List<Integer> path = new ArrayList<>(rootPath);
+            List<Integer> routes = new ArrayList<>(rootRoutes);
+            for (int v = from; v != destination; v = nextVertex[v]) {
+                routes.add(nextRoute[v]);
+                path.add(nextVertex[v]);
+            }
+            return new CaminoAlternativo(path, routes, rootDistance + toTarget[from]);
+        }
+
+        /**
+         * Mejor camino desde el vértice de desvío al destino respetando las prohibiciones
+         *
+         * @return Raíz + desvío, o null si no existe
+         */
+        CaminoAlternativo desvio(int spur, List<Integer> rootPath, List<Integer> rootRoutes, double rootDistance) {
+            if (arbolUtilizable(spur)) {
+                return caminoDelArbol(spur, rootPath, rootRoutes, rootDistance);
+            }
+
+            // A* con la distancia exacta al destino (sin prohibiciones) como heurística
+            DijkstraWorkspace ws = DijkstraWorkspace.obtener(DijkstraWorkspace.ADELANTE, snapshot.numeroVertices());
+            IndexedDaryHeap heap = ws.heap();
+            ws.fijar(spur, 0.0, -1);
+            predecessorRoute[spur] = -1;
+            heap.insertarODisminuir(spur, toTarget[spur]);
+
+            while (!heap.vacio()) {
+                int u = heap.extraerMinimo();
+                ws.asentar(u);
+                if (u == destination) {
+                    break;
+                }
+                double du = ws.distancia(u);
+                for (int e = snapshot.inicioAristas(u); e < snapshot.finAristas(u); e++) {
+                    int v = snapshot.destino(e);
+                    if (verticeProhibido(v) || toTarget[v] == Double.MAX_VALUE
+                            || (u == spur && bannedRoutes.contains(snapshot.ruta(e)))) {
+                        continue;
+                    }
+                    double candidate = du + snapshot.peso(e);
+                    if (!ws.asentado(v) && candidate < ws.distancia(v)) {
+                        ws.fijar(v, candidate, u);
+                        predecessorRoute[v] = snapshot.ruta(e);
+                        heap.insertarODisminuir(v, candidate + toTarget[v]);
+                    }
+                }
+            }
+
+            if (!ws.asentado(destination)) {
+                return null;
+            }
+
+            Deque<Integer> spurPath = new ArrayDeque<>();
+            Deque<Integer> spurRoutes = new ArrayDeque<>();
+            for (int v = destination; v != spur; v = ws.predecesor(v)) {
+                spurPath.addFirst(v);
+                spurRoutes.addFirst(predecessorRoute[v]);
+            }
+            List<Integer> path = new ArrayList<>(rootPath);
+            path.addAll(spurPath);
+            List<Integer> routes = new ArrayList<>(rootRoutes);
+            routes.addAll(spurRoutes);
+            return new CaminoAlternativo(path, routes, rootDistance + ws.distancia(destination));
+        }
+
+        /**
+         * El camino del árbol desde el desvío es válido si su primera ruta no está prohibida
+         * y no pasa por vértices prohibidos
+         */
+        private boolean arbolUtilizable(int spur) {
+            if (toTarget[spur] == Double.MAX_VALUE || bannedRoutes.contains(nextRoute[spur])) {
+                return false;
+            }
+            for (int v = nextVertex[spur]; v != -1; v = nextVertex[v]) {
+                if (verticeProhibido(v)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,134 @@
+package com.transroute.logistics.service;
+
+import com.transroute.logistics.model.DistributionCenter;
+import com.transroute.logistics.repository.DistributionCenterRepository;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Servicio que mantiene las tablas de landmarks (ALT) de la instantánea vigente
+ *
+ * - Cuando se publica una nueva instantánea, las tablas por COSTO se recalculan en segundo plano
+ * - Las demás métricas se construyen bajo demanda en el mismo hilo de fondo
+ * - La selección empieza en el centro de mayor prioridad (o el vértice 0 si no hay datos)
+ * - Mientras no haya tablas de la versión vigente, las consultas usan Dijkstra bidireccional
+ */
+@Service
+public class LandmarkService {
+
+    @Value("${transroute.graph.landmarks:16}")
+    private int cantidadLandmarks;
+
+    @Autowired
+    private GraphSnapshotService graphSnapshotService;
+
+    @Autowired
+    private GraphService graphService;
+
+    @Autowired
+    private DistributionCenterRepository distributionCenterRepository;
+
+    @Autowired
+    private ForkJoinPool graphComputePool;
+
+    private final Map<GraphSnapshot.Metrica, LandmarkTable> tables = new ConcurrentHashMap<>();
+    private final Map<String, Boolean> pending = new ConcurrentHashMap<>();
+    private final ExecutorService executor = Executors.newSingleThreadExecutor(r -> {
+        Thread thread = new Thread(r, "alt-builder");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    @EventListener
+    public void onSnapshotUpdated(GraphSnapshotUpdatedEvent event) {
+        programarConstruccion(event.getSnapshot().conMetrica(GraphSnapshot.Metrica.COSTO));
+    }
+
+    /**
+     * Consulta origen-destino con A* guiado por landmarks sobre la vista recibida
+     * (que puede ser una clase de peso de la red); si las tablas no están listas para esa
+     * versión y métrica, programa su construcción y responde con Dijkstra bidireccional
+     */
+    public GraphService.PathResult consultar(GraphSnapshot snapshot, int source, int destination) {
+        LandmarkTable table = obtenerTabla(snapshot);
+        if (table != null) {
+            return table.consultar(snapshot, source, destination);
+        }
+        programarConstruccion(snapshot);
+        return graphService.dijkstraBidireccional(snapshot, source, destination);
+    }
+
+    /**
+     * Tablas listas para la versión y métrica de la instantánea, o null si todavía no existen
+     */
+    public LandmarkTable obtenerTabla(GraphSnapshot snapshot) {
+        LandmarkTable table = tables.get(snapshot.getMetrica());
+        return table != null && table.getVersion() == snapshot.getVersion() ? table : null;
+    }
+
+    /**
+     * Programa el recálculo en segundo plano de las tablas para la métrica indicada
+     */
+    public void reconstruir(GraphSnapshot.Metrica metrica) {
+        programarConstruccion(graphSnapshotService.obtenerSnapshot().conMetrica(metrica));
+    }
+
+    public boolean enConstruccion(GraphSnapshot snapshot) {
+        return pending.containsKey(clave(snapshot));
+    }
+
+    private void programarConstruccion(GraphSnapshot snapshot) {
+        String key = clave(snapshot);
+        if (obtenerTabla(snapshot) != null || pending.putIfAbsent(key, Boolean.TRUE) != null) {
+            return;
+        }
+        executor.submit(() -> {
+            try {
+                // Las tablas se calculan sobre la red completa de la versión vigente
+                GraphSnapshot current = graphSnapshotService.obtenerSnapshot();
+                if (current.getVersion() == snapshot.getVersion()) {
+                    GraphSnapshot view = current.conMetrica(snapshot.getMetrica());
+                    tables.put(snapshot.getMetrica(), LandmarkTable.construir(view, cantidadLandmarks,
+                            semilla(view), graphComputePool));
+                }
+            } finally {
+                pending.remove(key);
+            }
+        });
+    }
+
+    /**
+     * Centro de mayor prioridad presente en la instantánea (vértice 0 si Neo4j no responde)
+     */
+    private int semilla(GraphSnapshot snapshot) {
+        try {
+            for (DistributionCenter dc : distributionCenterRepository.findAllOrderedByPriority()) {
+                int index = snapshot.indiceCentro(dc.getId());
+                if (index != -1) {
+                    return index;
+                }
+            }
+        } catch (RuntimeException e) {
+            // Sin Neo4j (instantánea cargada del archivo): se empieza por el primer vértice
+        }
+        return 0;
+    }
+
+    private String clave(GraphSnapshot snapshot) {
+        return snapshot.getMetrica() + "@" + snapshot.getVersion();
+    }
+
+    @PreDestroy
+    public void detener() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,293 @@
+package com.transroute.logistics.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+/**
+ * Tablas de distancias a landmarks para A* con cota ALT (A*, landmarks, desigualdad triangular)
+ *
+ * Para cada landmark L se guardan d(L, v) y d(v, L) de todos los vértices. Por la desigualdad
+ * triangular, d(v, t) >= d(L, t) - d(L, v) y d(v, t) >= d(v, L) - d(t, L); el máximo sobre los
+ * landmarks es una cota admisible y consistente que no depende de coordenadas ni de que la
+ * métrica sea una distancia, por lo que también guía las búsquedas por COSTO.
+ *
+ * Selección: punto más lejano (farthest-point) a partir de un vértice semilla; cada landmark
+ * nuevo es el vértice más alejado de los ya elegidos (los vértices no alcanzados tienen
+ * preferencia, así cada componente recibe al menos uno). Las distancias de la selección son la
+ * tabla hacia adelante; en grafos dirigidos las tablas hacia atrás se calculan en paralelo.
+ *
+ * Las tablas se guardan por vértice (v * k + i) para leer todos los landmarks de un vértice
+ * juntos. Siguen siendo cotas válidas en vistas que quitan rutas (clases de peso): quitar
+ * aristas solo alarga los caminos. Inmutable y asociada a la versión y métrica de origen.
+ */
+public final class LandmarkTable {
+
+    // Landmarks que guían cada consulta (los de mejor cota para el par origen-destino)
+    private static final int ACTIVOS = 4;
+
+    private final long version;
+    private final GraphSnapshot.Metrica metrica;
+    private final int vertices;
+    private final int[] landmarks;
+    private final double[] fromLandmark; // d(L_i, v) en [v * k + i]; infinito si no es alcanzable
+    private final double[] toLandmark;   // d(v, L_i); el mismo arreglo en grafos no dirigidos
+    private final long buildTimeNanos;
+
+    private LandmarkTable(long version, GraphSnapshot.Metrica metrica, int vertices, int[] landmarks,
+                          double[] fromLandmark, double[] toLandmark, long buildTimeNanos) {
+        this.version = version;
+        this.metrica = metrica;
+        this.vertices = vertices;
+        this.landmarks = landmarks;
+        this.fromLandmark = fromLandmark;
+        this.toLandmark = toLandmark;
+        this.buildTimeNanos = buildTimeNanos;
+    }
+
+    /**
+     * Selecciona los landmarks y calcula sus tablas de distancias
+     *
+     * @param snapshot Vista con la métrica a usar (red completa)
+     * @param cantidad Cantidad máxima de landmarks
+     * @param semilla Vértice desde el que empieza la selección (p. ej. el centro prioritario)
+     * @param pool Pool para las tablas hacia atrás de grafos dirigidos
+     */
+    public static LandmarkTable construir(GraphSnapshot snapshot, int cantidad, int semilla, ForkJoinPool pool) {
+        long start = System.nanoTime();
+        int n = snapshot.numeroVertices();
+        int k = Math.min(cantidad, n);
+        double[] from = new double[n * k];
+        double[] nearest = new double[n]; // Distancia al landmark más cercano ya elegido
+        Arrays.fill(nearest, Double.POSITIVE_INFINITY);
+        int[] chosen = new int[k];
+
+        int count = 0;
+        int next = k > 0 ? semilla : -1;
+        while (count < k && next != -1) {
+            chosen[count] = next;
+            columnaDistancias(snapshot, next, false, from, k, count);
+            for (int v = 0; v < n; v++) {
+                nearest[v] = Math.min(nearest[v], from[v * k + count]);
+            }
+            count++;
+            next = masLejano(nearest);
+        }
+
+        if (count < k) {
+            from = compactar(from, n, k, count);
+            chosen = Arrays.copyOf(chosen, count);
+        }
+        double[] to = from;
+        if (snapshot.isDirected() && count > 0) {
+            double[] backward = new double[n * count];
+            int[] selected = chosen;
+            int columns = count;
+            pool.submit(() -> IntStream.range(0, columns).parallel()
+                    .forEach(i -> columnaDistancias(snapshot, selected[i], true, backward, columns, i))).join();
+            to = backward;
+        }
+        return new LandmarkTable(snapshot.getVersion(), snapshot.getMetrica(), n, chosen, from, to,
+                System.nanoTime() - start);
+    }
+
+    /**
+     * Camino más corto con A* guiado por los landmarks
+     *
+     * @param snapshot Vista sobre la que se busca (la de origen o una clase de peso de ella)
+     */
+    public GraphService.PathResult consultar(GraphSnapshot snapshot, int source, int destination) {
+        int k = landmarks.length;
+        if (inalcanzable(source, destination)) {
+            return new GraphService.PathResult(null, Double.MAX_VALUE, 0);
+        }
+        int[] active = landmarksActivos(source, destination);
+
+        DijkstraWorkspace ws = DijkstraWorkspace.obtener(DijkstraWorkspace.ADELANTE, snapshot.numeroVertices());
+        IndexedDaryHeap heap = ws.heap();
+        ws.fijar(source, 0.0, -1);
+        heap.insertarODisminuir(source, cota(active, k, source, destination));
+        int settled = 0;
+
+        while (!heap.vacio()) {
+            int u = heap.extraerMinimo();
+            ws.asentar(u);
+            settled++;
+            if (u == destination) {
+                break;
+            }
+
+            double du = ws.distancia(u);
+            for (int e = snapshot.inicioAristas(u); e < snapshot.finAristas(u); e++) {
+                int v = snapshot.destino(e);
+                double candidate = du + snapshot.peso(e);
+                if (!ws.asentado(v) && candidate < ws.distancia(v)) {
+                    ws.fijar(v, candidate, u);
+                    heap.insertarODisminuir(v, candidate + cota(active, k, v, destination));
+                }
+            }
+        }
+
+        if (!ws.alcanzado(destination)) {
+            return new GraphService.PathResult(null, Double.MAX_VALUE, settled);
+        }
+        List<Integer> path = new ArrayList<>();
+        for (int v = destination; v != -1; v = ws.predecesor(v)) {
+            path.add(v);
+        }
+        Collections.reverse(path);
+        return new GraphService.PathResult(path, ws.distancia(destination), settled);
+    }
+
+    /**
+     * Cota inferior de d(v, t) usando todos los landmarks
+     */
+    public double cotaInferior(int v, int t) {
+        double best = 0.0;
+        for (int i = 0; i < landmarks.length; i++) {
+            best = Math.max(best, cotaLandmark(i, landmarks.length, v, t));
+        }
+        return best;
+    }
+
+    public long getVersion() { return version; }
+
+    public GraphSnapshot.Metrica getMetrica() { return metrica; }
+
+    public int numeroVertices() { return vertices; }
+
+    public int[] getLandmarks() { return landmarks.clone(); }
+
+    public long getTiempoConstruccionNanos() { return buildTimeNanos; }
+
+    /**
+     * Bytes de las tablas de distancias
+     */
+    public long tamanoBytes() {
+        return 8L * (fromLandmark.length + (toLandmark != fromLandmark ? toLandmark.length : 0));
+    }
+
+    private double cota(int[] active, int k, int v, int t) {
+        double best = 0.0;
+        for (int i : active) {
+            best = Math.max(best, cotaLandmark(i, k, v, t));
+        }
+        return best;
+    }
+
+    private double cotaLandmark(int i, int k, int v, int t) {
+        double best = 0.0;
+        double fromT = fromLandmark[t * k + i];
+        double fromV = fromLandmark[v * k + i];
+        if (fromT != Double.POSITIVE_INFINITY && fromV != Double.POSITIVE_INFINITY) {
+            best = fromT - fromV;
+        }
+        double toV = toLandmark[v * k + i];
+        double toT = toLandmark[t * k + i];
+        if (toV != Double.POSITIVE_INFINITY && toT != Double.POSITIVE_INFINITY) {
+            best = Math.max(best, toV - toT);
+        }
+        return best;
+    }
+
+    /**
+     * Si un landmark alcanza el origen pero no el destino (o el destino lo alcanza a él y el
+     * origen no), no existe camino del origen al destino
+     */
+    private boolean inalcanzable(int source, int destination) {
+        int k = landmarks.length;
+        for (int i = 0; i < k; i++) {
+            if (fromLandmark[source * k + i] != Double.POSITIVE_INFINITY
+                    && fromLandmark[destination * k + i] == Double.POSITIVE_INFINITY) {
+                return true;
+            }
+            if (toLandmark[destination * k + i] != Double.POSITIVE_INFINITY
+                    && toLandmark[source * k + i] == Double.POSITIVE_INFINITY) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Los ACTIVOS landmarks con mayor cota para el par origen-destino
+     */
+    private int[] landmarksActivos(int source, int destination) {
+        int k = landmarks.length;
+        int size = Math.min(ACTIVOS, k);
+        int[] active = new int[size];
+        double[] bound = new double[size];
+        int filled = 0;
+        for (int i = 0; i < k; i++) {
+            double value = cotaLandmark(i, k, source, destination);
+            if (filled == size && value <= bound[size - 1]) {
+                continue;
+            }
+            int p = filled < size ? filled++ : size - 1;
+            while (p > 0 && bound[p - 1] < value) {
+                active[p] = active[p - 1];
+                bound[p] = bound[p - 1];
+                p--;
+            }
+            active[p] = i;
+            bound[p] = value;
+        }
+        return Arrays.copyOf(active, filled);
+    }
+
+    /**
+     * Dijkstra completo desde (o hacia, con aristas entrantes) el landmark; escribe la columna
+     */
+    private static void columnaDistancias(GraphSnapshot snapshot, int landmark, boolean reverse,
+                                          double[] table, int k, int column) {
+        int n = snapshot.numeroVertices();
+        DijkstraWorkspace ws = DijkstraWorkspace.obtener(DijkstraWorkspace.ADELANTE, n);
+        IndexedDaryHeap heap = ws.heap();
+        ws.fijar(landmark, 0.0, -1);
+        heap.insertarODisminuir(landmark, 0.0);
+
+        while (!heap.vacio()) {
+            int u = heap.extraerMinimo();
+            ws.asentar(u);
+            double du = ws.distancia(u);
+            int end = reverse ? snapshot.finAristasEntrantes(u) : snapshot.finAristas(u);
+            for (int e = reverse ? snapshot.inicioAristasEntrantes(u) : snapshot.inicioAristas(u); e < end; e++) {
+                int v = reverse ? snapshot.origenEntrante(e) : snapshot.destino(e);
+                double candidate = du + (reverse ? snapshot.pesoEntrante(e) : snapshot.peso(e));
+                if (!ws.asentado(v) && candidate < ws.distancia(v)) {
+                    ws.fijar(v, candidate, u);
+                    heap.insertarODisminuir(v, candidate);
+                }
+            }
+        }
+
+        for (int v = 0; v < n; v++) {
+            table[v * k + column] = ws.alcanzado(v) ? ws.distancia(v) : Double.POSITIVE_INFINITY;
+        }
+    }
+
+    /**
+     * Vértice más alejado de los landmarks elegidos (primero los no alcanzados), o -1 si todos
+     * los vértices ya son landmarks
+     */
+    private static int masLejano(double[] nearest) {
+        int best = -1;
+        for (int v = 0; v < nearest.length; v++) {
+            if (nearest[v] > 0.0 && (best == -1 || nearest[v] > nearest[best])) {
+                best = v;
+            }
+        }
+        return best;
+    }
+
+    private static double[] compactar(double[] table, int n, int k, int columns) {
+        double[] result = new double[n * columns];
+        for (int v = 0; v < n; v++) {
+            System.arraycopy(table, v * k, result, v * columns, columns);
+        }
+        return result;
+    }
+}
@@ -0,0 +1,375 @@
+package com.transroute.logistics.service;
+
+import com.transroute.logistics.model.DistributionCenter;
+import com.transroute.logistics.repository.DistributionCenterRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Flujo máximo entre centros con capacidades por ruta (Dinic)
+ *
+ * Cada ruta es una arista con capacidad maxWeight (kg por día; sin límite registrado es
+ * ilimitada). En grafos no dirigidos la ruta admite flujo en cualquier sentido: se modela con
+ * dos arcos de capacidad c que son reverso uno del otro. Los orígenes y destinos se unen a una
+ * fuente y un sumidero ficticios; con límites por centro, el arco de la fuente a un origen
+ * tiene su carga disponible y el de un destino al sumidero su espacio libre.
+ *
+ * La red residual se arma en arreglos primitivos (CSR de arcos con índice del reverso) y el
+ * flujo bloqueante se busca con una DFS iterativa y punteros de avance por vértice. Al
+ * terminar, los vértices alcanzables desde la fuente en la red residual definen el corte
+ * mínimo: las rutas que lo cruzan son el cuello de botella.
+ *
+ * Complejidad: O(V² E) en el peor caso; en redes viales unas pocas fases
+ */
+@Service
+public class MaxFlowService {
+
+    // Residuos menores se consideran saturados (capacidades no enteras)
+    private static final double EPSILON = 1e-9;
+
+    @Autowired
+    private DistributionCenterRepository distributionCenterRepository;
+
+    /**
+     * Flujo máximo y corte mínimo
+     */
+    public static class Resultado {
+        public final double flujo; // Infinito si hay un camino sin límites de capacidad
+        public final boolean ilimitado;
+        public final double[] flujoRutas; // Flujo neto por ruta (negativo = de destino a origen de la ruta)
+        public final int[] rutasCorte; // Rutas saturadas del corte mínimo
+        public final int[] origenesLimitantes; // Posiciones de los orígenes cuya carga limita el flujo
+        public final int[] destinosLimitantes; // Posiciones de los destinos cuyo espacio limita el flujo
+        public final int fases;
+
+        public Resultado(double flujo, boolean ilimitado, double[] flujoRutas, int[] rutasCorte,
+                         int[] origenesLimitantes, int[] destinosLimitantes, int fases) {
+            this.flujo = flujo;
+            this.ilimitado = ilimitado;
+            this.flujoRutas = flujoRutas;
+            this.rutasCorte = rutasCorte;
+            this.origenesLimitantes = origenesLimitantes;
+            this.destinosLimitantes = destinosLimitantes;
+            this.fases = fases;
+        }
+    }
+
+    /**
+     * Capacidad de cada ruta de la vista: maxWeight (infinito si no tiene) o 0 si la ruta no
+     * está incluida (inactiva o fuera de la clase de peso)
+     */
+    public double[] capacidadesRuta(GraphSnapshot snapshot) {
+        double[] capacity = new double[snapshot.numeroRutas()];
+        for (int r = 0; r < capacity.length; r++) {
+            double limit = snapshot.limitePesoRuta(r);
+            capacity[r] = !snapshot.rutaIncluida(r) ? 0.0 : Double.isNaN(limit) ? Double.POSITIVE_INFINITY : limit;
+        }
+        return capacity;
+    }
+
+    /**
+     * Límites por centro desde Neo4j: carga actual (origen) o capacity - currentLoad (destino)
+     * Un centro sin datos no limita (infinito)
+     */
+    public double[] limitesCentros(List<String> centerIds, boolean origen) {
+        Map<String, DistributionCenter> centers = new HashMap<>();
+        for (DistributionCenter dc : distributionCenterRepository.findAllById(centerIds)) {
+            centers.put(dc.getId(), dc);
+        }
+        double[] limits = new double[centerIds.size()];
+        for (int i = 0; i < limits.length; i++) {
+            DistributionCenter dc = centers.get(centerIds.get(i));
+            Integer load = dc != null ? dc.getCurrentLoad() : null;
+            Integer capacity = dc != null ? dc.getCapacity() : null;
+            if (origen) {
+                limits[i] = load != null ? Math.max(0, load) : Double.POSITIVE_INFINITY;
+            } else {
+                limits[i] = capacity != null ? Math.max(0, capacity - (load != null ? load : 0)) : Double.POSITIVE_INFINITY;
+            }
+        }
+        return limits;
+    }
+
+    /**
+     * Flujo máximo de los orígenes a los destinos
+     *
+     * @param snapshot Instantánea (define vértices, rutas y si el grafo es dirigido)
+     * @param sources Vértices origen
+     * @param supply Límite de envío de cada origen (null = sin límite)
+     * @param sinks Vértices destino (disjuntos de los orígenes)
+     * @param demand Límite de recepción de cada destino (null = sin límite)
+     * @param routeCapacity Capacidad por ruta (<= 0 = ruta no disponible, infinito = sin límite)
+     */
+    public Resultado calcular(GraphSnapshot snapshot, int[] sources, double[] supply,
+                              int[] sinks, double[] demand, double[] routeCapacity) {
+        Red red = new Red(snapshot, sources, supply, sinks, demand, routeCapacity);
+        return red.resolver();
+    }
+
+    /**
+     * Red residual en arreglos primitivos
+     */
+    private static final class Red {
+        final GraphSnapshot snapshot;
+        final int[] sources;
+        final int[] sinks;
+        final int nodes;
+        final int source;
+        final int sink;
+        final int[] start;
+        final int[] to;
+        final int[] rev;
+        final int[] arcRoute; // Ruta del arco, o -(posición + 1) para los arcos de orígenes y destinos
+        final double[] cap;
+        final double[] flow;
+        final int[] level;
+        final int[] next;
+        final int[] queue;
+
+        Red(GraphSnapshot snapshot, int[] sources, double[] supply, int[] sinks, double[] demand,
+            double[] routeCapacity) {
+            this.snapshot = snapshot;
+            this.sources = sources;
+            this.sinks = sinks;
+            int n = snapshot.numeroVertices();
+            nodes = n + 2;
+            source = n;
+            sink = n + 1;
+
+            // Grado de cada nodo en la red residual (cada arista aporta un arco y su reverso)
+            int routes = snapshot.numeroRutas();
+            int[] degree = new int[nodes + 1];
+            for (int r = 0; r < routes; r++) {
+                int u = snapshot.origenRuta(r);
+                int v = snapshot.destinoRuta(r);
+                if (u != v && routeCapacity[r] > 0.0) {
+                    degree[u]++;
+                    degree[v]++;
+                }
+            }
+            degree[source] += sources.length;
+            degree[sink] += sinks.length;
+            for (int s : sources) {
+                degree[s]++;
+            }
+            for (int t : sinks) {
+                degree[t]++;
+            }
+
+            start = new int[nodes + 1];
+            for (int v = 0; v < nodes; v++) {
+                start[v + 1] = start[v] + degree[v];
+            }
+            int arcs = start[nodes];
+            to = new int[arcs];
+            rev = new int[arcs];
+            arcRoute = new int[arcs];
+            cap = new double[arcs];
+            flow = new double[arcs];
+            int[] fill = Arrays.copyOf(start, nodes);
+
+            boolean directed = snapshot.isDirected();
+            for (int r = 0; r < routes; r++) {
+                int u = snapshot.origenRuta(r);
+                int v = snapshot.destinoRuta(r);
+                if (u != v && routeCapacity[r] > 0.0) {
+                    agregar(fill, u, v, routeCapacity[r], directed ? 0.0 : routeCapacity[r], r);
+                }
+            }
+            for (int i = 0; i < sources.length; i++) {
+                agregar(fill, source, sources[i], supply != null ? supply[i] : Double.POSITIVE_INFINITY, 0.0, -(i + 1));
+            }
+            for (int i = 0; i < sinks.length; i++) {
+                agregar(fill, sinks[i], sink, demand != null ? demand[i] : Double.POSITIVE_INFINITY, 0.0, -(i + 1));
+            }
+
+            level = new int[nodes];
+            next = new int[nodes];
+            queue = new int[nodes];
+        }
+
+        private void agregar(int[] fill, int u, int v, double forward, double backward, int route) {
+            int a = fill[u]++;
+            int b = fill[v]++;
+            to[a] = v;
+            to[b] = u;
+            rev[a] = b;
+            rev[b] = a;
+            cap[a] = forward;
+            cap[b] = backward;
+            arcRoute[a] = route;
+            arcRoute[b] = route;
+        }
+
+        private double residuo(int a) {
+            return cap[a] - flow[a];
+        }
+
+        Resultado resolver() {
+            if (caminoIlimitado()) {
+                return new Resultado(Double.POSITIVE_INFINITY, true, new double[snapshot.numeroRutas()],
+                        new int[0], new int[0], new int[0], 0);
+            }
+
+            double total = 0.0;
+            int phases = 0;
+            int[] path = new int[nodes];
+            while (niveles()) {
+                phases++;
+                System.arraycopy(start, 0, next, 0, nodes);
+                total += flujoBloqueante(path);
+            }
+            return armarResultado(total, phases);
+        }
+
+        /**
+         * Si la fuente llega al sumidero solo por arcos sin límite, el flujo es infinito
+         */
+        private boolean caminoIlimitado() {
+            Arrays.fill(level, -1);
+            int head = 0;
+            int tail = 0;
+            queue[tail++] = source;
+            level[source] = 0;
+            while (head < tail) {
+                int u = queue[head++];
+                for (int a = start[u]; a < start[u + 1]; a++) {
+                    int v = to[a];
+                    if (level[v] == -1 && cap[a] == Double.POSITIVE_INFINITY) {
+                        level[v] = 0;
+                        queue[tail++] = v;
+                    }
+                }
+            }
+            return level[sink] != -1;
+        }
+
+        /**
+         * BFS de niveles sobre la red residual; false si el sumidero ya no es alcanzable
+         */
+        private boolean niveles() {
+            Arrays.fill(level, -1);
+            int head = 0;
+            int tail = 0;
+            queue[tail++] = source;
+            level[source] = 0;
+            while (head < tail) {
+                int u = queue[head++];
+                for (int a = start[u]; a < start[u + 1]; a++) {
+                    int v = to[a];
+                    if (level[v] == -1 && residuo(a) > EPSILON) {
+                        level[v] = level[u] + 1;
+                        queue[tail++] = v;
+                    }
+                }
+            }
+            return level[sink] != -1;
+        }
+
+        /**
+         * Flujo bloqueante de la fase con DFS iterativa (el camino actual se guarda como arcos)
+         */
+        private double flujoBloqueante(int[] path) {
+            double total = 0.0;
+            int depth = 0;
+            int u = source;
+            while (true) {
+                if (u == sink) {
+                    double bottleneck = Double.POSITIVE_INFINITY;
+                    int saturated = 0;
+                    for (int k = 0; k < depth; k++) {
+                        double residual = residuo(path[k]);
+                        if (residual < bottleneck) {
+                            bottleneck = residual;
+                            saturated = k;
+                        }
+                    }
+                    for (int k = 0; k < depth; k++) {
+                        flow[path[k]] += bottleneck;
+                        flow[rev[path[k]]] -= bottleneck;
+                    }
+                    total += bottleneck;
+                    // Retroceder hasta la cola del primer arco saturado
+                    depth = saturated;
+                    u = saturated == 0 ? source : to[path[saturated - 1]];
+                    continue;
+                }
+
+                boolean advanced = false;
+                for (; next[u] < start[u + 1]; next[u]++) {
+                    int a = next[u];
+                    int v = to[a];
+                    if (level[v] == level[u] + 1 && residuo(a) > EPSILON) {
+                        path[depth++] = a;
+                        u = v;
+                        advanced = true;
+                        break;
+                    }
+                }
+                if (advanced) {
+                    continue;
+                }
+
+                // Sin salida: se descarta el nodo y se avanza el puntero del anterior
+                if (u == source) {
+                    return total;
+                }
+                level[u] = -1;
+                depth--;
+                u = depth == 0 ? source : to[path[depth - 1]];
+                next[u]++;
+            }
+        }
+
+        /**
+         * Flujo por ruta y corte mínimo (la última BFS dejó marcados los alcanzables)
+         */
+        private Resultado armarResultado(double total, int phases) {
+            double[] routeFlow = new double[snapshot.numeroRutas()];
+            boolean[] inCut = new boolean[snapshot.numeroRutas()];
+            int cutCount = 0;
+            int[] limitingSources = new int[sources.length];
+            int[] limitingSinks = new int[sinks.length];
+            int sourceCount = 0;
+            int sinkCount = 0;
+
+            for (int u = 0; u < nodes; u++) {
+                for (int a = start[u]; a < start[u + 1]; a++) {
+                    int v = to[a];
+                    int route = arcRoute[a];
+                    if (route >= 0 && u == snapshot.origenRuta(route)) {
+                        routeFlow[route] = flow[a];
+                    }
+                    if (level[u] == -1 || level[v] != -1 || cap[a] <= 0.0) {
+                        continue; // Solo arcos originales que salen del lado de la fuente
+                    }
+                    if (route >= 0) {
+                        if (!inCut[route]) {
+                            inCut[route] = true;
+                            cutCount++;
+                        }
+                    } else if (u == source) {
+                        limitingSources[sourceCount++] = -route - 1;
+                    } else if (v == sink) {
+                        limitingSinks[sinkCount++] = -route - 1;
+                    }
+                }
+            }
+
+            int[] cut = new int[cutCount];
+            int k = 0;
+            for (int r = 0; r < inCut.length; r++) {
+                if (inCut[r]) {
+                    cut[k++] = r;
+                }
+            }
+            return new Resultado(total, false, routeFlow, cut, Arrays.copyOf(limitingSources, sourceCount),
+                    Arrays.copyOf(limitingSinks, sinkCount), phases);
+        }
+    }
+}
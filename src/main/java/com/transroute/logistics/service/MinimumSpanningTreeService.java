@@ -0,0 +1,530 @@
+package com.transroute.logistics.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.stream.IntStream;
+
+/**
+ * Motor de Árbol de Recubrimiento Mínimo para redes grandes
+ *
+ * Trabaja sobre arreglos primitivos de aristas (origen, destino, peso) sin objetos Edge
+ * ni comparadores con boxing, y con un Union-Find de find iterativo (compresión por mitades).
+ *
+ * - Filter-Kruskal: particiona las aristas alrededor de un pivote como quicksort, resuelve
+ *   primero las livianas y descarta de las pesadas las que ya unen vértices conectados antes
+ *   de seguir; solo se ordenan tramos pequeños. Los tramos pendientes van en una pila explícita
+ * - Borůvka paralelo: en cada ronda cada componente elige su arista más liviana. El recorrido
+ *   de aristas se reparte en tramos en el pool de cómputo y el mínimo por componente se
+ *   actualiza con CAS; el mismo recorrido compacta las aristas que siguen cruzando componentes
+ *
+ * Ambos devuelven un bosque de recubrimiento mínimo si el grafo no es conexo.
+ * Los empates se resuelven por índice de arista, lo que garantiza que Borůvka no forme ciclos.
+ */
+@Service
+public class MinimumSpanningTreeService {
+
+    /** A partir de este número de aristas conviene el motor en lugar de Kruskal/Prim clásicos */
+    public static final int UMBRAL_MOTOR_ARISTAS = 50_000;
+
+    /** A partir de este número de aristas se usa Borůvka paralelo (si hay más de un hilo) */
+    public static final int UMBRAL_BORUVKA_ARISTAS = 500_000;
+
+    /** Tramos que se ordenan directamente en filter-Kruskal */
+    private static final int TRAMO_BASE = 2048;
+
+    private static final int TRAMOS_POR_HILO = 4;
+
+    @Autowired
+    private ForkJoinPool graphComputePool;
+
+    /**
+     * Estrategias del motor
+     */
+    public enum Estrategia {
+        FILTER_KRUSKAL("Filter-Kruskal", "O(E + V log V log(E/V)) esperado"),
+        BORUVKA_PARALELO("Borůvka paralelo", "O(E log V / p) con p hilos");
+
+        public final String nombre;
+        public final String complejidad;
+
+        Estrategia(String nombre, String complejidad) {
+            this.nombre = nombre;
+            this.complejidad = complejidad;
+        }
+    }
+
+    /**
+     * Resultado: índices de las aristas elegidas, su costo total y la estrategia usada
+     */
+    public static class ResultadoMST {
+        public final int[] aristas;
+        public final double costoTotal;
+        public final Estrategia estrategia;
+
+        public ResultadoMST(int[] aristas, double costoTotal, Estrategia estrategia) {
+            this.aristas = aristas;
+            this.costoTotal = costoTotal;
+            this.estrategia = estrategia;
+        }
+    }
+
+    /**
+     * Indica si un grafo es lo bastante grande para usar el motor
+     */
+    public boolean conviene(int aristas) {
+        return aristas >= UMBRAL_MOTOR_ARISTAS;
+    }
+
+    /**
+     * Elige la estrategia según el tamaño del grafo y los hilos disponibles
+     */
+    public Estrategia elegirEstrategia(int aristas) {
+        return aristas >= UMBRAL_BORUVKA_ARISTAS && graphComputePool.getParallelism() > 1
+                ? Estrategia.BORUVKA_PARALELO
+                : Estrategia.FILTER_KRUSKAL;
+    }
+
+    /**
+     * MST de la instantánea: una arista no dirigida por ruta activa, índices de ruta en el resultado
+     */
+    public ResultadoMST calcular(GraphSnapshot snapshot) {
+        int m = snapshot.numeroRutas();
+        int[] from = new int[m];
+        int[] to = new int[m];
+        double[] weight = new double[m];
+        for (int r = 0; r < m; r++) {
+            from[r] = snapshot.origenRuta(r);
+            to[r] = snapshot.destinoRuta(r);
+            // Las rutas fuera del CSR (cerradas o no permitidas) se tratan como lazos
+            if (!snapshot.rutaIncluida(r)) {
+                to[r] = from[r];
+            }
+            weight[r] = snapshot.pesoRuta(r);
+        }
+        return calcular(snapshot.numeroVertices(), from, to, weight);
+    }
+
+    /**
+     * MST de una lista de aristas, índices de la lista en el resultado
+     */
+    public ResultadoMST calcular(int vertices, List<GraphService.Edge> edges) {
+        int m = edges.size();
+        int[] from = new int[m];
+        int[] to = new int[m];
+        double[] weight = new double[m];
+        for (int i = 0; i < m; i++) {
+            GraphService.Edge edge = edges.get(i);
+            from[i] = edge.from;
+            to[i] = edge.to;
+            weight[i] = edge.weight;
+        }
+        return calcular(vertices, from, to, weight);
+    }
+
+    /**
+     * MST sobre arreglos paralelos de aristas con la estrategia adecuada al tamaño
+     */
+    public ResultadoMST calcular(int vertices, int[] from, int[] to, double[] weight) {
+        Estrategia estrategia = elegirEstrategia(from.length);
+        int[] selected = estrategia == Estrategia.BORUVKA_PARALELO
+                ? boruvkaParalelo(vertices, from, to, weight)
+                : filterKruskal(vertices, from, to, weight);
+        double total = 0.0;
+        for (int e : selected) {
+            total += weight[e];
+        }
+        return new ResultadoMST(selected, total, estrategia);
+    }
+
+    /**
+     * Convierte el resultado calculado sobre una lista de aristas en las aristas elegidas
+     */
+    public List<GraphService.Edge> comoAristas(ResultadoMST resultado, List<GraphService.Edge> edges) {
+        List<GraphService.Edge> mst = new ArrayList<>(resultado.aristas.length);
+        for (int e : resultado.aristas) {
+            mst.add(edges.get(e));
+        }
+        return mst;
+    }
+
+    /**
+     * Convierte el resultado calculado sobre la instantánea en aristas
+     */
+    public List<GraphService.Edge> comoAristas(ResultadoMST resultado, GraphSnapshot snapshot) {
+        List<GraphService.Edge> mst = new ArrayList<>(resultado.aristas.length);
+        for (int r : resultado.aristas) {
+            mst.add(new GraphService.Edge(snapshot.origenRuta(r), snapshot.destinoRuta(r), snapshot.pesoRuta(r)));
+        }
+        return mst;
+    }
+
+    // ==========================================
+    // FILTER-KRUSKAL
+    // ==========================================
+
+    /**
+     * Filter-Kruskal secuencial
+     *
+     * @return Índices de las aristas del bosque de recubrimiento mínimo
+     */
+    public int[] filterKruskal(int vertices, int[] from, int[] to, double[] weight) {
+        int m = from.length;
+        int[] ids = new int[m];
+        double[] keys = new double[m];
+        int count = 0;
+        for (int e = 0; e < m; e++) {
+            if (from[e] != to[e]) { // Los lazos nunca forman parte del árbol
+                ids[count] = e;
+                keys[count] = weight[e];
+                count++;
+            }
+        }
+
+        UnionFind uf = new UnionFind(vertices);
+        int[] result = new int[Math.max(vertices - 1, 0)];
+        int taken = 0;
+
+        // Pila de tramos [lo, hi) pendientes; filtrar = 1 si deben filtrarse antes de procesarse
+        int[] stack = new int[96];
+        int top = 0;
+        stack[top++] = 0;
+        stack[top++] = count;
+        stack[top++] = 0;
+
+        while (top > 0 && taken < result.length) {
+            int filter = stack[--top];
+            int hi = stack[--top];
+            int lo = stack[--top];
+
+            if (filter == 1) {
+                hi = filtrar(uf, from, to, ids, keys, lo, hi);
+            }
+            if (hi - lo <= TRAMO_BASE) {
+                ordenar(keys, ids, lo, hi - 1);
+                for (int i = lo; i < hi && taken < result.length; i++) {
+                    int e = ids[i];
+                    if (uf.unir(from[e], to[e])) {
+                        result[taken++] = e;
+                    }
+                }
+                continue;
+            }
+
+            double pivot = pivote(keys, lo, hi);
+            int split = particionar(keys, ids, lo, hi, pivot);
+            if (split == hi) {
+                // Ninguna arista supera al pivote (pesos repetidos): se resuelve el tramo completo
+                ordenar(keys, ids, lo, hi - 1);
+                for (int i = lo; i < hi && taken < result.length; i++) {
+                    int e = ids[i];
+                    if (uf.unir(from[e], to[e])) {
+                        result[taken++] = e;
+                    }
+                }
+                continue;
+            }
+
+            if (top + 6 > stack.length) {
+                stack = Arrays.copyOf(stack, stack.length * 2);
+            }
+            // Se apilan primero las pesadas para procesar antes las livianas
+            stack[top++] = split;
+            stack[top++] = hi;
+            stack[top++] = 1;
+            stack[top++] = lo;
+            stack[top++] = split;
+            stack[top++] = 0;
+        }
+
+        return Arrays.copyOf(result, taken);
+    }
+
+    /**
+     * Deja al inicio del tramo solo las aristas que aún unen componentes distintas
+     *
+     * @return Nuevo fin del tramo
+     */
+    private static int filtrar(UnionFind uf, int[] from, int[] to, int[] ids, double[] keys, int lo, int hi) {
+        int kept = lo;
+        for (int i = lo; i < hi; i++) {
+            int e = ids[i];
+            if (uf.buscar(from[e]) != uf.buscar(to[e])) {
+                ids[kept] = e;
+                keys[kept] = keys[i];
+                kept++;
+            }
+        }
+        return kept;
+    }
+
+    /**
+     * Mediana de tres claves al azar del tramo
+     */
+    private static double pivote(double[] keys, int lo, int hi) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        double a = keys[random.nextInt(lo, hi)];
+        double b = keys[random.nextInt(lo, hi)];
+        double c = keys[random.nextInt(lo, hi)];
+        return Math.max(Math.min(a, b), Math.min(Math.max(a, b), c));
+    }
+
+    /**
+     * Deja las claves <= pivote al inicio del tramo
+     *
+     * @return Primera posición con clave > pivote
+     */
+    private static int particionar(double[] keys, int[] ids, int lo, int hi, double pivot) {
+        int i = lo;
+        int j = hi - 1;
+        while (true) {
+            while (i <= j && keys[i] <= pivot) {
+                i++;
+            }
+            while (i <= j && keys[j] > pivot) {
+                j--;
+            }
+            if (i >= j) {
+                return i;
+            }
+            intercambiar(keys, ids, i, j);
+            i++;
+            j--;
+        }
+    }
+
+    /**
+     * Quicksort sobre arreglos paralelos [lo, hi] (recursión solo sobre la mitad menor)
+     */
+    private static void ordenar(double[] keys, int[] ids, int lo, int hi) {
+        while (hi - lo > 16) {
+            double pivot = keys[(lo + hi) >>> 1];
+            int i = lo;
+            int j = hi;
+            while (i <= j) {
+                while (keys[i] < pivot) {
+                    i++;
+                }
+                while (keys[j] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    intercambiar(keys, ids, i, j);
+                    i++;
+                    j--;
+                }
+            }
+            if (j - lo < hi - i) {
+                ordenar(keys, ids, lo, j);
+                lo = i;
+            } else {
+                ordenar(keys, ids, i, hi);
+                hi = j;
+            }
+        }
+        // Inserción para tramos cortos
+        for (int i = lo + 1; i <= hi; i++) {
+            double key = keys[i];
+            int id = ids[i];
+            int j = i - 1;
+            while (j >= lo && keys[j] > key) {
+                keys[j + 1] = keys[j];
+                ids[j + 1] = ids[j];
+                j--;
+            }
+            keys[j + 1] = key;
+            ids[j + 1] = id;
+        }
+    }
+
+    private static void intercambiar(double[] keys, int[] ids, int i, int j) {
+        double key = keys[i];
+        keys[i] = keys[j];
+        keys[j] = key;
+        int id = ids[i];
+        ids[i] = ids[j];
+        ids[j] = id;
+    }
+
+    // ==========================================
+    // BORŮVKA PARALELO
+    // ==========================================
+
+    /**
+     * Borůvka con el recorrido de aristas repartido en el pool de cómputo
+     *
+     * @return Índices de las aristas del bosque de recubrimiento mínimo
+     */
+    public int[] boruvkaParalelo(int vertices, int[] from, int[] to, double[] weight) {
+        int[] live = new int[from.length];
+        int liveCount = 0;
+        for (int e = 0; e < from.length; e++) {
+            if (from[e] != to[e]) {
+                live[liveCount++] = e;
+            }
+        }
+
+        UnionFind uf = new UnionFind(vertices);
+        int[] component = new int[vertices];
+        for (int v = 0; v < vertices; v++) {
+            component[v] = v;
+        }
+        AtomicIntegerArray cheapest = new AtomicIntegerArray(vertices);
+        int[] result = new int[Math.max(vertices - 1, 0)];
+        int taken = 0;
+
+        int chunks = Math.max(1, graphComputePool.getParallelism() * TRAMOS_POR_HILO);
+        int[] kept = new int[chunks];
+
+        while (liveCount > 0 && taken < result.length) {
+            for (int v = 0; v < vertices; v++) {
+                if (component[v] == v) {
+                    cheapest.set(v, -1);
+                }
+            }
+
+            // Arista más liviana por componente y compactación de las aristas internas
+            int total = liveCount;
+            int chunkSize = (total + chunks - 1) / chunks;
+            int[] edges = live;
+            ejecutar(() -> IntStream.range(0, chunks).parallel().forEach(c -> {
+                int lo = Math.min(c * chunkSize, total);
+                int hi = Math.min(lo + chunkSize, total);
+                kept[c] = recorrerTramo(edges, lo, hi, from, to, weight, component, cheapest);
+            }));
+
+            liveCount = 0;
+            for (int c = 0; c < chunks; c++) {
+                int lo = Math.min(c * chunkSize, total);
+                System.arraycopy(live, lo, live, liveCount, kept[c]);
+                liveCount += kept[c];
+            }
+            if (liveCount == 0) {
+                break;
+            }
+
+            // Unión de cada componente con su arista mínima (pocas componentes: secuencial)
+            for (int v = 0; v < vertices; v++) {
+                if (component[v] != v) {
+                    continue;
+                }
+                int e = cheapest.get(v);
+                if (e != -1 && uf.unir(from[e], to[e])) {
+                    result[taken++] = e;
+                }
+            }
+            for (int v = 0; v < vertices; v++) {
+                component[v] = uf.buscar(v);
+            }
+        }
+
+        return Arrays.copyOf(result, taken);
+    }
+
+    /**
+     * Recorre un tramo de aristas vivas: conserva (al inicio del tramo) las que cruzan
+     * componentes y propone cada una como mínima de sus dos componentes
+     *
+     * @return Cantidad de aristas conservadas
+     */
+    private static int recorrerTramo(int[] live, int lo, int hi, int[] from, int[] to, double[] weight,
+                                     int[] component, AtomicIntegerArray cheapest) {
+        int kept = lo;
+        for (int i = lo; i < hi; i++) {
+            int e = live[i];
+            int cu = component[from[e]];
+            int cv = component[to[e]];
+            if (cu == cv) {
+                continue;
+            }
+            live[kept++] = e;
+            proponer(cheapest, cu, e, weight);
+            proponer(cheapest, cv, e, weight);
+        }
+        return kept - lo;
+    }
+
+    /**
+     * CAS-min sobre la arista más liviana de una componente, desempatando por índice
+     */
+    private static void proponer(AtomicIntegerArray cheapest, int component, int edge, double[] weight) {
+        while (true) {
+            int current = cheapest.get(component);
+            if (current != -1 && !(weight[edge] < weight[current]
+                    || (weight[edge] == weight[current] && edge < current))) {
+                return;
+            }
+            if (cheapest.compareAndSet(component, current, edge)) {
+                return;
+            }
+        }
+    }
+
+    private void ejecutar(Runnable task) {
+        try {
+            graphComputePool.submit(task).get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Cálculo del MST interrumpido", e);
+        } catch (ExecutionException e) {
+            throw new IllegalStateException("Error calculando el MST", e.getCause());
+        }
+    }
+
+    // ==========================================
+    // CLASES INTERNAS AUXILIARES
+    // ==========================================
+
+    /**
+     * Union-Find con unión por rango y find iterativo con compresión por mitades
+     */
+    static final class UnionFind {
+        private final int[] parent;
+        private final byte[] rank;
+
+        UnionFind(int vertices) {
+            parent = new int[vertices];
+            rank = new byte[vertices];
+            for (int i = 0; i < vertices; i++) {
+                parent[i] = i;
+            }
+        }
+
+        int buscar(int x) {
+            while (parent[x] != x) {
+                parent[x] = parent[parent[x]];
+                x = parent[x];
+            }
+            return x;
+        }
+
+        /**
+         * Une las componentes de x e y
+         *
+         * @return false si ya estaban unidas
+         */
+        boolean unir(int x, int y) {
+            int rootX = buscar(x);
+            int rootY = buscar(y);
+            if (rootX == rootY) {
+                return false;
+            }
+            if (rank[rootX] < rank[rootY]) {
+                parent[rootX] = rootY;
+            } else if (rank[rootX] > rank[rootY]) {
+                parent[rootY] = rootX;
+            } else {
+                parent[rootY] = rootX;
+                rank[rootX]++;
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,333 @@
+package com.transroute.logistics.service;
+
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * Servicio de ruteo multicriterio (frente de Pareto) con búsqueda de etiquetas
+ *
+ * Cada etiqueta es un camino parcial con un vector de costos (uno por criterio).
+ * Una etiqueta domina a otra si no es peor en ningún criterio y es mejor en alguno.
+ *
+ * - Las etiquetas se extraen por la suma de sus costos más las cotas inferiores hacia el
+ *   destino (cotas exactas y consistentes, como en NAMOA*): la búsqueda avanza dirigida
+ *   al destino y una etiqueta extraída nunca es dominada por otra generada después
+ * - Poda por nodo: se descarta la etiqueta dominada por otra del mismo vértice y se
+ *   eliminan las que la nueva domina
+ * - Poda por destino: con cotas inferiores exactas por criterio (Dijkstra inverso),
+ *   se descarta la etiqueta cuya cota ya es dominada por una solución encontrada
+ * - Conjuntos acotados: cada vértice guarda como máximo maxEtiquetasPorNodo etiquetas;
+ *   si se alcanza el límite el frente devuelto se marca como aproximado
+ *
+ * Las etiquetas viven en arreglos primitivos crecientes (sin un objeto por etiqueta).
+ */
+@Service
+public class ParetoRoutingService {
+
+    public static final int MAX_ETIQUETAS_TOTALES = 2_000_000;
+
+    /**
+     * Frente de Pareto: caminos no dominados y si la búsqueda tuvo que recortar etiquetas
+     */
+    public static class FrentePareto {
+        public final List<SolucionPareto> soluciones;
+        public final boolean aproximado;
+        public final int etiquetasCreadas;
+
+        public FrentePareto(List<SolucionPareto> soluciones, boolean aproximado, int etiquetasCreadas) {
+            this.soluciones = soluciones;
+            this.aproximado = aproximado;
+            this.etiquetasCreadas = etiquetasCreadas;
+        }
+    }
+
+    /**
+     * Camino del frente con su valor en cada criterio (mismo orden que los criterios pedidos)
+     */
+    public static class SolucionPareto {
+        public final List<Integer> path;
+        public final List<Integer> routes;
+        public final double[] valores;
+
+        public SolucionPareto(List<Integer> path, List<Integer> routes, double[] valores) {
+            this.path = path;
+            this.routes = routes;
+            this.valores = valores;
+        }
+    }
+
+    /**
+     * Calcula el frente de Pareto entre origen y destino
+     *
+     * @param snapshot Instantánea del grafo (se usan sus vistas por métrica)
+     * @param source Vértice origen
+     * @param destination Vértice destino
+     * @param criterios Criterios a minimizar (al menos uno)
+     * @param maxEtiquetasPorNodo Máximo de etiquetas no dominadas por vértice
+     */
+    public FrentePareto calcularFrente(GraphSnapshot snapshot, int source, int destination,
+                                       List<GraphSnapshot.Metrica> criterios, int maxEtiquetasPorNodo) {
+        int d = criterios.size();
+        GraphSnapshot[] views = new GraphSnapshot[d];
+        double[][] lowerBounds = new double[d][];
+        for (int c = 0; c < d; c++) {
+            views[c] = snapshot.conMetrica(criterios.get(c));
+            lowerBounds[c] = cotasHaciaDestino(views[c], destination);
+        }
+
+        if (lowerBounds[0][source] == Double.MAX_VALUE) {
+            return new FrentePareto(new ArrayList<>(), false, 0); // El destino no es alcanzable
+        }
+
+        LabelStore labels = new LabelStore(d, snapshot.numeroVertices(), maxEtiquetasPorNodo);
+        IndexedDaryHeap queue = new IndexedDaryHeap(1024);
+        double[] candidate = new double[d];
+        double[] bound = new double[d];
+
+        Arrays.fill(candidate, 0.0);
+        int first = labels.crear(source, -1, -1, candidate);
+        labels.agregarABolsa(source, first);
+        queue.insertarODisminuir(first, suma(lowerBounds, source, candidate));
+
+        while (!queue.vacio()) {
+            int label = queue.extraerMinimo();
+            if (labels.dead[label]) {
+                continue;
+            }
+            int u = labels.vertex[label];
+            if (u == destination) {
+                continue; // Solución: no se expande
+            }
+            if (labels.dominadaPorDestino(label, destination, lowerBounds, bound)) {
+                continue; // Una solución encontrada después de crearla ya la domina
+            }
+
+            for (int e = snapshot.inicioAristas(u); e < snapshot.finAristas(u); e++) {
+                int v = snapshot.destino(e);
+                // Los ciclos no necesitan control explícito: con pesos no negativos
+                // la etiqueta que vuelve a un vértice queda dominada por su antecesora
+                if (lowerBounds[0][v] == Double.MAX_VALUE) {
+                    continue;
+                }
+                for (int c = 0; c < d; c++) {
+                    candidate[c] = labels.costo(label, c) + views[c].peso(e);
+                    bound[c] = candidate[c] + lowerBounds[c][v];
+                }
+
+                // Poda por destino y por vértice
+                if (labels.dominadoEnBolsa(destination, bound) || labels.dominadoEnBolsa(v, candidate)) {
+                    continue;
+                }
+                if ((labels.bolsaLlena(v) && !labels.dominaAlguna(v, candidate))
+                        || labels.size >= MAX_ETIQUETAS_TOTALES) {
+                    labels.recortado = true;
+                    continue;
+                }
+
+                labels.eliminarDominadas(v, candidate);
+                int created = labels.crear(v, label, snapshot.ruta(e), candidate);
+                labels.agregarABolsa(v, created);
+                queue.asegurarCapacidad(labels.size);
+                queue.insertarODisminuir(created, suma(bound));
+            }
+        }
+
+        List<SolucionPareto> soluciones = new ArrayList<>();
+        for (int i = 0; i < labels.bagCount[destination]; i++) {
+            soluciones.add(labels.reconstruir(labels.bags[destination][i]));
+        }
+        soluciones.sort(Comparator.comparingDouble((SolucionPareto s) -> s.valores[0]));
+        return new FrentePareto(soluciones, labels.recortado, labels.size);
+    }
+
+    private static double suma(double[] values) {
+        double sum = 0.0;
+        for (double value : values) {
+            sum += value;
+        }
+        return sum;
+    }
+
+    private static double suma(double[][] lowerBounds, int v, double[] costs) {
+        double sum = 0.0;
+        for (int c = 0; c < costs.length; c++) {
+            sum += costs[c] + lowerBounds[c][v];
+        }
+        return sum;
+    }
+
+    /**
+     * Distancia exacta de cada vértice al destino en un criterio (Dijkstra inverso)
+     */
+    private double[] cotasHaciaDestino(GraphSnapshot view, int destination) {
+        int n = view.numeroVertices();
+        DijkstraWorkspace ws = DijkstraWorkspace.obtener(DijkstraWorkspace.ATRAS, n);
+        IndexedDaryHeap heap = ws.heap();
+        ws.fijar(destination, 0.0, -1);
+        heap.insertarODisminuir(destination, 0.0);
+        while (!heap.vacio()) {
+            int u = heap.extraerMinimo();
+            ws.asentar(u);
+            double du = ws.distancia(u);
+            for (int e = view.inicioAristasEntrantes(u); e < view.finAristasEntrantes(u); e++) {
+                int v = view.origenEntrante(e);
+                double candidate = du + view.pesoEntrante(e);
+                if (!ws.asentado(v) && candidate < ws.distancia(v)) {
+                    ws.fijar(v, candidate, u);
+                    heap.insertarODisminuir(v, candidate);
+                }
+            }
+        }
+        double[] bounds = new double[n];
+        for (int v = 0; v < n; v++) {
+            bounds[v] = ws.distancia(v);
+        }
+        return bounds;
+    }
+
+    // ==========================================
+    // CLASES INTERNAS AUXILIARES
+    // ==========================================
+
+    /**
+     * Etiquetas en arreglos paralelos crecientes y bolsas de etiquetas vivas por vértice
+     */
+    private static class LabelStore {
+        final int criteria;
+        final int maxPerNode;
+        int size;
+        boolean recortado;
+
+        int[] vertex = new int[1024];
+        int[] parent = new int[1024];
+        int[] route = new int[1024];
+        boolean[] dead = new boolean[1024];
+        double[] costs;
+
+        final int[][] bags;
+        final int[] bagCount;
+
+        LabelStore(int criteria, int vertices, int maxPerNode) {
+            this.criteria = criteria;
+            this.maxPerNode = maxPerNode;
+            this.costs = new double[1024 * criteria];
+            this.bags = new int[vertices][];
+            this.bagCount = new int[vertices];
+        }
+
+        int crear(int v, int parentLabel, int routeIndex, double[] values) {
+            if (size == vertex.length) {
+                int capacity = size * 2;
+                vertex = Arrays.copyOf(vertex, capacity);
+                parent = Arrays.copyOf(parent, capacity);
+                route = Arrays.copyOf(route, capacity);
+                dead = Arrays.copyOf(dead, capacity);
+                costs = Arrays.copyOf(costs, capacity * criteria);
+            }
+            int label = size++;
+            vertex[label] = v;
+            parent[label] = parentLabel;
+            route[label] = routeIndex;
+            System.arraycopy(values, 0, costs, label * criteria, criteria);
+            return label;
+        }
+
+        double costo(int label, int criterion) {
+            return costs[label * criteria + criterion];
+        }
+
+        void agregarABolsa(int v, int label) {
+            if (bags[v] == null) {
+                bags[v] = new int[Math.min(4, maxPerNode)];
+            } else if (bagCount[v] == bags[v].length) {
+                bags[v] = Arrays.copyOf(bags[v], Math.min(bagCount[v] * 2, maxPerNode));
+            }
+            bags[v][bagCount[v]++] = label;
+        }
+
+        boolean bolsaLlena(int v) {
+            return bagCount[v] >= maxPerNode;
+        }
+
+        /**
+         * Alguna etiqueta viva del vértice es menor o igual en todos los criterios
+         */
+        boolean dominadoEnBolsa(int v, double[] values) {
+            for (int i = 0; i < bagCount[v]; i++) {
+                int base = bags[v][i] * criteria;
+                boolean dominates = true;
+                for (int c = 0; c < criteria && dominates; c++) {
+                    dominates = costs[base + c] <= values[c];
+                }
+                if (dominates) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        /**
+         * Quita de la bolsa del vértice las etiquetas dominadas por los valores dados
+         */
+        void eliminarDominadas(int v, double[] values) {
+            int kept = 0;
+            for (int i = 0; i < bagCount[v]; i++) {
+                int label = bags[v][i];
+                int base = label * criteria;
+                boolean dominated = true;
+                for (int c = 0; c < criteria && dominated; c++) {
+                    dominated = values[c] <= costs[base + c];
+                }
+                if (dominated) {
+                    dead[label] = true;
+                } else {
+                    bags[v][kept++] = label;
+                }
+            }
+            bagCount[v] = kept;
+        }
+
+        /**
+         * Cota de la etiqueta (costos + cotas hacia el destino) dominada por una solución
+         */
+        boolean dominadaPorDestino(int label, int destination, double[][] lowerBounds, double[] bound) {
+            int v = vertex[label];
+            for (int c = 0; c < criteria; c++) {
+                bound[c] = costs[label * criteria + c] + lowerBounds[c][v];
+            }
+            return dominadoEnBolsa(destination, bound);
+        }
+
+        /**
+         * La nueva etiqueta domina al menos a una de la bolsa (y por lo tanto le hará lugar)
+         */
+        boolean dominaAlguna(int v, double[] values) {
+            for (int i = 0; i < bagCount[v]; i++) {
+                int base = bags[v][i] * criteria;
+                boolean dominated = true;
+                for (int c = 0; c < criteria && dominated; c++) {
+                    dominated = values[c] <= costs[base + c];
+                }
+                if (dominated) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        SolucionPareto reconstruir(int label) {
+            List<Integer> path = new ArrayList<>();
+            List<Integer> routes = new ArrayList<>();
+            for (int l = label; l != -1; l = parent[l]) {
+                path.add(vertex[l]);
+                if (route[l] != -1) {
+                    routes.add(route[l]);
+                }
+            }
+            Collections.reverse(path);
+            Collections.reverse(routes);
+            return new SolucionPareto(path, routes, Arrays.copyOfRange(costs, label * criteria, (label + 1) * criteria));
+        }
+    }
+}
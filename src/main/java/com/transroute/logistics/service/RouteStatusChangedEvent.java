@@ -0,0 +1,33 @@
+package com.transroute.logistics.service;
+
+/**
+ * Evento publicado cuando cambia el estado de una sola ruta
+ * La nueva instantánea deriva de la anterior y conserva sus índices, por lo que los oyentes
+ * pueden actualizar sus estructuras de forma incremental; los que solo escuchan
+ * GraphSnapshotUpdatedEvent lo reciben como una instantánea nueva cualquiera
+ */
+public class RouteStatusChangedEvent extends GraphSnapshotUpdatedEvent {
+
+    private final GraphSnapshot previous;
+    private final int route;
+    private final boolean active;
+
+    public RouteStatusChangedEvent(GraphSnapshot snapshot, GraphSnapshot previous, int route, boolean active) {
+        super(snapshot);
+        this.previous = previous;
+        this.route = route;
+        this.active = active;
+    }
+
+    public GraphSnapshot getPrevious() {
+        return previous;
+    }
+
+    public int getRoute() {
+        return route;
+    }
+
+    public boolean isActive() {
+        return active;
+    }
+}
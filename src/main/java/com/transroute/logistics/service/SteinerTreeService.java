@@ -0,0 +1,246 @@
+package com.transroute.logistics.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Servicio de árbol de Steiner aproximado (algoritmo de Mehlhorn)
+ *
+ * Conecta un conjunto de centros terminales usando cualquier centro intermedio de la red:
+ * 1. Un solo Dijkstra multi-origen desde todos los terminales asigna a cada vértice su
+ *    terminal más cercano (regiones de Voronoi) y el árbol de caminos hacia él
+ * 2. Cada ruta entre regiones distintas propone una arista entre sus dos terminales con
+ *    peso d(u) + peso + d(v)
+ * 3. El MST de ese grafo de terminales se expande a caminos reales de la red
+ * 4. Se toma el MST del subgrafo resultante y se podan las hojas que no son terminales
+ *
+ * El resultado cuesta a lo sumo 2(1 - 1/t) veces el árbol de Steiner óptimo.
+ * Complejidad: O((V + E) log V), independiente de la cantidad de terminales t
+ */
+@Service
+public class SteinerTreeService {
+
+    @Autowired
+    private MinimumSpanningTreeService minimumSpanningTreeService;
+
+    /**
+     * Árbol resultante: rutas usadas, costo, centros intermedios y si se conectaron todos los terminales
+     */
+    public static class ArbolSteiner {
+        public final int[] rutas;
+        public final double costoTotal;
+        public final List<Integer> intermedios;
+        public final boolean conexo;
+
+        public ArbolSteiner(int[] rutas, double costoTotal, List<Integer> intermedios, boolean conexo) {
+            this.rutas = rutas;
+            this.costoTotal = costoTotal;
+            this.intermedios = intermedios;
+            this.conexo = conexo;
+        }
+    }
+
+    /**
+     * Calcula el árbol de Steiner aproximado
+     *
+     * @param snapshot Instantánea no dirigida (con la métrica ya aplicada)
+     * @param terminales Vértices a conectar (sin repetir)
+     * @return Árbol (bosque si algunos terminales están en componentes distintas)
+     */
+    public ArbolSteiner construir(GraphSnapshot snapshot, int[] terminales) {
+        int n = snapshot.numeroVertices();
+        int t = terminales.length;
+        int[] terminalIndex = new int[n];
+        Arrays.fill(terminalIndex, -1);
+        for (int i = 0; i < t; i++) {
+            terminalIndex[terminales[i]] = i;
+        }
+
+        // 1. Dijkstra multi-origen: región (terminal más cercano) y ruta hacia el padre
+        double[] dist = new double[n];
+        int[] region = new int[n];
+        int[] parent = new int[n];
+        int[] parentRoute = new int[n];
+        Arrays.fill(dist, Double.MAX_VALUE);
+        Arrays.fill(region, -1);
+        IndexedDaryHeap heap = new IndexedDaryHeap(n);
+        for (int i = 0; i < t; i++) {
+            int v = terminales[i];
+            dist[v] = 0.0;
+            region[v] = i;
+            parent[v] = -1;
+            parentRoute[v] = -1;
+            heap.insertarODisminuir(v, 0.0);
+        }
+        while (!heap.vacio()) {
+            int u = heap.extraerMinimo();
+            double du = dist[u];
+            for (int e = snapshot.inicioAristas(u); e < snapshot.finAristas(u); e++) {
+                int v = snapshot.destino(e);
+                double candidate = du + snapshot.peso(e);
+                if (candidate < dist[v]) {
+                    dist[v] = candidate;
+                    region[v] = region[u];
+                    parent[v] = u;
+                    parentRoute[v] = snapshot.ruta(e);
+                    heap.insertarODisminuir(v, candidate);
+                }
+            }
+        }
+
+        // 2. Aristas entre regiones (una por ruta que cruza la frontera)
+        int m = snapshot.numeroRutas();
+        int[] from = new int[m];
+        int[] to = new int[m];
+        double[] weight = new double[m];
+        int[] bridge = new int[m];
+        int count = 0;
+        for (int r = 0; r < m; r++) {
+            if (!snapshot.rutaIncluida(r)) {
+                continue;
+            }
+            int u = snapshot.origenRuta(r);
+            int v = snapshot.destinoRuta(r);
+            if (region[u] == -1 || region[v] == -1 || region[u] == region[v]) {
+                continue;
+            }
+            from[count] = region[u];
+            to[count] = region[v];
+            weight[count] = dist[u] + snapshot.pesoRuta(r) + dist[v];
+            bridge[count] = r;
+            count++;
+        }
+
+        // 3. MST entre terminales y expansión a rutas de la red
+        int[] terminalTree = minimumSpanningTreeService.filterKruskal(t,
+                Arrays.copyOf(from, count), Arrays.copyOf(to, count), Arrays.copyOf(weight, count));
+        boolean[] used = new boolean[m];
+        List<Integer> selected = new ArrayList<>();
+        for (int i : terminalTree) {
+            int r = bridge[i];
+            marcar(r, used, selected);
+            for (int v = snapshot.origenRuta(r); parent[v] != -1 && region[v] != -1; v = parent[v]) {
+                if (!marcar(parentRoute[v], used, selected)) {
+                    break; // El resto del camino ya fue agregado
+                }
+            }
+            for (int v = snapshot.destinoRuta(r); parent[v] != -1 && region[v] != -1; v = parent[v]) {
+                if (!marcar(parentRoute[v], used, selected)) {
+                    break;
+                }
+            }
+        }
+
+        // 4. MST del subgrafo y poda de hojas no terminales
+        int[] rutas = podar(snapshot, mstDelSubgrafo(snapshot, selected), terminalIndex);
+
+        double total = 0.0;
+        boolean[] touched = new boolean[n];
+        for (int r : rutas) {
+            total += snapshot.pesoRuta(r);
+            touched[snapshot.origenRuta(r)] = true;
+            touched[snapshot.destinoRuta(r)] = true;
+        }
+        List<Integer> intermedios = new ArrayList<>();
+        for (int v = 0; v < n; v++) {
+            if (touched[v] && terminalIndex[v] == -1) {
+                intermedios.add(v);
+            }
+        }
+        return new ArbolSteiner(rutas, total, intermedios, terminalTree.length == t - 1);
+    }
+
+    private static boolean marcar(int route, boolean[] used, List<Integer> selected) {
+        if (used[route]) {
+            return false;
+        }
+        used[route] = true;
+        selected.add(route);
+        return true;
+    }
+
+    private int[] mstDelSubgrafo(GraphSnapshot snapshot, List<Integer> routes) {
+        int k = routes.size();
+        int[] from = new int[k];
+        int[] to = new int[k];
+        double[] weight = new double[k];
+        for (int i = 0; i < k; i++) {
+            int r = routes.get(i);
+            from[i] = snapshot.origenRuta(r);
+            to[i] = snapshot.destinoRuta(r);
+            weight[i] = snapshot.pesoRuta(r);
+        }
+        int[] tree = minimumSpanningTreeService.filterKruskal(snapshot.numeroVertices(), from, to, weight);
+        int[] result = new int[tree.length];
+        for (int i = 0; i < tree.length; i++) {
+            result[i] = routes.get(tree[i]);
+        }
+        return result;
+    }
+
+    /**
+     * Quita repetidamente las hojas que no son terminales (cola de hojas, tiempo lineal)
+     */
+    private static int[] podar(GraphSnapshot snapshot, int[] routes, int[] terminalIndex) {
+        int n = snapshot.numeroVertices();
+        int k = routes.length;
+
+        // Incidencias del árbol en formato CSR
+        int[] offsets = new int[n + 1];
+        for (int r : routes) {
+            offsets[snapshot.origenRuta(r) + 1]++;
+            offsets[snapshot.destinoRuta(r) + 1]++;
+        }
+        for (int v = 0; v < n; v++) {
+            offsets[v + 1] += offsets[v];
+        }
+        int[] incident = new int[2 * k];
+        int[] cursor = Arrays.copyOf(offsets, n);
+        for (int i = 0; i < k; i++) {
+            incident[cursor[snapshot.origenRuta(routes[i])]++] = i;
+            incident[cursor[snapshot.destinoRuta(routes[i])]++] = i;
+        }
+
+        int[] degree = new int[n];
+        int[] queue = new int[n];
+        int tail = 0;
+        for (int v = 0; v < n; v++) {
+            degree[v] = offsets[v + 1] - offsets[v];
+            if (degree[v] == 1 && terminalIndex[v] == -1) {
+                queue[tail++] = v;
+            }
+        }
+
+        boolean[] removed = new boolean[k];
+        for (int head = 0; head < tail; head++) {
+            int v = queue[head];
+            for (int j = offsets[v]; j < offsets[v + 1]; j++) {
+                int i = incident[j];
+                if (removed[i]) {
+                    continue;
+                }
+                removed[i] = true;
+                int u = snapshot.origenRuta(routes[i]) == v ? snapshot.destinoRuta(routes[i]) : snapshot.origenRuta(routes[i]);
+                degree[v]--;
+                degree[u]--;
+                if (degree[u] == 1 && terminalIndex[u] == -1) {
+                    queue[tail++] = u;
+                }
+                break;
+            }
+        }
+
+        int kept = 0;
+        int[] result = new int[k];
+        for (int i = 0; i < k; i++) {
+            if (!removed[i]) {
+                result[kept++] = routes[i];
+            }
+        }
+        return Arrays.copyOf(result, kept);
+    }
+}
@@ -0,0 +1,118 @@
+package com.transroute.logistics.service;
+
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+
+/**
+ * Servicio de ruteo dependiente del tiempo (llegada más temprana)
+ *
+ * El tiempo de viaje de cada ruta depende de la hora en que se entra a ella: su duración
+ * en flujo libre (métrica DURACION) se ajusta con el perfil de velocidad de su nivel de
+ * tráfico (TrafficSpeedProfile). Los perfiles cumplen FIFO, por lo que un Dijkstra sobre
+ * instantes de llegada es exacto.
+ *
+ * No se re-pondera el grafo por consulta: cada arista se evalúa solo al relajarla,
+ * con una búsqueda binaria sobre el perfil precalculado. Además se usa A* con la cota
+ * de gran círculo en flujo libre, que sigue siendo admisible porque el tráfico
+ * solo alarga los tiempos.
+ */
+@Service
+public class TimeDependentRoutingService {
+
+    /**
+     * Resultado de una consulta: camino, rutas, salida y llegada en minutos desde la medianoche
+     */
+    public static class ItinerarioResult {
+        public final List<Integer> path;
+        public final List<Integer> routes;
+        public final List<Double> llegadas; // Instante de llegada a cada vértice del camino
+        public final double salida;
+        public final double llegada;
+        public final double duracionFlujoLibre;
+        public final int settledNodes;
+
+        public ItinerarioResult(List<Integer> path, List<Integer> routes, List<Double> llegadas,
+                                double salida, double llegada, double duracionFlujoLibre, int settledNodes) {
+            this.path = path;
+            this.routes = routes;
+            this.llegadas = llegadas;
+            this.salida = salida;
+            this.llegada = llegada;
+            this.duracionFlujoLibre = duracionFlujoLibre;
+            this.settledNodes = settledNodes;
+        }
+    }
+
+    /**
+     * Camino de llegada más temprana saliendo del origen en el instante indicado
+     *
+     * @param snapshot Instantánea del grafo (puede estar filtrada por peso)
+     * @param source Vértice origen
+     * @param destination Vértice destino
+     * @param salida Minutos desde la medianoche
+     * @return Itinerario, o null si el destino no es alcanzable
+     */
+    public ItinerarioResult llegadaMasTemprana(GraphSnapshot snapshot, int source, int destination, double salida) {
+        GraphSnapshot duracion = snapshot.conMetrica(GraphSnapshot.Metrica.DURACION);
+        double factor = duracion.tieneCoordenadas(destination) ? duracion.factorCotaInferior() : 0.0;
+
+        DijkstraWorkspace ws = DijkstraWorkspace.obtener(DijkstraWorkspace.ADELANTE, duracion.numeroVertices());
+        IndexedDaryHeap heap = ws.heap();
+        int[] viaRoute = new int[duracion.numeroVertices()];
+        ws.fijar(source, salida, -1);
+        viaRoute[source] = -1;
+        heap.insertarODisminuir(source, salida + heuristica(duracion, factor, source, destination));
+        int settled = 0;
+
+        while (!heap.vacio()) {
+            int u = heap.extraerMinimo();
+            ws.asentar(u);
+            settled++;
+            if (u == destination) {
+                break;
+            }
+
+            double arrivalU = ws.distancia(u);
+            for (int e = duracion.inicioAristas(u); e < duracion.finAristas(u); e++) {
+                int v = duracion.destino(e);
+                if (ws.asentado(v)) {
+                    continue;
+                }
+                int route = duracion.ruta(e);
+                double arrivalV = TrafficSpeedProfile.llegada(duracion.nivelTraficoRuta(route), arrivalU, duracion.peso(e));
+                if (arrivalV < ws.distancia(v)) {
+                    ws.fijar(v, arrivalV, u);
+                    viaRoute[v] = route;
+                    heap.insertarODisminuir(v, arrivalV + heuristica(duracion, factor, v, destination));
+                }
+            }
+        }
+
+        if (!ws.alcanzado(destination)) {
+            return null;
+        }
+
+        List<Integer> path = new ArrayList<>();
+        List<Integer> routes = new ArrayList<>();
+        List<Double> llegadas = new ArrayList<>();
+        double freeFlow = 0.0;
+        for (int v = destination; v != -1; v = ws.predecesor(v)) {
+            path.add(v);
+            llegadas.add(ws.distancia(v));
+            if (viaRoute[v] != -1) {
+                routes.add(viaRoute[v]);
+                freeFlow += duracion.pesoRuta(viaRoute[v]);
+            }
+        }
+        Collections.reverse(path);
+        Collections.reverse(routes);
+        Collections.reverse(llegadas);
+
+        return new ItinerarioResult(path, routes, llegadas, salida, ws.distancia(destination), freeFlow, settled);
+    }
+
+    private double heuristica(GraphSnapshot duracion, double factor, int v, int destination) {
+        return factor > 0.0 ? factor * duracion.distanciaGranCirculo(v, destination) : 0.0;
+    }
+}
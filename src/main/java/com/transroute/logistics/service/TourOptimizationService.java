@@ -0,0 +1,103 @@
+package com.transroute.logistics.service;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Servicio de optimización del recorrido de un camión por varios centros
+ *
+ * Calcula una sola vez la matriz de costos de camino mínimo entre el origen y las paradas
+ * (filas en paralelo) y ordena las paradas con TourOptimizer dentro del tiempo indicado,
+ * en lugar de encadenar caminos en el orden que recibe el llamador.
+ */
+@Service
+public class TourOptimizationService {
+
+    public static final long TIEMPO_LIMITE_POR_DEFECTO_MS = 500;
+
+    /** Presupuesto máximo aceptado (también evita el desborde al pasarlo a nanosegundos) */
+    public static final long TIEMPO_LIMITE_MAXIMO_MS = 30_000;
+
+    @Autowired
+    private DistanceMatrixService distanceMatrixService;
+
+    /**
+     * Recorrido optimizado en índices de vértices
+     */
+    public static class RecorridoOptimizado {
+        public final List<Integer> orden; // Empieza en el origen (y termina en él si es cerrado)
+        public final List<Double> costosTramos;
+        public final double costoTotal;
+        public final double costoInicial;
+        public final List<Integer> noAlcanzables;
+        public final int movimientos;
+        public final boolean optimoLocal;
+
+        public RecorridoOptimizado(List<Integer> orden, List<Double> costosTramos, double costoTotal, double costoInicial,
+                                   List<Integer> noAlcanzables, int movimientos, boolean optimoLocal) {
+            this.orden = orden;
+            this.costosTramos = costosTramos;
+            this.costoTotal = costoTotal;
+            this.costoInicial = costoInicial;
+            this.noAlcanzables = noAlcanzables;
+            this.movimientos = movimientos;
+            this.optimoLocal = optimoLocal;
+        }
+    }
+
+    /**
+     * Ordena las paradas para minimizar el costo total del recorrido
+     *
+     * @param snapshot Instantánea del grafo (con la métrica ya aplicada)
+     * @param origen Vértice de salida
+     * @param paradas Vértices a visitar (sin repetir y distintos del origen)
+     * @param cerrado true si el camión vuelve al origen
+     * @param tiempoLimiteMs Tiempo máximo de la mejora local
+     */
+    public RecorridoOptimizado optimizar(GraphSnapshot snapshot, int origen, int[] paradas,
+                                         boolean cerrado, long tiempoLimiteMs) {
+        int[] vertices = new int[paradas.length + 1];
+        vertices[0] = origen;
+        System.arraycopy(paradas, 0, vertices, 1, paradas.length);
+        double[][] fullMatrix = distanceMatrixService.calcularMatriz(snapshot, vertices, vertices);
+
+        // Las paradas inalcanzables desde el origen no entran en el recorrido
+        List<Integer> nodes = new ArrayList<>();
+        List<Integer> noAlcanzables = new ArrayList<>();
+        nodes.add(0);
+        for (int i = 1; i < vertices.length; i++) {
+            if (fullMatrix[0][i] == Double.POSITIVE_INFINITY) {
+                noAlcanzables.add(vertices[i]);
+            } else {
+                nodes.add(i);
+            }
+        }
+        int m = nodes.size();
+        double[][] costos = new double[m][m];
+        for (int a = 0; a < m; a++) {
+            for (int b = 0; b < m; b++) {
+                costos[a][b] = fullMatrix[nodes.get(a)][nodes.get(b)];
+            }
+        }
+
+        TourOptimizer.Resultado resultado = new TourOptimizer(costos, cerrado, Math.min(tiempoLimiteMs, TIEMPO_LIMITE_MAXIMO_MS) * 1_000_000L).optimizar();
+
+        List<Integer> orden = new ArrayList<>(m + 1);
+        List<Double> tramos = new ArrayList<>(m);
+        for (int p = 0; p < m; p++) {
+            orden.add(vertices[nodes.get(resultado.orden[p])]);
+            if (p > 0) {
+                tramos.add(costos[resultado.orden[p - 1]][resultado.orden[p]]);
+            }
+        }
+        if (cerrado && m > 1) {
+            orden.add(origen);
+            tramos.add(costos[resultado.orden[m - 1]][0]);
+        }
+        return new RecorridoOptimizado(orden, tramos, resultado.costo, resultado.costoInicial,
+                noAlcanzables, resultado.movimientos, resultado.completo);
+    }
+}
@@ -0,0 +1,340 @@
+package com.transroute.logistics.service;
+
+import java.util.Arrays;
+
+/**
+ * Optimización del recorrido de un solo camión (TSP) sobre una matriz de costos
+ *
+ * El nodo 0 es el origen y queda fijo en la primera posición. El recorrido puede ser
+ * cerrado (vuelve al origen) o abierto (termina en la última parada, sin costo de regreso).
+ *
+ * 1. Vecino más cercano desde el origen
+ * 2. 2-opt y Or-opt (tramos de 1 a 3 paradas, en ambos sentidos) con listas de K vecinos:
+ *    solo se prueban aristas nuevas hacia vecinos cercanos y cortando cuando ya no pueden
+ *    mejorar, por lo que evaluar una parada cuesta O(K) y una pasada completa O(n·K)
+ * 3. Bits "don't look": solo se reexaminan las paradas cuyas aristas cambiaron
+ *
+ * La matriz debe ser simétrica (grafo no dirigido). No es seguro para hilos.
+ */
+public final class TourOptimizer {
+
+    private static final int VECINOS = 10;
+    private static final int MAX_SEGMENTO = 3;
+    private static final double EPS = 1e-9;
+    // Sentinela para "después de la última parada" en recorridos abiertos (costo 0)
+    private static final int FIN = -1;
+
+    private final double[][] d;
+    private final boolean closed;
+    private final long deadline;
+    private final int n;
+
+    private int[] tour;
+    private int[] pos;
+    private int[][] neighbours;
+    private int moves;
+
+    /**
+     * Recorrido resultante: nodos en orden de visita empezando por el origen
+     */
+    public static class Resultado {
+        public final int[] orden;
+        public final double costo;
+        public final double costoInicial;
+        public final int movimientos;
+        public final boolean completo; // false si se agotó el tiempo antes del óptimo local
+
+        public Resultado(int[] orden, double costo, double costoInicial, int movimientos, boolean completo) {
+            this.orden = orden;
+            this.costo = costo;
+            this.costoInicial = costoInicial;
+            this.movimientos = movimientos;
+            this.completo = completo;
+        }
+    }
+
+    /**
+     * @param costos Matriz simétrica n x n; el nodo 0 es el origen
+     * @param cerrado true si el recorrido vuelve al origen
+     * @param tiempoLimiteNanos Presupuesto de tiempo de la mejora local
+     */
+    public TourOptimizer(double[][] costos, boolean cerrado, long tiempoLimiteNanos) {
+        this.d = costos;
+        this.closed = cerrado;
+        this.deadline = System.nanoTime() + tiempoLimiteNanos;
+        this.n = costos.length;
+    }
+
+    public Resultado optimizar() {
+        vecinoMasCercano();
+        double initial = costoRecorrido();
+        calcularVecinos();
+
+        // Cola circular de paradas por revisar (bits "don't look" = no encoladas)
+        int[] queue = new int[n];
+        boolean[] queued = new boolean[n];
+        int head = 0;
+        int size = 0;
+        for (int v = 0; v < n; v++) {
+            queue[size++] = v;
+            queued[v] = true;
+        }
+        int[] touched = new int[8];
+        boolean complete = true;
+        while (size > 0) {
+            if (System.nanoTime() >= deadline) {
+                complete = false;
+                break;
+            }
+            int a = queue[head];
+            head = (head + 1) % n;
+            size--;
+            queued[a] = false;
+
+            int count = mejorar(a, touched);
+            if (count > 0) {
+                moves++;
+                for (int k = 0; k < count; k++) {
+                    int v = touched[k];
+                    if (v != FIN && !queued[v]) {
+                        queue[(head + size) % n] = v;
+                        size++;
+                        queued[v] = true;
+                    }
+                }
+            }
+        }
+        return new Resultado(tour.clone(), costoRecorrido(), initial, moves, complete);
+    }
+
+    /**
+     * Aplica la primera mejora encontrada alrededor de la parada
+     *
+     * @return Cantidad de paradas con aristas modificadas (en touched), 0 si no hubo mejora
+     */
+    private int mejorar(int a, int[] touched) {
+        int i = pos[a];
+
+        // 2-opt reemplazando la arista (a, siguiente)
+        int b = siguiente(i);
+        double cab = costo(a, b);
+        for (int c : neighbours[a]) {
+            double cac = d[a][c];
+            if (cac >= cab - EPS) {
+                break;
+            }
+            int j = pos[c];
+            int e = siguiente(j);
+            if (c == b || e == a) {
+                continue;
+            }
+            double delta = cac + costo(b, e) - cab - costo(c, e);
+            if (delta < -EPS) {
+                invertir(Math.min(i, j) + 1, Math.max(i, j));
+                return marcar(touched, a, b, c, e);
+            }
+        }
+
+        // 2-opt reemplazando la arista (anterior, a)
+        if (i > 0 || closed) {
+            int pa = anterior(i);
+            double cpa = d[pa][a];
+            for (int c : neighbours[a]) {
+                double cac = d[a][c];
+                if (cac >= cpa - EPS) {
+                    break;
+                }
+                int j = pos[c];
+                if (j == 0 && !closed) {
+                    continue;
+                }
+                int pc = anterior(j);
+                if (c == pa || pc == a) {
+                    continue;
+                }
+                double delta = cac + d[pa][pc] - cpa - d[pc][c];
+                if (delta < -EPS) {
+                    // El origen cuenta como posición n para no moverlo
+                    int ja = i == 0 ? n : i;
+                    int jc = j == 0 ? n : j;
+                    invertir(Math.min(ja, jc), Math.max(ja, jc) - 1);
+                    return marcar(touched, a, pa, c, pc);
+                }
+            }
+        }
+
+        // Or-opt: mover el tramo que empieza en a (1 a 3 paradas) junto a un vecino
+        if (i == 0) {
+            return 0;
+        }
+        for (int k = 1; k <= MAX_SEGMENTO && i + k - 1 < n; k++) {
+            int last = i + k - 1;
+            int s1 = a;
+            int s2 = tour[last];
+            int p = tour[i - 1];
+            int nx = siguiente(last);
+            double removeGain = costo(p, s1) + costo(s2, nx) - costo(p, nx);
+            if (removeGain <= EPS) {
+                continue;
+            }
+            for (int end = 0; end < 2; end++) {
+                int s = end == 0 ? s1 : s2;
+                for (int c : neighbours[s]) {
+                    if (d[s][c] >= removeGain - EPS) {
+                        break;
+                    }
+                    int q = pos[c];
+                    if (q >= i && q <= last) {
+                        continue;
+                    }
+                    // Huecos (q-1, q) y (q, q+1) junto al vecino
+                    for (int g = q - 1; g <= q; g++) {
+                        if (g < 0 || g == i - 1 || g == last) {
+                            continue;
+                        }
+                        int g1 = tour[g];
+                        int g2 = siguiente(g);
+                        double base = costo(g1, g2);
+                        double forward = costo(g1, s1) + costo(s2, g2) - base;
+                        double reversed = costo(g1, s2) + costo(s1, g2) - base;
+                        boolean reverse = reversed < forward;
+                        double delta = Math.min(forward, reversed) - removeGain;
+                        if (delta < -EPS) {
+                            mover(i, last, g, reverse);
+                            return marcar(touched, s1, s2, p, nx, g1, g2);
+                        }
+                    }
+                }
+            }
+        }
+        return 0;
+    }
+
+    private static int marcar(int[] touched, int... nodes) {
+        System.arraycopy(nodes, 0, touched, 0, nodes.length);
+        return nodes.length;
+    }
+
+    // ==========================================
+    // ESTRUCTURA DEL RECORRIDO
+    // ==========================================
+
+    private int siguiente(int position) {
+        if (position < n - 1) {
+            return tour[position + 1];
+        }
+        return closed ? tour[0] : FIN;
+    }
+
+    private int anterior(int position) {
+        return position > 0 ? tour[position - 1] : tour[n - 1];
+    }
+
+    private double costo(int u, int v) {
+        return u == FIN || v == FIN ? 0.0 : d[u][v];
+    }
+
+    /**
+     * Invierte las posiciones from..to (nunca incluye la posición 0)
+     */
+    private void invertir(int from, int to) {
+        for (int l = from, r = to; l < r; l++, r--) {
+            int tmp = tour[l];
+            tour[l] = tour[r];
+            tour[r] = tmp;
+            pos[tour[l]] = l;
+            pos[tour[r]] = r;
+        }
+    }
+
+    /**
+     * Mueve el tramo from..to para que quede después de la posición gap
+     */
+    private void mover(int from, int to, int gap, boolean reverse) {
+        int k = to - from + 1;
+        int[] segment = Arrays.copyOfRange(tour, from, to + 1);
+        if (reverse) {
+            for (int l = 0, r = k - 1; l < r; l++, r--) {
+                int tmp = segment[l];
+                segment[l] = segment[r];
+                segment[r] = tmp;
+            }
+        }
+        int start;
+        int end;
+        if (gap > to) {
+            System.arraycopy(tour, to + 1, tour, from, gap - to);
+            System.arraycopy(segment, 0, tour, gap - k + 1, k);
+            start = from;
+            end = gap;
+        } else {
+            System.arraycopy(tour, gap + 1, tour, gap + 1 + k, from - gap - 1);
+            System.arraycopy(segment, 0, tour, gap + 1, k);
+            start = gap + 1;
+            end = to;
+        }
+        for (int p = start; p <= end; p++) {
+            pos[tour[p]] = p;
+        }
+    }
+
+    // ==========================================
+    // CONSTRUCCIÓN INICIAL
+    // ==========================================
+
+    private void vecinoMasCercano() {
+        tour = new int[n];
+        pos = new int[n];
+        boolean[] visited = new boolean[n];
+        int current = 0;
+        visited[0] = true;
+        for (int step = 1; step < n; step++) {
+            int best = -1;
+            for (int v = 1; v < n; v++) {
+                if (!visited[v] && (best == -1 || d[current][v] < d[current][best])) {
+                    best = v;
+                }
+            }
+            tour[step] = best;
+            pos[best] = step;
+            visited[best] = true;
+            current = best;
+        }
+    }
+
+    /**
+     * K nodos más cercanos de cada nodo, ordenados por costo
+     */
+    private void calcularVecinos() {
+        int k = Math.min(VECINOS, n - 1);
+        neighbours = new int[n][];
+        int[] best = new int[k];
+        double[] bestCost = new double[k];
+        for (int v = 0; v < n; v++) {
+            int size = 0;
+            for (int u = 0; u < n; u++) {
+                double c = d[v][u];
+                if (u == v || (size == k && c >= bestCost[k - 1])) {
+                    continue;
+                }
+                int p = size < k ? size++ : k - 1;
+                while (p > 0 && bestCost[p - 1] > c) {
+                    best[p] = best[p - 1];
+                    bestCost[p] = bestCost[p - 1];
+                    p--;
+                }
+                best[p] = u;
+                bestCost[p] = c;
+            }
+            neighbours[v] = Arrays.copyOf(best, size);
+        }
+    }
+
+    private double costoRecorrido() {
+        double total = 0.0;
+        for (int p = 0; p < n; p++) {
+            total += costo(tour[p], siguiente(p));
+        }
+        return total;
+    }
+}
@@ -0,0 +1,94 @@
+package com.transroute.logistics.service;
+
+/**
+ * Perfiles de velocidad por nivel de tráfico para ruteo dependiente del tiempo
+ *
+ * El día se divide en PERIODOS franjas de una hora. En cada franja la ruta avanza a
+ * velocidad constante: su duración en flujo libre se multiplica por factor[nivel][franja].
+ * Como la velocidad es constante por franja (modelo de Ichoua-Gendreau-Potvin), el tiempo
+ * de llegada es monótono en la hora de salida (FIFO): salir más tarde nunca hace llegar antes.
+ *
+ * Para cada nivel se precalcula el progreso acumulado (minutos de flujo libre recorribles)
+ * al inicio de cada franja. La llegada se obtiene invirtiendo ese arreglo con una búsqueda
+ * binaria, sin recorrer franja por franja ni re-ponderar el grafo en cada consulta.
+ */
+public final class TrafficSpeedProfile {
+
+    public static final double MINUTOS_DIA = 1440.0;
+    public static final int PERIODOS = 24;
+    public static final double MINUTOS_PERIODO = MINUTOS_DIA / PERIODOS;
+    public static final int NIVELES = 5;
+
+    /** Intensidad de congestión por hora (0 = madrugada, 1 = hora pico) */
+    private static final double[] INTENSIDAD_HORARIA = {
+            0.05, 0.05, 0.05, 0.05, 0.05, 0.2,   // 00-06
+            0.6, 1.0, 1.0, 0.7, 0.5, 0.5,        // 06-12
+            0.6, 0.6, 0.5, 0.5, 0.7, 1.0,        // 12-18
+            1.0, 0.7, 0.4, 0.3, 0.2, 0.1         // 18-24
+    };
+
+    /** Recargo máximo por nivel sobre el flujo libre: nivel 5 en hora pico tarda el doble */
+    private static final double RECARGO_POR_NIVEL = 0.25;
+
+    // Índice [nivel][franja]; el nivel 0 no se usa
+    private static final double[][] FACTOR = new double[NIVELES + 1][PERIODOS];
+    private static final double[][] PROGRESO = new double[NIVELES + 1][PERIODOS + 1];
+
+    static {
+        for (int level = 1; level <= NIVELES; level++) {
+            for (int p = 0; p < PERIODOS; p++) {
+                FACTOR[level][p] = 1.0 + (level - 1) * RECARGO_POR_NIVEL * INTENSIDAD_HORARIA[p];
+                PROGRESO[level][p + 1] = PROGRESO[level][p] + MINUTOS_PERIODO / FACTOR[level][p];
+            }
+        }
+    }
+
+    private TrafficSpeedProfile() {
+    }
+
+    /**
+     * Instante de llegada al recorrer una ruta
+     *
+     * @param nivel Nivel de tráfico de la ruta (1-5)
+     * @param salida Minutos desde la medianoche del día 0 (puede exceder un día)
+     * @param flujoLibre Duración de la ruta sin tráfico, en minutos
+     * @return Minutos desde la medianoche del día 0 al llegar
+     */
+    public static double llegada(int nivel, double salida, double flujoLibre) {
+        if (flujoLibre <= 0.0) {
+            return salida;
+        }
+        double[] progreso = PROGRESO[nivel];
+        double[] factor = FACTOR[nivel];
+        double porDia = progreso[PERIODOS];
+
+        double dia = Math.floor(salida / MINUTOS_DIA);
+        double t = salida - dia * MINUTOS_DIA;
+        int periodo = Math.min((int) (t / MINUTOS_PERIODO), PERIODOS - 1);
+        double objetivo = progreso[periodo] + (t - periodo * MINUTOS_PERIODO) / factor[periodo] + flujoLibre;
+
+        double diasExtra = Math.floor(objetivo / porDia);
+        objetivo -= diasExtra * porDia;
+
+        // Última franja cuyo progreso inicial no supera el objetivo
+        int low = 0;
+        int high = PERIODOS - 1;
+        while (low < high) {
+            int mid = (low + high + 1) >>> 1;
+            if (progreso[mid] <= objetivo) {
+                low = mid;
+            } else {
+                high = mid - 1;
+            }
+        }
+        double dentro = (objetivo - progreso[low]) * factor[low];
+        return (dia + diasExtra) * MINUTOS_DIA + low * MINUTOS_PERIODO + dentro;
+    }
+
+    /**
+     * Factor de demora de un nivel en una hora del día (1 = flujo libre)
+     */
+    public static double factor(int nivel, int hora) {
+        return FACTOR[nivel][hora];
+    }
+}
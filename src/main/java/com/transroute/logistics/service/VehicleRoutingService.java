@@ -0,0 +1,204 @@
+package com.transroute.logistics.service;
+
+import com.transroute.logistics.model.DistributionCenter;
+import com.transroute.logistics.model.Truck;
+import com.transroute.logistics.repository.DistributionCenterRepository;
+import com.transroute.logistics.repository.TruckRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.*;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * Servicio de ruteo de vehículos con capacidad (CVRP) sobre centros, camiones y rutas de Neo4j
+ *
+ * A diferencia de GreedyService.asignarCargasDesdeNeo4j (primer ajuste sin considerar la red),
+ * arma recorridos de varias paradas por camión usando los costos de camino mínimo entre centros.
+ * Las cargas se calculan igual que en el greedy (demandLevel * 100 para centros con carga
+ * pendiente) y el costo del primer ajuste se informa como referencia.
+ *
+ * Complejidad: O(m (V + E) log V) para la matriz de costos entre las m paradas (filas en
+ * paralelo), O(m·K log(m·K)) para los ahorros y O(m·K) por ronda de búsqueda local
+ */
+@Service
+public class VehicleRoutingService {
+
+    public static final long TIEMPO_LIMITE_POR_DEFECTO_MS = 2000;
+
+    /** Presupuesto máximo aceptado (también evita el desborde al pasarlo a nanosegundos) */
+    public static final long TIEMPO_LIMITE_MAXIMO_MS = 60_000;
+
+    @Autowired
+    private GraphService graphService;
+
+    @Autowired
+    private DistanceMatrixService distanceMatrixService;
+
+    @Autowired
+    private TruckRepository truckRepository;
+
+    @Autowired
+    private DistributionCenterRepository distributionCenterRepository;
+
+    @Autowired
+    private ForkJoinPool graphComputePool;
+
+    /**
+     * Planifica los recorridos de los camiones disponibles
+     *
+     * @param depotCenterId Centro de salida y regreso (por defecto el de mayor prioridad)
+     * @param metrica Métrica de costo de las rutas
+     * @param tiempoLimiteMs Presupuesto de tiempo de la búsqueda local
+     * @return Plan de recorridos, o un mapa con "error"
+     */
+    public Map<String, Object> planificarRecorridos(String depotCenterId, GraphSnapshot.Metrica metrica, long tiempoLimiteMs) {
+        Map<String, Object> resultado = new HashMap<>();
+        List<Truck> trucks = truckRepository.findAll().stream()
+                .filter(t -> "AVAILABLE".equals(t.getStatus()) && t.getCapacity() != null)
+                .toList();
+        if (trucks.isEmpty()) {
+            resultado.put("error", "No hay camiones disponibles");
+            return resultado;
+        }
+
+        GraphSnapshot snapshot = graphService.obtenerSnapshot().conMetrica(metrica);
+        List<DistributionCenter> centros = distributionCenterRepository.findAllOrderedByPriority().stream()
+                .filter(dc -> snapshot.indiceCentro(dc.getId()) != -1)
+                .toList();
+        if (centros.isEmpty()) {
+            resultado.put("error", "No hay centros en el grafo");
+            return resultado;
+        }
+        DistributionCenter depot = depotCenterId == null || depotCenterId.isBlank()
+                ? centros.get(0)
+                : centros.stream().filter(dc -> dc.getId().equals(depotCenterId)).findFirst().orElse(null);
+        if (depot == null) {
+            resultado.put("error", "Centro de depósito desconocido: " + depotCenterId);
+            return resultado;
+        }
+
+        // Paradas: centros con carga pendiente, en el orden que usa el greedy (prioridad y mayor peso)
+        List<DistributionCenter> paradas = new ArrayList<>();
+        for (DistributionCenter dc : centros) {
+            if (dc != depot && dc.getCurrentLoad() != null && dc.getCurrentLoad() > 0 && dc.getDemandLevel() != null) {
+                paradas.add(dc);
+            }
+        }
+        paradas.sort(Comparator.comparingInt((DistributionCenter dc) -> dc.getPriority() != null ? dc.getPriority() : Integer.MAX_VALUE)
+                .thenComparing(dc -> -dc.getDemandLevel()));
+
+        int[] vertices = new int[paradas.size() + 1];
+        vertices[0] = snapshot.indiceCentro(depot.getId());
+        for (int i = 0; i < paradas.size(); i++) {
+            vertices[i + 1] = snapshot.indiceCentro(paradas.get(i).getId());
+        }
+        double[][] fullMatrix = distanceMatrixService.calcularMatriz(snapshot, vertices, vertices);
+
+        // Las paradas inalcanzables desde el depósito quedan fuera del problema
+        List<Integer> alcanzables = new ArrayList<>();
+        List<Map<String, Object>> inalcanzables = new ArrayList<>();
+        for (int i = 1; i < vertices.length; i++) {
+            if (fullMatrix[0][i] == Double.POSITIVE_INFINITY) {
+                inalcanzables.add(detalleParada(paradas.get(i - 1)));
+            } else {
+                alcanzables.add(i);
+            }
+        }
+        int m = alcanzables.size();
+        double[][] costos = new double[m + 1][m + 1];
+        int[] demandas = new int[m + 1];
+        for (int a = 0; a <= m; a++) {
+            int fa = a == 0 ? 0 : alcanzables.get(a - 1);
+            for (int b = 0; b <= m; b++) {
+                costos[a][b] = fullMatrix[fa][b == 0 ? 0 : alcanzables.get(b - 1)];
+            }
+            if (a > 0) {
+                demandas[a] = paradas.get(fa - 1).getDemandLevel() * 100;
+            }
+        }
+        int[] capacidades = trucks.stream().mapToInt(Truck::getCapacity).toArray();
+
+        CapacitatedRoutingSolver.Solucion solucion = new CapacitatedRoutingSolver(
+                costos, demandas, capacidades, graphComputePool, Math.min(tiempoLimiteMs, TIEMPO_LIMITE_MAXIMO_MS) * 1_000_000L).resolver();
+
+        List<Map<String, Object>> recorridos = new ArrayList<>();
+        for (int t = 0; t < trucks.size(); t++) {
+            if (solucion.recorridos[t].length == 0) {
+                continue;
+            }
+            Truck truck = trucks.get(t);
+            List<Map<String, Object>> visitas = new ArrayList<>();
+            for (int node : solucion.recorridos[t]) {
+                Map<String, Object> visita = detalleParada(paradas.get(alcanzables.get(node - 1) - 1));
+                visita.put("carga", demandas[node]);
+                visitas.add(visita);
+            }
+            Map<String, Object> info = new HashMap<>();
+            info.put("truckId", truck.getId());
+            info.put("licensePlate", truck.getLicensePlate());
+            info.put("capacidad", truck.getCapacity());
+            info.put("carga", solucion.cargas[t]);
+            info.put("utilizacion", (double) solucion.cargas[t] / truck.getCapacity() * 100);
+            info.put("costo", solucion.costos[t]);
+            info.put("paradas", visitas);
+            recorridos.add(info);
+        }
+        List<Map<String, Object>> noAsignadas = new ArrayList<>();
+        for (int node : solucion.noAsignadas) {
+            Map<String, Object> info = detalleParada(paradas.get(alcanzables.get(node - 1) - 1));
+            info.put("carga", demandas[node]);
+            noAsignadas.add(info);
+        }
+
+        double costoPrimerAjuste = costoPrimerAjuste(costos, demandas, capacidades);
+        resultado.put("recorridos", recorridos);
+        resultado.put("camionesUsados", recorridos.size());
+        resultado.put("totalCamiones", trucks.size());
+        resultado.put("totalParadas", paradas.size());
+        resultado.put("cargasNoAsignadas", noAsignadas);
+        resultado.put("centrosInalcanzables", inalcanzables);
+        resultado.put("costoTotal", solucion.costoTotal);
+        resultado.put("costoClarkeWright", solucion.costoInicial);
+        resultado.put("costoPrimerAjuste", costoPrimerAjuste);
+        resultado.put("rondasBusquedaLocal", solucion.rondas);
+        resultado.put("movimientosAplicados", solucion.movimientos);
+        resultado.put("deposito", detalleParada(depot));
+        resultado.put("metrica", metrica.name());
+        resultado.put("snapshotVersion", snapshot.getVersion());
+        return resultado;
+    }
+
+    /**
+     * Costo de la asignación de primer ajuste del greedy (mismo orden de cargas y camiones),
+     * recorriendo las paradas de cada camión en el orden en que fueron asignadas
+     */
+    static double costoPrimerAjuste(double[][] costos, int[] demandas, int[] capacidades) {
+        int[] disponible = capacidades.clone();
+        List<List<Integer>> asignadas = new ArrayList<>();
+        for (int t = 0; t < capacidades.length; t++) {
+            asignadas.add(new ArrayList<>());
+        }
+        for (int node = 1; node < demandas.length; node++) {
+            for (int t = 0; t < capacidades.length; t++) {
+                if (disponible[t] >= demandas[node]) {
+                    disponible[t] -= demandas[node];
+                    asignadas.get(t).add(node);
+                    break;
+                }
+            }
+        }
+        double total = 0.0;
+        for (List<Integer> recorrido : asignadas) {
+            total += CapacitatedRoutingSolver.costoRecorrido(costos, recorrido.stream().mapToInt(Integer::intValue).toArray());
+        }
+        return total;
+    }
+
+    private Map<String, Object> detalleParada(DistributionCenter dc) {
+        Map<String, Object> info = new HashMap<>();
+        info.put("centerId", dc.getId());
+        info.put("name", dc.getName());
+        return info;
+    }
+}
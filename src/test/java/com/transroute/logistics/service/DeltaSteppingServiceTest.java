@@ -0,0 +1,99 @@
+package com.transroute.logistics.service;
+
+import com.transroute.logistics.repository.RouteEdge;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+/**
+ * Las distancias de delta-stepping son idénticas bit a bit a las de GraphService.dijkstra
+ */
+class DeltaSteppingServiceTest {
+
+    private final GraphService graphService = new GraphService();
+    private final DeltaSteppingService deltaSteppingService = new DeltaSteppingService();
+    private ForkJoinPool pool;
+
+    @BeforeEach
+    void iniciarPool() {
+        pool = new ForkJoinPool(4);
+        ReflectionTestUtils.setField(deltaSteppingService, "graphComputePool", pool);
+    }
+
+    @AfterEach
+    void cerrarPool() {
+        pool.shutdown();
+    }
+
+    @Test
+    void coincideConDijkstraEnGrafosAlAzar() {
+        Random random = new Random(22);
+        double[] anchos = {0.0, 0.01, 0.5, 3.0, 1e9};
+        for (int it = 0; it < 200; it++) {
+            int n = 1 + random.nextInt(60);
+            GraphSnapshot snapshot = grafoAlAzar(it + 1, n, random.nextInt(4 * n + 1), random);
+            int source = random.nextInt(n);
+            double[] esperado = graphService.dijkstra(snapshot, source);
+            for (double ancho : anchos) {
+                assertArrayEquals(esperado, deltaSteppingService.calcular(snapshot, source, ancho),
+                        "Grafo " + it + ", ancho " + ancho);
+            }
+        }
+    }
+
+    @Test
+    void coincideConDijkstraConFronterasParalelas() {
+        // Grilla con fronteras de más de 512 vértices para repartir la relajación en tramos
+        Random random = new Random(5);
+        int side = 150;
+        List<String> ids = new ArrayList<>();
+        List<String> coordinates = new ArrayList<>();
+        for (int i = 0; i < side * side; i++) {
+            ids.add("C" + i);
+            coordinates.add(null);
+        }
+        List<RouteEdge> edges = new ArrayList<>();
+        for (int i = 0; i < side; i++) {
+            for (int j = 0; j < side; j++) {
+                int v = i * side + j;
+                if (j + 1 < side) {
+                    edges.add(ruta(edges.size(), v, v + 1, 0.1 * random.nextInt(30)));
+                }
+                if (i + 1 < side) {
+                    edges.add(ruta(edges.size(), v, v + side, 0.1 * random.nextInt(30)));
+                }
+            }
+        }
+        GraphSnapshot snapshot = GraphSnapshot.desdeRutas(1, ids, coordinates, edges);
+        double[] esperado = graphService.dijkstra(snapshot, 0);
+        assertArrayEquals(esperado, deltaSteppingService.calcular(snapshot, 0, 0.0));
+        assertArrayEquals(esperado, deltaSteppingService.calcular(snapshot, 0, 50.0));
+    }
+
+    private static GraphSnapshot grafoAlAzar(long version, int n, int m, Random random) {
+        List<String> ids = new ArrayList<>();
+        List<String> coordinates = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            ids.add("C" + i);
+            coordinates.add(null);
+        }
+        List<RouteEdge> edges = new ArrayList<>();
+        for (int i = 0; i < m; i++) {
+            // Pesos con decimales y ceros para ejercitar el redondeo y los empates
+            edges.add(ruta(i, random.nextInt(n), random.nextInt(n), random.nextInt(5) == 0 ? 0.0 : random.nextDouble() * 10));
+        }
+        return GraphSnapshot.desdeRutas(version, ids, coordinates, edges);
+    }
+
+    private static RouteEdge ruta(int index, int from, int to, double cost) {
+        return new RouteEdge("R" + index, "C" + from, "C" + to, cost, 1.0);
+    }
+}
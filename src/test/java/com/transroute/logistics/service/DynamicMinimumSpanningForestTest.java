@@ -0,0 +1,121 @@
+package com.transroute.logistics.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tras cada activación, desactivación o cambio de peso el bosque incremental coincide con
+ * el que calcula MinimumSpanningTreeService.filterKruskal desde cero sobre las rutas activas
+ */
+class DynamicMinimumSpanningForestTest {
+
+    private final MinimumSpanningTreeService mstService = new MinimumSpanningTreeService();
+
+    @Test
+    void coincideConFilterKruskalConPesosDistintos() {
+        // Con pesos distintos el bosque es único: se comparan las rutas y el peso total
+        Random random = new Random(13);
+        for (int it = 0; it < 150; it++) {
+            ejecutarSecuencia(random, false);
+        }
+    }
+
+    @Test
+    void coincideEnPesoTotalConEmpates() {
+        // Con pesos enteros repetidos puede haber varios bosques mínimos: solo se compara el peso
+        Random random = new Random(31);
+        for (int it = 0; it < 150; it++) {
+            ejecutarSecuencia(random, true);
+        }
+    }
+
+    private void ejecutarSecuencia(Random random, boolean empates) {
+        int n = 1 + random.nextInt(30);
+        int m = random.nextInt(3 * n + 1);
+        int[] from = new int[m];
+        int[] to = new int[m];
+        double[] weight = new double[m];
+        boolean[] active = new boolean[m];
+        for (int r = 0; r < m; r++) {
+            from[r] = random.nextInt(n);
+            to[r] = random.nextInt(n);
+            weight[r] = pesoAlAzar(random, empates);
+            active[r] = random.nextInt(4) != 0;
+        }
+
+        DynamicMinimumSpanningForest forest = new DynamicMinimumSpanningForest(
+                n, from, to, weight, active, kruskal(n, from, to, weight, active));
+        for (int step = 0; step < 60 && m > 0; step++) {
+            int r = random.nextInt(m);
+            switch (random.nextInt(3)) {
+                case 0 -> {
+                    forest.activar(r);
+                    active[r] = true;
+                }
+                case 1 -> {
+                    forest.desactivar(r);
+                    active[r] = false;
+                }
+                default -> {
+                    weight[r] = pesoAlAzar(random, empates);
+                    forest.cambiarPeso(r, weight[r]);
+                }
+            }
+
+            int[] esperado = kruskal(n, from, to, weight, active);
+            int[] obtenido = forest.rutasDelArbol().clone();
+            Arrays.sort(obtenido);
+            assertEquals(total(esperado, weight), total(obtenido, weight), 1e-9, "Paso " + step);
+            assertEquals(esperado.length, forest.numeroAristas(), "Paso " + step);
+            if (!empates) {
+                assertArrayEquals(esperado, obtenido, "Paso " + step);
+            }
+            for (int t : obtenido) {
+                assertTrue(active[t], "Ruta inactiva en el bosque, paso " + step);
+            }
+        }
+    }
+
+    private static double pesoAlAzar(Random random, boolean empates) {
+        return empates ? random.nextInt(5) : random.nextDouble() * 100;
+    }
+
+    /**
+     * Filter-Kruskal sobre las rutas activas, con los índices originales y ordenados
+     */
+    private int[] kruskal(int n, int[] from, int[] to, double[] weight, boolean[] active) {
+        int[] ids = new int[from.length];
+        int count = 0;
+        for (int r = 0; r < from.length; r++) {
+            if (active[r]) {
+                ids[count++] = r;
+            }
+        }
+        int[] subFrom = new int[count];
+        int[] subTo = new int[count];
+        double[] subWeight = new double[count];
+        for (int i = 0; i < count; i++) {
+            subFrom[i] = from[ids[i]];
+            subTo[i] = to[ids[i]];
+            subWeight[i] = weight[ids[i]];
+        }
+        int[] selected = mstService.filterKruskal(n, subFrom, subTo, subWeight);
+        int[] result = Arrays.stream(selected).map(i -> ids[i]).toArray();
+        Arrays.sort(result);
+        return result;
+    }
+
+    private static double total(int[] routes, double[] weight) {
+        double total = 0.0;
+        for (int r : routes) {
+            total += weight[r];
+        }
+        return total;
+    }
+}
@@ -0,0 +1,77 @@
+package com.transroute.logistics.service;
+
+import com.transroute.logistics.repository.RouteEdge;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+/**
+ * Tras cada cierre o reapertura de una ruta el árbol reparado da las mismas distancias que
+ * GraphService.dijkstra sobre la instantánea derivada
+ */
+class DynamicShortestPathTreeTest {
+
+    private final GraphService graphService = new GraphService();
+
+    @Test
+    void coincideConDijkstraTrasCierresYReaperturas() {
+        Random random = new Random(14);
+        for (int it = 0; it < 200; it++) {
+            GraphSnapshot snapshot = grafoAlAzar(1, random);
+            int source = random.nextInt(snapshot.numeroVertices());
+            verificarSecuencia(snapshot, new DynamicShortestPathTree(snapshot, source), source, random);
+        }
+    }
+
+    @Test
+    void coincideConDijkstraArmadoDesdeDistancias() {
+        // Árbol armado con las distancias de otro cálculo (como las de delta-stepping)
+        Random random = new Random(22);
+        for (int it = 0; it < 200; it++) {
+            GraphSnapshot snapshot = grafoAlAzar(1, random);
+            int source = random.nextInt(snapshot.numeroVertices());
+            DynamicShortestPathTree tree = DynamicShortestPathTree.desdeDistancias(
+                    snapshot, source, graphService.dijkstra(snapshot, source));
+            assertArrayEquals(graphService.dijkstra(snapshot, source), tree.distancias());
+            verificarSecuencia(snapshot, tree, source, random);
+        }
+    }
+
+    private void verificarSecuencia(GraphSnapshot snapshot, DynamicShortestPathTree tree, int source, Random random) {
+        int routes = snapshot.numeroRutas();
+        for (int step = 0; step < 30 && routes > 0; step++) {
+            int route = random.nextInt(routes);
+            boolean activa = random.nextBoolean();
+            snapshot = snapshot.conEstadoRuta(route, activa, snapshot.getVersion() + 1);
+            if (activa) {
+                tree.repararTrasDisminucion(snapshot, route);
+            } else {
+                tree.repararTrasAumento(snapshot, route);
+            }
+            assertArrayEquals(graphService.dijkstra(snapshot, source), tree.distancias(),
+                    "Paso " + step + ", ruta " + route + (activa ? " reabierta" : " cerrada"));
+        }
+    }
+
+    private static GraphSnapshot grafoAlAzar(long version, Random random) {
+        int n = 1 + random.nextInt(40);
+        List<String> ids = new ArrayList<>();
+        List<String> coordinates = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            ids.add("C" + i);
+            coordinates.add(null);
+        }
+        List<RouteEdge> edges = new ArrayList<>();
+        int m = random.nextInt(4 * n + 1);
+        for (int i = 0; i < m; i++) {
+            // Pesos con ceros para ejercitar los empates entre caminos
+            double cost = random.nextInt(4) == 0 ? 0.0 : random.nextDouble() * 10;
+            edges.add(new RouteEdge("R" + i, "C" + random.nextInt(n), "C" + random.nextInt(n), cost, 1.0));
+        }
+        return GraphSnapshot.desdeRutas(version, ids, coordinates, edges);
+    }
+}
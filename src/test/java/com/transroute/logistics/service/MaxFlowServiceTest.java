@@ -0,0 +1,237 @@
+package com.transroute.logistics.service;
+
+import com.transroute.logistics.model.DistributionCenter;
+import com.transroute.logistics.repository.DistributionCenterRepository;
+import com.transroute.logistics.repository.RouteEdge;
+import org.junit.jupiter.api.Test;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.anyIterable;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * El flujo de Dinic coincide con Edmonds-Karp sobre una matriz de capacidades, la capacidad
+ * del corte informado es igual al flujo (max-flow = min-cut) y el flujo por ruta respeta
+ * capacidades y conservación, con rutas no dirigidas y con límites por centro
+ */
+class MaxFlowServiceTest {
+
+    // Capacidad que representa "sin límite" en la matriz de Edmonds-Karp
+    private static final double SIN_LIMITE = 1e9;
+
+    private final MaxFlowService maxFlowService = new MaxFlowService();
+
+    @Test
+    void coincideConEdmondsKarpEnRutasNoDirigidas() {
+        // Rutas de Neo4j: capacidad maxWeight (sin dato = ilimitada) y algunas cerradas
+        Random random = new Random(25);
+        for (int it = 0; it < 1000; it++) {
+            int n = 2 + random.nextInt(12);
+            List<String> ids = new ArrayList<>();
+            List<String> coordinates = new ArrayList<>();
+            for (int i = 0; i < n; i++) {
+                ids.add("C" + i);
+                coordinates.add(null);
+            }
+            List<RouteEdge> edges = new ArrayList<>();
+            int m = random.nextInt(3 * n + 1);
+            for (int i = 0; i < m; i++) {
+                Double maxWeight = random.nextInt(6) == 0 ? null : (double) random.nextInt(20);
+                String status = random.nextInt(8) == 0 ? "CLOSED" : "ACTIVE";
+                edges.add(new RouteEdge("R" + i, "C" + random.nextInt(n), "C" + random.nextInt(n),
+                        1.0, 1.0, null, null, null, maxWeight, null, status));
+            }
+            GraphSnapshot snapshot = GraphSnapshot.desdeRutas(it + 1, ids, coordinates, edges);
+            verificar(snapshot, maxFlowService.capacidadesRuta(snapshot), random, "No dirigido " + it);
+        }
+    }
+
+    @Test
+    void coincideConEdmondsKarpEnGrafosDirigidos() {
+        Random random = new Random(52);
+        for (int it = 0; it < 1000; it++) {
+            int n = 2 + random.nextInt(12);
+            Map<Integer, List<int[]>> adjacency = new HashMap<>();
+            int m = random.nextInt(3 * n + 1);
+            for (int i = 0; i < m; i++) {
+                adjacency.computeIfAbsent(random.nextInt(n), k -> new ArrayList<>()).add(new int[]{random.nextInt(n), 1});
+            }
+            GraphSnapshot snapshot = GraphSnapshot.desdeListaAdyacencia(n, adjacency);
+            double[] capacity = new double[snapshot.numeroRutas()];
+            for (int r = 0; r < capacity.length; r++) {
+                capacity[r] = random.nextInt(6) == 0 ? Double.POSITIVE_INFINITY : random.nextInt(20);
+            }
+            verificar(snapshot, capacity, random, "Dirigido " + it);
+        }
+    }
+
+    @Test
+    void limitesCentrosUsaCargaYEspacioLibre() {
+        DistributionCenterRepository repository = mock(DistributionCenterRepository.class);
+        when(repository.findAllById(anyIterable())).thenReturn(List.of(
+                centro("A", 1000, 300), centro("B", 500, 700), centro("C", null, null)));
+        ReflectionTestUtils.setField(maxFlowService, "distributionCenterRepository", repository);
+
+        List<String> ids = List.of("A", "B", "C", "X");
+        assertArrayEquals(new double[]{300, 700, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY},
+                maxFlowService.limitesCentros(ids, true));
+        assertArrayEquals(new double[]{700, 0, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY},
+                maxFlowService.limitesCentros(ids, false));
+    }
+
+    /**
+     * Orígenes y destinos al azar, con o sin límites por centro (como los de limitesCentros)
+     */
+    private void verificar(GraphSnapshot snapshot, double[] capacity, Random random, String caso) {
+        int n = snapshot.numeroVertices();
+        List<Integer> perm = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            perm.add(i);
+        }
+        Collections.shuffle(perm, random);
+        int ns = 1 + random.nextInt(Math.max(1, n / 3));
+        int nt = 1 + random.nextInt(Math.max(1, n / 3));
+        if (ns + nt > n) {
+            ns = 1;
+            nt = 1;
+        }
+        int[] sources = new int[ns];
+        int[] sinks = new int[nt];
+        for (int i = 0; i < ns; i++) {
+            sources[i] = perm.get(i);
+        }
+        for (int i = 0; i < nt; i++) {
+            sinks[i] = perm.get(ns + i);
+        }
+        double[] supply = null;
+        double[] demand = null;
+        if (random.nextBoolean()) {
+            supply = new double[ns];
+            demand = new double[nt];
+            for (int i = 0; i < ns; i++) {
+                supply[i] = random.nextInt(4) == 0 ? Double.POSITIVE_INFINITY : random.nextInt(30);
+            }
+            for (int i = 0; i < nt; i++) {
+                demand[i] = random.nextInt(30);
+            }
+        }
+
+        // Red equivalente: fuente n, sumidero n + 1; una ruta no dirigida aporta en los dos sentidos
+        double[][] matrix = new double[n + 2][n + 2];
+        for (int r = 0; r < snapshot.numeroRutas(); r++) {
+            int u = snapshot.origenRuta(r);
+            int v = snapshot.destinoRuta(r);
+            if (u == v || capacity[r] <= 0) {
+                continue;
+            }
+            double c = Double.isInfinite(capacity[r]) ? SIN_LIMITE : capacity[r];
+            matrix[u][v] += c;
+            if (!snapshot.isDirected()) {
+                matrix[v][u] += c;
+            }
+        }
+        for (int i = 0; i < ns; i++) {
+            matrix[n][sources[i]] += supply == null || Double.isInfinite(supply[i]) ? SIN_LIMITE : supply[i];
+        }
+        for (int i = 0; i < nt; i++) {
+            matrix[sinks[i]][n + 1] += demand == null ? SIN_LIMITE : demand[i];
+        }
+        double esperado = edmondsKarp(matrix, n, n + 1);
+
+        MaxFlowService.Resultado resultado = maxFlowService.calcular(snapshot, sources, supply, sinks, demand, capacity);
+        if (esperado >= SIN_LIMITE / 2) {
+            assertTrue(resultado.ilimitado, caso);
+            return;
+        }
+        assertFalse(resultado.ilimitado, caso);
+        assertEquals(esperado, resultado.flujo, 1e-6, caso);
+
+        // Max-flow = min-cut: rutas del corte más orígenes y destinos limitantes
+        double corte = 0.0;
+        for (int r : resultado.rutasCorte) {
+            corte += capacity[r];
+        }
+        for (int i : resultado.origenesLimitantes) {
+            corte += supply[i];
+        }
+        for (int i : resultado.destinosLimitantes) {
+            corte += demand[i];
+        }
+        assertEquals(esperado, corte, 1e-6, caso);
+
+        // Capacidades y conservación en los centros intermedios
+        double[] balance = new double[n];
+        for (int r = 0; r < capacity.length; r++) {
+            double f = resultado.flujoRutas[r];
+            assertTrue(Math.abs(f) <= capacity[r] + 1e-9, caso + ", ruta " + r);
+            assertTrue(!snapshot.isDirected() || f >= -1e-9, caso + ", ruta " + r);
+            balance[snapshot.origenRuta(r)] -= f;
+            balance[snapshot.destinoRuta(r)] += f;
+        }
+        boolean[] terminal = new boolean[n];
+        Arrays.stream(sources).forEach(v -> terminal[v] = true);
+        Arrays.stream(sinks).forEach(v -> terminal[v] = true);
+        for (int v = 0; v < n; v++) {
+            if (!terminal[v]) {
+                assertEquals(0.0, balance[v], 1e-6, caso + ", centro " + v);
+            }
+        }
+    }
+
+    private static double edmondsKarp(double[][] capacity, int s, int t) {
+        int n = capacity.length;
+        double[][] flow = new double[n][n];
+        double total = 0.0;
+        while (true) {
+            int[] parent = new int[n];
+            Arrays.fill(parent, -1);
+            parent[s] = s;
+            Deque<Integer> queue = new ArrayDeque<>();
+            queue.add(s);
+            while (!queue.isEmpty()) {
+                int u = queue.poll();
+                for (int v = 0; v < n; v++) {
+                    if (parent[v] == -1 && capacity[u][v] - flow[u][v] > 1e-9) {
+                        parent[v] = u;
+                        queue.add(v);
+                    }
+                }
+            }
+            if (parent[t] == -1) {
+                return total;
+            }
+            double bottleneck = Double.MAX_VALUE;
+            for (int v = t; v != s; v = parent[v]) {
+                bottleneck = Math.min(bottleneck, capacity[parent[v]][v] - flow[parent[v]][v]);
+            }
+            for (int v = t; v != s; v = parent[v]) {
+                flow[parent[v]][v] += bottleneck;
+                flow[v][parent[v]] -= bottleneck;
+            }
+            total += bottleneck;
+        }
+    }
+
+    private static DistributionCenter centro(String id, Integer capacity, Integer currentLoad) {
+        DistributionCenter center = new DistributionCenter();
+        center.setId(id);
+        center.setCapacity(capacity);
+        center.setCurrentLoad(currentLoad);
+        return center;
+    }
+}
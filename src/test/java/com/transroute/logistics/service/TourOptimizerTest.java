@@ -0,0 +1,105 @@
+package com.transroute.logistics.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * La mejora con 2-opt y Or-opt nunca empeora el recorrido inicial (vecino más cercano)
+ * y devuelve un recorrido válido cuyo costo informado coincide con el real
+ */
+class TourOptimizerTest {
+
+    private static final long SIN_LIMITE_NANOS = 10_000_000_000L;
+
+    @Test
+    void nuncaEmpeoraElRecorridoInicial() {
+        Random random = new Random(42);
+        for (int it = 0; it < 500; it++) {
+            int n = 2 + random.nextInt(40);
+            double[][] costos = matrizEuclidea(n, random);
+            boolean cerrado = it % 2 == 0;
+
+            TourOptimizer.Resultado resultado = new TourOptimizer(costos, cerrado, SIN_LIMITE_NANOS).optimizar();
+
+            assertEquals(0, resultado.orden[0], "El recorrido empieza en el origen");
+            int[] ordenado = resultado.orden.clone();
+            Arrays.sort(ordenado);
+            int[] esperado = new int[n];
+            Arrays.setAll(esperado, i -> i);
+            assertArrayEquals(esperado, ordenado, "Cada parada aparece una sola vez");
+            assertEquals(costo(costos, resultado.orden, cerrado), resultado.costo, 1e-9);
+            assertTrue(resultado.costo <= resultado.costoInicial + 1e-9,
+                    "Costo " + resultado.costo + " peor que el inicial " + resultado.costoInicial);
+        }
+    }
+
+    @Test
+    void noMejoraPorDebajoDelOptimo() {
+        Random random = new Random(7);
+        for (int it = 0; it < 300; it++) {
+            int n = 2 + random.nextInt(7);
+            double[][] costos = matrizEuclidea(n, random);
+            boolean cerrado = it % 2 == 0;
+
+            TourOptimizer.Resultado resultado = new TourOptimizer(costos, cerrado, SIN_LIMITE_NANOS).optimizar();
+
+            int[] orden = new int[n];
+            Arrays.setAll(orden, i -> i);
+            double optimo = optimo(costos, orden, 1, cerrado);
+            assertTrue(resultado.costo >= optimo - 1e-9);
+            assertTrue(resultado.completo);
+        }
+    }
+
+    private static double[][] matrizEuclidea(int n, Random random) {
+        double[] x = new double[n];
+        double[] y = new double[n];
+        for (int i = 0; i < n; i++) {
+            x[i] = random.nextDouble() * 100;
+            y[i] = random.nextDouble() * 100;
+        }
+        double[][] costos = new double[n][n];
+        for (int i = 0; i < n; i++) {
+            for (int j = 0; j < n; j++) {
+                costos[i][j] = Math.hypot(x[i] - x[j], y[i] - y[j]);
+            }
+        }
+        return costos;
+    }
+
+    private static double costo(double[][] costos, int[] orden, boolean cerrado) {
+        double total = 0.0;
+        for (int p = 0; p + 1 < orden.length; p++) {
+            total += costos[orden[p]][orden[p + 1]];
+        }
+        return cerrado ? total + costos[orden[orden.length - 1]][orden[0]] : total;
+    }
+
+    /**
+     * Mínimo por fuerza bruta sobre las permutaciones que dejan el origen primero
+     */
+    private static double optimo(double[][] costos, int[] orden, int desde, boolean cerrado) {
+        if (desde == orden.length) {
+            return costo(costos, orden, cerrado);
+        }
+        double mejor = Double.MAX_VALUE;
+        for (int i = desde; i < orden.length; i++) {
+            intercambiar(orden, desde, i);
+            mejor = Math.min(mejor, optimo(costos, orden, desde + 1, cerrado));
+            intercambiar(orden, desde, i);
+        }
+        return mejor;
+    }
+
+    private static void intercambiar(int[] orden, int i, int j) {
+        int tmp = orden[i];
+        orden[i] = orden[j];
+        orden[j] = tmp;
+    }
+}